@@ -0,0 +1,68 @@
+package org.trucker.musicbox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trucker.musicbox.util.AudioAnalyzer;
+import org.trucker.musicbox.util.ScalarAnalysisKernels;
+import org.trucker.musicbox.util.VectorAnalysisKernels;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loudness, peak and tempo analysis of decoded audio with the plain-loop and the Vector API kernels.
+ * The score is in samples per second (all channels counted), so the two rows compare directly and show the SIMD
+ * speed-up. Decoding is left out: it is the same for both kernels. The fork runs with the Vector API module, and the
+ * vector kernels are created directly, so a JVM without it fails the run instead of measuring the fallback.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class AudioAnalysisBenchmark {
+
+    private static final int SAMPLE_RATE = 44100;
+    private static final int SECONDS = 30;
+    private static final int SAMPLES = SAMPLE_RATE * SECONDS * 2;
+
+    @Param({"scalar", "vector"})
+    private String kernels;
+
+    private AudioAnalyzer analyzer;
+    private float[][] channels;
+
+    @Setup
+    public void setUp() {
+        analyzer = new AudioAnalyzer(kernels.equals("vector") ? new VectorAnalysisKernels() : new ScalarAnalysisKernels(8));
+
+        // A 440 Hz tone under noise, with a decaying click at 128 BPM, in stereo.
+        Random random = new Random(42);
+        int frames = SAMPLE_RATE * SECONDS;
+        int beat = Math.round(SAMPLE_RATE * 60f / 128);
+        channels = new float[2][frames];
+        for (int i = 0; i < frames; i++) {
+            float click = 0.5f * (float) Math.exp(-(i % beat) / (0.01 * SAMPLE_RATE));
+            float tone = 0.2f * (float) Math.sin(2 * Math.PI * 440 * i / SAMPLE_RATE);
+            channels[0][i] = tone + click + 0.05f * (float) random.nextGaussian();
+            channels[1][i] = tone - click + 0.05f * (float) random.nextGaussian();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public AudioAnalyzer.Analysis analyze() {
+        return analyzer.analyze(channels, SAMPLE_RATE);
+    }
+}
@@ -0,0 +1,121 @@
+package org.trucker.musicbox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.multipart.MultipartFile;
+import org.trucker.musicbox.model.Audio;
+import org.trucker.musicbox.service.AudioService;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures storing and reading audio files through {@link AudioService} across file sizes.
+ * {@code saveAudio} writes the file to the upload directory and inserts its metadata row; {@code getAudioFile} looks up
+ * the metadata and reads the whole file back. Both go through the real service wiring, including the batched lookup
+ * window on reads ({@code -jvmArgsAppend -Dmusicbox.lookup.window-micros=0} takes it out of the measurement).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AudioServiceBenchmark {
+
+    @Param({"65536", "1048576", "8388608"})
+    private int fileSize;
+
+    private ConfigurableApplicationContext context;
+    private AudioService audioService;
+    private MultipartFile upload;
+    private Long storedId;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkApplication.start();
+        audioService = context.getBean(AudioService.class);
+        byte[] content = new byte[fileSize];
+        new Random(fileSize).nextBytes(content);
+        upload = new ByteArrayMultipartFile("bench-" + fileSize + ".bin", content);
+        storedId = audioService.saveAudio(upload, "Benchmark " + fileSize, 1L, 1L, 180).getId();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(new File("uploads", upload.getOriginalFilename()).toPath());
+        context.close();
+    }
+
+    @Benchmark
+    public Audio saveAudio() throws IOException {
+        return audioService.saveAudio(upload, "Benchmark " + fileSize, 1L, 1L, 180);
+    }
+
+    @Benchmark
+    public byte[] getAudioFile() throws IOException {
+        return audioService.getAudioFile(storedId);
+    }
+
+    /**
+     * In-memory upload, standing in for the multipart request the controller would receive.
+     */
+    private record ByteArrayMultipartFile(String name, byte[] content) implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return name;
+        }
+
+        @Override
+        public String getContentType() {
+            return "application/octet-stream";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return content.length == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return content.length;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return content;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(content);
+        }
+
+        @Override
+        public void transferTo(File destination) throws IOException {
+            Files.write(destination.toPath(), content);
+        }
+    }
+}
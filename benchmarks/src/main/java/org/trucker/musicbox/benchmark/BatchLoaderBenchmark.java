@@ -0,0 +1,93 @@
+package org.trucker.musicbox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trucker.musicbox.util.BatchLoader;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Measures single-ID lookups from 64 request threads, each issued directly and through a {@link BatchLoader}.
+ * The lookup simulates a database round trip of {@code roundTripMicros} plus a small per-key cost. This matches
+ * pages that resolve a playlist one track at a time. It shows what the batch window adds to each lookup and how
+ * much throughput a few shared round trips buy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class BatchLoaderBenchmark {
+
+    private static final long PER_KEY_NANOS = 1_000;
+
+    @Param({"200", "1000"})
+    private long roundTripMicros;
+
+    private ScheduledExecutorService executor;
+    private BatchLoader<Long, String> loader;
+
+    /**
+     * Per-thread random source, so the threads do not contend on it.
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        long next() {
+            return 1L + random.nextInt(100_000);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        executor = Executors.newScheduledThreadPool(4);
+        loader = new BatchLoader<>(this::lookup, executor, 2_000, 500);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public String direct(Keys keys) {
+        long id = keys.next();
+        return lookup(List.of(id)).get(id);
+    }
+
+    @Benchmark
+    public String batched(Keys keys) {
+        return loader.load(keys.next()).join();
+    }
+
+    private Map<Long, String> lookup(Collection<Long> ids) {
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(roundTripMicros) + PER_KEY_NANOS * ids.size());
+        Map<Long, String> values = new HashMap<>();
+        for (Long id : ids) {
+            values.put(id, "value-" + id);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,150 @@
+package org.trucker.musicbox.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.trucker.musicbox.MusicboxApplication;
+import org.trucker.musicbox.model.Album;
+import org.trucker.musicbox.model.Artist;
+import org.trucker.musicbox.model.Audio;
+import org.trucker.musicbox.model.Playlist;
+import org.trucker.musicbox.model.Song;
+import org.trucker.musicbox.model.User;
+import org.trucker.musicbox.repository.AlbumRepository;
+import org.trucker.musicbox.repository.ArtistRepository;
+import org.trucker.musicbox.repository.AudioRepository;
+import org.trucker.musicbox.repository.PlaylistRepository;
+import org.trucker.musicbox.repository.SongRepository;
+import org.trucker.musicbox.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Starts the real application against an in-memory H2 database and seeds it with a realistic catalog.
+ * With the default scale of 1 the catalog has 1,000 artists, 10,000 albums, 100,000 songs and 10,000 audio tracks,
+ * plus 10,000 users with one 20-song playlist each; {@code -Dmusicbox.bench.scale=N} multiplies every count.
+ * The web server is not started, but every service, scheduler and startup listener is, so the measured code runs
+ * with the same wiring as in production. Seeding uses a fixed random seed so runs are comparable.
+ */
+public final class BenchmarkApplication {
+
+    public static final int ALBUMS_PER_ARTIST = 10;
+    public static final int SONGS_PER_ALBUM = 10;
+    public static final int SONGS_PER_PLAYLIST = 20;
+
+    private static final int CHUNK = 1_000; // Rows per seeding transaction.
+
+    /**
+     * Entity counts of the seeded catalog.
+     */
+    public record Catalog(int artists, int albums, int songs, int audio, int users) {
+    }
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Gets the catalog size for the configured scale.
+     * @return The entity counts.
+     */
+    public static Catalog catalog() {
+        int scale = Integer.getInteger("musicbox.bench.scale", 1);
+        int artists = 1_000 * scale;
+        return new Catalog(artists, artists * ALBUMS_PER_ARTIST, artists * ALBUMS_PER_ARTIST * SONGS_PER_ALBUM,
+                10_000 * scale, 10_000 * scale);
+    }
+
+    /**
+     * Starts the application and seeds the database.
+     *
+     * @return The running application context; close it in the benchmark's tear-down.
+     */
+    public static ConfigurableApplicationContext start() {
+        SpringApplication application = new SpringApplication(MusicboxApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        ConfigurableApplicationContext context = application.run(
+                "--spring.datasource.url=jdbc:h2:mem:musicbox-bench;DB_CLOSE_DELAY=-1;MODE=PostgreSQL;NON_KEYWORDS=USER,VALUE",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.show-sql=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        seed(context, catalog());
+        return context;
+    }
+
+    private static void seed(ConfigurableApplicationContext context, Catalog catalog) {
+        TransactionTemplate transactions = context.getBean(TransactionTemplate.class);
+        ArtistRepository artistRepository = context.getBean(ArtistRepository.class);
+        AlbumRepository albumRepository = context.getBean(AlbumRepository.class);
+        SongRepository songRepository = context.getBean(SongRepository.class);
+        AudioRepository audioRepository = context.getBean(AudioRepository.class);
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        PlaylistRepository playlistRepository = context.getBean(PlaylistRepository.class);
+        Random random = new Random(42);
+
+        int artistsPerChunk = CHUNK / (ALBUMS_PER_ARTIST * SONGS_PER_ALBUM);
+        for (int first = 0; first < catalog.artists(); first += artistsPerChunk) {
+            int from = first;
+            int to = Math.min(catalog.artists(), first + artistsPerChunk);
+            transactions.executeWithoutResult(status -> {
+                for (int a = from; a < to; a++) {
+                    Artist artist = artistRepository.save(new Artist("Artist " + a));
+                    for (int b = 0; b < ALBUMS_PER_ARTIST; b++) {
+                        Album album = albumRepository.save(new Album("Album " + a + "-" + b, 1970 + random.nextInt(55), artist));
+                        List<Song> songs = new ArrayList<>(SONGS_PER_ALBUM);
+                        for (int s = 0; s < SONGS_PER_ALBUM; s++) {
+                            songs.add(new Song("Song " + a + "-" + b + "-" + s, 120 + random.nextInt(300), album));
+                        }
+                        songRepository.saveAll(songs);
+                    }
+                }
+            });
+        }
+
+        for (int first = 0; first < catalog.audio(); first += CHUNK) {
+            int from = first;
+            int to = Math.min(catalog.audio(), first + CHUNK);
+            transactions.executeWithoutResult(status -> {
+                List<Audio> tracks = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    Audio audio = new Audio();
+                    audio.setTitle("Track " + i);
+                    audio.setArtist(artistRepository.getReferenceById(1L + random.nextInt(catalog.artists())));
+                    audio.setAlbum(albumRepository.getReferenceById(1L + random.nextInt(catalog.albums())));
+                    audio.setDuration(120 + random.nextInt(300));
+                    audio.setFilePath("uploads/track-" + i + ".mp3");
+                    tracks.add(audio);
+                }
+                audioRepository.saveAll(tracks);
+            });
+        }
+
+        for (int first = 0; first < catalog.users(); first += CHUNK) {
+            int from = first;
+            int to = Math.min(catalog.users(), first + CHUNK);
+            transactions.executeWithoutResult(status -> {
+                for (int i = from; i < to; i++) {
+                    User user = new User();
+                    user.setUsername("user" + i);
+                    user.setEmail("user" + i + "@example.com");
+                    user.setPassword("not-a-real-hash");
+                    user.setStatus("ACTIVE");
+                    user.setPremium(random.nextInt(4) == 0);
+                    user = userRepository.save(user);
+                    Set<Song> songs = new HashSet<>();
+                    while (songs.size() < SONGS_PER_PLAYLIST) {
+                        songs.add(songRepository.getReferenceById(1L + random.nextInt(catalog.songs())));
+                    }
+                    playlistRepository.save(new Playlist("Playlist " + i, user, songs));
+                }
+            });
+        }
+    }
+}
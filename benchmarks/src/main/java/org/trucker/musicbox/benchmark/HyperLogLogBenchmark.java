@@ -0,0 +1,126 @@
+package org.trucker.musicbox.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trucker.musicbox.util.HyperLogLog;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link HyperLogLog} operations of the unique listener counts at each precision: {@code add} runs once
+ * per play on the listen event writer thread, {@code merge}, {@code toBytes} and {@code fromBytes} once per sketch and
+ * flush, and {@code estimate} once per month of a query. Sketches hold 100,000 distinct users.
+ * {@code accuracy} reports the observed relative error and the size of one sketch as secondary results next to its
+ * (unimportant) time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HyperLogLogBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int TRIALS = 200;
+
+    /**
+     * Error and size of the sketches at the benchmark's precision, filled in by {@link #accuracy}.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Accuracy {
+        /** Root mean square of the relative error over all trials, in percent. */
+        public double rmsErrorPercent;
+        /** Largest relative error of any trial, in percent. */
+        public double maxErrorPercent;
+        /** Bytes of registers per sketch in memory. */
+        public long memoryBytes;
+        /** Bytes per sketch in the listener_sketch table. */
+        public long serializedBytes;
+    }
+
+    @Param({"10", "11", "12", "14"})
+    private int precision;
+
+    private HyperLogLog sketch;
+    private HyperLogLog other;
+    private byte[] serialized;
+    private long userId;
+
+    @Setup
+    public void setUp() {
+        sketch = new HyperLogLog(precision);
+        other = new HyperLogLog(precision);
+        for (long i = 1; i <= USERS; i++) {
+            sketch.add(i);
+            other.add(i + 50_000);
+        }
+        serialized = sketch.toBytes();
+    }
+
+    @Benchmark
+    public HyperLogLog add() {
+        sketch.add(userId++);
+        return sketch;
+    }
+
+    @Benchmark
+    public long estimate() {
+        return sketch.estimate();
+    }
+
+    @Benchmark
+    public HyperLogLog merge() {
+        sketch.merge(other);
+        return sketch;
+    }
+
+    @Benchmark
+    public byte[] toBytes() {
+        return sketch.toBytes();
+    }
+
+    @Benchmark
+    public HyperLogLog fromBytes() {
+        return HyperLogLog.fromBytes(serialized);
+    }
+
+    /**
+     * Counts {@value #TRIALS} disjoint sets of 100,000 user IDs, one sketch each, and records how far the estimates are
+     * from the true count.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void accuracy(Accuracy accuracy) {
+        double squares = 0;
+        double max = 0;
+        for (int trial = 0; trial < TRIALS; trial++) {
+            HyperLogLog trialSketch = new HyperLogLog(precision);
+            long first = (long) trial * USERS + 1;
+            for (long id = first; id < first + USERS; id++) {
+                trialSketch.add(id);
+            }
+            double error = Math.abs(trialSketch.estimate() - USERS) / (double) USERS;
+            squares += error * error;
+            max = Math.max(max, error);
+        }
+        accuracy.rmsErrorPercent = 100 * Math.sqrt(squares / TRIALS);
+        accuracy.maxErrorPercent = 100 * max;
+        accuracy.memoryBytes = 1L << precision;
+        accuracy.serializedBytes = HyperLogLog.serializedSize(precision);
+    }
+}
@@ -0,0 +1,101 @@
+package org.trucker.musicbox.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trucker.musicbox.model.Album;
+import org.trucker.musicbox.model.Artist;
+import org.trucker.musicbox.model.Audio;
+import org.trucker.musicbox.model.Playlist;
+import org.trucker.musicbox.model.Song;
+import org.trucker.musicbox.model.User;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures JSON serialization of the entities returned by the REST endpoints, with the same Jackson setup
+ * Spring MVC uses by default. The graphs are built without back-references (an album's songs do not point back at it),
+ * as the bidirectional mappings would otherwise recurse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int songs;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private Audio audio;
+    private Playlist playlist;
+    private Album album;
+
+    @Setup
+    public void setUp() {
+        Artist artist = new Artist("Benchmark Artist");
+        artist.setId(1L);
+        Album trackAlbum = new Album("Benchmark Album", 2024, artist);
+        trackAlbum.setId(1L);
+
+        audio = new Audio();
+        audio.setId(1L);
+        audio.setTitle("Benchmark Track");
+        audio.setArtist(artist);
+        audio.setAlbum(trackAlbum);
+        audio.setDuration(215);
+        audio.setFilePath("uploads/benchmark-track.mp3");
+
+        Set<Song> playlistSongs = new LinkedHashSet<>();
+        Set<Song> albumSongs = new LinkedHashSet<>();
+        for (int i = 0; i < songs; i++) {
+            Song inPlaylist = new Song("Song " + i, 180 + i, trackAlbum);
+            inPlaylist.setId((long) i);
+            playlistSongs.add(inPlaylist);
+            Song inAlbum = new Song("Song " + i, 180 + i, null);
+            inAlbum.setId((long) i);
+            albumSongs.add(inAlbum);
+        }
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmark");
+        user.setEmail("benchmark@example.com");
+        user.setStatus("ACTIVE");
+        playlist = new Playlist("Benchmark Playlist", user, playlistSongs);
+        playlist.setId(1L);
+
+        album = new Album("Benchmark Album", 2024, artist);
+        album.setId(2L);
+        album.setSongs(albumSongs);
+        album.setTrackCount(songs);
+    }
+
+    @Benchmark
+    public byte[] audio() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(audio);
+    }
+
+    @Benchmark
+    public byte[] playlist() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(playlist);
+    }
+
+    @Benchmark
+    public byte[] album() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(album);
+    }
+}
@@ -0,0 +1,45 @@
+package org.trucker.musicbox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one bcrypt hash at each cost, the table to pick a fixed {@code musicbox.password.cost} from for production
+ * hardware: the highest cost whose time stays under {@code musicbox.password.target-ms} (250 ms by default).
+ * Each step doubles the time, so only a few iterations are run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PasswordHashingBenchmark {
+
+    @Param({"8", "10", "11", "12", "13", "14"})
+    private int cost;
+
+    private BCryptPasswordEncoder encoder;
+
+    @Setup
+    public void setUp() {
+        encoder = new BCryptPasswordEncoder(cost);
+    }
+
+    @Benchmark
+    public String encode() {
+        return encoder.encode("calibration-password");
+    }
+}
@@ -0,0 +1,120 @@
+package org.trucker.musicbox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.trucker.musicbox.model.Album;
+import org.trucker.musicbox.model.Audio;
+import org.trucker.musicbox.model.Playlist;
+import org.trucker.musicbox.model.Song;
+import org.trucker.musicbox.model.User;
+import org.trucker.musicbox.repository.AlbumRepository;
+import org.trucker.musicbox.repository.AudioRepository;
+import org.trucker.musicbox.repository.PlaylistRepository;
+import org.trucker.musicbox.repository.SongRepository;
+import org.trucker.musicbox.repository.UserRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the repository queries behind the read endpoints against the seeded catalog of {@link BenchmarkApplication}.
+ * Every invocation picks a random key, so the results reflect index lookups over the whole table rather than one hot row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    private static final int BATCH = 50;
+
+    private ConfigurableApplicationContext context;
+    private BenchmarkApplication.Catalog catalog;
+    private SongRepository songRepository;
+    private AlbumRepository albumRepository;
+    private AudioRepository audioRepository;
+    private UserRepository userRepository;
+    private PlaylistRepository playlistRepository;
+
+    /**
+     * Per-thread random source, so concurrent runs ({@code -t}) do not contend on it.
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        long next(int bound) {
+            return 1L + random.nextInt(bound);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        catalog = BenchmarkApplication.catalog();
+        songRepository = context.getBean(SongRepository.class);
+        albumRepository = context.getBean(AlbumRepository.class);
+        audioRepository = context.getBean(AudioRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        playlistRepository = context.getBean(PlaylistRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Song> songsByAlbumId(Keys keys) {
+        return songRepository.findSongsByAlbumId(keys.next(catalog.albums()));
+    }
+
+    @Benchmark
+    public List<Album> albumsByArtistName(Keys keys) {
+        return albumRepository.findAlbumsByArtistName("Artist " + (keys.next(catalog.artists()) - 1));
+    }
+
+    @Benchmark
+    public List<Album> albumsWithArtistByArtistId(Keys keys) {
+        return albumRepository.findAlbumsWithArtistByArtistId(keys.next(catalog.artists()));
+    }
+
+    @Benchmark
+    public Optional<Audio> audioById(Keys keys) {
+        return audioRepository.findById(keys.next(catalog.audio()));
+    }
+
+    @Benchmark
+    public List<Audio> audioByIds(Keys keys) {
+        List<Long> ids = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            ids.add(keys.next(catalog.audio()));
+        }
+        return audioRepository.findAllById(ids);
+    }
+
+    @Benchmark
+    public Optional<User> userByUsername(Keys keys) {
+        return userRepository.findByUsername("user" + (keys.next(catalog.users()) - 1));
+    }
+
+    @Benchmark
+    public List<Playlist> playlistsByUserId(Keys keys) {
+        return playlistRepository.findPlaylistsByUserId(keys.next(catalog.users()));
+    }
+}
@@ -0,0 +1,60 @@
+package org.trucker.musicbox.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trucker.musicbox.util.HyperLogLog;
+import org.trucker.musicbox.util.StripedRateLimiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the cost of one {@link StripedRateLimiter#tryAcquire} with one thread per core sharing a limiter.
+ * One request in eight hits one of 16 hot keys and the rest spread over 100k clients, so the score includes CAS
+ * contention on the hot buckets as well as bucket reuse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class StripedRateLimiterBenchmark {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private StripedRateLimiter limiter;
+
+    @Setup
+    public void setUp() {
+        limiter = new StripedRateLimiter(1 << 18);
+    }
+
+    /**
+     * Request sequence of one benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Client {
+        private static final AtomicInteger SEEDS = new AtomicInteger();
+
+        private final long seed = SEEDS.getAndIncrement();
+        private int i;
+    }
+
+    @Benchmark
+    public long tryAcquire(Client client) {
+        int i = client.i++;
+        long key = (i & 7) == 0 ? (i >>> 3) & 15 : ((i * 31L + client.seed * 7919L) & Long.MAX_VALUE) % 100_000;
+        return limiter.tryAcquire(HyperLogLog.mix64(key), SECOND / 100, 200, System.nanoTime());
+    }
+}
@@ -0,0 +1,75 @@
+package org.trucker.musicbox.benchmark;
+
+import com.finalproject.musicbox.model.Role;
+import com.finalproject.musicbox.model.User;
+import com.finalproject.musicbox.service.TokenService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Base64;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link TokenService#verify} with a lookup in an in-memory session map of 100,000 sessions, the best case
+ * for session authentication: a shared session store or a user reload per request adds a network round trip on top.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenVerificationBenchmark {
+
+    private static final int SESSIONS = 100_000;
+
+    private TokenService tokenService;
+    private String[] tokens;
+    private ConcurrentHashMap<String, Long> sessions;
+    private String[] sessionIds;
+    private long now;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        tokenService = new TokenService("0:" + Base64.getEncoder().encodeToString(new byte[32]), 0, 900, 3600);
+        Role role = new Role("ROLE_1");
+        role.setId(1L);
+        tokens = new String[1024];
+        for (int i = 0; i < tokens.length; i++) {
+            User user = new User();
+            user.setId(i + 1L);
+            user.setRoles(Set.of(role));
+            tokens[i] = tokenService.issueTokens(user, i % 2 == 0).accessToken();
+        }
+        sessions = new ConcurrentHashMap<>();
+        sessionIds = new String[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            sessionIds[i] = UUID.randomUUID().toString();
+            sessions.put(sessionIds[i], (long) i);
+        }
+        now = System.currentTimeMillis() / 1000;
+    }
+
+    @Benchmark
+    public TokenService.TokenClaims verifyToken() {
+        return tokenService.verify(tokens[next++ & 1023], TokenService.TokenType.ACCESS, now);
+    }
+
+    @Benchmark
+    public Long lookUpSession() {
+        // A multiplicative step visits the sessions in a cache-unfriendly order, like requests from many users.
+        return sessions.get(sessionIds[(int) (((next++ & Integer.MAX_VALUE) * 40_503L) % SESSIONS)]);
+    }
+}
@@ -0,0 +1,120 @@
+package org.trucker.musicbox.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms of one load step, per operation.
+ * Each operation is recorded twice: from the moment it was scheduled to start, and from the moment it actually started.
+ * The first is the coordinated-omission-corrected latency a user would see: when the server (or the generator) falls
+ * behind, the time an operation spent waiting to be sent counts against it, instead of silently lowering the request rate.
+ * The second is what a closed-loop tool would report and is kept for comparison.
+ */
+public class LatencyRecorder {
+
+    private static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    /**
+     * Histograms and counters of one operation.
+     */
+    public static final class Stats {
+        final Histogram corrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        final Histogram uncorrected = new ConcurrentHistogram(HIGHEST_TRACKABLE_NANOS, 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+
+        public Histogram corrected() {
+            return corrected;
+        }
+    }
+
+    private final Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+
+    public LatencyRecorder() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new Stats());
+        }
+    }
+
+    /**
+     * Records one finished operation.
+     *
+     * @param operation The operation.
+     * @param intendedStartNanos When the operation was scheduled to start.
+     * @param actualStartNanos When its first request was actually sent.
+     * @param endNanos When its last response was fully read.
+     * @param bytes The number of response body bytes received.
+     * @param failed Whether any request failed or returned an error status.
+     */
+    public void record(Operation operation, long intendedStartNanos, long actualStartNanos, long endNanos, long bytes, boolean failed) {
+        Stats target = stats.get(operation);
+        target.corrected.recordValue(Math.min(HIGHEST_TRACKABLE_NANOS, endNanos - intendedStartNanos));
+        target.uncorrected.recordValue(Math.min(HIGHEST_TRACKABLE_NANOS, endNanos - actualStartNanos));
+        target.bytes.add(bytes);
+        if (failed) {
+            target.errors.increment();
+        }
+    }
+
+    /**
+     * Gets the histograms and counters of one operation.
+     *
+     * @param operation The operation.
+     * @return Its stats.
+     */
+    public Stats get(Operation operation) {
+        return stats.get(operation);
+    }
+
+    /**
+     * Gets the corrected latency of all operations together.
+     * @return A new histogram holding every recorded operation.
+     */
+    public Histogram total() {
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_NANOS, 3);
+        stats.values().forEach(operationStats -> total.add(operationStats.corrected));
+        return total;
+    }
+
+    /**
+     * Gets the number of failed operations.
+     * @return The error count.
+     */
+    public long errors() {
+        return stats.values().stream().mapToLong(operationStats -> operationStats.errors.sum()).sum();
+    }
+
+    /**
+     * Prints a percentile summary table, in milliseconds.
+     *
+     * @param out Where to print.
+     * @param seconds The measured duration, to compute throughput.
+     */
+    public void printSummary(PrintStream out, double seconds) {
+        out.printf("%-9s %9s %8s %9s %9s %9s %9s %9s %9s %11s%n",
+                "operation", "count", "errors", "ops/s", "p50", "p90", "p99", "p99.9", "max", "p99 (raw)");
+        for (Operation operation : Operation.values()) {
+            Stats operationStats = stats.get(operation);
+            Histogram corrected = operationStats.corrected;
+            if (corrected.getTotalCount() == 0) {
+                continue;
+            }
+            out.printf("%-9s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %11.2f%n",
+                    operation.name().toLowerCase(), corrected.getTotalCount(), operationStats.errors.sum(),
+                    corrected.getTotalCount() / seconds,
+                    millis(corrected.getValueAtPercentile(50)), millis(corrected.getValueAtPercentile(90)),
+                    millis(corrected.getValueAtPercentile(99)), millis(corrected.getValueAtPercentile(99.9)),
+                    millis(corrected.getMaxValue()), millis(operationStats.uncorrected.getValueAtPercentile(99)));
+        }
+    }
+
+    static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,426 @@
+package org.trucker.musicbox.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load generator for a running musicbox instance.
+ * For each target rate in {@code --rates} it starts operations at fixed intervals, whatever the state of earlier ones,
+ * each on its own virtual thread, and picks every operation from the weighted {@code --mix}. Latency is measured from the
+ * scheduled start time, so a server that stalls is charged for the whole backlog it causes (see {@link LatencyRecorder}).
+ * After each step it prints a percentile table; at the end it prints the saturation curve (achieved rate and latency
+ * per target rate) and writes it, with the full HdrHistogram percentile distributions, to {@code --report-dir}.
+ *
+ * <pre>
+ * java -jar loadtest/target/loadtest.jar --url=http://localhost:8080 --user=user --password=secret \
+ *      --rates=50,100,200,400 --duration=60 --mix=register:2,search:15,browse:25,metadata:43,stream:15
+ * </pre>
+ *
+ * <p>With {@code --mode=listeners} it instead holds {@code --listeners} slow audio downloads open and measures metadata
+ * requests alongside them (see {@link #runListeners}), to compare the platform and virtual thread modes of the server.
+ */
+public class LoadTest {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("url", "http://localhost:8080"),
+            Map.entry("mode", "rates"),
+            Map.entry("mix", "register:2,search:15,browse:25,metadata:43,stream:15"),
+            Map.entry("rates", "50,100,200,400,800"),
+            Map.entry("duration", "60"),
+            Map.entry("warmup", "10"),
+            Map.entry("max-in-flight", "20000"),
+            Map.entry("timeout", "30"),
+            Map.entry("stop-error-rate", "0.5"),
+            Map.entry("artists", "1000"),
+            Map.entry("albums", "10000"),
+            Map.entry("songs", "100000"),
+            Map.entry("audio", "10000"),
+            Map.entry("users", "10000"),
+            Map.entry("range-bytes", "65536"),
+            Map.entry("listeners", "10000"),
+            Map.entry("listen-rate", "32768"),
+            Map.entry("ramp", "30"),
+            Map.entry("probe-rate", "50"),
+            Map.entry("seed", "42"),
+            Map.entry("report-dir", "loadtest-report"));
+
+    /**
+     * One point of the saturation curve.
+     */
+    private record StepResult(int targetRate, double achievedRate, Histogram latency, long errors) {
+    }
+
+    private final Map<String, String> options;
+    private final Operation.Target target;
+    private final Map<Operation, Integer> mix;
+    private final HttpClient client;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private LoadTest(Map<String, String> options) {
+        this.options = options;
+        String authorization = null;
+        if (options.containsKey("user")) {
+            String credentials = options.get("user") + ":" + options.getOrDefault("password", "");
+            authorization = "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+        }
+        this.target = new Operation.Target(URI.create(options.get("url")), authorization,
+                Duration.ofSeconds(longOption("timeout")), Long.toString(System.currentTimeMillis(), 36),
+                longOption("artists"), longOption("albums"), longOption("songs"), longOption("audio"), longOption("users"),
+                (int) longOption("range-bytes"));
+        this.mix = parseMix(options.get("mix"));
+        this.client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(longOption("timeout")))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Options are given as --name=value; unknown argument: " + arg);
+                System.exit(1);
+            }
+            String[] nameAndValue = arg.substring(2).split("=", 2);
+            options.put(nameAndValue[0], nameAndValue[1]);
+        }
+        LoadTest loadTest = new LoadTest(options);
+        if ("listeners".equals(options.get("mode"))) {
+            loadTest.runListeners();
+        } else {
+            loadTest.run();
+        }
+    }
+
+    private void run() throws IOException, InterruptedException {
+        Path reportDir = Path.of(options.get("report-dir"));
+        Files.createDirectories(reportDir);
+        SplittableRandom random = new SplittableRandom(longOption("seed"));
+        List<StepResult> curve = new ArrayList<>();
+        for (String rate : options.get("rates").split(",")) {
+            int targetRate = Integer.parseInt(rate.trim());
+            System.out.printf("%n== %d ops/s for %ds after %ds warm-up ==%n", targetRate, longOption("duration"), longOption("warmup"));
+            LatencyRecorder recorder = runStep(targetRate, random);
+            double seconds = longOption("duration");
+            recorder.printSummary(System.out, seconds);
+            writeDistributions(reportDir, targetRate, recorder);
+
+            Histogram total = recorder.total();
+            StepResult result = new StepResult(targetRate, total.getTotalCount() / seconds, total, recorder.errors());
+            curve.add(result);
+            double errorRate = total.getTotalCount() == 0 ? 1 : (double) result.errors() / total.getTotalCount();
+            if (errorRate > Double.parseDouble(options.get("stop-error-rate"))) {
+                System.out.printf("Stopping: %.0f%% of operations failed at %d ops/s%n", errorRate * 100, targetRate);
+                break;
+            }
+        }
+        printCurve(System.out, curve);
+        try (PrintStream csv = new PrintStream(Files.newOutputStream(reportDir.resolve("saturation.csv")), false, StandardCharsets.UTF_8)) {
+            csv.println("target_rate,achieved_rate,p50_ms,p90_ms,p99_ms,p999_ms,max_ms,errors");
+            for (StepResult step : curve) {
+                Histogram latency = step.latency();
+                csv.printf("%d,%.1f,%.3f,%.3f,%.3f,%.3f,%.3f,%d%n", step.targetRate(), step.achievedRate(),
+                        LatencyRecorder.millis(latency.getValueAtPercentile(50)), LatencyRecorder.millis(latency.getValueAtPercentile(90)),
+                        LatencyRecorder.millis(latency.getValueAtPercentile(99)), LatencyRecorder.millis(latency.getValueAtPercentile(99.9)),
+                        LatencyRecorder.millis(latency.getMaxValue()), step.errors());
+            }
+        }
+        System.out.println("Reports written to " + reportDir.toAbsolutePath());
+        executor.shutdownNow();
+    }
+
+    /**
+     * Slow-listener soak. Opens {@code --listeners} audio downloads spread over {@code --ramp} seconds, each read at
+     * {@code --listen-rate} bytes per second like a player buffering a stream and restarted on another track when it ends,
+     * and keeps them open for {@code --duration} seconds. Meanwhile metadata requests are sent at {@code --probe-rate}.
+     * A server that ties a thread to each download runs out of threads once the listeners outnumber them: later listeners
+     * wait for their first byte and probes queue behind them, which shows in both histograms and the streaming count.
+     */
+    private void runListeners() throws IOException, InterruptedException {
+        Path reportDir = Path.of(options.get("report-dir"));
+        Files.createDirectories(reportDir);
+        int listeners = (int) longOption("listeners");
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long holdFrom = start + TimeUnit.SECONDS.toNanos(longOption("ramp"));
+        long end = holdFrom + TimeUnit.SECONDS.toNanos(longOption("duration"));
+        Histogram firstByte = new ConcurrentHistogram(TimeUnit.MINUTES.toNanos(5), 3);
+        AtomicInteger streaming = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        LongAdder bytes = new LongAdder();
+        LongAdder errors = new LongAdder();
+        CountDownLatch finished = new CountDownLatch(listeners);
+        SplittableRandom random = new SplittableRandom(longOption("seed"));
+        System.out.printf("%n== %d listeners at %d B/s, ramped over %ds, held for %ds, %d probes/s ==%n", listeners,
+                longOption("listen-rate"), longOption("ramp"), longOption("duration"), longOption("probe-rate"));
+
+        for (int i = 0; i < listeners; i++) {
+            long intended = start + (holdFrom - start) * i / listeners;
+            SplittableRandom listenerRandom = random.split();
+            executor.execute(() -> {
+                try {
+                    LockSupport.parkNanos(intended - System.nanoTime());
+                    listen(listenerRandom, intended, end, firstByte, streaming, peak, bytes, errors);
+                } finally {
+                    finished.countDown();
+                }
+            });
+        }
+        executor.execute(() -> {
+            long lastBytes = 0;
+            while (System.nanoTime() - end < 0) {
+                LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(5));
+                long total = bytes.sum();
+                System.out.printf("streaming=%d peak=%d throughput=%.1f MB/s errors=%d%n", streaming.get(), peak.get(),
+                        (total - lastBytes) / 5.0 / (1 << 20), errors.sum());
+                lastBytes = total;
+            }
+        });
+
+        LatencyRecorder probes = new LatencyRecorder();
+        AtomicLong lateStarts = new AtomicLong();
+        long interval = TimeUnit.SECONDS.toNanos(1) / longOption("probe-rate");
+        for (long i = 0; ; i++) {
+            long intended = holdFrom + i * interval;
+            if (intended - end >= 0) {
+                break;
+            }
+            LockSupport.parkNanos(intended - System.nanoTime());
+            SplittableRandom probeRandom = random.split();
+            executor.execute(() -> execute(Operation.METADATA, probeRandom, intended, probes, lateStarts));
+        }
+        if (!finished.await(longOption("timeout") + 5, TimeUnit.SECONDS)) {
+            System.out.println("Some listeners were still running after the timeout.");
+        }
+
+        System.out.printf("%nPeak concurrent listeners: %d of %d, errors: %d, %.1f MB received%n", peak.get(), listeners,
+                errors.sum(), bytes.sum() / (double) (1 << 20));
+        System.out.printf("Time to first byte (from scheduled start, ms): p50=%.2f p90=%.2f p99=%.2f max=%.2f%n",
+                LatencyRecorder.millis(firstByte.getValueAtPercentile(50)), LatencyRecorder.millis(firstByte.getValueAtPercentile(90)),
+                LatencyRecorder.millis(firstByte.getValueAtPercentile(99)), LatencyRecorder.millis(firstByte.getMaxValue()));
+        System.out.println("Metadata probes while the listeners were connected:");
+        probes.printSummary(System.out, longOption("duration"));
+        try (PrintStream out = new PrintStream(Files.newOutputStream(reportDir.resolve("listeners-first-byte.hgrm")), false, StandardCharsets.UTF_8)) {
+            firstByte.outputPercentileDistribution(out, 1_000_000.0);
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(reportDir.resolve("listeners-probe.hgrm")), false, StandardCharsets.UTF_8)) {
+            probes.total().outputPercentileDistribution(out, 1_000_000.0);
+        }
+        System.out.println("Reports written to " + reportDir.toAbsolutePath());
+        executor.shutdownNow();
+    }
+
+    /**
+     * One slow listener: downloads whole tracks at the listen rate, one after another, until the end of the run.
+     */
+    private void listen(SplittableRandom random, long intended, long end, Histogram firstByte, AtomicInteger streaming,
+                        AtomicInteger peak, LongAdder bytes, LongAdder errors) {
+        long rate = longOption("listen-rate");
+        byte[] buffer = new byte[8192];
+        boolean first = true;
+        while (System.nanoTime() - end < 0) {
+            HttpRequest request = target.request("/api/audio/file/" + target.audioId(random) + "?userId=" + target.userId(random))
+                    .GET()
+                    .build();
+            boolean counted = false;
+            try {
+                HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                try (InputStream body = response.body()) {
+                    if (response.statusCode() >= 400) {
+                        errors.increment();
+                        LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(1));
+                        continue;
+                    }
+                    long trackStart = System.nanoTime();
+                    long received = 0;
+                    for (int read; (read = body.read(buffer)) >= 0 && System.nanoTime() - end < 0; ) {
+                        if (!counted) {
+                            counted = true;
+                            peak.accumulateAndGet(streaming.incrementAndGet(), Math::max);
+                            if (first) {
+                                first = false;
+                                firstByte.recordValue(Math.min(firstByte.getHighestTrackableValue(), System.nanoTime() - intended));
+                            }
+                        }
+                        received += read;
+                        bytes.add(read);
+                        // Pace the reads; the server's writes block once the socket buffers between us are full.
+                        LockSupport.parkNanos(trackStart + received * TimeUnit.SECONDS.toNanos(1) / rate - System.nanoTime());
+                    }
+                }
+            } catch (IOException e) {
+                errors.increment();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                if (counted) {
+                    streaming.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one step at a fixed rate. Operations scheduled during the warm-up run but are not recorded.
+     */
+    private LatencyRecorder runStep(int rate, SplittableRandom random) throws InterruptedException {
+        LatencyRecorder recorder = new LatencyRecorder();
+        int maxInFlight = (int) longOption("max-in-flight");
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(longOption("warmup"));
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(longOption("duration"));
+        AtomicLong lateStarts = new AtomicLong();
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * interval;
+            if (intended - end >= 0) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            // If the in-flight cap is reached the schedule slips, but latency is still measured from the intended start.
+            inFlight.acquire();
+            Operation operation = pick(random);
+            SplittableRandom operationRandom = random.split();
+            boolean record = intended - measureFrom >= 0;
+            executor.execute(() -> {
+                try {
+                    execute(operation, operationRandom, intended, record ? recorder : null, lateStarts);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+        if (!inFlight.tryAcquire(maxInFlight, longOption("timeout") + 5, TimeUnit.SECONDS)) {
+            System.out.println("Some operations were still running after the timeout; they are not included.");
+        } else {
+            inFlight.release(maxInFlight);
+        }
+        if (lateStarts.get() > 0) {
+            System.out.printf("%d operations started more than 10 ms late; the generator or the in-flight cap was saturated.%n",
+                    lateStarts.get());
+        }
+        return recorder;
+    }
+
+    private void execute(Operation operation, SplittableRandom random, long intended, LatencyRecorder recorder, AtomicLong lateStarts) {
+        long actualStart = System.nanoTime();
+        if (actualStart - intended > TimeUnit.MILLISECONDS.toNanos(10)) {
+            lateStarts.incrementAndGet();
+        }
+        long bytes = 0;
+        boolean failed = false;
+        try {
+            for (HttpRequest request : operation.requests(target, random)) {
+                HttpResponse<InputStream> response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+                try (InputStream body = response.body()) {
+                    bytes += body.transferTo(OutputStream.nullOutputStream());
+                }
+                if (response.statusCode() >= 400) {
+                    failed = true;
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (recorder != null) {
+            recorder.record(operation, intended, actualStart, System.nanoTime(), bytes, failed);
+        }
+    }
+
+    private Operation pick(SplittableRandom random) {
+        int total = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int point = random.nextInt(total);
+        for (Map.Entry<Operation, Integer> entry : mix.entrySet()) {
+            point -= entry.getValue();
+            if (point < 0) {
+                return entry.getKey();
+            }
+        }
+        throw new IllegalStateException("Empty mix");
+    }
+
+    private static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : spec.split(",")) {
+            String[] nameAndWeight = entry.trim().split(":", 2);
+            int weight = Integer.parseInt(nameAndWeight[1].trim());
+            if (weight > 0) {
+                mix.put(Operation.valueOf(nameAndWeight[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("The mix must give at least one operation a positive weight");
+        }
+        return mix;
+    }
+
+    private static void writeDistributions(Path reportDir, int rate, LatencyRecorder recorder) throws IOException {
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = recorder.get(operation).corrected();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            Path file = reportDir.resolve(rate + "-" + operation.name().toLowerCase() + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+                histogram.outputPercentileDistribution(out, 1_000_000.0); // Values in milliseconds.
+            }
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(reportDir.resolve(rate + "-all.hgrm")), false, StandardCharsets.UTF_8)) {
+            recorder.total().outputPercentileDistribution(out, 1_000_000.0);
+        }
+    }
+
+    private static void printCurve(PrintStream out, List<StepResult> curve) {
+        out.printf("%n== Saturation curve (corrected latency, ms) ==%n");
+        out.printf("%11s %13s %9s %9s %9s %9s%n", "target/s", "achieved/s", "p50", "p99", "p99.9", "errors");
+        for (StepResult step : curve) {
+            Histogram latency = step.latency();
+            out.printf("%11d %13.1f %9.2f %9.2f %9.2f %9d%n", step.targetRate(), step.achievedRate(),
+                    LatencyRecorder.millis(latency.getValueAtPercentile(50)), LatencyRecorder.millis(latency.getValueAtPercentile(99)),
+                    LatencyRecorder.millis(latency.getValueAtPercentile(99.9)), step.errors());
+        }
+    }
+
+    private long longOption(String name) {
+        return Long.parseLong(options.get(name).trim());
+    }
+}
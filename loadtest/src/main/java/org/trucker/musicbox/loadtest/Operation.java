@@ -0,0 +1,143 @@
+package org.trucker.musicbox.loadtest;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The kinds of request the load generator replays, each mapped to the endpoints a client would call for it.
+ * An operation may consist of several requests sent one after the other (browsing an artist loads the artist page and
+ * then one of its albums); its latency covers all of them.
+ */
+public enum Operation {
+
+    /**
+     * Signs up a new user: an availability check followed by the registration.
+     */
+    REGISTER {
+        @Override
+        List<HttpRequest> requests(Target target, SplittableRandom random) {
+            String name = "load-" + target.runId() + "-" + REGISTRATIONS.incrementAndGet();
+            String body = "{\"username\":\"" + name + "\",\"password\":\"load-test-password\",\"email\":\"" + name + "@example.com\"}";
+            return List.of(
+                    target.get("/api/users/register/availability?username=" + encode(name) + "&email=" + encode(name + "@example.com")),
+                    target.request("/api/users/register")
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(body))
+                            .build());
+        }
+    },
+
+    /**
+     * Searches the catalog for the albums of an artist by name.
+     */
+    SEARCH {
+        @Override
+        List<HttpRequest> requests(Target target, SplittableRandom random) {
+            return List.of(target.get("/api/catalog/albums?artistName=" + encode("Artist " + (target.artistId(random) - 1))));
+        }
+    },
+
+    /**
+     * Browses the catalog: an artist page, then the track list of one album, then the metadata of its tracks in one call.
+     */
+    BROWSE {
+        @Override
+        List<HttpRequest> requests(Target target, SplittableRandom random) {
+            List<String> ids = new ArrayList<>(PAGE_SIZE);
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                ids.add(Long.toString(target.songId(random)));
+            }
+            return List.of(
+                    target.get("/api/catalog/artists/" + target.artistId(random) + "/discography"),
+                    target.get("/api/catalog/albums/" + target.albumId(random) + "/songs"),
+                    target.get("/api/catalog/songs?ids=" + String.join(",", ids)));
+        }
+    },
+
+    /**
+     * Fetches the metadata of one audio track, as a player does before streaming it.
+     */
+    METADATA {
+        @Override
+        List<HttpRequest> requests(Target target, SplittableRandom random) {
+            return List.of(target.get("/api/audio/" + target.audioId(random)));
+        }
+    },
+
+    /**
+     * Streams a byte range of an audio file, as a player seeking or buffering does.
+     */
+    STREAM {
+        @Override
+        List<HttpRequest> requests(Target target, SplittableRandom random) {
+            long offset = (long) random.nextInt(16) * target.rangeBytes();
+            return List.of(target.request("/api/audio/file/" + target.audioId(random) + "?userId=" + target.userId(random))
+                    .header("Range", "bytes=" + offset + "-" + (offset + target.rangeBytes() - 1))
+                    .GET()
+                    .build());
+        }
+    };
+
+    private static final int PAGE_SIZE = 20;
+    private static final AtomicLong REGISTRATIONS = new AtomicLong();
+
+    /**
+     * Builds the requests of one execution of this operation.
+     *
+     * @param target The instance under test and its ID ranges.
+     * @param random The random source of the calling thread.
+     * @return The requests, to be sent in order.
+     */
+    abstract List<HttpRequest> requests(Target target, SplittableRandom random);
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The instance under test: base URL, credentials and the ID ranges of its data set.
+     * The defaults match the catalog seeded by the benchmark module and the synthetic data generator.
+     */
+    public record Target(URI baseUri, String authorization, Duration timeout, String runId, long artists, long albums,
+                         long songs, long audio, long users, int rangeBytes) {
+
+        HttpRequest.Builder request(String path) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(timeout);
+            if (authorization != null) {
+                builder.header("Authorization", authorization);
+            }
+            return builder;
+        }
+
+        HttpRequest get(String path) {
+            return request(path).GET().build();
+        }
+
+        long artistId(SplittableRandom random) {
+            return 1 + random.nextLong(artists);
+        }
+
+        long albumId(SplittableRandom random) {
+            return 1 + random.nextLong(albums);
+        }
+
+        long songId(SplittableRandom random) {
+            return 1 + random.nextLong(songs);
+        }
+
+        long audioId(SplittableRandom random) {
+            return 1 + random.nextLong(audio);
+        }
+
+        long userId(SplittableRandom random) {
+            return 1 + random.nextLong(users);
+        }
+    }
+}
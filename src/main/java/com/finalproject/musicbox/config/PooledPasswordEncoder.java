@@ -0,0 +1,59 @@
+package com.finalproject.musicbox.config;
+
+import com.finalproject.musicbox.service.PasswordHashingService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * {@link PasswordEncoder} hashing and verifying on the bounded {@link PasswordHashingService} pool, used as the
+ * {@code bcrypt} encoder of the application's {@link org.springframework.security.crypto.password.DelegatingPasswordEncoder}.
+ * The legacy variant matches the values stored without an id prefix: bcrypt hashes stored before the prefix was
+ * introduced, and plain text stored before passwords were hashed at all.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder {
+
+    /**
+     * Service hashing passwords on a bounded pool.
+     */
+    private final PasswordHashingService passwordHashingService;
+
+    /**
+     * Whether plain-text values are accepted too.
+     */
+    private final boolean legacy;
+
+    /**
+     * Constructs a new PooledPasswordEncoder.
+     *
+     * @param passwordHashingService the PasswordHashingService to hash and verify on
+     * @param legacy whether stored values that are not bcrypt hashes are compared as plain text
+     */
+    public PooledPasswordEncoder(PasswordHashingService passwordHashingService, boolean legacy) {
+        this.passwordHashingService = passwordHashingService;
+        this.legacy = legacy;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return passwordHashingService.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        if (passwordHashingService.isHashed(encodedPassword)) {
+            return passwordHashingService.matches(rawPassword, encodedPassword);
+        }
+        return legacy && MessageDigest.isEqual(rawPassword.toString().getBytes(StandardCharsets.UTF_8),
+                encodedPassword.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return legacy || passwordHashingService.upgradeEncoding(encodedPassword);
+    }
+}
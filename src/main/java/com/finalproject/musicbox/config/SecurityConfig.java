@@ -1,28 +1,109 @@
 package com.finalproject.musicbox.config;
 
+import com.finalproject.musicbox.exception.GlobalExceptionHandler;
+import com.finalproject.musicbox.repository.RoleRepository;
+import com.finalproject.musicbox.service.DatabaseUserDetailsService;
+import com.finalproject.musicbox.service.PasswordHashingService;
+import com.finalproject.musicbox.service.TokenService;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.trucker.musicbox.exception.ServiceBusyException;
+
+import java.util.Map;
 
 /**
  * Configuration class for setting up Spring Security.
  * This class defines the security filter chain and configures security settings.
+ * Two modes are supported through {@code musicbox.auth.mode}: {@code session} (form login with server-side sessions)
+ * and {@code token} (stateless signed access tokens, see {@link TokenService}).
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    /**
+     * Creates the password encoder. New passwords are stored as {@code {bcrypt}} hashes made on the hashing pool.
+     * Passwords stored earlier, as plain text or as bcrypt hashes without the prefix, still match, and are re-hashed on
+     * the user's next successful login.
+     *
+     * @param passwordHashingService the service hashing passwords on a bounded pool
+     * @return the PasswordEncoder
+     */
+    @Bean
+    public PasswordEncoder passwordEncoder(PasswordHashingService passwordHashingService) {
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new PooledPasswordEncoder(passwordHashingService, false)));
+        encoder.setDefaultPasswordEncoderForMatches(new PooledPasswordEncoder(passwordHashingService, true));
+        return encoder;
+    }
+
+    /**
+     * Creates the authentication manager used by form login and by the token endpoint.
+     * Passwords in a legacy format or hashed at a lower cost are upgraded through the user details service after login.
+     *
+     * @param userDetailsService the service loading users from the database and storing upgraded passwords
+     * @param passwordEncoder the encoder checking passwords
+     * @return the AuthenticationManager
+     */
+    @Bean
+    public AuthenticationManager authenticationManager(DatabaseUserDetailsService userDetailsService, PasswordEncoder passwordEncoder) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setUserDetailsPasswordService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        return new ProviderManager(provider);
+    }
+
     /**
      * Configures the security filter chain.
      *
      * @param http the HttpSecurity to modify
+     * @param mode the authentication mode, {@code session} or {@code token}
+     * @param tokenService the service verifying access tokens in token mode
+     * @param roleRepository the repository used to resolve the roles carried by access tokens
      * @return the configured SecurityFilterChain
      * @throws Exception if an error occurs while configuring the security filter chain
      */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, @Value("${musicbox.auth.mode:session}") String mode,
+                                                   TokenService tokenService, RoleRepository roleRepository) throws Exception {
+        if ("token".equalsIgnoreCase(mode)) {
+            http
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(sessionManagement ->
+                    sessionManagement
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                )
+                .authorizeRequests(authorizeRequests ->
+                    authorizeRequests
+                        .requestMatchers("/", "/api/auth/**").permitAll()
+                        .requestMatchers("/admin").hasRole("ADMIN")
+                        .anyRequest().authenticated()
+                )
+                .addFilterBefore(new TokenAuthenticationFilter(tokenService, roleRepository),
+                        UsernamePasswordAuthenticationFilter.class)
+                .exceptionHandling(exceptionHandling ->
+                    exceptionHandling
+                        .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+                );
+            return http.build();
+        }
         http
             .authorizeRequests(authorizeRequests ->
                 authorizeRequests
@@ -33,6 +114,7 @@ public class SecurityConfig {
             .formLogin(formLogin ->
                 formLogin
                     .loginPage("/login")
+                    .failureHandler(loginFailureHandler())
                     .permitAll()
             )
             .logout(logout ->
@@ -41,4 +123,22 @@ public class SecurityConfig {
             );
         return http.build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates the form login failure handler: a saturated hashing pool answers 503 with Retry-After, like the REST
+     * endpoints, and wrong credentials go back to the login page.
+     *
+     * @return the AuthenticationFailureHandler
+     */
+    private AuthenticationFailureHandler loginFailureHandler() {
+        SimpleUrlAuthenticationFailureHandler wrongCredentials = new SimpleUrlAuthenticationFailureHandler("/login?error");
+        return (request, response, exception) -> {
+            if (exception.getCause() instanceof ServiceBusyException) {
+                response.setHeader(HttpHeaders.RETRY_AFTER, GlobalExceptionHandler.RETRY_AFTER_SECONDS);
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), exception.getCause().getMessage());
+                return;
+            }
+            wrongCredentials.onAuthenticationFailure(request, response, exception);
+        };
+    }
+}
@@ -0,0 +1,112 @@
+package com.finalproject.musicbox.config;
+
+import com.finalproject.musicbox.model.Role;
+import com.finalproject.musicbox.repository.RoleRepository;
+import com.finalproject.musicbox.service.TokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filter authenticating requests that carry an {@code Authorization: Bearer} access token.
+ * The token is verified by the {@link TokenService} alone; the user is not loaded, and no session is created.
+ * Role bit masks are turned into authorities through a small cache, which reads the role table only the first time
+ * a mask is seen. Requests with an invalid or expired token are rejected with 401; requests without one continue
+ * unauthenticated and are handled by the authorization rules.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    /**
+     * The authority granted to users whose token carries the premium flag.
+     */
+    public static final String PREMIUM_AUTHORITY = "PREMIUM";
+
+    /**
+     * Service verifying the tokens.
+     */
+    private final TokenService tokenService;
+
+    /**
+     * Repository used to resolve role IDs to names when a role mask is first seen.
+     */
+    private final RoleRepository roleRepository;
+
+    /**
+     * Authorities per role mask, for regular and for premium users.
+     */
+    private final Map<Long, List<GrantedAuthority>> authorities = new ConcurrentHashMap<>();
+    private final Map<Long, List<GrantedAuthority>> premiumAuthorities = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new TokenAuthenticationFilter.
+     *
+     * @param tokenService the TokenService verifying the tokens
+     * @param roleRepository the RoleRepository used to resolve role names
+     */
+    public TokenAuthenticationFilter(TokenService tokenService, RoleRepository roleRepository) {
+        this.tokenService = tokenService;
+        this.roleRepository = roleRepository;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader("Authorization");
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        TokenService.TokenClaims claims = tokenService.verify(header.subSequence(BEARER_PREFIX.length(), header.length()),
+                TokenService.TokenType.ACCESS, System.currentTimeMillis() / 1000);
+        if (claims == null) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired access token");
+            return;
+        }
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                claims.userId(), null, authoritiesFor(claims.roleMask(), claims.premium())));
+        SecurityContextHolder.setContext(context);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private List<GrantedAuthority> authoritiesFor(long roleMask, boolean premium) {
+        Map<Long, List<GrantedAuthority>> cache = premium ? premiumAuthorities : authorities;
+        List<GrantedAuthority> cached = cache.get(roleMask);
+        if (cached != null) {
+            return cached;
+        }
+        List<GrantedAuthority> resolved = new ArrayList<>();
+        for (Role role : roleRepository.findAll()) {
+            long id = role.getId();
+            if (id >= 1 && id <= TokenService.MAX_ROLE_ID && (roleMask & (1L << (id - 1))) != 0) {
+                String name = role.getName();
+                resolved.add(new SimpleGrantedAuthority(name.startsWith("ROLE_") ? name : "ROLE_" + name));
+            }
+        }
+        if (premium) {
+            resolved.add(new SimpleGrantedAuthority(PREMIUM_AUTHORITY));
+        }
+        List<GrantedAuthority> immutable = List.copyOf(resolved);
+        cache.put(roleMask, immutable);
+        return immutable;
+    }
+}
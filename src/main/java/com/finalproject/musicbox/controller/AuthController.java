@@ -0,0 +1,112 @@
+package com.finalproject.musicbox.controller;
+
+import com.finalproject.musicbox.model.User;
+import com.finalproject.musicbox.repository.SubscriptionRepository;
+import com.finalproject.musicbox.repository.UserRepository;
+import com.finalproject.musicbox.service.TokenService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.*;
+import org.trucker.musicbox.exception.ServiceBusyException;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * REST controller issuing stateless access and refresh tokens.
+ * Provides endpoints for exchanging credentials for tokens and for refreshing tokens.
+ */
+@RestController
+@RequestMapping("/api/auth")
+public class AuthController {
+
+    /**
+     * Manager checking usernames and passwords.
+     */
+    private final AuthenticationManager authenticationManager;
+
+    /**
+     * Repository for managing User entities.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * Repository for managing Subscription entities, used to compute the premium flag.
+     */
+    private final SubscriptionRepository subscriptionRepository;
+
+    /**
+     * Service issuing and verifying the tokens.
+     */
+    private final TokenService tokenService;
+
+    /**
+     * Constructs a new AuthController.
+     *
+     * @param authenticationManager the AuthenticationManager checking credentials
+     * @param userRepository the UserRepository to load users from
+     * @param subscriptionRepository the SubscriptionRepository to compute the premium flag from
+     * @param tokenService the TokenService issuing the tokens
+     */
+    @Autowired
+    public AuthController(AuthenticationManager authenticationManager, UserRepository userRepository,
+                          SubscriptionRepository subscriptionRepository, TokenService tokenService) {
+        this.authenticationManager = authenticationManager;
+        this.userRepository = userRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.tokenService = tokenService;
+    }
+
+    /**
+     * Exchanges a username and password for an access token and a refresh token.
+     *
+     * @param username the username of the user
+     * @param password the password of the user
+     * @return the issued tokens, or 401 if the credentials are invalid
+     */
+    @PostMapping("/token")
+    public ResponseEntity<TokenService.TokenPair> issueToken(@RequestParam String username, @RequestParam String password) {
+        try {
+            authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(username, password));
+        } catch (InternalAuthenticationServiceException e) {
+            if (e.getCause() instanceof ServiceBusyException busy) {
+                throw busy; // The password hashing pool is saturated: 503 with Retry-After rather than 401.
+            }
+            throw e;
+        } catch (AuthenticationException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(issueTokens(userRepository.findByUsername(username)));
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and refresh token.
+     * The user is reloaded, so role changes, subscription changes and deactivation take effect on refresh.
+     *
+     * @param refreshToken the refresh token
+     * @return the issued tokens, or 401 if the refresh token is invalid or the user is no longer active
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenService.TokenPair> refreshToken(@RequestParam String refreshToken) {
+        TokenService.TokenClaims claims = tokenService.verify(refreshToken, TokenService.TokenType.REFRESH,
+                System.currentTimeMillis() / 1000);
+        if (claims == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Optional<User> user = userRepository.findById(claims.userId());
+        if (user.isEmpty() || !"ACTIVE".equals(user.get().getStatus())) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(issueTokens(user.get()));
+    }
+
+    private TokenService.TokenPair issueTokens(User user) {
+        boolean premium = subscriptionRepository.existsByUserIdAndEndDateAfter(user.getId(), LocalDateTime.now());
+        return tokenService.issueTokens(user, premium);
+    }
+}
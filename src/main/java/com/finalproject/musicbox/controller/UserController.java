@@ -1,6 +1,7 @@
 package com.finalproject.musicbox.controller;
 
 import com.finalproject.musicbox.model.User;
+import com.finalproject.musicbox.model.UserPurgeJob;
 import com.finalproject.musicbox.model.Subscription;
 import com.finalproject.musicbox.service.UserService;
 import jakarta.validation.Valid;
@@ -102,18 +103,31 @@ public class UserController {
 
     /**
      * Deletes the user with the specified ID.
+     * The user is disabled immediately and their data is removed in the background.
      *
      * @param id the ID of the user to delete
-     * @return 204 No Content if the user was deleted, or 404 if not found
+     * @return 202 Accepted with the purge job tracking the deletion, or 404 if not found
      */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
+    public ResponseEntity<UserPurgeJob> deleteUser(@PathVariable Long id) {
         Optional<User> user = userService.findUserById(id);
         if (user.isPresent()) {
-            userService.deleteUser(id);
-            return ResponseEntity.noContent().build();
+            UserPurgeJob job = userService.deleteUser(id);
+            return ResponseEntity.accepted().body(job);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
+
+    /**
+     * Retrieves the progress of a user deletion.
+     *
+     * @param jobId the ID of the purge job
+     * @return the purge job, or 404 if not found
+     */
+    @GetMapping("/purge-jobs/{jobId}")
+    public ResponseEntity<UserPurgeJob> getPurgeJob(@PathVariable Long jobId) {
+        return userService.findPurgeJob(jobId).map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 }
\ No newline at end of file
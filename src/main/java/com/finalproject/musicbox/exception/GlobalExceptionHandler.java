@@ -0,0 +1,33 @@
+package com.finalproject.musicbox.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.trucker.musicbox.exception.ServiceBusyException;
+
+/**
+ * Global exception handler for the REST controllers.
+ */
+@RestControllerAdvice
+public class GlobalExceptionHandler {
+
+    /**
+     * Seconds a client should wait before retrying a request rejected by a saturated resource.
+     */
+    public static final String RETRY_AFTER_SECONDS = "1";
+
+    /**
+     * Handles a saturated bounded resource with 503 and a Retry-After header, so clients back off instead of retrying at once.
+     *
+     * @param ex the caught ServiceBusyException
+     * @return the exception message with status 503
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<String> handleServiceBusyException(ServiceBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(ex.getMessage());
+    }
+}
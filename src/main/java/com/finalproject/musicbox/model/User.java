@@ -53,6 +53,16 @@ public class User {
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Subscription> subscriptions;
 
+    /**
+     * The roles granted to the user.
+     * This is a many-to-many relationship, loaded with the user because authentication needs it.
+     */
+    @ManyToMany(fetch = FetchType.EAGER)
+    @JoinTable(name = "user_roles",
+            joinColumns = @JoinColumn(name = "user_id"),
+            inverseJoinColumns = @JoinColumn(name = "role_id"))
+    private Set<Role> roles;
+
     // Getters and Setters
 
     /**
@@ -162,4 +172,22 @@ public class User {
     public void setSubscriptions(Set<Subscription> subscriptions) {
         this.subscriptions = subscriptions;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the roles of the user.
+     *
+     * @return the roles of the user
+     */
+    public Set<Role> getRoles() {
+        return roles;
+    }
+
+    /**
+     * Sets the roles of the user.
+     *
+     * @param roles the new roles of the user
+     */
+    public void setRoles(Set<Role> roles) {
+        this.roles = roles;
+    }
+}
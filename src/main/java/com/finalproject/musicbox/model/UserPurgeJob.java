@@ -0,0 +1,241 @@
+package com.finalproject.musicbox.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Entity class representing the background deletion of a user and the rows that depend on it.
+ * The job row is updated in the same transaction as each batch it deletes, so its counters are exact and a job
+ * interrupted by a restart is resumed where it stopped.
+ */
+@Entity
+@Table(name = "user_purge_job")
+public class UserPurgeJob {
+
+    /**
+     * The states of a purge job.
+     */
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    /**
+     * The unique identifier for the job.
+     * This value is generated automatically.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The ID of the user being deleted.
+     * This value cannot be null.
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * The state of the job.
+     * This value cannot be null.
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status;
+
+    /**
+     * The number of subscriptions deleted so far.
+     */
+    @Column(nullable = false)
+    private long subscriptionsDeleted;
+
+    /**
+     * The number of failed attempts so far.
+     */
+    @Column(nullable = false)
+    private int attempts;
+
+    /**
+     * The message of the last failure, if any.
+     */
+    private String lastError;
+
+    /**
+     * When the deletion was requested.
+     * This value cannot be null.
+     */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * When the job last made progress or changed state.
+     * This value cannot be null.
+     */
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Constructors
+
+    /**
+     * Default constructor for the UserPurgeJob class.
+     */
+    public UserPurgeJob() {
+    }
+
+    /**
+     * Constructor for the UserPurgeJob class, creating a pending job.
+     *
+     * @param userId the ID of the user to delete
+     */
+    public UserPurgeJob(Long userId) {
+        this.userId = userId;
+        this.status = Status.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    // Getters and Setters
+
+    /**
+     * Gets the ID of the job.
+     *
+     * @return the ID of the job
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the job.
+     *
+     * @param id the new ID of the job
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the ID of the user being deleted.
+     *
+     * @return the ID of the user
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Sets the ID of the user being deleted.
+     *
+     * @param userId the new ID of the user
+     */
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Gets the state of the job.
+     *
+     * @return the state of the job
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the state of the job.
+     *
+     * @param status the new state of the job
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the number of subscriptions deleted so far.
+     *
+     * @return the number of deleted subscriptions
+     */
+    public long getSubscriptionsDeleted() {
+        return subscriptionsDeleted;
+    }
+
+    /**
+     * Sets the number of subscriptions deleted so far.
+     *
+     * @param subscriptionsDeleted the new number of deleted subscriptions
+     */
+    public void setSubscriptionsDeleted(long subscriptionsDeleted) {
+        this.subscriptionsDeleted = subscriptionsDeleted;
+    }
+
+    /**
+     * Gets the number of failed attempts so far.
+     *
+     * @return the number of failed attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Sets the number of failed attempts so far.
+     *
+     * @param attempts the new number of failed attempts
+     */
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * Gets the message of the last failure.
+     *
+     * @return the message of the last failure, or null if the job has not failed
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Sets the message of the last failure.
+     *
+     * @param lastError the new message of the last failure
+     */
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    /**
+     * Gets when the deletion was requested.
+     *
+     * @return the creation time of the job
+     */
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Sets when the deletion was requested.
+     *
+     * @param createdAt the new creation time of the job
+     */
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Gets when the job last made progress or changed state.
+     *
+     * @return the last update time of the job
+     */
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Sets when the job last made progress or changed state.
+     *
+     * @param updatedAt the new last update time of the job
+     */
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
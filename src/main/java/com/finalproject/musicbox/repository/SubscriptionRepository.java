@@ -2,6 +2,9 @@ package com.finalproject.musicbox.repository;
 
 import com.finalproject.musicbox.model.Subscription;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -29,4 +32,26 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
      * @return a list of subscriptions that end after the specified date
      */
     List<Subscription> findByEndDateAfter(LocalDateTime date);
-}
\ No newline at end of file
+
+    /**
+     * Checks whether the user has a subscription that ends after the specified date.
+     *
+     * @param userId the ID of the user
+     * @param date the date to compare with the end date of subscriptions
+     * @return true if the user has such a subscription
+     */
+    boolean existsByUserIdAndEndDateAfter(Long userId, LocalDateTime date);
+
+    /**
+     * Deletes up to the specified number of the user's subscriptions with one set-based statement,
+     * without loading them as entities.
+     *
+     * @param userId the ID of the user
+     * @param limit the maximum number of subscriptions to delete
+     * @return the number of deleted subscriptions
+     */
+    @Modifying
+    @Query(value = "DELETE FROM subscription WHERE id IN (SELECT id FROM subscription WHERE user_id = :userId LIMIT :limit)",
+            nativeQuery = true)
+    int deleteBatchByUserId(@Param("userId") Long userId, @Param("limit") int limit);
+}
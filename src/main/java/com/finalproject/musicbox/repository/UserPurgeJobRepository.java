@@ -0,0 +1,33 @@
+package com.finalproject.musicbox.repository;
+
+import com.finalproject.musicbox.model.UserPurgeJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for managing UserPurgeJob entities.
+ * Provides methods for performing CRUD operations on UserPurgeJob entities.
+ */
+@Repository
+public interface UserPurgeJobRepository extends JpaRepository<UserPurgeJob, Long> {
+
+    /**
+     * Finds the jobs in any of the specified states.
+     *
+     * @param statuses the states to look for
+     * @return a list of matching jobs
+     */
+    List<UserPurgeJob> findByStatusIn(Collection<UserPurgeJob.Status> statuses);
+
+    /**
+     * Finds the jobs of the specified user in any of the specified states.
+     *
+     * @param userId the ID of the user
+     * @param statuses the states to look for
+     * @return a list of matching jobs
+     */
+    List<UserPurgeJob> findByUserIdAndStatusIn(Long userId, Collection<UserPurgeJob.Status> statuses);
+}
@@ -2,6 +2,9 @@ package com.finalproject.musicbox.repository;
 
 import com.finalproject.musicbox.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 /**
@@ -26,4 +29,35 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return the user with the specified email, or null if no user is found
      */
     User findByEmail(String email);
-}
\ No newline at end of file
+
+    /**
+     * Updates the status of a user without loading it.
+     *
+     * @param id the ID of the user
+     * @param status the new status of the user
+     * @return the number of updated users
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.status = :status WHERE u.id = :id")
+    int updateStatus(@Param("id") Long id, @Param("status") String status);
+
+    /**
+     * Removes all role assignments of a user.
+     *
+     * @param id the ID of the user
+     * @return the number of removed assignments
+     */
+    @Modifying
+    @Query(value = "DELETE FROM user_roles WHERE user_id = :id", nativeQuery = true)
+    int deleteRoleAssignments(@Param("id") Long id);
+
+    /**
+     * Deletes a user row with a bulk statement, bypassing cascades; dependent rows must already be gone.
+     *
+     * @param id the ID of the user
+     * @return the number of deleted users
+     */
+    @Modifying
+    @Query("DELETE FROM User u WHERE u.id = :id")
+    int deleteRowById(@Param("id") Long id);
+}
@@ -0,0 +1,76 @@
+package com.finalproject.musicbox.service;
+
+import com.finalproject.musicbox.model.Role;
+import com.finalproject.musicbox.model.User;
+import com.finalproject.musicbox.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service loading users for authentication from the database.
+ * Used by form login in session mode and by the token endpoint, never for requests carrying an access token.
+ * Also stores passwords re-hashed after a successful login, when the stored one was plain text or used a lower cost.
+ */
+@Service
+public class DatabaseUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    /**
+     * Repository for managing User entities.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * Constructs a new DatabaseUserDetailsService with the specified repository.
+     *
+     * @param userRepository the UserRepository to load users from
+     */
+    @Autowired
+    public DatabaseUserDetailsService(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Loads the user with the specified username.
+     *
+     * @param username the username of the user to load
+     * @return the user's credentials, authorities and status
+     * @throws UsernameNotFoundException if no user has the specified username
+     */
+    @Override
+    public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        User user = userRepository.findByUsername(username);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found: " + username);
+        }
+        String[] roles = user.getRoles() == null ? new String[0] : user.getRoles().stream()
+                .map(Role::getName)
+                .map(name -> name.startsWith("ROLE_") ? name.substring("ROLE_".length()) : name)
+                .toArray(String[]::new);
+        return org.springframework.security.core.userdetails.User.withUsername(user.getUsername())
+                .password(user.getPassword())
+                .roles(roles)
+                .disabled(!"ACTIVE".equals(user.getStatus()))
+                .build();
+    }
+
+    /**
+     * Replaces a user's stored password with an upgraded hash of the password they just logged in with.
+     *
+     * @param user the authenticated user
+     * @param newPassword the new encoded password
+     * @return the user's credentials with the new password
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User stored = userRepository.findByUsername(user.getUsername());
+        if (stored != null) {
+            stored.setPassword(newPassword);
+            userRepository.save(stored);
+        }
+        return org.springframework.security.core.userdetails.User.withUserDetails(user).password(newPassword).build();
+    }
+}
@@ -0,0 +1,300 @@
+package com.finalproject.musicbox.service;
+
+import com.finalproject.musicbox.model.Role;
+import com.finalproject.musicbox.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Service for issuing and verifying stateless, HMAC-SHA256 signed tokens.
+ * A token is a fixed 60-byte binary record, base64url-encoded to 80 characters:
+ * version, token type, signing key ID, user ID, role bit mask, expiry (epoch seconds), flags (premium), and the MAC.
+ * Verification borrows an initialized {@link Mac} and a decode buffer from a small pool, so it needs no database round
+ * trip and allocates only the returned claims. The pool is shared by all threads rather than kept per thread, because
+ * with virtual threads every request runs on a new thread and per-thread state would be rebuilt on every call.
+ * Several keys can be configured for rotation: tokens are signed with the active key and accepted with any configured key.
+ */
+@Service
+public class TokenService {
+
+    /**
+     * The kind of a token: short-lived access tokens authenticate requests, long-lived refresh tokens obtain new access tokens.
+     */
+    public enum TokenType {
+        ACCESS, REFRESH
+    }
+
+    /**
+     * A pair of access and refresh tokens.
+     *
+     * @param accessToken the access token
+     * @param refreshToken the refresh token
+     * @param expiresIn the lifetime of the access token in seconds
+     */
+    public record TokenPair(String accessToken, String refreshToken, long expiresIn) {
+    }
+
+    /**
+     * The claims carried by a verified token.
+     *
+     * @param userId the ID of the user
+     * @param roleMask the user's roles, bit {@code id - 1} set for each role ID
+     * @param premium whether the user had an active subscription when the token was issued
+     * @param expiresAt the expiry of the token in epoch seconds
+     */
+    public record TokenClaims(long userId, long roleMask, boolean premium, long expiresAt) {
+    }
+
+    /**
+     * MAC instances, one per key ID and initialized on first use, and a scratch buffer holding a decoded token plus the
+     * expected MAC. Used by one thread at a time.
+     */
+    private static final class Signer {
+        final Mac[] macs = new Mac[256];
+        final byte[] scratch = new byte[TOKEN_LENGTH + MAC_LENGTH];
+    }
+
+    /**
+     * The highest role ID that fits in the role bit mask.
+     */
+    public static final int MAX_ROLE_ID = 64;
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    private static final byte VERSION = 1;
+    private static final int CLAIMS_LENGTH = 28; // version, type, key ID, user ID, role mask, expiry, flags
+    private static final int MAC_LENGTH = 32;
+    private static final int TOKEN_LENGTH = CLAIMS_LENGTH + MAC_LENGTH;
+    private static final int ENCODED_LENGTH = TOKEN_LENGTH / 3 * 4;
+    private static final int FLAG_PREMIUM = 1;
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final byte[] BASE64URL = new byte[128];
+
+    static {
+        Arrays.fill(BASE64URL, (byte) -1);
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_";
+        for (int i = 0; i < alphabet.length(); i++) {
+            BASE64URL[alphabet.charAt(i)] = (byte) i;
+        }
+    }
+
+    /**
+     * Signing keys indexed by key ID; null for unused IDs.
+     */
+    private final SecretKeySpec[] keys = new SecretKeySpec[256];
+
+    /**
+     * The ID of the key new tokens are signed with.
+     */
+    private final int activeKeyId;
+
+    private final long accessTtlSeconds;
+    private final long refreshTtlSeconds;
+
+    /**
+     * Idle signers. Verification is CPU-bound, so about as many run at once as there are cores; a thread that finds the
+     * pool empty creates a signer, and signers returned to a full pool are dropped.
+     */
+    private final ArrayBlockingQueue<Signer> signers = new ArrayBlockingQueue<>(2 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Constructs a new TokenService.
+     *
+     * @param keys the signing keys as comma-separated {@code id:base64secret} pairs, with IDs from 0 to 255;
+     *             if empty, a random key is generated and tokens do not survive a restart
+     * @param activeKeyId the ID of the key new tokens are signed with
+     * @param accessTtlSeconds the lifetime of access tokens in seconds
+     * @param refreshTtlSeconds the lifetime of refresh tokens in seconds
+     */
+    @Autowired
+    public TokenService(@Value("${musicbox.auth.keys:}") String keys,
+                        @Value("${musicbox.auth.active-key-id:0}") int activeKeyId,
+                        @Value("${musicbox.auth.access-ttl-seconds:900}") long accessTtlSeconds,
+                        @Value("${musicbox.auth.refresh-ttl-seconds:1209600}") long refreshTtlSeconds) {
+        this.activeKeyId = activeKeyId;
+        this.accessTtlSeconds = accessTtlSeconds;
+        this.refreshTtlSeconds = refreshTtlSeconds;
+        if (activeKeyId < 0 || activeKeyId > 255) {
+            throw new IllegalStateException("Active token signing key ID must be from 0 to 255");
+        }
+        if (keys.isBlank()) {
+            byte[] secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+            this.keys[activeKeyId] = new SecretKeySpec(secret, ALGORITHM);
+            log.warn("No token signing keys configured; using a random key, so tokens are only valid on this node until restart");
+        } else {
+            for (String entry : keys.split(",")) {
+                String[] parts = entry.trim().split(":", 2);
+                int id = Integer.parseInt(parts[0].trim());
+                byte[] secret = Base64.getDecoder().decode(parts[1].trim());
+                if (id < 0 || id > 255 || secret.length < 32) {
+                    throw new IllegalStateException("Token signing key " + id + " needs an ID from 0 to 255 and at least 32 bytes");
+                }
+                this.keys[id] = new SecretKeySpec(secret, ALGORITHM);
+            }
+        }
+        if (this.keys[activeKeyId] == null) {
+            throw new IllegalStateException("Active token signing key " + activeKeyId + " is not configured");
+        }
+    }
+
+    /**
+     * Issues an access token and a refresh token for the specified user.
+     *
+     * @param user the user to issue the tokens for
+     * @param premium whether the user currently has an active subscription
+     * @return the issued tokens
+     * @throws IllegalStateException if one of the user's roles has an ID above {@link #MAX_ROLE_ID}
+     */
+    public TokenPair issueTokens(User user, boolean premium) {
+        long roleMask = 0;
+        if (user.getRoles() != null) {
+            for (Role role : user.getRoles()) {
+                if (role.getId() < 1 || role.getId() > MAX_ROLE_ID) {
+                    throw new IllegalStateException("Role ID " + role.getId() + " does not fit in a token");
+                }
+                roleMask |= 1L << (role.getId() - 1);
+            }
+        }
+        long now = System.currentTimeMillis() / 1000;
+        return new TokenPair(
+                issue(TokenType.ACCESS, user.getId(), roleMask, premium, now + accessTtlSeconds),
+                issue(TokenType.REFRESH, user.getId(), roleMask, premium, now + refreshTtlSeconds),
+                accessTtlSeconds);
+    }
+
+    /**
+     * Verifies a token without touching the database.
+     *
+     * @param token the encoded token
+     * @param expectedType the type the token must have
+     * @param nowSeconds the current time in epoch seconds
+     * @return the token's claims, or null if the token is malformed, has the wrong type, is signed with an unknown key,
+     *         has an invalid signature or has expired
+     */
+    public TokenClaims verify(CharSequence token, TokenType expectedType, long nowSeconds) {
+        if (token == null || token.length() != ENCODED_LENGTH) {
+            return null;
+        }
+        Signer signer = borrow();
+        try {
+            byte[] buffer = signer.scratch;
+            if (!decode(token, buffer)) {
+                return null;
+            }
+            int keyId = buffer[2] & 0xFF;
+            if (buffer[0] != VERSION || buffer[1] != expectedType.ordinal() || keys[keyId] == null) {
+                return null;
+            }
+            Mac mac = mac(signer, keyId);
+            mac.update(buffer, 0, CLAIMS_LENGTH);
+            try {
+                mac.doFinal(buffer, TOKEN_LENGTH);
+            } catch (ShortBufferException e) {
+                throw new IllegalStateException(e);
+            }
+            int diff = 0; // Constant-time comparison, so timing does not reveal how much of the MAC matched.
+            for (int i = 0; i < MAC_LENGTH; i++) {
+                diff |= buffer[CLAIMS_LENGTH + i] ^ buffer[TOKEN_LENGTH + i];
+            }
+            long expiresAt = getLong(buffer, 19);
+            if (diff != 0 || expiresAt <= nowSeconds) {
+                return null;
+            }
+            return new TokenClaims(getLong(buffer, 3), getLong(buffer, 11), (buffer[27] & FLAG_PREMIUM) != 0, expiresAt);
+        } finally {
+            signers.offer(signer);
+        }
+    }
+
+    private String issue(TokenType type, long userId, long roleMask, boolean premium, long expiresAt) {
+        byte[] token = new byte[TOKEN_LENGTH];
+        token[0] = VERSION;
+        token[1] = (byte) type.ordinal();
+        token[2] = (byte) activeKeyId;
+        putLong(token, 3, userId);
+        putLong(token, 11, roleMask);
+        putLong(token, 19, expiresAt);
+        token[27] = (byte) (premium ? FLAG_PREMIUM : 0);
+        Signer signer = borrow();
+        try {
+            Mac mac = mac(signer, activeKeyId);
+            mac.update(token, 0, CLAIMS_LENGTH);
+            mac.doFinal(token, CLAIMS_LENGTH);
+        } catch (ShortBufferException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            signers.offer(signer);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    private Signer borrow() {
+        Signer signer = signers.poll();
+        return signer != null ? signer : new Signer();
+    }
+
+    private Mac mac(Signer signer, int keyId) {
+        Mac mac = signer.macs[keyId];
+        if (mac == null) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(keys[keyId]);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+            }
+            signer.macs[keyId] = mac;
+        }
+        return mac;
+    }
+
+    /**
+     * Decodes an unpadded base64url token into the start of the buffer without allocating.
+     */
+    private static boolean decode(CharSequence token, byte[] buffer) {
+        int out = 0;
+        for (int i = 0; i < ENCODED_LENGTH; i += 4) {
+            int bits = 0;
+            for (int j = 0; j < 4; j++) {
+                char c = token.charAt(i + j);
+                int value = c < 128 ? BASE64URL[c] : -1;
+                if (value < 0) {
+                    return false;
+                }
+                bits = bits << 6 | value;
+            }
+            buffer[out++] = (byte) (bits >>> 16);
+            buffer[out++] = (byte) (bits >>> 8);
+            buffer[out++] = (byte) bits;
+        }
+        return true;
+    }
+
+    private static void putLong(byte[] buffer, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            buffer[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] buffer, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (buffer[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
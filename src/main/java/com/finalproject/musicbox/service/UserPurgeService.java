@@ -0,0 +1,265 @@
+package com.finalproject.musicbox.service;
+
+import com.finalproject.musicbox.model.UserPurgeJob;
+import com.finalproject.musicbox.repository.SubscriptionRepository;
+import com.finalproject.musicbox.repository.UserPurgeJobRepository;
+import com.finalproject.musicbox.repository.UserRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service deleting users in the background.
+ * Deleting a user through the entity manager loads every dependent row and deletes them one by one in a single
+ * transaction. Instead, a deletion request only marks the user as DELETING, which disables their login, and records
+ * a purge job; a single background thread then removes the user's subscriptions with bulk statements of a bounded size,
+ * one short transaction per batch, followed by the role assignments and the user row itself.
+ * Progress is stored with each batch, so jobs left unfinished by a restart are picked up again at startup,
+ * and failed jobs are retried with a delay until the attempt limit is reached.
+ */
+@Service
+public class UserPurgeService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserPurgeService.class);
+
+    /**
+     * The job states that still need work.
+     */
+    private static final EnumSet<UserPurgeJob.Status> UNFINISHED = EnumSet.of(UserPurgeJob.Status.PENDING, UserPurgeJob.Status.RUNNING);
+
+    /**
+     * Repository for managing User entities.
+     */
+    private final UserRepository userRepository;
+
+    /**
+     * Repository for managing Subscription entities.
+     */
+    private final SubscriptionRepository subscriptionRepository;
+
+    /**
+     * Repository for managing UserPurgeJob entities.
+     */
+    private final UserPurgeJobRepository userPurgeJobRepository;
+
+    /**
+     * Template running each batch in its own transaction.
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The maximum number of rows deleted per statement.
+     */
+    private final int batchSize;
+
+    /**
+     * The number of attempts before a job is marked as failed.
+     */
+    private final int maxAttempts;
+
+    /**
+     * The delay before a failed job is retried, in milliseconds.
+     */
+    private final long retryDelayMs;
+
+    /**
+     * The single thread running purge jobs, so that purges never compete with each other for locks.
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructs a new UserPurgeService with the specified repositories and settings.
+     *
+     * @param userRepository the UserRepository to use for user-related operations
+     * @param subscriptionRepository the SubscriptionRepository to delete subscriptions with
+     * @param userPurgeJobRepository the UserPurgeJobRepository to track jobs with
+     * @param transactionTemplate the TransactionTemplate to run batches with
+     * @param batchSize the maximum number of rows deleted per statement
+     * @param maxAttempts the number of attempts before a job is marked as failed
+     * @param retryDelayMs the delay before a failed job is retried, in milliseconds
+     */
+    @Autowired
+    public UserPurgeService(UserRepository userRepository, SubscriptionRepository subscriptionRepository,
+                            UserPurgeJobRepository userPurgeJobRepository, TransactionTemplate transactionTemplate,
+                            @Value("${musicbox.purge.batch-size:1000}") int batchSize,
+                            @Value("${musicbox.purge.max-attempts:5}") int maxAttempts,
+                            @Value("${musicbox.purge.retry-delay-ms:30000}") long retryDelayMs) {
+        if (batchSize < 1) {
+            throw new IllegalStateException("musicbox.purge.batch-size must be positive");
+        }
+        this.userRepository = userRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.userPurgeJobRepository = userPurgeJobRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+    }
+
+    /**
+     * Marks the user as being deleted and schedules the purge of their data once the transaction commits.
+     * Requesting the deletion of a user that is already being deleted returns the existing job.
+     *
+     * @param userId the ID of the user to delete
+     * @return the purge job
+     */
+    @Transactional
+    public UserPurgeJob schedulePurge(Long userId) {
+        List<UserPurgeJob> existing = userPurgeJobRepository.findByUserIdAndStatusIn(userId, UNFINISHED);
+        if (!existing.isEmpty()) {
+            return existing.get(0);
+        }
+        userRepository.updateStatus(userId, "DELETING");
+        UserPurgeJob job = userPurgeJobRepository.save(new UserPurgeJob(userId));
+        Long jobId = job.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(jobId, 0);
+            }
+        });
+        return job;
+    }
+
+    /**
+     * Finds a purge job by its ID.
+     *
+     * @param jobId the ID of the job
+     * @return an Optional containing the job, or empty if no job is found
+     */
+    public Optional<UserPurgeJob> findJob(Long jobId) {
+        return userPurgeJobRepository.findById(jobId);
+    }
+
+    /**
+     * Resumes the jobs left unfinished by a previous run.
+     * The batches are idempotent, so a job interrupted in the middle of a batch simply starts with that batch again.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinished() {
+        List<UserPurgeJob> jobs = userPurgeJobRepository.findByStatusIn(UNFINISHED);
+        if (!jobs.isEmpty()) {
+            log.info("Resuming {} unfinished user purge jobs", jobs.size());
+        }
+        for (UserPurgeJob job : jobs) {
+            submit(job.getId(), 0);
+        }
+    }
+
+    /**
+     * Stops the purge thread; unfinished jobs are resumed on the next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Queues a job on the purge thread.
+     *
+     * @param jobId the ID of the job
+     * @param delayMs the delay before the job runs, in milliseconds
+     */
+    private void submit(Long jobId, long delayMs) {
+        executor.schedule(() -> run(jobId), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs a job to completion, one batch per transaction, rescheduling it if a batch fails.
+     *
+     * @param jobId the ID of the job
+     */
+    private void run(Long jobId) {
+        try {
+            UserPurgeJob job = transactionTemplate.execute(status -> {
+                UserPurgeJob current = userPurgeJobRepository.findById(jobId).orElse(null);
+                if (current == null || !UNFINISHED.contains(current.getStatus())) {
+                    return null;
+                }
+                current.setStatus(UserPurgeJob.Status.RUNNING);
+                current.setUpdatedAt(LocalDateTime.now());
+                return current;
+            });
+            if (job == null) {
+                return;
+            }
+            Long userId = job.getUserId();
+            boolean more = true;
+            while (more && !Thread.currentThread().isInterrupted()) {
+                more = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                    int deleted = subscriptionRepository.deleteBatchByUserId(userId, batchSize);
+                    UserPurgeJob current = userPurgeJobRepository.getReferenceById(jobId);
+                    current.setSubscriptionsDeleted(current.getSubscriptionsDeleted() + deleted);
+                    current.setUpdatedAt(LocalDateTime.now());
+                    return deleted == batchSize;
+                }));
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                userRepository.deleteRoleAssignments(userId);
+                userRepository.deleteRowById(userId);
+                UserPurgeJob current = userPurgeJobRepository.getReferenceById(jobId);
+                current.setStatus(UserPurgeJob.Status.COMPLETED);
+                current.setUpdatedAt(LocalDateTime.now());
+            });
+            log.info("Purged user {} ({} subscriptions)", userId, userPurgeJobRepository.findById(jobId)
+                    .map(UserPurgeJob::getSubscriptionsDeleted).orElse(0L));
+        } catch (RuntimeException e) {
+            fail(jobId, e);
+        }
+    }
+
+    /**
+     * Records a failed attempt and retries the job later, or marks it as failed once the attempts are used up.
+     *
+     * @param jobId the ID of the job
+     * @param cause the failure
+     */
+    private void fail(Long jobId, RuntimeException cause) {
+        try {
+            UserPurgeJob job = transactionTemplate.execute(status -> {
+                UserPurgeJob current = userPurgeJobRepository.findById(jobId).orElse(null);
+                if (current == null) {
+                    return null;
+                }
+                current.setAttempts(current.getAttempts() + 1);
+                String message = String.valueOf(cause.getMessage());
+                current.setLastError(message.length() > 255 ? message.substring(0, 255) : message);
+                current.setStatus(current.getAttempts() >= maxAttempts ? UserPurgeJob.Status.FAILED : UserPurgeJob.Status.PENDING);
+                current.setUpdatedAt(LocalDateTime.now());
+                return current;
+            });
+            if (job != null && job.getStatus() == UserPurgeJob.Status.PENDING) {
+                log.warn("User purge job {} failed (attempt {}), retrying in {} ms", jobId, job.getAttempts(), retryDelayMs, cause);
+                submit(jobId, retryDelayMs);
+            } else {
+                log.error("User purge job {} failed permanently", jobId, cause);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not record the failure of user purge job {}; it will be resumed on restart", jobId, e);
+        }
+    }
+}
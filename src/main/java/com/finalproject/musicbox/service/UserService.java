@@ -3,10 +3,12 @@ package com.finalproject.musicbox.service;
 import com.finalproject.musicbox.model.Role;
 import com.finalproject.musicbox.model.Subscription;
 import com.finalproject.musicbox.model.User;
+import com.finalproject.musicbox.model.UserPurgeJob;
 import com.finalproject.musicbox.repository.RoleRepository;
 import com.finalproject.musicbox.repository.UserRepository;
 import com.finalproject.musicbox.repository.SubscriptionRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -20,6 +22,11 @@ import java.util.Optional;
 @Service
 public class UserService {
 
+    /**
+     * Prefix of the passwords stored by the application's delegating password encoder.
+     */
+    private static final String BCRYPT_PREFIX = "{bcrypt}";
+
     /**
      * Repository for managing User entities.
      */
@@ -35,28 +42,52 @@ public class UserService {
      */
     private final SubscriptionRepository subscriptionRepository;
 
+    /**
+     * Service recognising bcrypt hashes.
+     */
+    private final PasswordHashingService passwordHashingService;
+
+    /**
+     * Encoder hashing passwords on the bounded pool, in the format login expects.
+     */
+    private final PasswordEncoder passwordEncoder;
+
+    /**
+     * Service deleting users in the background.
+     */
+    private final UserPurgeService userPurgeService;
+
     /**
      * Constructs a new UserService with the specified repositories.
      *
      * @param userRepository the UserRepository to use for user-related operations
      * @param roleRepository the RoleRepository to use for role-related operations
      * @param subscriptionRepository the SubscriptionRepository to use for subscription-related operations
+     * @param passwordHashingService the PasswordHashingService to recognise hashed passwords with
+     * @param passwordEncoder the PasswordEncoder to hash passwords with
+     * @param userPurgeService the UserPurgeService to delete users with
      */
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, SubscriptionRepository subscriptionRepository) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, SubscriptionRepository subscriptionRepository,
+                       PasswordHashingService passwordHashingService, PasswordEncoder passwordEncoder,
+                       UserPurgeService userPurgeService) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.subscriptionRepository = subscriptionRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.passwordEncoder = passwordEncoder;
+        this.userPurgeService = userPurgeService;
     }
 
     /**
-     * Creates a new user.
+     * Creates a new user, hashing their password.
      *
      * @param user the user to create
      * @return the created user
      */
     public User createUser(User user) {
         user.setStatus("ACTIVE");
+        hashPassword(user);
         return userRepository.save(user);
     }
 
@@ -87,21 +118,52 @@ public class UserService {
     }
 
     /**
-     * Updates the specified user.
+     * Updates the specified user, hashing a new plain-text password.
      *
      * @param user the user to update
      * @return the updated user
      */
     public User updateUser(User user) {
+        hashPassword(user);
         return userRepository.save(user);
     }
 
     /**
-     * Deletes the user with the specified ID.
+     * Deletes the user with the specified ID in the background.
+     * The user is disabled at once; their subscriptions, roles and the user itself are removed by a purge job.
      *
      * @param id the ID of the user to delete
+     * @return the purge job tracking the deletion
+     */
+    public UserPurgeJob deleteUser(Long id) {
+        return userPurgeService.schedulePurge(id);
+    }
+
+    /**
+     * Finds a user purge job by its ID.
+     *
+     * @param jobId the ID of the job to find
+     * @return an Optional containing the found job, or empty if no job is found
+     */
+    public Optional<UserPurgeJob> findPurgeJob(Long jobId) {
+        return userPurgeService.findJob(jobId);
+    }
+
+    /**
+     * Hashes the user's password unless it already is a hash.
+     *
+     * @param user the user whose password to hash
      */
-    public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+    private void hashPassword(User user) {
+        String password = user.getPassword();
+        if (password == null) {
+            return;
+        }
+        boolean hashed = password.startsWith(BCRYPT_PREFIX)
+                ? passwordHashingService.isHashed(password.substring(BCRYPT_PREFIX.length()))
+                : passwordHashingService.isHashed(password);
+        if (!hashed) {
+            user.setPassword(passwordEncoder.encode(password));
+        }
     }
-}
\ No newline at end of file
+}
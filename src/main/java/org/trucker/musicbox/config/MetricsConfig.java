@@ -0,0 +1,155 @@
+package org.trucker.musicbox.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.trucker.musicbox.service.ActiveSubscriberIndex;
+import org.trucker.musicbox.service.AudioAnalysisService;
+import org.trucker.musicbox.service.AudioService;
+import org.trucker.musicbox.service.BatchLookupService;
+import org.trucker.musicbox.service.CatalogService;
+import org.trucker.musicbox.service.DomainEventBus;
+import org.trucker.musicbox.service.EntitlementCache;
+import org.trucker.musicbox.service.FingerprintService;
+import org.trucker.musicbox.service.ListenEventService;
+import org.trucker.musicbox.service.PasswordHashingService;
+import org.trucker.musicbox.service.PlaybackPositionService;
+import org.trucker.musicbox.service.RadioService;
+import org.trucker.musicbox.service.SubscriptionExpiryService;
+import org.trucker.musicbox.service.TieredStorageService;
+import org.trucker.musicbox.service.TrackMetadataCache;
+import org.trucker.musicbox.service.UserAvailabilityService;
+
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Configuration class exposing the counters the services already keep as Micrometer meters.
+ * The meters are functions over the existing {@code LongAdder}s and stats maps, read only when the registry is scraped,
+ * so they add nothing to the request path. Monotonic counts become counters (use {@code rate()} on them), levels become gauges.
+ * Endpoint latency, the JDBC pool and Hibernate statistics are bound by Spring Boot Actuator itself.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder musicboxMetrics(EntitlementCache entitlementCache, UserAvailabilityService userAvailabilityService,
+                                       BatchLookupService batchLookupService, AudioService audioService,
+                                       CatalogService catalogService, ListenEventService listenEventService,
+                                       PasswordHashingService passwordHashingService,
+                                       SubscriptionExpiryService subscriptionExpiryService,
+                                       ActiveSubscriberIndex activeSubscriberIndex,
+                                       PlaybackPositionService playbackPositionService, RadioService radioService,
+                                       DomainEventBus domainEventBus, FingerprintService fingerprintService,
+                                       AudioAnalysisService audioAnalysisService, TieredStorageService tieredStorageService,
+                                       RateLimitFilter rateLimitFilter, TrackMetadataCache trackMetadataCache) {
+        return registry -> {
+            // Cache hit ratios: hits / (hits + misses) over any window.
+            FunctionCounter.builder("musicbox.cache.requests", entitlementCache, EntitlementCache::getHits)
+                    .tags("cache", "entitlements", "result", "hit").register(registry);
+            FunctionCounter.builder("musicbox.cache.requests", entitlementCache, EntitlementCache::getMisses)
+                    .tags("cache", "entitlements", "result", "miss").register(registry);
+            FunctionCounter.builder("musicbox.cache.requests", trackMetadataCache, TrackMetadataCache::getHits)
+                    .tags("cache", "track-metadata", "result", "hit").register(registry);
+            FunctionCounter.builder("musicbox.cache.requests", trackMetadataCache, TrackMetadataCache::getMisses)
+                    .tags("cache", "track-metadata", "result", "miss").register(registry);
+            counter(registry, "musicbox.cache.requests", userAvailabilityService, UserAvailabilityService::getStats,
+                    "definiteNegatives", "cache", "availability", "result", "hit");
+            counter(registry, "musicbox.cache.requests", userAvailabilityService, UserAvailabilityService::getStats,
+                    "databaseChecks", "cache", "availability", "result", "miss");
+            counter(registry, "musicbox.availability.false.positives", userAvailabilityService, UserAvailabilityService::getStats,
+                    "falsePositives");
+
+            for (String type : new String[]{"users", "songs", "audio"}) {
+                counter(registry, "musicbox.lookup.requests", batchLookupService, BatchLookupService::getStats,
+                        type + ".requests", "type", type);
+                counter(registry, "musicbox.lookup.batches", batchLookupService, BatchLookupService::getStats,
+                        type + ".batches", "type", type);
+            }
+            counter(registry, "musicbox.singleflight.calls", audioService, AudioService::getSingleFlightStats,
+                    "audio.calls", "key", "audio");
+            counter(registry, "musicbox.singleflight.collapsed", audioService, AudioService::getSingleFlightStats,
+                    "audio.collapsed", "key", "audio");
+            for (String key : new String[]{"albumSongs", "artistAlbums"}) {
+                counter(registry, "musicbox.singleflight.calls", catalogService, CatalogService::getSingleFlightStats,
+                        key + ".calls", "key", key);
+                counter(registry, "musicbox.singleflight.collapsed", catalogService, CatalogService::getSingleFlightStats,
+                        key + ".collapsed", "key", key);
+            }
+
+            for (String outcome : new String[]{"accepted", "dropped", "written", "failed"}) {
+                counter(registry, "musicbox.listen.events", listenEventService, ListenEventService::getStats, outcome, "outcome", outcome);
+            }
+            gauge(registry, "musicbox.listen.backlog", listenEventService, ListenEventService::getStats, "backlog");
+
+            for (String outcome : new String[]{"hashed", "verified", "rejected"}) {
+                counter(registry, "musicbox.password.operations", passwordHashingService, PasswordHashingService::getStats,
+                        outcome, "outcome", outcome);
+            }
+            gauge(registry, "musicbox.password.queued", passwordHashingService, PasswordHashingService::getStats, "queued");
+
+            counter(registry, "musicbox.subscription.expired", subscriptionExpiryService, SubscriptionExpiryService::getStats, "expired");
+            gauge(registry, "musicbox.subscription.expiry.pending", subscriptionExpiryService, SubscriptionExpiryService::getStats, "pending");
+            gauge(registry, "musicbox.subscribers.active", activeSubscriberIndex, ActiveSubscriberIndex::getStats, "activeSubscribers");
+
+            Gauge.builder("musicbox.playback.pending", playbackPositionService,
+                            service -> ((Number) service.getStats().get("pending")).doubleValue())
+                    .register(registry);
+
+            // Radio fan-out: bytes sent over bytes read from disk.
+            counter(registry, "musicbox.radio.bytes", radioService, RadioService::getStats, "bytesRead", "direction", "read");
+            counter(registry, "musicbox.radio.bytes", radioService, RadioService::getStats, "bytesSent", "direction", "sent");
+            counter(registry, "musicbox.radio.skipped.chunks", radioService, RadioService::getStats, "skippedChunks");
+            counter(registry, "musicbox.radio.dropped.listeners", radioService, RadioService::getStats, "droppedListeners");
+            gauge(registry, "musicbox.radio.listeners", radioService, RadioService::getStats, "listeners");
+
+            // Domain events: overflowed and replayed events went through the outbox instead of the live dispatch.
+            counter(registry, "musicbox.events", domainEventBus, DomainEventBus::getStats, "published", "outcome", "published");
+            counter(registry, "musicbox.events", domainEventBus, DomainEventBus::getStats, "dispatched", "outcome", "dispatched");
+            counter(registry, "musicbox.events", domainEventBus, DomainEventBus::getStats, "failed", "outcome", "failed");
+            counter(registry, "musicbox.events", domainEventBus, DomainEventBus::getStats, "replayed", "outcome", "replayed");
+            counter(registry, "musicbox.events", domainEventBus, DomainEventBus::getStats, "overflowed", "outcome", "overflowed");
+            gauge(registry, "musicbox.events.backlog", domainEventBus, DomainEventBus::getStats, "backlog");
+
+            // Fingerprinting: duplicates over fingerprinted uploads, and the index footprint.
+            counter(registry, "musicbox.fingerprint.tracks", fingerprintService, FingerprintService::getStats, "fingerprinted", "outcome", "fingerprinted");
+            counter(registry, "musicbox.fingerprint.tracks", fingerprintService, FingerprintService::getStats, "duplicates", "outcome", "duplicate");
+            counter(registry, "musicbox.fingerprint.tracks", fingerprintService, FingerprintService::getStats, "undecodable", "outcome", "undecodable");
+            gauge(registry, "musicbox.fingerprint.index.tracks", fingerprintService, FingerprintService::getStats, "indexedTracks");
+            gauge(registry, "musicbox.fingerprint.index.bytes", fingerprintService, FingerprintService::getStats, "indexBytes");
+
+            // Audio analysis: samples over analysis time is the per-thread throughput of the loudness and tempo kernels.
+            counter(registry, "musicbox.analysis.tracks", audioAnalysisService, AudioAnalysisService::getStats, "analyzed", "outcome", "analyzed");
+            counter(registry, "musicbox.analysis.tracks", audioAnalysisService, AudioAnalysisService::getStats, "undecodable", "outcome", "undecodable");
+            counter(registry, "musicbox.analysis.tracks", audioAnalysisService, AudioAnalysisService::getStats, "failed", "outcome", "failed");
+            counter(registry, "musicbox.analysis.samples", audioAnalysisService, AudioAnalysisService::getStats, "samples");
+            gauge(registry, "musicbox.analysis.samples.per.second", audioAnalysisService, AudioAnalysisService::getStats, "samplesPerSecond");
+            gauge(registry, "musicbox.analysis.backfill.running", audioAnalysisService, AudioAnalysisService::getStats, "backfillRunning");
+
+            // Storage tiering: promotions over reads show how often cold files are wanted back.
+            counter(registry, "musicbox.storage.reads", tieredStorageService, TieredStorageService::getStats, "reads");
+            counter(registry, "musicbox.storage.migrations", tieredStorageService, TieredStorageService::getStats, "promoted", "direction", "promote");
+            counter(registry, "musicbox.storage.migrations", tieredStorageService, TieredStorageService::getStats, "demoted", "direction", "demote");
+            counter(registry, "musicbox.storage.migration.failures", tieredStorageService, TieredStorageService::getStats, "migrationFailures");
+            counter(registry, "musicbox.storage.migrated", tieredStorageService, TieredStorageService::getStats, "migratedBytes");
+            gauge(registry, "musicbox.storage.pending.deletes", tieredStorageService, TieredStorageService::getStats, "pendingDeletes");
+
+            FunctionCounter.builder("musicbox.ratelimit.rejected", rateLimitFilter, RateLimitFilter::getRejected).register(registry);
+            FunctionCounter.builder("musicbox.ratelimit.overflows", rateLimitFilter, RateLimitFilter::getOverflows).register(registry);
+        };
+    }
+
+    // Meters only hold weak references to their object, so they are bound to the service beans, never to a lambda.
+    private static <T> void counter(MeterRegistry registry, String name, T service, Function<T, Map<String, Long>> stats,
+                                    String key, String... tags) {
+        FunctionCounter.builder(name, service, bean -> stats.apply(bean).getOrDefault(key, 0L)).tags(tags).register(registry);
+    }
+
+    private static <T> void gauge(MeterRegistry registry, String name, T service, Function<T, Map<String, Long>> stats,
+                                  String key, String... tags) {
+        Gauge.builder(name, service, bean -> stats.apply(bean).getOrDefault(key, 0L)).tags(tags).register(registry);
+    }
+}
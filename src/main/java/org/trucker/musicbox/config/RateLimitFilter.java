@@ -0,0 +1,195 @@
+package org.trucker.musicbox.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.trucker.musicbox.exception.UserNotFoundException;
+import org.trucker.musicbox.repository.UserRepository;
+import org.trucker.musicbox.service.SubscriptionService;
+import org.trucker.musicbox.util.HyperLogLog;
+import org.trucker.musicbox.util.StripedRateLimiter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Servlet filter limiting the request rate per client and route.
+ * Authenticated requests are limited per principal, anonymous ones per remote address. Each route policy has its own
+ * rate and burst; premium users get the premium multiplier applied to both. Whether a principal is premium is decided
+ * by {@link SubscriptionService#isPremiumUser}, answered from the entitlement cache, with the principal's user ID kept
+ * in a bounded map so the database is only asked once per username.
+ * Buckets are kept in a {@link StripedRateLimiter}, so the check is a few array reads and one CAS, with no locks and no
+ * allocation, and memory stays fixed however many clients show up. Rejected requests get HTTP 429 with a Retry-After header.
+ * Runs after the Spring Security filter chain (lowest precedence), so the principal is already known.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final long NO_USER = -1L; // Cached for principals without a user row, such as Boot's default user.
+
+    /**
+     * Rate limit of one route pattern, precomputed for regular and premium clients.
+     */
+    private record RoutePolicy(String pattern, long intervalNanos, int burst, long premiumIntervalNanos, int premiumBurst) {
+    }
+
+    @Value("${musicbox.ratelimit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${musicbox.ratelimit.capacity:262144}")
+    private int capacity;
+
+    @Value("${musicbox.ratelimit.policies:/api/users/**=10/20,/api/audio/**=20/40,/api/**=50/100}")
+    private String policySpec; // Comma-separated pattern=requestsPerSecond/burst, first match wins.
+
+    @Value("${musicbox.ratelimit.premium-multiplier:5}")
+    private int premiumMultiplier;
+
+    @Value("${musicbox.ratelimit.user-id-cache-size:65536}")
+    private int userIdCacheSize;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    private final ConcurrentHashMap<String, Long> userIdsByName = new ConcurrentHashMap<>();
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<RoutePolicy> policies = new ArrayList<>();
+    private StripedRateLimiter limiter;
+
+    private final LongAdder rejected = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        limiter = new StripedRateLimiter(capacity);
+        for (String entry : policySpec.split(",")) {
+            String[] patternAndLimit = entry.trim().split("=", 2);
+            String[] rateAndBurst = patternAndLimit[1].trim().split("/", 2);
+            double perSecond = Double.parseDouble(rateAndBurst[0].trim());
+            int burst = Integer.parseInt(rateAndBurst[1].trim());
+            if (perSecond <= 0 || burst < 1) {
+                throw new IllegalStateException("Invalid rate limit policy: " + entry);
+            }
+            long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+            policies.add(new RoutePolicy(patternAndLimit[0].trim(), intervalNanos, burst,
+                    Math.max(1, intervalNanos / premiumMultiplier), burst * premiumMultiplier));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        int policyIndex = -1;
+        for (int i = 0; i < policies.size(); i++) {
+            if (pathMatcher.match(policies.get(i).pattern(), path)) {
+                policyIndex = i;
+                break;
+            }
+        }
+        if (policyIndex < 0) {
+            chain.doFilter(request, response);
+            return;
+        }
+        RoutePolicy policy = policies.get(policyIndex);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = authentication != null && authentication.isAuthenticated()
+                && !"anonymousUser".equals(authentication.getName());
+        boolean premium = authenticated && isPremium(authentication);
+        // Principals and addresses hash into different key spaces, and each policy has its own buckets.
+        long key = hash(authenticated ? authentication.getName() : request.getRemoteAddr(), authenticated ? 1 : 2);
+        key = HyperLogLog.mix64(key + policyIndex);
+
+        long waitNanos = premium
+                ? limiter.tryAcquire(key, policy.premiumIntervalNanos(), policy.premiumBurst(), System.nanoTime())
+                : limiter.tryAcquire(key, policy.intervalNanos(), policy.burst(), System.nanoTime());
+        if (waitNanos > 0) {
+            rejected.increment();
+            response.setHeader("Retry-After", Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1)));
+            response.sendError(429, "Rate limit exceeded");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * Gets the number of requests rejected with 429.
+     * @return The rejection count.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Gets the number of requests let through because the limiter had no free bucket for them.
+     * @return The overflow count.
+     */
+    public long getOverflows() {
+        return limiter.getOverflows();
+    }
+
+    private boolean isPremium(Authentication authentication) {
+        long userId = userIdFor(authentication.getName());
+        if (userId == NO_USER) {
+            return false;
+        }
+        try {
+            return subscriptionService.isPremiumUser(userId);
+        } catch (UserNotFoundException e) {
+            userIdsByName.remove(authentication.getName()); // Deleted since it was cached.
+            return false;
+        }
+    }
+
+    private long userIdFor(String username) {
+        Long cached = userIdsByName.get(username);
+        if (cached != null) {
+            return cached;
+        }
+        long userId = userRepository.findIdByUsername(username).orElse(NO_USER);
+        if (userIdsByName.size() >= userIdCacheSize) {
+            // Evict an arbitrary entry to stay bounded; an evicted principal is looked up again on its next request.
+            Iterator<String> names = userIdsByName.keySet().iterator();
+            if (names.hasNext()) {
+                userIdsByName.remove(names.next());
+            }
+        }
+        userIdsByName.put(username, userId);
+        return userId;
+    }
+
+    /**
+     * FNV-1a over the characters of the client identifier, seeded by its kind; cheap and allocation-free.
+     */
+    private static long hash(String value, int kind) {
+        long hash = 0xcbf29ce484222325L ^ kind;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
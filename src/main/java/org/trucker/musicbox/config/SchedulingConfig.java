@@ -0,0 +1,12 @@
+package org.trucker.musicbox.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class enabling Spring's {@code @Scheduled} support for the background flush and maintenance jobs.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
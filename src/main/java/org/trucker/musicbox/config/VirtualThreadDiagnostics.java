@@ -0,0 +1,102 @@
+package org.trucker.musicbox.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, active when {@code spring.threads.virtual.enabled=true}.
+ * A virtual thread that blocks inside a {@code synchronized} block or a native frame cannot unmount, so it keeps one of the
+ * few carrier threads busy; enough of them at once stall every other request. The JDK emits a {@code jdk.VirtualThreadPinned}
+ * JFR event for each such block; this component streams them in-process, counts them in {@code musicbox.threads.pinned},
+ * times them in {@code musicbox.threads.pinned.duration}, and logs the stack trace the first time each call site pins.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadDiagnostics {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadDiagnostics.class);
+    private static final int LOGGED_FRAMES = 12;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${musicbox.threads.pinning-threshold-ms:20}")
+    private long thresholdMs;
+
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+    private Counter pinned;
+    private Timer pinnedDuration;
+
+    @PostConstruct
+    public void start() {
+        pinned = Counter.builder("musicbox.threads.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier for longer than the threshold")
+                .register(meterRegistry);
+        pinnedDuration = Timer.builder("musicbox.threads.pinned.duration")
+                .description("How long pinned virtual threads held their carrier")
+                .register(meterRegistry);
+        stream = new RecordingStream();
+        stream.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent("jdk.VirtualThreadPinned", this::onPinned);
+        stream.startAsync();
+        log.info("Reporting virtual threads pinned for more than {} ms", thresholdMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        stream.close();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.increment();
+        pinnedDuration.record(event.getDuration());
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null) {
+            return;
+        }
+        String site = callSite(stackTrace);
+        if (reportedSites.add(site)) {
+            StringBuilder frames = new StringBuilder();
+            for (RecordedFrame frame : stackTrace.getFrames().subList(0, Math.min(LOGGED_FRAMES, stackTrace.getFrames().size()))) {
+                frames.append("\n\tat ").append(frame.getMethod().getType().getName()).append('.')
+                        .append(frame.getMethod().getName()).append(':').append(frame.getLineNumber());
+            }
+            log.warn("Virtual thread pinned for {} ms at {}; later pins at this site are only counted{}",
+                    event.getDuration().toMillis(), site, frames);
+        }
+    }
+
+    // The first application frame identifies the site; JDK and library frames above it are the same for every pin.
+    private static String callSite(RecordedStackTrace stackTrace) {
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("org.trucker.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        if (stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        RecordedFrame top = stackTrace.getFrames().get(0);
+        return top.getMethod().getType().getName() + "." + top.getMethod().getName();
+    }
+}
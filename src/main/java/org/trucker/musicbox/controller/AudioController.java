@@ -1,14 +1,33 @@
 package org.trucker.musicbox.controller;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.trucker.musicbox.dto.AudioSummary;
 import org.trucker.musicbox.model.Audio;
+import org.trucker.musicbox.service.AudioAnalysisService;
 import org.trucker.musicbox.service.AudioService;
+import org.trucker.musicbox.service.BatchLookupService;
+import org.trucker.musicbox.service.FingerprintService;
+import org.trucker.musicbox.service.ListenEventService;
+import org.trucker.musicbox.service.TieredStorageService;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Controller for handling audio-related requests.
@@ -22,6 +41,41 @@ public class AudioController {
     @Autowired
     private AudioService audioService;
 
+    @Autowired
+    private ListenEventService listenEventService;
+
+    @Autowired
+    private BatchLookupService batchLookupService;
+
+    @Autowired
+    private FingerprintService fingerprintService;
+
+    @Autowired
+    private AudioAnalysisService audioAnalysisService;
+
+    @Autowired
+    private TieredStorageService tieredStorageService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Registered once and updated with primitives, so recording never allocates on the request path.
+    private Counter bytesStreamed;
+    private Counter bytesUploaded;
+    private Timer uploadTimer;
+
+    @PostConstruct
+    public void initMetrics() {
+        bytesStreamed = Counter.builder("musicbox.audio.streamed").baseUnit("bytes")
+                .description("Audio bytes sent to clients").register(meterRegistry);
+        bytesUploaded = Counter.builder("musicbox.audio.uploaded").baseUnit("bytes")
+                .description("Audio bytes received in uploads").register(meterRegistry);
+        uploadTimer = Timer.builder("musicbox.audio.upload")
+                .description("Time to store an uploaded audio file and its metadata")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     /**
      * Endpoint for uploading an audio file along with its metadata.
      * The audio file and its metadata (title, artistId, albumId, duration) are provided as request parameters.
@@ -40,10 +94,110 @@ public class AudioController {
                                              @RequestParam("artistId") Long artistId,
                                              @RequestParam("albumId") Long albumId,
                                              @RequestParam("duration") int duration) throws IOException {
+        long start = System.nanoTime();
         Audio audio = audioService.saveAudio(file, title, artistId, albumId, duration);
+        uploadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        bytesUploaded.increment(file.getSize());
         return ResponseEntity.ok(audio);
     }
 
+    /**
+     * Endpoint to retrieve the metadata of several audio files at once, e.g. all tracks of a playlist.
+     *
+     * @param ids The IDs of the audio files, comma-separated.
+     * @return ResponseEntity containing the audio metadata found, in request order; unknown IDs are left out.
+     */
+    @GetMapping
+    public ResponseEntity<List<AudioSummary>> getAudioBatch(@RequestParam("ids") List<Long> ids) {
+        return ResponseEntity.ok(batchLookupService.getAudio(ids));
+    }
+
+    /**
+     * Endpoint exposing how many lookups by ID were merged into batch queries, per entity type.
+     *
+     * @return ResponseEntity containing the lookup counters.
+     */
+    @GetMapping("/lookup-stats")
+    public ResponseEntity<Map<String, Long>> getLookupStats() {
+        return ResponseEntity.ok(batchLookupService.getStats());
+    }
+
+    /**
+     * Endpoint exposing how many metadata lookups shared a concurrent lookup of the same track.
+     *
+     * @return ResponseEntity containing the single-flight counters.
+     */
+    @GetMapping("/single-flight-stats")
+    public ResponseEntity<Map<String, Long>> getSingleFlightStats() {
+        return ResponseEntity.ok(audioService.getSingleFlightStats());
+    }
+
+    /**
+     * Endpoint exposing the acoustic fingerprint index size and the fingerprinting counters.
+     *
+     * @return ResponseEntity containing the fingerprint counters.
+     */
+    @GetMapping("/fingerprint-stats")
+    public ResponseEntity<Map<String, Long>> getFingerprintStats() {
+        return ResponseEntity.ok(fingerprintService.getStats());
+    }
+
+    /**
+     * Endpoint to find other uploads of the same recording, in any encoding, by acoustic fingerprint.
+     * Tracks are fingerprinted shortly after their upload commits; until then this answers 202, and it answers 404 for
+     * an unknown ID or a track whose format cannot be decoded.
+     *
+     * @param id The ID of the audio file.
+     * @param limit The maximum number of duplicates to return.
+     * @return ResponseEntity containing the likely duplicates, best match first.
+     */
+    @GetMapping("/{id}/duplicates")
+    public ResponseEntity<List<FingerprintService.Duplicate>> getDuplicates(@PathVariable Long id,
+                                                                            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(fingerprintService.findDuplicates(id, limit));
+    }
+
+    /**
+     * Endpoint to start measuring loudness and tempo of every track that has not been analysed yet.
+     * The backfill runs in the background; its progress shows in the analysis counters.
+     *
+     * @return 202 Accepted if the backfill started, 409 Conflict if one is already running.
+     */
+    @PostMapping("/analysis/backfill")
+    public ResponseEntity<Void> startAnalysisBackfill() {
+        return ResponseEntity.status(audioAnalysisService.startBackfill() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).build();
+    }
+
+    /**
+     * Endpoint exposing the loudness and tempo analysis counters, including the analysis throughput in samples per second.
+     *
+     * @return ResponseEntity containing the analysis counters.
+     */
+    @GetMapping("/analysis-stats")
+    public ResponseEntity<Map<String, Long>> getAnalysisStats() {
+        return ResponseEntity.ok(audioAnalysisService.getStats());
+    }
+
+    /**
+     * Endpoint to start moving the files nobody has read for a while to the cold storage tier, ahead of the schedule.
+     *
+     * @return 202 Accepted if the demotion pass started, 409 Conflict if one is already running.
+     */
+    @PostMapping("/storage/demote")
+    public ResponseEntity<Void> startStorageDemotion() {
+        return ResponseEntity.status(tieredStorageService.startDemotion() ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).build();
+    }
+
+    /**
+     * Endpoint exposing the storage tiering counters: reads, promotions, demotions and bytes moved.
+     *
+     * @return ResponseEntity containing the storage counters.
+     */
+    @GetMapping("/storage-stats")
+    public ResponseEntity<Map<String, Long>> getStorageStats() {
+        return ResponseEntity.ok(tieredStorageService.getStats());
+    }
+
     /**
      * Endpoint to retrieve metadata of an audio file by its ID.
      *
@@ -51,22 +205,63 @@ public class AudioController {
      * @return ResponseEntity containing the audio metadata.
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Audio> getAudio(@PathVariable Long id) {
-        Audio audio = audioService.getAudio(id);
+    public ResponseEntity<AudioSummary> getAudio(@PathVariable Long id) {
+        AudioSummary audio = audioService.getAudio(id);
         return ResponseEntity.ok(audio);
     }
 
     /**
      * Endpoint to download an audio file by its ID.
-     * The audio file is returned as a byte array in the response body.
+     * The file is streamed from disk in chunks, and a {@code Range} header is answered with 206 and the requested bytes,
+     * so a slow listener only holds a small buffer and, with virtual threads enabled, no platform thread.
+     * A download is recorded as a listen event when it has no {@code Range} header or its range starts at byte 0, so
+     * a player seeking through a track with further range requests counts one listen; recording never blocks the response.
      *
      * @param id The ID of the audio file to download.
-     * @return ResponseEntity containing the audio file as a byte array.
+     * @param userId The ID of the listener; optional for anonymous plays.
+     * @param range The requested byte ranges, if any.
+     * @return ResponseEntity containing the audio file.
      * @throws IOException If there is an error reading the file.
      */
     @GetMapping(value = "/file/{id}", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public ResponseEntity<byte[]> getAudioFile(@PathVariable Long id) throws IOException {
-        byte[] audioFile = audioService.getAudioFile(id);
+    public ResponseEntity<Resource> getAudioFile(@PathVariable Long id,
+                                                 @RequestParam(value = "userId", required = false) Long userId,
+                                                 @RequestHeader(value = HttpHeaders.RANGE, required = false) String range) throws IOException {
+        Resource audioFile = audioService.getAudioFileResource(id);
+        if (!audioFile.isReadable()) {
+            throw new FileNotFoundException("Audio file missing for ID: " + id);
+        }
+        if (startsPlayback(audioFile, range)) {
+            listenEventService.tryRecord(id, userId);
+        }
+        bytesStreamed.increment(bytesToSend(audioFile, range));
         return ResponseEntity.ok(audioFile);
     }
+
+    private static boolean startsPlayback(Resource audioFile, String range) throws IOException {
+        if (range == null) {
+            return true;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(range);
+            return !ranges.isEmpty() && ranges.get(0).getRangeStart(audioFile.contentLength()) == 0;
+        } catch (IllegalArgumentException e) {
+            return false; // Malformed or unsatisfiable; nothing is played.
+        }
+    }
+
+    private static long bytesToSend(Resource audioFile, String range) throws IOException {
+        if (range == null) {
+            return audioFile.contentLength();
+        }
+        try {
+            long bytes = 0;
+            for (ResourceRegion region : HttpRange.toResourceRegions(HttpRange.parseRanges(range), audioFile)) {
+                bytes += region.getCount();
+            }
+            return bytes;
+        } catch (IllegalArgumentException e) {
+            return 0; // Unsatisfiable range; Spring answers 416 without a body.
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,176 @@
+package org.trucker.musicbox.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.trucker.musicbox.dto.AlbumSummary;
+import org.trucker.musicbox.dto.SongSummary;
+import org.trucker.musicbox.service.BatchLookupService;
+import org.trucker.musicbox.service.CatalogService;
+import org.trucker.musicbox.service.CatalogService.Discography;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller for managing albums and songs and serving artist pages.
+ * All writes go through {@link CatalogService}, which keeps the album and artist aggregates up to date.
+ */
+@RestController
+@RequestMapping("/api/catalog")
+public class CatalogController {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private BatchLookupService batchLookupService;
+
+    /**
+     * Endpoint to retrieve an artist page: the artist's album count, song count and total runtime,
+     * and the track count and total duration of each album.
+     *
+     * @param artistId The ID of the artist.
+     * @return ResponseEntity containing the discography.
+     */
+    @GetMapping("/artists/{artistId}/discography")
+    public ResponseEntity<Discography> getDiscography(@PathVariable Long artistId) {
+        return ResponseEntity.ok(catalogService.getDiscography(artistId));
+    }
+
+    /**
+     * Endpoint for creating an album.
+     *
+     * @param title The title of the album.
+     * @param releaseYear The release year of the album.
+     * @param artistId The ID of the artist.
+     * @return ResponseEntity containing a summary of the saved album.
+     */
+    @PostMapping("/albums")
+    public ResponseEntity<AlbumSummary> createAlbum(@RequestParam("title") String title,
+                                                    @RequestParam("releaseYear") int releaseYear,
+                                                    @RequestParam("artistId") Long artistId) {
+        return ResponseEntity.ok(catalogService.createAlbum(title, releaseYear, artistId));
+    }
+
+    /**
+     * Endpoint to retrieve the songs of an album.
+     *
+     * @param albumId The ID of the album.
+     * @return ResponseEntity containing the songs of the album.
+     */
+    @GetMapping("/albums/{albumId}/songs")
+    public ResponseEntity<List<SongSummary>> getAlbumSongs(@PathVariable Long albumId) {
+        return ResponseEntity.ok(catalogService.getAlbumSongs(albumId));
+    }
+
+    /**
+     * Endpoint to retrieve the albums of an artist by the artist's name.
+     *
+     * @param artistName The name of the artist.
+     * @return ResponseEntity containing the albums of the artist.
+     */
+    @GetMapping("/albums")
+    public ResponseEntity<List<AlbumSummary>> getAlbumsByArtistName(@RequestParam("artistName") String artistName) {
+        return ResponseEntity.ok(catalogService.getAlbumsByArtistName(artistName));
+    }
+
+    /**
+     * Endpoint exposing how many album and artist lookups shared a concurrent identical query.
+     *
+     * @return ResponseEntity containing the single-flight counters.
+     */
+    @GetMapping("/single-flight-stats")
+    public ResponseEntity<Map<String, Long>> getSingleFlightStats() {
+        return ResponseEntity.ok(catalogService.getSingleFlightStats());
+    }
+
+    /**
+     * Endpoint for deleting an album and its songs.
+     *
+     * @param albumId The ID of the album.
+     * @return 204 No Content once the album is deleted.
+     */
+    @DeleteMapping("/albums/{albumId}")
+    public ResponseEntity<Void> deleteAlbum(@PathVariable Long albumId) {
+        catalogService.deleteAlbum(albumId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to retrieve a song by its ID.
+     *
+     * @param songId The ID of the song.
+     * @return ResponseEntity containing the song, or 404 if it does not exist.
+     */
+    @GetMapping("/songs/{songId}")
+    public ResponseEntity<SongSummary> getSong(@PathVariable Long songId) {
+        SongSummary song = batchLookupService.getSong(songId);
+        return song == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(song);
+    }
+
+    /**
+     * Endpoint to retrieve several songs at once.
+     *
+     * @param ids The IDs of the songs, comma-separated.
+     * @return ResponseEntity containing the songs found, in request order; unknown IDs are left out.
+     */
+    @GetMapping("/songs")
+    public ResponseEntity<List<SongSummary>> getSongs(@RequestParam("ids") List<Long> ids) {
+        return ResponseEntity.ok(batchLookupService.getSongs(ids));
+    }
+
+    /**
+     * Endpoint for creating a song.
+     *
+     * @param title The title of the song.
+     * @param duration The duration of the song in seconds.
+     * @param albumId The ID of the album.
+     * @return ResponseEntity containing a summary of the saved song.
+     */
+    @PostMapping("/songs")
+    public ResponseEntity<SongSummary> createSong(@RequestParam("title") String title,
+                                                  @RequestParam("duration") int duration,
+                                                  @RequestParam("albumId") Long albumId) {
+        return ResponseEntity.ok(catalogService.createSong(title, duration, albumId));
+    }
+
+    /**
+     * Endpoint for updating a song. Parameters that are left out keep their current value.
+     *
+     * @param songId The ID of the song.
+     * @param title The new title.
+     * @param duration The new duration in seconds.
+     * @param albumId The ID of the new album.
+     * @return ResponseEntity containing a summary of the updated song.
+     */
+    @PutMapping("/songs/{songId}")
+    public ResponseEntity<SongSummary> updateSong(@PathVariable Long songId,
+                                                  @RequestParam(value = "title", required = false) String title,
+                                                  @RequestParam(value = "duration", required = false) Integer duration,
+                                                  @RequestParam(value = "albumId", required = false) Long albumId) {
+        return ResponseEntity.ok(catalogService.updateSong(songId, title, duration, albumId));
+    }
+
+    /**
+     * Endpoint for deleting a song.
+     *
+     * @param songId The ID of the song.
+     * @return 204 No Content once the song is deleted.
+     */
+    @DeleteMapping("/songs/{songId}")
+    public ResponseEntity<Void> deleteSong(@PathVariable Long songId) {
+        catalogService.deleteSong(songId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to run the aggregate consistency check immediately instead of waiting for the nightly job.
+     *
+     * @return ResponseEntity containing the number of repaired albums and artists.
+     */
+    @PostMapping("/aggregates/check")
+    public ResponseEntity<Map<String, Integer>> checkConsistency() {
+        return ResponseEntity.ok(catalogService.checkConsistency());
+    }
+}
@@ -0,0 +1,45 @@
+package org.trucker.musicbox.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.trucker.musicbox.service.TrendingService;
+import org.trucker.musicbox.service.TrendingService.ChartType;
+import org.trucker.musicbox.service.TrendingService.ChartWindow;
+import org.trucker.musicbox.util.SlidingTopK;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Controller exposing the "trending now" charts.
+ * Charts are computed in memory by {@link TrendingService} from the live listen event stream.
+ */
+@RestController
+@RequestMapping("/api/charts")
+public class ChartController {
+
+    private static final int MAX_LIMIT = 200;
+
+    @Autowired
+    private TrendingService trendingService;
+
+    /**
+     * Endpoint to retrieve a trending chart, for example {@code /api/charts/songs/hour?limit=20}.
+     * Each entry carries the entity ID, the estimated play count in the window and the maximum overestimation of that count.
+     *
+     * @param type The kind of entity to rank: songs, albums or artists.
+     * @param window The time span to rank over: hour, day or week.
+     * @param limit The maximum number of entries, capped at 200.
+     * @return ResponseEntity containing the chart entries in descending order.
+     * @throws IllegalArgumentException If the type or window is unknown.
+     */
+    @GetMapping("/{type}/{window}")
+    public ResponseEntity<List<SlidingTopK.Entry>> getChart(@PathVariable String type,
+                                                            @PathVariable String window,
+                                                            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        ChartType chartType = ChartType.valueOf(type.toUpperCase(Locale.ROOT));
+        ChartWindow chartWindow = ChartWindow.valueOf(window.toUpperCase(Locale.ROOT));
+        return ResponseEntity.ok(trendingService.getChart(chartType, chartWindow, Math.min(Math.max(limit, 0), MAX_LIMIT)));
+    }
+}
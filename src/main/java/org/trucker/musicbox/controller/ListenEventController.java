@@ -0,0 +1,46 @@
+package org.trucker.musicbox.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.trucker.musicbox.service.ListenEventService;
+
+import java.util.Map;
+
+/**
+ * Controller for recording listen events.
+ * Clients report plays here when they do not stream through {@code /api/audio/file/{id}}, for example when playing from an offline cache.
+ * Events are buffered by {@link ListenEventService} and written to the database asynchronously.
+ */
+@RestController
+@RequestMapping("/api/listens")
+public class ListenEventController {
+
+    @Autowired
+    private ListenEventService listenEventService;
+
+    /**
+     * Endpoint for recording a play of an audio track.
+     *
+     * @param audioId The ID of the audio that was played.
+     * @param userId The ID of the listener; optional for anonymous plays.
+     * @return 202 Accepted if the event was queued, or 429 Too Many Requests if it was dropped because the pipeline is overloaded.
+     */
+    @PostMapping
+    public ResponseEntity<Void> recordListen(@RequestParam("audioId") Long audioId,
+                                             @RequestParam(value = "userId", required = false) Long userId) {
+        boolean accepted = listenEventService.record(audioId, userId);
+        return ResponseEntity.status(accepted ? HttpStatus.ACCEPTED : HttpStatus.TOO_MANY_REQUESTS).build();
+    }
+
+    /**
+     * Endpoint exposing the ingestion counters (accepted, dropped, written, backlog...).
+     *
+     * @return ResponseEntity containing the counters.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Long>> getStats() {
+        return ResponseEntity.ok(listenEventService.getStats());
+    }
+}
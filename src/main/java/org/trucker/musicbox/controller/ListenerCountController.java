@@ -0,0 +1,57 @@
+package org.trucker.musicbox.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.trucker.musicbox.model.ListenerSketch.EntityType;
+import org.trucker.musicbox.service.ListenerCountService;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Controller exposing approximate unique-listener counts for artists and tracks.
+ * Counts are estimated by {@link ListenerCountService} from monthly HyperLogLog sketches.
+ */
+@RestController
+@RequestMapping("/api/listeners")
+public class ListenerCountController {
+
+    @Autowired
+    private ListenerCountService listenerCountService;
+
+    /**
+     * Endpoint to estimate the unique listeners of an artist or track, for example
+     * {@code /api/listeners/artists/42?from=2026-01&to=2026-03}. Both months default to the current month.
+     *
+     * @param type Either artists or tracks (audio IDs).
+     * @param id The ID of the artist or audio track.
+     * @param from The first month of the range, formatted as yyyy-MM.
+     * @param to The last month of the range, formatted as yyyy-MM.
+     * @return ResponseEntity containing the estimate and its relative standard error.
+     */
+    @GetMapping("/{type}/{id}")
+    public ResponseEntity<Map<String, Object>> getUniqueListeners(@PathVariable String type,
+                                                                  @PathVariable Long id,
+                                                                  @RequestParam(value = "from", required = false) String from,
+                                                                  @RequestParam(value = "to", required = false) String to) {
+        EntityType entityType = switch (type) {
+            case "artists" -> EntityType.ARTIST;
+            case "tracks" -> EntityType.TRACK;
+            default -> throw new IllegalArgumentException("Unknown listener count type: " + type);
+        };
+        YearMonth currentMonth = YearMonth.now(ZoneOffset.UTC);
+        YearMonth fromMonth = from == null ? currentMonth : YearMonth.parse(from);
+        YearMonth toMonth = to == null ? currentMonth : YearMonth.parse(to);
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("id", id);
+        body.put("from", fromMonth.toString());
+        body.put("to", toMonth.toString());
+        body.put("uniqueListeners", listenerCountService.countUniqueListeners(entityType, id, fromMonth, toMonth));
+        body.put("relativeStandardError", listenerCountService.getStandardError());
+        return ResponseEntity.ok(body);
+    }
+}
@@ -0,0 +1,62 @@
+package org.trucker.musicbox.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.trucker.musicbox.service.PlaybackPositionService;
+import org.trucker.musicbox.service.PlaybackPositionService.Checkpoint;
+
+import java.util.Map;
+
+/**
+ * Controller for saving and resuming playback positions across devices.
+ * Positions are kept in memory by {@link PlaybackPositionService} and persisted in batches.
+ */
+@RestController
+@RequestMapping("/api/playback")
+public class PlaybackPositionController {
+
+    @Autowired
+    private PlaybackPositionService playbackPositionService;
+
+    /**
+     * Endpoint for reporting the current playback position of a user in an audio track.
+     *
+     * @param userId The ID of the listener.
+     * @param audioId The ID of the audio track.
+     * @param positionMs The playback position in milliseconds.
+     * @param reportedAt Optional epoch millis at which the client sampled the position; used to order reports from several devices.
+     * @return ResponseEntity containing the checkpoint that is current after the update.
+     */
+    @PutMapping("/{userId}/{audioId}")
+    public ResponseEntity<Checkpoint> updatePosition(@PathVariable Long userId,
+                                                     @PathVariable Long audioId,
+                                                     @RequestParam("positionMs") long positionMs,
+                                                     @RequestParam(value = "reportedAt", required = false) Long reportedAt) {
+        return ResponseEntity.ok(playbackPositionService.updatePosition(userId, audioId, positionMs, reportedAt));
+    }
+
+    /**
+     * Endpoint to retrieve where a user left off in an audio track.
+     *
+     * @param userId The ID of the listener.
+     * @param audioId The ID of the audio track.
+     * @return ResponseEntity containing the checkpoint, or 404 if the user never played the track.
+     */
+    @GetMapping("/{userId}/{audioId}")
+    public ResponseEntity<Checkpoint> getPosition(@PathVariable Long userId, @PathVariable Long audioId) {
+        return playbackPositionService.getPosition(userId, audioId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Endpoint exposing the write coalescing counters.
+     *
+     * @return ResponseEntity containing the counters.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(playbackPositionService.getStats());
+    }
+}
@@ -0,0 +1,98 @@
+package org.trucker.musicbox.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.trucker.musicbox.service.RadioService;
+import org.trucker.musicbox.service.RadioService.ChannelInfo;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controller for broadcast radio channels, where every listener hears the same track at the same position.
+ * Channels are run by {@link RadioService}, which reads each track from disk once for all listeners.
+ */
+@RestController
+@RequestMapping("/api/radio")
+public class RadioController {
+
+    @Autowired
+    private RadioService radioService;
+
+    /**
+     * Endpoint to start a channel, for example {@code POST /api/radio/channels?audioIds=3,8,5&loop=true}.
+     *
+     * @param audioIds The audio IDs to broadcast, in order, comma-separated.
+     * @param loop Whether to restart from the first track after the last one.
+     * @return ResponseEntity containing the new channel.
+     */
+    @PostMapping("/channels")
+    public ResponseEntity<ChannelInfo> createChannel(@RequestParam("audioIds") List<Long> audioIds,
+                                                     @RequestParam(value = "loop", defaultValue = "true") boolean loop) {
+        return ResponseEntity.ok(radioService.createChannel(audioIds, loop));
+    }
+
+    /**
+     * Endpoint listing the running channels with their listener counts and fan-out counters.
+     *
+     * @return ResponseEntity containing the channels.
+     */
+    @GetMapping("/channels")
+    public ResponseEntity<List<ChannelInfo>> getChannels() {
+        return ResponseEntity.ok(radioService.getChannels());
+    }
+
+    /**
+     * Endpoint to retrieve one channel.
+     *
+     * @param id The ID of the channel.
+     * @return ResponseEntity containing the channel.
+     */
+    @GetMapping("/channels/{id}")
+    public ResponseEntity<ChannelInfo> getChannel(@PathVariable Long id) {
+        return ResponseEntity.ok(radioService.getChannelInfo(id));
+    }
+
+    /**
+     * Endpoint to stop a channel. Connected listeners are disconnected once they have received what was already broadcast.
+     *
+     * @param id The ID of the channel.
+     * @return ResponseEntity with no content.
+     */
+    @DeleteMapping("/channels/{id}")
+    public ResponseEntity<Void> stopChannel(@PathVariable Long id) {
+        radioService.stopChannel(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to tune in to a channel. The response is an open-ended audio stream joining a few chunks behind the live
+     * position; it ends when the channel stops or the listener falls too far behind under the DROP policy.
+     *
+     * @param id The ID of the channel.
+     * @param response The response the stream is written to.
+     * @throws IOException If the response cannot be opened.
+     */
+    @GetMapping("/channels/{id}/stream")
+    public void listen(@PathVariable Long id, HttpServletResponse response) throws IOException {
+        radioService.getChannelInfo(id); // Fails before the response is committed if the channel does not exist.
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        radioService.listen(id, response.getOutputStream());
+    }
+
+    /**
+     * Endpoint exposing the radio counters over all channels; bytesSent / bytesRead is the fan-out achieved.
+     *
+     * @return ResponseEntity containing the counters.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Long>> getStats() {
+        return ResponseEntity.ok(radioService.getStats());
+    }
+}
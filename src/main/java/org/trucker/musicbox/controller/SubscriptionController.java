@@ -5,9 +5,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.trucker.musicbox.model.Subscription;
+import org.trucker.musicbox.service.ActiveSubscriberIndex;
+import org.trucker.musicbox.service.SubscriptionExpiryService;
 import org.trucker.musicbox.service.SubscriptionService;
 
 import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
 
 /**
  * The {@code SubscriptionController} class is responsible for handling HTTP requests related to subscription management.
@@ -23,6 +27,12 @@ public class SubscriptionController {
     @Autowired
     private SubscriptionService subscriptionService; // Injects an instance of SubscriptionService to handle business logic.
 
+    @Autowired
+    private SubscriptionExpiryService subscriptionExpiryService; // Revokes premium status when subscriptions end.
+
+    @Autowired
+    private ActiveSubscriberIndex activeSubscriberIndex; // In-memory bitmap of the users with an active subscription.
+
     /**
      * Endpoint to create a new subscription for a user. It accepts user ID and subscription end date as request parameters.
      * This method uses HTTP POST request method indicating that it creates a new resource (subscription) on the server.
@@ -51,4 +61,46 @@ public class SubscriptionController {
         boolean isPremium = subscriptionService.isPremiumUser(userId);
         return ResponseEntity.ok(isPremium); // Wraps the premium status in ResponseEntity and returns it.
     }
-}
\ No newline at end of file
+
+    /**
+     * Endpoint exposing the counters of the subscription expiry engine (scheduled, pending, expired and revoked).
+     *
+     * @return A {@link ResponseEntity} containing the counters.
+     */
+    @GetMapping("/expiry-stats")
+    public ResponseEntity<Map<String, Long>> getExpiryStats() {
+        return ResponseEntity.ok(subscriptionExpiryService.getStats());
+    }
+
+    /**
+     * Endpoint to check many users against the active subscriber index at once, without touching the database.
+     *
+     * @param userIds The IDs of the users to check, as a JSON array.
+     * @return A {@link ResponseEntity} containing one flag per requested user, in request order.
+     */
+    @PostMapping("/active/contains")
+    public ResponseEntity<boolean[]> containsActiveSubscribers(@RequestBody List<Long> userIds) {
+        return ResponseEntity.ok(activeSubscriberIndex.containsAll(userIds));
+    }
+
+    /**
+     * Endpoint to intersect a set of users with the active subscribers, for example to target a campaign.
+     *
+     * @param userIds The IDs of the users to intersect with, as a JSON array.
+     * @return A {@link ResponseEntity} containing the IDs of the requested users that are active subscribers, in ascending order.
+     */
+    @PostMapping("/active/intersect")
+    public ResponseEntity<List<Long>> intersectActiveSubscribers(@RequestBody List<Long> userIds) {
+        return ResponseEntity.ok(activeSubscriberIndex.intersect(userIds));
+    }
+
+    /**
+     * Endpoint exposing the size and memory footprint of the active subscriber index.
+     *
+     * @return A {@link ResponseEntity} containing the index statistics.
+     */
+    @GetMapping("/active/stats")
+    public ResponseEntity<Map<String, Long>> getActiveSubscriberStats() {
+        return ResponseEntity.ok(activeSubscriberIndex.getStats());
+    }
+}
@@ -3,9 +3,17 @@ package org.trucker.musicbox.controller;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.trucker.musicbox.dto.UserSummary;
 import org.trucker.musicbox.model.User;
+import org.trucker.musicbox.service.BatchLookupService;
+import org.trucker.musicbox.service.PasswordHashingService;
+import org.trucker.musicbox.service.UserAvailabilityService;
 import org.trucker.musicbox.service.UserService;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @RestController // This annotation indicates that this class is a Spring MVC controller.
 @RequestMapping("/api/users") // This annotation maps HTTP requests to handler methods of MVC and REST controllers.
 public class UserController {
@@ -13,6 +21,15 @@ public class UserController {
     @Autowired // This annotation is used for automatic dependency injection.
     private UserService userService; // Service class that contains the business logic for user operations.
 
+    @Autowired
+    private PasswordHashingService passwordHashingService; // Bounded pool hashing and verifying passwords.
+
+    @Autowired
+    private UserAvailabilityService userAvailabilityService; // Bloom-filter backed username and email availability checks.
+
+    @Autowired
+    private BatchLookupService batchLookupService; // Merges concurrent lookups by ID into batch queries.
+
     @PostMapping("/register") // This annotation maps HTTP POST requests onto specific handler methods.
     public ResponseEntity<User> registerUser(@RequestBody User user) {
         // Method to register a new user in the system.
@@ -21,6 +38,31 @@ public class UserController {
         return ResponseEntity.ok(savedUser); // The created user is returned in the HTTP response.
     }
 
+    @GetMapping("/register/availability") // Checked by the signup form on every keystroke.
+    public ResponseEntity<Map<String, Boolean>> checkAvailability(@RequestParam(required = false) String username,
+                                                                  @RequestParam(required = false) String email) {
+        // Only the given parameters are checked; most answers come from memory without a database query.
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (username != null) {
+            availability.put("username", userAvailabilityService.isUsernameAvailable(username));
+        }
+        if (email != null) {
+            availability.put("email", userAvailabilityService.isEmailAvailable(email));
+        }
+        return ResponseEntity.ok(availability);
+    }
+
+    @GetMapping("/register/availability/stats") // Exposes how many checks were answered without the database.
+    public ResponseEntity<Map<String, Long>> getAvailabilityStats() {
+        return ResponseEntity.ok(userAvailabilityService.getStats());
+    }
+
+    @GetMapping // Resolves many users in one call, e.g. the owners of the playlists on a page.
+    public ResponseEntity<List<UserSummary>> getUsers(@RequestParam("ids") List<Long> ids) {
+        // Users are returned in request order; unknown IDs are left out.
+        return ResponseEntity.ok(batchLookupService.getUsers(ids));
+    }
+
     @GetMapping("/{username}") // This annotation maps HTTP GET requests onto specific handler methods.
     public ResponseEntity<User> getUser(@PathVariable String username) {
         // Method to retrieve user details by username.
@@ -28,4 +70,9 @@ public class UserController {
         User user = userService.findByUsername(username);
         return ResponseEntity.ok(user); // The user details are returned in the HTTP response.
     }
+
+    @GetMapping("/password-hashing/stats") // Exposes the password hashing pool counters and the bcrypt cost in use.
+    public ResponseEntity<Map<String, Long>> getPasswordHashingStats() {
+        return ResponseEntity.ok(passwordHashingService.getStats());
+    }
 }
@@ -0,0 +1,14 @@
+package org.trucker.musicbox.dto;
+
+/**
+ * Read-only view of an album with its maintained aggregates, without the artist and the lazily loaded songs.
+ * Loaded with a constructor projection, so it can be built and shared between threads outside a persistence context.
+ *
+ * @param id The ID of the album.
+ * @param title The title of the album.
+ * @param releaseYear The release year of the album.
+ * @param trackCount The number of songs in the album.
+ * @param totalDuration The sum of the song durations in seconds.
+ */
+public record AlbumSummary(Long id, String title, int releaseYear, int trackCount, long totalDuration) {
+}
@@ -0,0 +1,24 @@
+package org.trucker.musicbox.dto;
+
+/**
+ * Read-only view of an audio track with its artist and album flattened to IDs and names.
+ * Loaded with a constructor projection, so it can be built, cached and shared between threads outside a persistence
+ * context, unlike an {@link org.trucker.musicbox.model.Audio} entity.
+ *
+ * @param id The ID of the audio track.
+ * @param title The title of the track.
+ * @param duration The duration of the track in seconds.
+ * @param artistId The ID of the track's artist, or null.
+ * @param artistName The name of the track's artist, or null.
+ * @param albumId The ID of the track's album, or null.
+ * @param albumTitle The title of the track's album, or null.
+ * @param filePath The path of the audio file.
+ * @param storageTier The storage tier of the file; null for files stored before tiering, which are on the hot tier.
+ * @param loudnessLufs The integrated loudness, or null until analysed.
+ * @param peakDbfs The sample peak, or null until analysed.
+ * @param bpm The estimated tempo, or null until analysed or if there is no regular beat.
+ */
+public record AudioSummary(Long id, String title, int duration, Long artistId, String artistName, Long albumId,
+                           String albumTitle, String filePath, String storageTier, Double loudnessLufs, Double peakDbfs,
+                           Double bpm) {
+}
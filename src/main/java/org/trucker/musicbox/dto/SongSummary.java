@@ -0,0 +1,14 @@
+package org.trucker.musicbox.dto;
+
+/**
+ * Read-only view of a song with its album's ID and title, without the lazily loaded playlists.
+ * Loaded with a constructor projection, so it can be built and shared outside a persistence context.
+ *
+ * @param id The ID of the song.
+ * @param title The title of the song.
+ * @param duration The duration of the song in seconds.
+ * @param albumId The ID of the song's album.
+ * @param albumTitle The title of the song's album.
+ */
+public record SongSummary(Long id, String title, int duration, Long albumId, String albumTitle) {
+}
@@ -0,0 +1,14 @@
+package org.trucker.musicbox.dto;
+
+/**
+ * Read-only view of a user, without the password hash and the lazily loaded playlists.
+ * Loaded with a constructor projection, so it can be built and shared outside a persistence context.
+ *
+ * @param id The ID of the user.
+ * @param username The username.
+ * @param email The email address.
+ * @param status The account status.
+ * @param premium Whether the user is flagged as premium.
+ */
+public record UserSummary(Long id, String username, String email, String status, boolean premium) {
+}
@@ -0,0 +1,32 @@
+package org.trucker.musicbox.exception;
+
+/**
+ * Custom exception class representing the scenario where a track has no acoustic fingerprint to compare.
+ * Either the track is still waiting to be fingerprinted after its upload, in which case the client may ask again later,
+ * or it will never have one because it does not exist or its format cannot be decoded.
+ * The {@link GlobalExceptionHandler} maps the first case to HTTP 202 and the second to HTTP 404.
+ */
+public class FingerprintUnavailableException extends RuntimeException {
+
+    private final boolean pending;
+
+    /**
+     * Constructs a new FingerprintUnavailableException with the specified detail message.
+     *
+     * @param message the detail message, naming the track.
+     * @param pending true if the track is still waiting to be fingerprinted.
+     */
+    public FingerprintUnavailableException(String message, boolean pending) {
+        super(message);
+        this.pending = pending;
+    }
+
+    /**
+     * Tells whether the fingerprint is still to come.
+     *
+     * @return true if the track is still waiting to be fingerprinted.
+     */
+    public boolean isPending() {
+        return pending;
+    }
+}
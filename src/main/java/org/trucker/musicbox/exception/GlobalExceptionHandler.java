@@ -1,10 +1,13 @@
 package org.trucker.musicbox.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.time.DateTimeException;
+
 /**
  * The {@code GlobalExceptionHandler} class provides a centralized exception handling mechanism across the entire application.
  * It intercepts exceptions thrown by controllers and returns a suitable {@link ResponseEntity} to the client, ensuring a consistent
@@ -27,6 +30,59 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handles exceptions of type {@link IllegalArgumentException}, typically thrown when a request parameter has a value
+     * the application does not understand (for example an unknown chart type). It returns the exception's message with
+     * an HTTP status code of 400 (Bad Request).
+     *
+     * @param ex The caught {@code IllegalArgumentException}.
+     * @return A {@link ResponseEntity} containing the exception message and HTTP status 400.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles exceptions of type {@link DateTimeException}, thrown when a date or month request parameter cannot be parsed.
+     * It returns the exception's message with an HTTP status code of 400 (Bad Request).
+     *
+     * @param ex The caught {@code DateTimeException}.
+     * @return A {@link ResponseEntity} containing the exception message and HTTP status 400.
+     */
+    @ExceptionHandler(DateTimeException.class)
+    public ResponseEntity<String> handleDateTimeException(DateTimeException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Handles exceptions of type {@link ServiceBusyException}, thrown when a bounded resource such as the password hashing
+     * pool is saturated. It returns the exception's message with an HTTP status code of 503 (Service Unavailable) and a
+     * Retry-After header, so clients back off instead of retrying immediately.
+     *
+     * @param ex The caught {@code ServiceBusyException}.
+     * @return A {@link ResponseEntity} containing the exception message and HTTP status 503.
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<String> handleServiceBusyException(ServiceBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handles exceptions of type {@link FingerprintUnavailableException}, thrown when duplicates are requested for a track
+     * without an acoustic fingerprint. A track still waiting to be fingerprinted answers 202 (Accepted), so the client asks
+     * again later; a track that does not exist or cannot be decoded answers 404 (Not Found).
+     *
+     * @param ex The caught {@code FingerprintUnavailableException}.
+     * @return A {@link ResponseEntity} containing the exception message and HTTP status 202 or 404.
+     */
+    @ExceptionHandler(FingerprintUnavailableException.class)
+    public ResponseEntity<String> handleFingerprintUnavailableException(FingerprintUnavailableException ex) {
+        return new ResponseEntity<>(ex.getMessage(), ex.isPending() ? HttpStatus.ACCEPTED : HttpStatus.NOT_FOUND);
+    }
+
     // Existing exception handlers...
 
     /**
@@ -0,0 +1,19 @@
+package org.trucker.musicbox.exception;
+
+/**
+ * Custom exception class representing the scenario where a bounded resource of the application (for example the
+ * password hashing pool) is saturated and the request is rejected instead of queued without limit.
+ * Clients are expected to retry later; the {@link GlobalExceptionHandler} of each application maps it to HTTP 503 with a
+ * Retry-After header.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    /**
+     * Constructs a new ServiceBusyException with the specified detail message.
+     *
+     * @param message the detail message, describing which resource is saturated.
+     */
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -26,6 +26,12 @@ public class Album {
     @OneToMany(mappedBy = "album", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<Song> songs; // The set of songs in the album. This is a one-to-many relationship, indicating an album can contain multiple songs.
 
+    @Column(name = "track_count", nullable = false, columnDefinition = "integer default 0")
+    private int trackCount; // Number of songs in the album, maintained incrementally by CatalogService so it can be read without loading the songs.
+
+    @Column(name = "total_duration", nullable = false, columnDefinition = "bigint default 0")
+    private long totalDuration; // Sum of the song durations in seconds, maintained alongside trackCount.
+
     // Default constructor
     public Album() {
         // Used by JPA to create instances of the class.
@@ -119,4 +125,36 @@ public class Album {
     public void setSongs(Set<Song> songs) {
         this.songs = songs;
     }
+
+    /**
+     * Gets the number of songs in the album.
+     * @return The maintained track count.
+     */
+    public int getTrackCount() {
+        return trackCount;
+    }
+
+    /**
+     * Sets the number of songs in the album.
+     * @param trackCount The new track count.
+     */
+    public void setTrackCount(int trackCount) {
+        this.trackCount = trackCount;
+    }
+
+    /**
+     * Gets the total duration of the album.
+     * @return The maintained total duration in seconds.
+     */
+    public long getTotalDuration() {
+        return totalDuration;
+    }
+
+    /**
+     * Sets the total duration of the album.
+     * @param totalDuration The new total duration in seconds.
+     */
+    public void setTotalDuration(long totalDuration) {
+        this.totalDuration = totalDuration;
+    }
 }
\ No newline at end of file
@@ -20,6 +20,15 @@ public class Artist {
     @OneToMany(mappedBy = "artist", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private Set<Album> albums; // The set of albums by the artist. This is a one-to-many relationship, indicating an artist can produce multiple albums.
 
+    @Column(name = "album_count", nullable = false, columnDefinition = "integer default 0")
+    private int albumCount; // Number of albums by the artist, maintained incrementally by CatalogService.
+
+    @Column(name = "song_count", nullable = false, columnDefinition = "integer default 0")
+    private int songCount; // Number of songs across all albums of the artist, maintained incrementally by CatalogService.
+
+    @Column(name = "total_runtime", nullable = false, columnDefinition = "bigint default 0")
+    private long totalRuntime; // Sum of the song durations in seconds across all albums of the artist.
+
     // Default constructor
     public Artist() {
         // Used by JPA to create instances of the class.
@@ -79,4 +88,52 @@ public class Artist {
     public void setAlbums(Set<Album> albums) {
         this.albums = albums;
     }
+
+    /**
+     * Gets the number of albums by the artist.
+     * @return The maintained album count.
+     */
+    public int getAlbumCount() {
+        return albumCount;
+    }
+
+    /**
+     * Sets the number of albums by the artist.
+     * @param albumCount The new album count.
+     */
+    public void setAlbumCount(int albumCount) {
+        this.albumCount = albumCount;
+    }
+
+    /**
+     * Gets the number of songs by the artist.
+     * @return The maintained song count.
+     */
+    public int getSongCount() {
+        return songCount;
+    }
+
+    /**
+     * Sets the number of songs by the artist.
+     * @param songCount The new song count.
+     */
+    public void setSongCount(int songCount) {
+        this.songCount = songCount;
+    }
+
+    /**
+     * Gets the total runtime of the artist's songs.
+     * @return The maintained total runtime in seconds.
+     */
+    public long getTotalRuntime() {
+        return totalRuntime;
+    }
+
+    /**
+     * Sets the total runtime of the artist's songs.
+     * @param totalRuntime The new total runtime in seconds.
+     */
+    public void setTotalRuntime(long totalRuntime) {
+        this.totalRuntime = totalRuntime;
+    }
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package org.trucker.musicbox.model;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_audio_file_path", columnList = "file_path"))
 public class Audio {
 
     @Id
@@ -25,6 +27,18 @@ public class Audio {
     @Column(nullable = false)
     private String filePath; // Path to the audio file
 
+    private Double loudnessLufs; // EBU R128 integrated loudness, for volume normalisation; null until analysed or if silent
+
+    private Double peakDbfs; // Sample peak in dBFS, so normalisation gain can be capped to avoid clipping
+
+    private Double bpm; // Estimated tempo in beats per minute; null until analysed or if there is no regular beat
+
+    private LocalDateTime analyzedAt; // When loudness and tempo were analysed; null while pending
+
+    private String storageTier; // "hot" or "cold"; null for files stored before tiering, which are on the hot tier
+
+    private LocalDateTime lastAccessedAt; // Last read of the file, to the minute; null if not read since tiering started
+
     // Getters and setters
     public Long getId() {
         return id;
@@ -73,4 +87,52 @@ public class Audio {
     public void setFilePath(String filePath) {
         this.filePath = filePath;
     }
+
+    public Double getLoudnessLufs() {
+        return loudnessLufs;
+    }
+
+    public void setLoudnessLufs(Double loudnessLufs) {
+        this.loudnessLufs = loudnessLufs;
+    }
+
+    public Double getPeakDbfs() {
+        return peakDbfs;
+    }
+
+    public void setPeakDbfs(Double peakDbfs) {
+        this.peakDbfs = peakDbfs;
+    }
+
+    public Double getBpm() {
+        return bpm;
+    }
+
+    public void setBpm(Double bpm) {
+        this.bpm = bpm;
+    }
+
+    public LocalDateTime getAnalyzedAt() {
+        return analyzedAt;
+    }
+
+    public void setAnalyzedAt(LocalDateTime analyzedAt) {
+        this.analyzedAt = analyzedAt;
+    }
+
+    public String getStorageTier() {
+        return storageTier;
+    }
+
+    public void setStorageTier(String storageTier) {
+        this.storageTier = storageTier;
+    }
+
+    public LocalDateTime getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    public void setLastAccessedAt(LocalDateTime lastAccessedAt) {
+        this.lastAccessedAt = lastAccessedAt;
+    }
 }
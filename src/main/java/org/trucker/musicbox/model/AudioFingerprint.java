@@ -0,0 +1,109 @@
+package org.trucker.musicbox.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Persisted acoustic fingerprint of an audio track, in the packed form produced by
+ * {@link org.trucker.musicbox.util.AcousticFingerprinter.Fingerprint#toBytes()}.
+ * The in-memory fingerprint index is rebuilt from these rows at startup. The most likely duplicate found when the track
+ * was fingerprinted is kept with it, so re-uploads can be reviewed without querying again.
+ */
+@Entity
+@Table(name = "audio_fingerprint")
+public class AudioFingerprint {
+
+    @Id
+    @Column(name = "audio_id")
+    private Long audioId; // The ID of the fingerprinted audio track.
+
+    @Column(nullable = false, length = 65540)
+    private byte[] hashes; // The packed fingerprint hashes and their frame offsets.
+
+    @Column(name = "hash_count", nullable = false)
+    private int hashCount; // The number of hashes; 0 for silent or very short tracks.
+
+    @Column(nullable = false)
+    private int frames; // The number of analysis frames, a measure of the length fingerprinted.
+
+    @Column(name = "duplicate_of_id")
+    private Long duplicateOfId; // The ID of the most likely earlier copy of the track, or null.
+
+    @Column(name = "duplicate_votes")
+    private Integer duplicateVotes; // The number of hashes matching that copy.
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt; // When the track was fingerprinted.
+
+    // Default constructor
+    public AudioFingerprint() {
+        // Used by JPA to create instances of the class.
+    }
+
+    // Parameterized constructor
+    public AudioFingerprint(Long audioId, byte[] hashes, int hashCount, int frames, LocalDateTime createdAt) {
+        this.audioId = audioId;
+        this.hashes = hashes;
+        this.hashCount = hashCount;
+        this.frames = frames;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and setters
+
+    public Long getAudioId() {
+        return audioId;
+    }
+
+    public void setAudioId(Long audioId) {
+        this.audioId = audioId;
+    }
+
+    public byte[] getHashes() {
+        return hashes;
+    }
+
+    public void setHashes(byte[] hashes) {
+        this.hashes = hashes;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    public void setHashCount(int hashCount) {
+        this.hashCount = hashCount;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    public void setFrames(int frames) {
+        this.frames = frames;
+    }
+
+    public Long getDuplicateOfId() {
+        return duplicateOfId;
+    }
+
+    public void setDuplicateOfId(Long duplicateOfId) {
+        this.duplicateOfId = duplicateOfId;
+    }
+
+    public Integer getDuplicateVotes() {
+        return duplicateVotes;
+    }
+
+    public void setDuplicateVotes(Integer duplicateVotes) {
+        this.duplicateVotes = duplicateVotes;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,104 @@
+package org.trucker.musicbox.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Represents a single play of an audio track in the music box application.
+ * Listen events are written in bulk by the ingestion pipeline, so they reference the audio and user by ID only
+ * instead of through entity relationships; this keeps inserts cheap and avoids loading related entities.
+ */
+@Entity
+@Table(name = "listen_event", indexes = @Index(name = "idx_listen_event_audio_time", columnList = "audio_id, listened_at"))
+public class ListenEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // Unique identifier for the listen event, automatically generated.
+
+    @Column(name = "audio_id", nullable = false)
+    private Long audioId; // The ID of the audio that was played.
+
+    @Column(name = "user_id")
+    private Long userId; // The ID of the listener, or null when the play was anonymous.
+
+    @Column(name = "listened_at", nullable = false)
+    private LocalDateTime listenedAt; // The moment the play started.
+
+    // Default constructor
+    public ListenEvent() {
+        // Used by JPA to create instances of the class.
+    }
+
+    // Parameterized constructor
+    public ListenEvent(Long audioId, Long userId, LocalDateTime listenedAt) {
+        this.audioId = audioId;
+        this.userId = userId;
+        this.listenedAt = listenedAt;
+    }
+
+    // Getters and setters
+
+    /**
+     * Gets the ID of the listen event.
+     * @return The ID of the listen event.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the listen event.
+     * @param id The new ID of the listen event.
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the ID of the audio that was played.
+     * @return The audio ID.
+     */
+    public Long getAudioId() {
+        return audioId;
+    }
+
+    /**
+     * Sets the ID of the audio that was played.
+     * @param audioId The new audio ID.
+     */
+    public void setAudioId(Long audioId) {
+        this.audioId = audioId;
+    }
+
+    /**
+     * Gets the ID of the listener.
+     * @return The user ID, or null for anonymous plays.
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Sets the ID of the listener.
+     * @param userId The new user ID.
+     */
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Gets the moment the play started.
+     * @return The listen timestamp.
+     */
+    public LocalDateTime getListenedAt() {
+        return listenedAt;
+    }
+
+    /**
+     * Sets the moment the play started.
+     * @param listenedAt The new listen timestamp.
+     */
+    public void setListenedAt(LocalDateTime listenedAt) {
+        this.listenedAt = listenedAt;
+    }
+}
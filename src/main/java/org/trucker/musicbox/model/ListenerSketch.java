@@ -0,0 +1,93 @@
+package org.trucker.musicbox.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Persisted HyperLogLog sketch of the distinct listeners of an artist or track during one calendar month.
+ * The registers are stored in the packed form produced by {@link org.trucker.musicbox.util.HyperLogLog#toBytes()},
+ * so a sketch of precision 12 takes about 3 KB whatever the number of listeners.
+ */
+@Entity
+@Table(name = "listener_sketch",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"entity_type", "entity_id", "period"}))
+public class ListenerSketch {
+
+    /**
+     * The kind of entity whose listeners are counted.
+     */
+    public enum EntityType {
+        ARTIST, TRACK
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // Unique identifier for the sketch, automatically generated.
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 16)
+    private EntityType entityType; // Whether the sketch counts the listeners of an artist or of a track.
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId; // The ID of the artist, or of the audio track.
+
+    @Column(nullable = false, length = 7)
+    private String period; // The calendar month covered by the sketch, formatted as yyyy-MM so that it sorts chronologically.
+
+    @Column(nullable = false, length = 49153)
+    private byte[] registers; // The packed sketch registers.
+
+    // Default constructor
+    public ListenerSketch() {
+        // Used by JPA to create instances of the class.
+    }
+
+    // Parameterized constructor
+    public ListenerSketch(EntityType entityType, Long entityId, String period, byte[] registers) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.period = period;
+        this.registers = registers;
+    }
+
+    // Getters and setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public void setEntityType(EntityType entityType) {
+        this.entityType = entityType;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public void setEntityId(Long entityId) {
+        this.entityId = entityId;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public byte[] getRegisters() {
+        return registers;
+    }
+
+    public void setRegisters(byte[] registers) {
+        this.registers = registers;
+    }
+}
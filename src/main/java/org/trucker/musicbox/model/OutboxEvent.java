@@ -0,0 +1,182 @@
+package org.trucker.musicbox.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Represents a domain event in the transactional outbox.
+ * The event is inserted in the same transaction as the change it describes, so it exists if and only if the change was
+ * committed. The {@code DomainEventBus} dispatches it to its consumers after the commit and sets {@code processedAt} once
+ * they have handled it; events still unprocessed after a crash are dispatched again at startup.
+ */
+@Entity
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_processed", columnList = "processed_at, id"))
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // Unique identifier for the event, automatically generated; also the dispatch order.
+
+    @Column(nullable = false, length = 100)
+    private String topic; // The kind of event, for example subscription.created.
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId; // The ID of the entity the event is about.
+
+    @Column(length = 1000)
+    private String payload; // Topic-specific details, or null when the aggregate ID says it all.
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt; // When the event was published.
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt; // When all consumers handled the event, or null while it is pending.
+
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    private int attempts; // Number of failed dispatches.
+
+    @Column(name = "last_error")
+    private String lastError; // Message of the last consumer failure, truncated to fit the column.
+
+    // Default constructor
+    public OutboxEvent() {
+        // Used by JPA to create instances of the class.
+    }
+
+    // Parameterized constructor
+    public OutboxEvent(String topic, Long aggregateId, String payload, LocalDateTime createdAt) {
+        this.topic = topic;
+        this.aggregateId = aggregateId;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    // Getters and setters
+
+    /**
+     * Gets the ID of the event.
+     * @return The ID of the event.
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the event.
+     * @param id The new ID of the event.
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the topic of the event.
+     * @return The topic.
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    /**
+     * Sets the topic of the event.
+     * @param topic The new topic.
+     */
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    /**
+     * Gets the ID of the entity the event is about.
+     * @return The aggregate ID.
+     */
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    /**
+     * Sets the ID of the entity the event is about.
+     * @param aggregateId The new aggregate ID.
+     */
+    public void setAggregateId(Long aggregateId) {
+        this.aggregateId = aggregateId;
+    }
+
+    /**
+     * Gets the topic-specific details of the event.
+     * @return The payload, or null.
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * Sets the topic-specific details of the event.
+     * @param payload The new payload.
+     */
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    /**
+     * Gets when the event was published.
+     * @return The creation timestamp.
+     */
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Sets when the event was published.
+     * @param createdAt The new creation timestamp.
+     */
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Gets when all consumers handled the event.
+     * @return The processing timestamp, or null while the event is pending.
+     */
+    public LocalDateTime getProcessedAt() {
+        return processedAt;
+    }
+
+    /**
+     * Sets when all consumers handled the event.
+     * @param processedAt The new processing timestamp.
+     */
+    public void setProcessedAt(LocalDateTime processedAt) {
+        this.processedAt = processedAt;
+    }
+
+    /**
+     * Gets the number of failed dispatches.
+     * @return The attempt count.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Sets the number of failed dispatches.
+     * @param attempts The new attempt count.
+     */
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    /**
+     * Gets the message of the last consumer failure.
+     * @return The error message, or null.
+     */
+    public String getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Sets the message of the last consumer failure.
+     * @param lastError The new error message.
+     */
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
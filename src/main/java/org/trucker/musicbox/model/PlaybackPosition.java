@@ -0,0 +1,77 @@
+package org.trucker.musicbox.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Represents how far a user has listened into an audio track, so playback can resume on any device.
+ * Positions are checkpointed in memory and flushed to this table in batches, so the row may lag the latest
+ * position reported by a client by up to one flush interval.
+ */
+@Entity
+@Table(name = "playback_position",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "audio_id"}))
+public class PlaybackPosition {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id; // Unique identifier for the position, automatically generated.
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId; // The ID of the listener.
+
+    @Column(name = "audio_id", nullable = false)
+    private Long audioId; // The ID of the audio track being played.
+
+    @Column(name = "position_ms", nullable = false)
+    private long positionMs; // The playback position in milliseconds from the start of the track.
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt; // When the client reported this position; the latest report wins.
+
+    // Default constructor
+    public PlaybackPosition() {
+        // Used by JPA to create instances of the class.
+    }
+
+    // Getters and setters
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getAudioId() {
+        return audioId;
+    }
+
+    public void setAudioId(Long audioId) {
+        this.audioId = audioId;
+    }
+
+    public long getPositionMs() {
+        return positionMs;
+    }
+
+    public void setPositionMs(long positionMs) {
+        this.positionMs = positionMs;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
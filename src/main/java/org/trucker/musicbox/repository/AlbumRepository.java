@@ -1,8 +1,10 @@
 package org.trucker.musicbox.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.trucker.musicbox.dto.AlbumSummary;
 import org.trucker.musicbox.model.Album;
 
 import java.util.List;
@@ -45,4 +47,79 @@ public interface AlbumRepository extends JpaRepository<Album, Long> {
      */
     @Query("SELECT a FROM Album a WHERE a.artist.name = :artistName")
     List<Album> findAlbumsByArtistName(@Param("artistName") String artistName);
+
+    /**
+     * Loads read-only views of the albums of an artist by the artist's name, without loading entities.
+     *
+     * @param artistName The name of the artist.
+     * @return The albums of the artist, with their track count and total duration.
+     */
+    @Query("SELECT new org.trucker.musicbox.dto.AlbumSummary(a.id, a.title, a.releaseYear, a.trackCount, a.totalDuration) " +
+            "FROM Album a WHERE a.artist.name = :artistName")
+    List<AlbumSummary> findSummariesByArtistName(@Param("artistName") String artistName);
+
+    /**
+     * Custom query to find the albums of an artist together with the artist, in a single query.
+     * The maintained aggregates on both entities make this enough to render an artist page without touching the songs.
+     *
+     * @param artistId The ID of the artist.
+     * @return A list of Album entities with their artist fetched. If the artist has no albums, returns an empty list.
+     */
+    @Query("SELECT a FROM Album a JOIN FETCH a.artist WHERE a.artist.id = :artistId ORDER BY a.releaseYear, a.title")
+    List<Album> findAlbumsWithArtistByArtistId(@Param("artistId") Long artistId);
+
+    /**
+     * Adjusts the maintained aggregates of an album by the given deltas.
+     * Using a relative update keeps concurrent song changes on the same album from overwriting each other.
+     *
+     * @param albumId The ID of the album.
+     * @param tracks The change in track count.
+     * @param duration The change in total duration, in seconds.
+     * @return The number of updated rows.
+     */
+    @Modifying
+    @Query("UPDATE Album a SET a.trackCount = a.trackCount + :tracks, a.totalDuration = a.totalDuration + :duration WHERE a.id = :albumId")
+    int adjustAggregates(@Param("albumId") Long albumId, @Param("tracks") int tracks, @Param("duration") long duration);
+
+    /**
+     * Custom query to find albums whose maintained aggregates disagree with their songs.
+     *
+     * @return Rows of {albumId, actualTrackCount, actualTotalDuration} for every drifted album.
+     */
+    @Query("SELECT a.id, COUNT(s), COALESCE(SUM(s.duration), 0) FROM Album a LEFT JOIN a.songs s " +
+            "GROUP BY a.id, a.trackCount, a.totalDuration " +
+            "HAVING a.trackCount <> COUNT(s) OR a.totalDuration <> COALESCE(SUM(s.duration), 0)")
+    List<Object[]> findDriftedAggregates();
+
+    /**
+     * Custom query to lock an album row until the end of the transaction.
+     * Song writes adjust the album's aggregates while holding the same row lock, so once it is taken every such write
+     * has either committed or waits for this transaction.
+     *
+     * @param albumId The ID of the album.
+     * @return The ID of the album, or null if it no longer exists.
+     */
+    @Query(value = "SELECT id FROM album WHERE id = :albumId FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("albumId") Long albumId);
+
+    /**
+     * Custom query to compute the aggregates of one album from its songs.
+     *
+     * @param albumId The ID of the album.
+     * @return A single row of {trackCount, totalDuration}.
+     */
+    @Query("SELECT COUNT(s), COALESCE(SUM(s.duration), 0) FROM Song s WHERE s.album.id = :albumId")
+    List<Object[]> computeAggregates(@Param("albumId") Long albumId);
+
+    /**
+     * Overwrites the maintained aggregates of an album with recomputed values.
+     *
+     * @param albumId The ID of the album.
+     * @param trackCount The exact track count.
+     * @param totalDuration The exact total duration, in seconds.
+     * @return The number of updated rows.
+     */
+    @Modifying
+    @Query("UPDATE Album a SET a.trackCount = :trackCount, a.totalDuration = :totalDuration WHERE a.id = :albumId")
+    int setAggregates(@Param("albumId") Long albumId, @Param("trackCount") int trackCount, @Param("totalDuration") long totalDuration);
 }
\ No newline at end of file
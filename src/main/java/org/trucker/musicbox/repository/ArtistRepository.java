@@ -1,6 +1,7 @@
 package org.trucker.musicbox.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.trucker.musicbox.model.Artist;
@@ -35,4 +36,67 @@ public interface ArtistRepository extends JpaRepository<Artist, Long> {
      */
     @Query("SELECT a FROM Artist a WHERE a.name LIKE %:name%")
     List<Artist> findArtistsByNameContaining(@Param("name") String name);
+
+    /**
+     * Adjusts the maintained aggregates of an artist by the given deltas.
+     *
+     * @param artistId The ID of the artist.
+     * @param albums The change in album count.
+     * @param songs The change in song count.
+     * @param runtime The change in total runtime, in seconds.
+     * @return The number of updated rows.
+     */
+    @Modifying
+    @Query("UPDATE Artist a SET a.albumCount = a.albumCount + :albums, a.songCount = a.songCount + :songs, " +
+            "a.totalRuntime = a.totalRuntime + :runtime WHERE a.id = :artistId")
+    int adjustAggregates(@Param("artistId") Long artistId, @Param("albums") int albums,
+                         @Param("songs") int songs, @Param("runtime") long runtime);
+
+    /**
+     * Custom query to find artists whose maintained aggregates disagree with their albums and songs.
+     *
+     * @return Rows of {artistId, actualAlbumCount, actualSongCount, actualTotalRuntime} for every drifted artist.
+     */
+    @Query("SELECT a.id, COUNT(DISTINCT al.id), COUNT(s), COALESCE(SUM(s.duration), 0) " +
+            "FROM Artist a LEFT JOIN a.albums al LEFT JOIN al.songs s " +
+            "GROUP BY a.id, a.albumCount, a.songCount, a.totalRuntime " +
+            "HAVING a.albumCount <> COUNT(DISTINCT al.id) OR a.songCount <> COUNT(s) " +
+            "OR a.totalRuntime <> COALESCE(SUM(s.duration), 0)")
+    List<Object[]> findDriftedAggregates();
+
+    /**
+     * Custom query to lock an artist row until the end of the transaction.
+     * Album and song writes adjust the artist's aggregates while holding the same row lock, so once it is taken every
+     * such write has either committed or waits for this transaction.
+     *
+     * @param artistId The ID of the artist.
+     * @return The ID of the artist, or null if it no longer exists.
+     */
+    @Query(value = "SELECT id FROM artist WHERE id = :artistId FOR UPDATE", nativeQuery = true)
+    Long lockById(@Param("artistId") Long artistId);
+
+    /**
+     * Custom query to compute the aggregates of one artist from its albums and songs.
+     *
+     * @param artistId The ID of the artist.
+     * @return A single row of {albumCount, songCount, totalRuntime}.
+     */
+    @Query("SELECT COUNT(DISTINCT al.id), COUNT(s), COALESCE(SUM(s.duration), 0) " +
+            "FROM Album al LEFT JOIN al.songs s WHERE al.artist.id = :artistId")
+    List<Object[]> computeAggregates(@Param("artistId") Long artistId);
+
+    /**
+     * Overwrites the maintained aggregates of an artist with recomputed values.
+     *
+     * @param artistId The ID of the artist.
+     * @param albumCount The exact album count.
+     * @param songCount The exact song count.
+     * @param totalRuntime The exact total runtime, in seconds.
+     * @return The number of updated rows.
+     */
+    @Modifying
+    @Query("UPDATE Artist a SET a.albumCount = :albumCount, a.songCount = :songCount, a.totalRuntime = :totalRuntime " +
+            "WHERE a.id = :artistId")
+    int setAggregates(@Param("artistId") Long artistId, @Param("albumCount") int albumCount,
+                      @Param("songCount") int songCount, @Param("totalRuntime") long totalRuntime);
 }
\ No newline at end of file
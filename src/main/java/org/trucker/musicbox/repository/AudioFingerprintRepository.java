@@ -0,0 +1,11 @@
+package org.trucker.musicbox.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.trucker.musicbox.model.AudioFingerprint;
+
+/**
+ * AudioFingerprintRepository interface for handling CRUD operations on AudioFingerprint entities.
+ * Extends JpaRepository to leverage Spring Data JPA functionalities.
+ */
+public interface AudioFingerprintRepository extends JpaRepository<AudioFingerprint, Long> {
+}
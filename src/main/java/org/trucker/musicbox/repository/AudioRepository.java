@@ -1,9 +1,142 @@
 package org.trucker.musicbox.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import org.trucker.musicbox.dto.AudioSummary;
 import org.trucker.musicbox.model.Audio;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
 public interface AudioRepository extends JpaRepository<Audio, Long> {
     // Additional query methods if needed
 
+    /**
+     * Finds the album and artist IDs of several audio tracks without loading the entities.
+     *
+     * @param ids The IDs of the audio tracks.
+     * @return One row of {id, albumId, artistId} per track found; album and artist may be null.
+     */
+    @Query("SELECT a.id, al.id, ar.id FROM Audio a LEFT JOIN a.album al LEFT JOIN a.artist ar WHERE a.id IN :ids")
+    List<Object[]> findAlbumAndArtistIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Loads read-only views of the audio tracks with the given IDs, with their artist and album, without loading entities.
+     *
+     * @param ids The IDs of the audio tracks.
+     * @return The tracks found, in no particular order.
+     */
+    @Query("SELECT new org.trucker.musicbox.dto.AudioSummary(a.id, a.title, a.duration, ar.id, ar.name, al.id, al.title, " +
+            "a.filePath, a.storageTier, a.loudnessLufs, a.peakDbfs, a.bpm) " +
+            "FROM Audio a LEFT JOIN a.artist ar LEFT JOIN a.album al WHERE a.id IN :ids")
+    List<AudioSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Finds audio tracks whose loudness and tempo have not been analysed yet, in ID order.
+     *
+     * @param afterId Only tracks with a larger ID are returned, for paging.
+     * @param pageable The page size.
+     * @return The IDs of the tracks.
+     */
+    @Query("SELECT a.id FROM Audio a WHERE a.analyzedAt IS NULL AND a.id > :afterId ORDER BY a.id")
+    List<Long> findUnanalyzedIds(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Stores the loudness and tempo analysis of a track without loading it.
+     *
+     * @param id The ID of the audio track.
+     * @param loudnessLufs The integrated loudness, or null.
+     * @param peakDbfs The sample peak, or null.
+     * @param bpm The tempo, or null.
+     * @param analyzedAt The analysis timestamp.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Audio a SET a.loudnessLufs = :loudnessLufs, a.peakDbfs = :peakDbfs, a.bpm = :bpm, a.analyzedAt = :analyzedAt WHERE a.id = :id")
+    int updateAnalysis(@Param("id") Long id, @Param("loudnessLufs") Double loudnessLufs, @Param("peakDbfs") Double peakDbfs,
+                       @Param("bpm") Double bpm, @Param("analyzedAt") LocalDateTime analyzedAt);
+
+    /**
+     * Finds the files on a storage tier that no track stored in them has been read from since a cutoff, in path order.
+     * A file shared by several tracks is only returned if all of them are cold.
+     *
+     * @param tier The storage tier; tracks without a tier count as being on it.
+     * @param cutoff The time before which the last read must have happened; tracks without a last read are ignored,
+     *               so a file whose tracks have none is never returned.
+     * @param afterPath Only files with a larger path are returned, for paging.
+     * @param pageable The page size.
+     * @return The file paths.
+     */
+    @Query("SELECT a.filePath FROM Audio a WHERE (a.storageTier = :tier OR a.storageTier IS NULL) AND a.filePath > :afterPath " +
+            "GROUP BY a.filePath HAVING MAX(a.lastAccessedAt) < :cutoff ORDER BY a.filePath")
+    List<String> findColdFilePaths(@Param("tier") String tier, @Param("cutoff") LocalDateTime cutoff,
+                                   @Param("afterPath") String afterPath, Pageable pageable);
+
+    /**
+     * Records that files were read, on every track stored in them.
+     *
+     * @param filePaths The paths of the files.
+     * @param accessedAt The time of the latest read.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Audio a SET a.lastAccessedAt = :accessedAt WHERE a.filePath IN :filePaths")
+    int updateLastAccessed(@Param("filePaths") Collection<String> filePaths, @Param("accessedAt") LocalDateTime accessedAt);
+
+    /**
+     * Points every track stored in a file at its new location, in one statement, so no reader ever sees a track half-moved.
+     *
+     * @param oldPath The path the file was copied from.
+     * @param newPath The path of the copy.
+     * @param tier The storage tier of the copy.
+     * @return The number of rows updated; 0 if no track points at the old path any more.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Audio a SET a.filePath = :newPath, a.storageTier = :tier WHERE a.filePath = :oldPath")
+    int moveFile(@Param("oldPath") String oldPath, @Param("newPath") String newPath, @Param("tier") String tier);
+
+    /**
+     * Points the tracks stored in a file at its new location, like {@link #moveFile}, but only those still not read since
+     * a cutoff, so a read flushed while the file was being copied keeps the track on the old file. A file shared by
+     * tracks read at different times may end up split; the old file is only deleted once no track points at it.
+     *
+     * @param oldPath The path the file was copied from.
+     * @param newPath The path of the copy.
+     * @param tier The storage tier of the copy.
+     * @param cutoff The time before which the last read must have happened.
+     * @return The number of rows updated; 0 if every track was read or moved meanwhile.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Audio a SET a.filePath = :newPath, a.storageTier = :tier " +
+            "WHERE a.filePath = :oldPath AND a.lastAccessedAt < :cutoff")
+    int moveFileIfNotReadSince(@Param("oldPath") String oldPath, @Param("newPath") String newPath,
+                               @Param("tier") String tier, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Starts the access clock of tracks without a last read, such as those stored before tiering, at the given time.
+     *
+     * @param now The time to record as their last read.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Audio a SET a.lastAccessedAt = :now WHERE a.lastAccessedAt IS NULL")
+    int initializeLastAccessed(@Param("now") LocalDateTime now);
+
+    /**
+     * Checks whether any track is stored in a file, using the index on the file path.
+     *
+     * @param filePath The path of the file.
+     * @return true if a track points at the file.
+     */
+    boolean existsByFilePath(String filePath);
 }
@@ -0,0 +1,25 @@
+package org.trucker.musicbox.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.trucker.musicbox.model.ListenEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * ListenEventRepository interface for reading ListenEvent entities.
+ * Inserts do not go through this repository: the ingestion pipeline writes listen events with JDBC batches.
+ */
+public interface ListenEventRepository extends JpaRepository<ListenEvent, Long> {
+
+    /**
+     * Counts the plays of an audio track since the given moment.
+     *
+     * @param audioId The ID of the audio track.
+     * @param since The lower bound of the listen timestamp.
+     * @return The number of plays recorded since the given moment.
+     */
+    @Query("SELECT COUNT(e) FROM ListenEvent e WHERE e.audioId = :audioId AND e.listenedAt >= :since")
+    long countByAudioIdSince(@Param("audioId") Long audioId, @Param("since") LocalDateTime since);
+}
@@ -0,0 +1,43 @@
+package org.trucker.musicbox.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.trucker.musicbox.model.ListenerSketch;
+import org.trucker.musicbox.model.ListenerSketch.EntityType;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * ListenerSketchRepository interface for handling CRUD operations on ListenerSketch entities.
+ * Extends JpaRepository to leverage Spring Data JPA functionalities.
+ */
+public interface ListenerSketchRepository extends JpaRepository<ListenerSketch, Long> {
+
+    /**
+     * Finds the sketch of one entity for one month.
+     *
+     * @param entityType The kind of entity.
+     * @param entityId The ID of the entity.
+     * @param period The month, formatted as yyyy-MM.
+     * @return An Optional containing the sketch if one has been persisted, otherwise empty.
+     */
+    Optional<ListenerSketch> findByEntityTypeAndEntityIdAndPeriod(EntityType entityType, Long entityId, String period);
+
+    /**
+     * Custom query to find the sketches of one entity over a range of months, both ends inclusive.
+     *
+     * @param entityType The kind of entity.
+     * @param entityId The ID of the entity.
+     * @param from The first month, formatted as yyyy-MM.
+     * @param to The last month, formatted as yyyy-MM.
+     * @return A list of ListenerSketch entities; months without listeners have no sketch.
+     */
+    @Query("SELECT s FROM ListenerSketch s WHERE s.entityType = :entityType AND s.entityId = :entityId " +
+            "AND s.period >= :from AND s.period <= :to")
+    List<ListenerSketch> findInPeriodRange(@Param("entityType") EntityType entityType,
+                                           @Param("entityId") Long entityId,
+                                           @Param("from") String from,
+                                           @Param("to") String to);
+}
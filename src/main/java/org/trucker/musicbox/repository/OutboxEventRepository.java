@@ -0,0 +1,93 @@
+package org.trucker.musicbox.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import org.trucker.musicbox.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * OutboxEventRepository interface for the transactional outbox of domain events.
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Finds pending events created before the given moment, oldest first.
+     * Used to replay events whose dispatch was lost, for example in a crash between the commit and the dispatch.
+     *
+     * @param before Only events created before this moment are returned, leaving recent ones to the live dispatch.
+     * @param afterId Only events with a larger ID are returned, for paging.
+     * @param pageable The page size.
+     * @return The pending events.
+     */
+    @Query("SELECT e FROM OutboxEvent e WHERE e.processedAt IS NULL AND e.createdAt < :before AND e.id > :afterId ORDER BY e.id")
+    List<OutboxEvent> findPending(@Param("before") LocalDateTime before, @Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * Counts the events not yet handled by their consumers.
+     *
+     * @return The number of pending events.
+     */
+    long countByProcessedAtIsNull();
+
+    /**
+     * Checks whether an event about an entity is still waiting for its consumers.
+     *
+     * @param topic The kind of event.
+     * @param aggregateId The ID of the entity the event is about.
+     * @return true if such an event is pending.
+     */
+    boolean existsByTopicAndAggregateIdAndProcessedAtIsNull(String topic, Long aggregateId);
+
+    /**
+     * Marks events as handled.
+     *
+     * @param ids The IDs of the events.
+     * @param processedAt The processing timestamp.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.processedAt = :processedAt WHERE e.id IN :ids")
+    int markProcessed(@Param("ids") List<Long> ids, @Param("processedAt") LocalDateTime processedAt);
+
+    /**
+     * Records a failed dispatch of events; they stay pending and are retried by the replay.
+     *
+     * @param ids The IDs of the events.
+     * @param error The failure message.
+     * @return The number of rows updated.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.attempts = e.attempts + 1, e.lastError = :error WHERE e.id IN :ids")
+    int recordFailure(@Param("ids") List<Long> ids, @Param("error") String error);
+
+    /**
+     * Gives up on events that failed too often, so the replay stops retrying them. They keep their last error.
+     *
+     * @param maxAttempts The number of failed dispatches after which an event is abandoned.
+     * @param processedAt The timestamp recorded as their processing time.
+     * @return The number of events abandoned.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE OutboxEvent e SET e.processedAt = :processedAt WHERE e.processedAt IS NULL AND e.attempts >= :maxAttempts")
+    int abandonFailed(@Param("maxAttempts") int maxAttempts, @Param("processedAt") LocalDateTime processedAt);
+
+    /**
+     * Deletes handled events processed before the given moment.
+     *
+     * @param before The retention cutoff.
+     * @return The number of events deleted.
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent e WHERE e.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
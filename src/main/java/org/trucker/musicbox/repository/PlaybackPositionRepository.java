@@ -0,0 +1,22 @@
+package org.trucker.musicbox.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.trucker.musicbox.model.PlaybackPosition;
+
+import java.util.Optional;
+
+/**
+ * PlaybackPositionRepository interface for reading PlaybackPosition entities.
+ * Writes are batched by the playback position service and do not go through this repository.
+ */
+public interface PlaybackPositionRepository extends JpaRepository<PlaybackPosition, Long> {
+
+    /**
+     * Finds the persisted position of a user in an audio track.
+     *
+     * @param userId The ID of the listener.
+     * @param audioId The ID of the audio track.
+     * @return An Optional containing the position if one has been flushed, otherwise empty.
+     */
+    Optional<PlaybackPosition> findByUserIdAndAudioId(Long userId, Long audioId);
+}
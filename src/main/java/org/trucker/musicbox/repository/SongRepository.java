@@ -3,8 +3,10 @@ package org.trucker.musicbox.repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.trucker.musicbox.dto.SongSummary;
 import org.trucker.musicbox.model.Song;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -33,4 +35,24 @@ public interface SongRepository extends JpaRepository<Song, Long> {
      */
     @Query("SELECT s FROM Song s WHERE s.album.id = :albumId")
     List<Song> findSongsByAlbumId(@Param("albumId") Long albumId);
+
+    /**
+     * Loads read-only views of the songs of an album, without loading entities.
+     *
+     * @param albumId The id of the album.
+     * @return The songs of the album, with the album's ID and title.
+     */
+    @Query("SELECT new org.trucker.musicbox.dto.SongSummary(s.id, s.title, s.duration, al.id, al.title) " +
+            "FROM Song s JOIN s.album al WHERE al.id = :albumId")
+    List<SongSummary> findSummariesByAlbumId(@Param("albumId") Long albumId);
+
+    /**
+     * Loads read-only views of the songs with the given IDs, with their album's ID and title, without loading entities.
+     *
+     * @param ids The IDs of the songs.
+     * @return The songs found, in no particular order.
+     */
+    @Query("SELECT new org.trucker.musicbox.dto.SongSummary(s.id, s.title, s.duration, al.id, al.title) " +
+            "FROM Song s LEFT JOIN s.album al WHERE s.id IN :ids")
+    List<SongSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -5,6 +5,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.trucker.musicbox.model.Subscription;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -33,4 +35,14 @@ public interface SubscriptionRepository extends JpaRepository<Subscription, Long
      */
     @Query("SELECT s FROM Subscription s WHERE s.endDate > CURRENT_TIMESTAMP")
     List<Subscription> findActiveSubscriptions();
-}
\ No newline at end of file
+
+    /**
+     * Finds which of the given users still have a subscription ending after {@code now}.
+     *
+     * @param userIds The IDs of the users to check.
+     * @param now The current time.
+     * @return The IDs of the users with an active subscription.
+     */
+    @Query("SELECT DISTINCT s.user.id FROM Subscription s WHERE s.user.id IN :userIds AND s.endDate > :now")
+    List<Long> findUserIdsWithActiveSubscription(@Param("userIds") Collection<Long> userIds, @Param("now") LocalDateTime now);
+}
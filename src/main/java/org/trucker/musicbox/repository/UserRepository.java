@@ -1,12 +1,19 @@
 package org.trucker.musicbox.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import org.trucker.musicbox.dto.UserSummary;
 import org.trucker.musicbox.model.User;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Interface for handling CRUD operations on User entities within the music box application.
@@ -35,6 +42,25 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByEmail(String email);
 
+    /**
+     * Custom query loading only the ID of the user with the given username, without loading the User entity.
+     *
+     * @param username The username of the user.
+     * @return An Optional containing the user's ID if found, otherwise empty.
+     */
+    @Query("SELECT u.id FROM User u WHERE u.username = :username")
+    Optional<Long> findIdByUsername(@Param("username") String username);
+
+    /**
+     * Custom query loading read-only views of the users with the given IDs, without loading User entities or passwords.
+     *
+     * @param ids The IDs of the users.
+     * @return The users found, in no particular order.
+     */
+    @Query("SELECT new org.trucker.musicbox.dto.UserSummary(u.id, u.username, u.email, u.status, u.isPremium) " +
+            "FROM User u WHERE u.id IN :ids")
+    List<UserSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Custom query to find users by their status.
      * Unlike the previous methods, this one uses the @Query annotation to define a JPQL query directly.
@@ -46,4 +72,87 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT u FROM User u WHERE u.status = :status")
     List<User> findUsersByStatus(@Param("status") String status);
-}
\ No newline at end of file
+
+    /**
+     * Custom query loading what is needed to decide a user's premium entitlement, without loading the User entity.
+     * Returns the user's premium flag and the latest end date over all of the user's subscriptions (null if there are none).
+     *
+     * @param userId The ID of the user.
+     * @return A list holding one row of {isPremium, latestEndDate}, or an empty list if the user does not exist.
+     */
+    @Query("SELECT u.isPremium, MAX(s.endDate) FROM User u LEFT JOIN Subscription s ON s.user = u " +
+            "WHERE u.id = :userId GROUP BY u.id, u.isPremium")
+    List<Object[]> findEntitlement(@Param("userId") Long userId);
+
+    /**
+     * Bulk-revokes premium status from the given users, skipping any user who still has a subscription ending after {@code now}
+     * (for example because it was renewed after the expiry was scheduled).
+     *
+     * @param userIds The IDs of the users whose subscription has ended.
+     * @param now The current time.
+     * @return The number of users whose premium status was revoked.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.isPremium = false WHERE u.id IN :userIds AND u.isPremium = true " +
+            "AND NOT EXISTS (SELECT s.id FROM Subscription s WHERE s.user = u AND s.endDate > :now)")
+    int revokeExpiredPremium(@Param("userIds") Collection<Long> userIds, @Param("now") LocalDateTime now);
+
+    /**
+     * Bulk-revokes premium status from every user whose subscriptions have all ended.
+     * Users flagged premium without any subscription are left alone. Used once at startup to catch up on expirations
+     * that happened while the application was down.
+     *
+     * @param now The current time.
+     * @return The number of users whose premium status was revoked.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.isPremium = false WHERE u.isPremium = true " +
+            "AND EXISTS (SELECT s.id FROM Subscription s WHERE s.user = u) " +
+            "AND NOT EXISTS (SELECT s.id FROM Subscription s WHERE s.user = u AND s.endDate > :now)")
+    int revokeAllExpiredPremium(@Param("now") LocalDateTime now);
+
+    /**
+     * Checks whether a user with the given username exists, using the unique index on the username.
+     *
+     * @param username The username to look up.
+     * @return true if the username is taken.
+     */
+    boolean existsByUsername(String username);
+
+    /**
+     * Checks whether a user with the given email exists, using the unique index on the email.
+     *
+     * @param email The email to look up.
+     * @return true if the email is taken.
+     */
+    boolean existsByEmail(String email);
+
+    /**
+     * Streams the username and email of every user, without loading User entities.
+     * Must be consumed inside a transaction and closed afterwards.
+     *
+     * @return A stream of {username, email} rows.
+     */
+    @Query("SELECT u.username, u.email FROM User u")
+    Stream<Object[]> streamUsernamesAndEmails();
+
+    /**
+     * Loads the ID, username and email of users with an ID above the given one, in ID order, without loading User entities.
+     *
+     * @param afterId The highest user ID already seen.
+     * @param pageable The maximum number of rows to return.
+     * @return A list of {id, username, email} rows.
+     */
+    @Query("SELECT u.id, u.username, u.email FROM User u WHERE u.id > :afterId ORDER BY u.id")
+    List<Object[]> findUsernamesAndEmailsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Finds the highest user ID.
+     *
+     * @return The highest user ID, or null if there are no users.
+     */
+    @Query("SELECT MAX(u.id) FROM User u")
+    Long findMaxId();
+}
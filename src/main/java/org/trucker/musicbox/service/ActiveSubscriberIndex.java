@@ -0,0 +1,179 @@
+package org.trucker.musicbox.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.trucker.musicbox.repository.SubscriptionRepository;
+import org.trucker.musicbox.util.RoaringBitmap;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory set of the users that currently hold an active subscription, kept in a {@link RoaringBitmap}.
+ * The set is loaded from the subscription table at startup, extended by {@link SubscriptionService#createSubscription}
+ * once a subscription commits, and shrunk by {@link SubscriptionExpiryService} when subscriptions end. A few million
+ * mostly sequential user IDs fit in well under a megabyte, and batch lookups never touch the database.
+ * Reads share a read lock; the rare writes take the write lock.
+ */
+@Service
+public class ActiveSubscriberIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveSubscriberIndex.class);
+
+    private static final String LOAD_SQL = "SELECT DISTINCT user_id FROM subscription WHERE end_date > ?";
+
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${musicbox.subscribers.max-batch-size:100000}")
+    private int maxBatchSize;
+
+    private final RoaringBitmap active = new RoaringBitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Loads the users with a subscription that has not ended yet, streaming them through a cursor.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        LocalDateTime now = LocalDateTime.now();
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(10_000);
+        transactionTemplate.executeWithoutResult(status -> streaming.query(LOAD_SQL,
+                (RowCallbackHandler) rs -> add(rs.getLong(1)),
+                Timestamp.valueOf(now)));
+        Map<String, Long> stats = getStats();
+        log.info("Loaded {} active subscribers ({} bytes)", stats.get("activeSubscribers"), stats.get("sizeInBytes"));
+    }
+
+    /**
+     * Marks a user as an active subscriber.
+     *
+     * @param userId The ID of the user.
+     */
+    public void add(long userId) {
+        lock.writeLock().lock();
+        try {
+            active.add(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the given users from the index unless they still have a subscription ending after {@code now}.
+     * Called with the users whose subscription just ended; renewals keep them in the index.
+     *
+     * @param userIds The IDs of the users whose subscription has ended.
+     * @param now The current time.
+     */
+    public void removeEnded(List<Long> userIds, LocalDateTime now) {
+        Set<Long> stillActive = new HashSet<>(subscriptionRepository.findUserIdsWithActiveSubscription(userIds, now));
+        lock.writeLock().lock();
+        try {
+            for (Long userId : userIds) {
+                if (!stillActive.contains(userId)) {
+                    active.remove(userId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Checks a batch of users against the index.
+     *
+     * @param userIds The IDs of the users to check.
+     * @return One flag per requested user, in request order; true if the user is an active subscriber.
+     * @throws IllegalArgumentException if the batch is larger than the configured maximum or holds a null ID.
+     */
+    public boolean[] containsAll(List<Long> userIds) {
+        checkBatch(userIds);
+        boolean[] result = new boolean[userIds.size()];
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = active.contains(userIds.get(i));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Intersects a set of users (for example a campaign audience) with the active subscribers.
+     * The requested IDs are turned into a bitmap first, so the intersection runs chunk by chunk.
+     *
+     * @param userIds The IDs of the users to intersect with; duplicates are ignored.
+     * @return The IDs of the requested users that are active subscribers, in ascending order.
+     * @throws IllegalArgumentException if the batch is larger than the configured maximum or holds a null or out-of-range ID.
+     */
+    public List<Long> intersect(List<Long> userIds) {
+        checkBatch(userIds);
+        RoaringBitmap requested = new RoaringBitmap();
+        for (Long userId : userIds) {
+            requested.add(userId);
+        }
+        RoaringBitmap intersection;
+        lock.readLock().lock();
+        try {
+            intersection = active.and(requested);
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Long> result = new ArrayList<>((int) intersection.cardinality());
+        intersection.forEach(result::add);
+        return result;
+    }
+
+    /**
+     * Gets the size and memory footprint of the index.
+     * @return A map with the number of active subscribers and the bitmap size in bytes.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("activeSubscribers", active.cardinality());
+            stats.put("sizeInBytes", active.sizeInBytes());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    private void checkBatch(List<Long> userIds) {
+        if (userIds.size() > maxBatchSize) {
+            throw new IllegalArgumentException("At most " + maxBatchSize + " user IDs can be checked at once");
+        }
+        for (int i = 0; i < userIds.size(); i++) {
+            if (userIds.get(i) == null) {
+                throw new IllegalArgumentException("User ID at position " + i + " is null");
+            }
+        }
+    }
+}
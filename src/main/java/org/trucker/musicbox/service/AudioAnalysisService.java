@@ -0,0 +1,239 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.trucker.musicbox.model.Audio;
+import org.trucker.musicbox.model.OutboxEvent;
+import org.trucker.musicbox.repository.AudioRepository;
+import org.trucker.musicbox.util.AnalysisKernels;
+import org.trucker.musicbox.util.AudioAnalyzer;
+import org.trucker.musicbox.util.AudioAnalyzer.Analysis;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Attaches loudness (EBU R128), sample peak and tempo to every audio track, so players can normalise volume and build
+ * tempo-based mixes. New uploads are analysed after their upload commits ({@link DomainEventBus#AUDIO_UPLOADED}); the
+ * back catalog is analysed by a backfill that pages through unanalysed tracks and splits every page over a
+ * {@link ForkJoinPool}, one track per task. The inner loops use the Java Vector API when {@code musicbox.analysis.simd}
+ * is set and the JVM runs with {@code --add-modules jdk.incubator.vector}, and plain loops otherwise.
+ */
+@Service
+public class AudioAnalysisService implements DomainEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AudioAnalysisService.class);
+
+    @Autowired
+    private AudioRepository audioRepository;
+
+    @Value("${musicbox.analysis.simd:true}")
+    private boolean simd;
+
+    @Value("${musicbox.analysis.threads:0}")
+    private int threads; // 0 means one per available processor.
+
+    @Value("${musicbox.analysis.max-seconds:900}")
+    private int maxSeconds;
+
+    @Value("${musicbox.analysis.backfill-on-startup:false}")
+    private boolean backfillOnStartup;
+
+    @Value("${musicbox.analysis.backfill-page-size:1000}")
+    private int backfillPageSize;
+
+    @Value("${musicbox.analysis.backfill-tracks-per-task:4}")
+    private int tracksPerTask;
+
+    @Value("${musicbox.fingerprint.raw-sample-rate:44100}")
+    private float rawSampleRate; // Headerless files are read the same way as for fingerprinting.
+
+    @Value("${musicbox.fingerprint.raw-channels:2}")
+    private int rawChannels;
+
+    private AudioAnalyzer analyzer;
+    private ForkJoinPool pool;
+    private final AtomicBoolean backfillRunning = new AtomicBoolean();
+
+    private final LongAdder analyzed = new LongAdder();
+    private final LongAdder undecodable = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAdder analysisNanos = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        analyzer = new AudioAnalyzer(AnalysisKernels.create(simd));
+        pool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("audio-analysis-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+        log.info("Audio analysis uses the {} kernels", analyzer.getKernelsName());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAtStartup() {
+        if (backfillOnStartup) {
+            startBackfill();
+        }
+    }
+
+    @Override
+    public Set<String> topics() {
+        return Set.of(DomainEventBus.AUDIO_UPLOADED);
+    }
+
+    @Override
+    public void onEvents(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            analyze(event.getAggregateId());
+        }
+    }
+
+    /**
+     * Analyses one track and stores the result on it. A track whose format cannot be decoded is marked as analysed
+     * without values; one whose file cannot be read is left for a later backfill.
+     *
+     * @param audioId The ID of the audio track.
+     * @return true if the track was analysed.
+     */
+    public boolean analyze(long audioId) {
+        Audio audio = audioRepository.findById(audioId).orElse(null);
+        if (audio == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        Analysis analysis;
+        try {
+            analysis = analyzer.analyze(Paths.get(audio.getFilePath()), maxSeconds, new AudioFormat(rawSampleRate, 16, rawChannels, true, false));
+        } catch (UnsupportedAudioFileException e) {
+            undecodable.increment();
+            audioRepository.updateAnalysis(audioId, null, null, null, LocalDateTime.now());
+            log.debug("Audio {} is not analysed: {}", audioId, e.getMessage());
+            return false;
+        } catch (IOException e) {
+            failed.increment();
+            log.warn("Could not read audio {} for analysis: {}", audioId, e.getMessage());
+            return false;
+        }
+        analysisNanos.add(System.nanoTime() - start);
+        samples.add(analysis.samples());
+        audioRepository.updateAnalysis(audioId, finiteOrNull(analysis.loudnessLufs()), finiteOrNull(analysis.peakDbfs()),
+                finiteOrNull(analysis.bpm()), LocalDateTime.now());
+        analyzed.increment();
+        return true;
+    }
+
+    /**
+     * Starts analysing, in the background, every track that has not been analysed yet.
+     * @return false if a backfill is already running.
+     */
+    public boolean startBackfill() {
+        if (!backfillRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(this::runBackfill, "audio-analysis-backfill");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /**
+     * Gets the analysis counters. {@code samplesPerSecond} is the throughput of one analysis thread, decoding included.
+     * @return A map of counter names to values.
+     */
+    public Map<String, Long> getStats() {
+        long nanos = analysisNanos.sum();
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("analyzed", analyzed.sum());
+        stats.put("undecodable", undecodable.sum());
+        stats.put("failed", failed.sum());
+        stats.put("samples", samples.sum());
+        stats.put("samplesPerSecond", nanos == 0 ? 0 : (long) (samples.sum() / (nanos / 1e9)));
+        stats.put("backfillRunning", backfillRunning.get() ? 1L : 0L);
+        return stats;
+    }
+
+    private void runBackfill() {
+        long started = System.nanoTime();
+        long before = analyzed.sum();
+        try {
+            long afterId = 0;
+            while (!pool.isShutdown()) {
+                List<Long> ids = audioRepository.findUnanalyzedIds(afterId, PageRequest.of(0, backfillPageSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                pool.invoke(new AnalyzeTask(ids, 0, ids.size()));
+                afterId = ids.get(ids.size() - 1); // Tracks that failed stay unanalysed but are not retried in this run.
+            }
+            log.info("Audio analysis backfill analysed {} tracks in {} s", analyzed.sum() - before, (System.nanoTime() - started) / 1_000_000_000L);
+        } catch (RuntimeException e) {
+            log.error("Audio analysis backfill stopped", e);
+        } finally {
+            backfillRunning.set(false);
+        }
+    }
+
+    private static Double finiteOrNull(double value) {
+        return Double.isFinite(value) ? value : null;
+    }
+
+    /**
+     * Analyses a range of a page of track IDs, splitting it in halves until each task has a few tracks.
+     */
+    private final class AnalyzeTask extends RecursiveAction {
+        private final List<Long> ids;
+        private final int from;
+        private final int to;
+
+        AnalyzeTask(List<Long> ids, int from, int to) {
+            this.ids = ids;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= tracksPerTask) {
+                for (int i = from; i < to; i++) {
+                    try {
+                        analyze(ids.get(i));
+                    } catch (RuntimeException e) {
+                        failed.increment();
+                        log.warn("Analysis of audio {} failed", ids.get(i), e);
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new AnalyzeTask(ids, from, middle), new AnalyzeTask(ids, middle, to));
+        }
+    }
+}
@@ -1,19 +1,27 @@
 package org.trucker.musicbox.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.trucker.musicbox.dto.AudioSummary;
 import org.trucker.musicbox.model.Album;
 import org.trucker.musicbox.model.Artist;
 import org.trucker.musicbox.model.Audio;
 import org.trucker.musicbox.repository.AlbumRepository;
 import org.trucker.musicbox.repository.ArtistRepository;
 import org.trucker.musicbox.repository.AudioRepository;
+import org.trucker.musicbox.util.SingleFlight;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Service // This annotation indicates that this class is a Spring service.
 public class AudioService {
@@ -27,16 +35,28 @@ public class AudioService {
     @Autowired
     private AlbumRepository albumRepository; // Repository for Album entities.
 
-    private final String UPLOAD_DIR = "uploads/"; // Directory where uploaded files will be stored.
+    @Autowired
+    private BatchLookupService batchLookupService; // Merges concurrent lookups by ID into batch queries.
+
+    @Autowired
+    private DomainEventBus domainEventBus; // Announces uploads to consumers after the commit.
+
+    @Autowired
+    private TransactionTemplate transactionTemplate; // Keeps the transaction to the inserts, not the file transfer.
+
+    @Autowired
+    private TieredStorageService tieredStorageService; // Moves files between the hot and cold tiers as they are read.
+
+    private final SingleFlight<Long, AudioSummary> audioLookups = new SingleFlight<>(); // Collapses concurrent lookups of the same track.
 
     public Audio saveAudio(MultipartFile file, String title, Long artistId, Long albumId, int duration) throws IOException {
         // Method to save an audio file and its metadata.
 
         // Save the file to the server
         String fileName = file.getOriginalFilename(); // Get the original file name.
-        Path filePath = Paths.get(UPLOAD_DIR, fileName); // Create the file path.
+        Path filePath = tieredStorageService.getHotDirectory().resolve(fileName); // New uploads go to the hot tier.
         Files.createDirectories(filePath.getParent()); // Create directories if they don't exist.
-        Files.write(filePath, file.getBytes()); // Write the file bytes to the path.
+        file.transferTo(filePath); // Stream the upload to the path instead of buffering the whole file in memory.
 
         // Fetch artist and album from the database
         Artist artist = artistRepository.findById(artistId)
@@ -51,20 +71,48 @@ public class AudioService {
         audio.setAlbum(album); // Set the album.
         audio.setDuration(duration); // Set the duration.
         audio.setFilePath(filePath.toString()); // Set the file path.
+        audio.setStorageTier(TieredStorageService.HOT); // Set the storage tier.
+        audio.setLastAccessedAt(LocalDateTime.now()); // Count the upload as a read, so the file is not demoted at once.
 
-        return audioRepository.save(audio); // Save the Audio object to the database and return it.
+        return transactionTemplate.execute(status -> {
+            Audio saved = audioRepository.save(audio); // Save the Audio object to the database.
+            domainEventBus.publish(DomainEventBus.AUDIO_UPLOADED, saved.getId(), null); // Record the upload event with it.
+            return saved;
+        });
     }
 
-    public Audio getAudio(Long id) {
+    public AudioSummary getAudio(Long id) {
         // Method to retrieve an audio file's metadata by its ID.
-        return audioRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Audio not found with ID: " + id)); // Find the audio by ID, throw exception if not found.
+        // Concurrent requests for the same track share one lookup, and lookups of different tracks share one IN-query.
+        // The result is an immutable summary rather than an entity, so it can safely be handed to every waiting thread.
+        AudioSummary audio = audioLookups.execute(id, () -> batchLookupService.getAudio(id));
+        if (audio == null) {
+            throw new RuntimeException("Audio not found with ID: " + id); // Throw exception if not found.
+        }
+        return audio;
     }
 
     public byte[] getAudioFile(Long id) throws IOException {
         // Method to retrieve the audio file by its ID.
-        Audio audio = getAudio(id); // Get the Audio object by ID.
-        Path filePath = Paths.get(audio.getFilePath()); // Get the file path from the Audio object.
+        AudioSummary audio = getAudio(id); // Get the audio metadata by ID.
+        tieredStorageService.recordAccess(audio); // Count the read, promoting the file if it is cold.
+        Path filePath = Paths.get(audio.filePath()); // Get the file path from the Audio object.
         return Files.readAllBytes(filePath); // Read all bytes from the file and return.
     }
+
+    public Resource getAudioFileResource(Long id) {
+        // Method to retrieve the audio file by its ID as a resource, so it can be streamed in chunks (and in byte ranges)
+        // instead of being read into memory; thousands of concurrent listeners then cost buffers, not whole files.
+        AudioSummary audio = getAudio(id); // Get the audio metadata by ID.
+        tieredStorageService.recordAccess(audio); // Count the read; a promotion leaves the old file in place for a while.
+        return new FileSystemResource(Paths.get(audio.filePath()));
+    }
+
+    public Map<String, Long> getSingleFlightStats() {
+        // Method to report how many track lookups were served by another caller's lookup.
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("audio.calls", audioLookups.getCalls());
+        stats.put("audio.collapsed", audioLookups.getCollapsed());
+        return stats;
+    }
 }
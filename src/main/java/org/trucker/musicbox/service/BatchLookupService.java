@@ -0,0 +1,190 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.trucker.musicbox.dto.AudioSummary;
+import org.trucker.musicbox.dto.SongSummary;
+import org.trucker.musicbox.dto.UserSummary;
+import org.trucker.musicbox.repository.AudioRepository;
+import org.trucker.musicbox.repository.SongRepository;
+import org.trucker.musicbox.repository.UserRepository;
+import org.trucker.musicbox.util.BatchLoader;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Looks up users, songs and audio tracks by ID through {@link BatchLoader}s.
+ * Single-ID lookups made by concurrent requests within a short window are merged into one {@code findAllById} query
+ * per entity type, so a client rendering a list one item at a time costs a handful of queries instead of one per item.
+ * Multi-get requests go through the same loaders and share batches with concurrent single lookups.
+ * Batches run on the loader threads, outside any persistence context, so they load read-only summaries with constructor
+ * projections rather than entities, whose lazy associations could not be initialised there.
+ */
+@Service
+public class BatchLookupService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SongRepository songRepository;
+
+    @Autowired
+    private AudioRepository audioRepository;
+
+    @Value("${musicbox.lookup.window-micros:2000}")
+    private long windowMicros;
+
+    @Value("${musicbox.lookup.max-batch-size:500}")
+    private int maxBatchSize;
+
+    @Value("${musicbox.lookup.max-ids-per-request:1000}")
+    private int maxIdsPerRequest;
+
+    @Value("${musicbox.lookup.threads:4}")
+    private int threads;
+
+    private ScheduledThreadPoolExecutor executor;
+    private BatchLoader<Long, UserSummary> users;
+    private BatchLoader<Long, SongSummary> songs;
+    private BatchLoader<Long, AudioSummary> audio;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-lookup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        users = new BatchLoader<>(ids -> byId(userRepository.findSummariesByIdIn(ids), UserSummary::id),
+                executor, windowMicros, maxBatchSize);
+        songs = new BatchLoader<>(ids -> byId(songRepository.findSummariesByIdIn(ids), SongSummary::id),
+                executor, windowMicros, maxBatchSize);
+        audio = new BatchLoader<>(ids -> byId(audioRepository.findSummariesByIdIn(ids), AudioSummary::id),
+                executor, windowMicros, maxBatchSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Gets a user by ID.
+     *
+     * @param id The ID of the user.
+     * @return The user, or null if it does not exist.
+     */
+    public UserSummary getUser(Long id) {
+        return join(users.load(id));
+    }
+
+    /**
+     * Gets several users by ID.
+     *
+     * @param ids The IDs of the users.
+     * @return The users found, in request order without duplicates; unknown IDs are left out.
+     */
+    public List<UserSummary> getUsers(List<Long> ids) {
+        return getAll(users, ids);
+    }
+
+    /**
+     * Gets a song by ID.
+     *
+     * @param id The ID of the song.
+     * @return The song, or null if it does not exist.
+     */
+    public SongSummary getSong(Long id) {
+        return join(songs.load(id));
+    }
+
+    /**
+     * Gets several songs by ID.
+     *
+     * @param ids The IDs of the songs.
+     * @return The songs found, in request order without duplicates; unknown IDs are left out.
+     */
+    public List<SongSummary> getSongs(List<Long> ids) {
+        return getAll(songs, ids);
+    }
+
+    /**
+     * Gets an audio track by ID.
+     *
+     * @param id The ID of the audio track.
+     * @return The audio track, or null if it does not exist.
+     */
+    public AudioSummary getAudio(Long id) {
+        return join(audio.load(id));
+    }
+
+    /**
+     * Gets several audio tracks by ID.
+     *
+     * @param ids The IDs of the audio tracks.
+     * @return The audio tracks found, in request order without duplicates; unknown IDs are left out.
+     */
+    public List<AudioSummary> getAudio(List<Long> ids) {
+        return getAll(audio, ids);
+    }
+
+    /**
+     * Gets the lookup counters of each loader. The ratio of requests to batches is the number of queries saved per query run.
+     * @return A map of counter names to values.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        addStats(stats, "users", users);
+        addStats(stats, "songs", songs);
+        addStats(stats, "audio", audio);
+        return stats;
+    }
+
+    private <V> List<V> getAll(BatchLoader<Long, V> loader, List<Long> ids) {
+        if (ids.size() > maxIdsPerRequest) {
+            throw new IllegalArgumentException("At most " + maxIdsPerRequest + " IDs can be requested at once");
+        }
+        return new ArrayList<>(join(loader.loadAll(ids)).values());
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static <V> Map<Long, V> byId(Collection<V> values, Function<V, Long> id) {
+        Map<Long, V> byId = new HashMap<>();
+        for (V value : values) {
+            byId.put(id.apply(value), value);
+        }
+        return byId;
+    }
+
+    private static void addStats(Map<String, Long> stats, String name, BatchLoader<Long, ?> loader) {
+        stats.put(name + ".requests", loader.getRequests());
+        stats.put(name + ".batches", loader.getBatches());
+        stats.put(name + ".keysLoaded", loader.getKeysLoaded());
+    }
+}
@@ -0,0 +1,282 @@
+package org.trucker.musicbox.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.trucker.musicbox.dto.AlbumSummary;
+import org.trucker.musicbox.dto.SongSummary;
+import org.trucker.musicbox.model.Album;
+import org.trucker.musicbox.model.Artist;
+import org.trucker.musicbox.model.Song;
+import org.trucker.musicbox.repository.AlbumRepository;
+import org.trucker.musicbox.repository.ArtistRepository;
+import org.trucker.musicbox.repository.SongRepository;
+import org.trucker.musicbox.util.SingleFlight;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Manages albums and songs and keeps the precomputed catalog aggregates in step with them.
+ * Albums carry their track count and total duration; artists carry their album count, song count and total runtime.
+ * Every write through this service adjusts those aggregates with relative UPDATEs in the same transaction, so an
+ * artist page can be served from the aggregates alone instead of walking {@code Artist.albums} and {@code Album.songs}.
+ * A scheduled consistency check recomputes the aggregates from the source rows and repairs any drift, for example
+ * after rows were changed outside this service. The same repair runs at startup, which backfills the aggregates of
+ * rows that existed before the aggregate columns were added.
+ * Writes return summaries rather than entities, so responses never serialize the lazy, cyclic entity graph.
+ */
+@Service
+public class CatalogService {
+
+    /**
+     * Artist page data: the artist's aggregates and a summary of each album.
+     */
+    public record Discography(Long artistId, String name, int albumCount, int songCount, long totalRuntime,
+                              List<AlbumSummary> albums) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogService.class);
+
+    @Autowired
+    private ArtistRepository artistRepository;
+
+    @Autowired
+    private AlbumRepository albumRepository;
+
+    @Autowired
+    private SongRepository songRepository;
+
+    // A new release sends thousands of clients to the same album within milliseconds; each query runs once per burst.
+    // The shared results are immutable lists of records, never entities, which are not safe to share between threads.
+    private final SingleFlight<Long, List<SongSummary>> albumSongs = new SingleFlight<>();
+    private final SingleFlight<String, List<AlbumSummary>> artistAlbums = new SingleFlight<>();
+
+    /**
+     * Creates an album and counts it in the artist's aggregates.
+     *
+     * @param title The title of the album.
+     * @param releaseYear The release year of the album.
+     * @param artistId The ID of the artist.
+     * @return A summary of the saved album.
+     */
+    @Transactional
+    public AlbumSummary createAlbum(String title, int releaseYear, Long artistId) {
+        Artist artist = artistRepository.findById(artistId)
+                .orElseThrow(() -> new RuntimeException("Artist not found"));
+        Album album = albumRepository.save(new Album(title, releaseYear, artist));
+        artistRepository.adjustAggregates(artistId, 1, 0, 0);
+        return summarize(album);
+    }
+
+    /**
+     * Deletes an album with its songs and removes them from the artist's aggregates.
+     *
+     * @param albumId The ID of the album.
+     */
+    @Transactional
+    public void deleteAlbum(Long albumId) {
+        Album album = albumRepository.findById(albumId)
+                .orElseThrow(() -> new RuntimeException("Album not found"));
+        artistRepository.adjustAggregates(album.getArtist().getId(), -1, -album.getTrackCount(), -album.getTotalDuration());
+        albumRepository.delete(album);
+    }
+
+    /**
+     * Creates a song and adds it to the album and artist aggregates.
+     *
+     * @param title The title of the song.
+     * @param duration The duration of the song in seconds.
+     * @param albumId The ID of the album.
+     * @return A summary of the saved song.
+     */
+    @Transactional
+    public SongSummary createSong(String title, int duration, Long albumId) {
+        Album album = albumRepository.findById(albumId)
+                .orElseThrow(() -> new RuntimeException("Album not found"));
+        Song song = songRepository.save(new Song(title, duration, album));
+        adjustForSong(album, 1, duration);
+        return summarize(song);
+    }
+
+    /**
+     * Updates a song, moving its duration between albums and artists when needed.
+     *
+     * @param songId The ID of the song.
+     * @param title The new title, or null to keep the current one.
+     * @param duration The new duration in seconds, or null to keep the current one.
+     * @param albumId The ID of the new album, or null to keep the current one.
+     * @return A summary of the updated song.
+     */
+    @Transactional
+    public SongSummary updateSong(Long songId, String title, Integer duration, Long albumId) {
+        Song song = songRepository.findById(songId)
+                .orElseThrow(() -> new RuntimeException("Song not found with ID: " + songId));
+        Album oldAlbum = song.getAlbum();
+        int oldDuration = song.getDuration();
+        Album newAlbum = albumId == null || albumId.equals(oldAlbum.getId())
+                ? oldAlbum
+                : albumRepository.findById(albumId).orElseThrow(() -> new RuntimeException("Album not found"));
+        int newDuration = duration == null ? oldDuration : duration;
+
+        if (title != null) {
+            song.setTitle(title);
+        }
+        song.setDuration(newDuration);
+        song.setAlbum(newAlbum);
+
+        if (newAlbum == oldAlbum) {
+            adjustForSong(oldAlbum, 0, newDuration - oldDuration);
+        } else {
+            adjustForSong(oldAlbum, -1, -oldDuration);
+            adjustForSong(newAlbum, 1, newDuration);
+        }
+        return summarize(songRepository.save(song));
+    }
+
+    /**
+     * Deletes a song and removes it from the album and artist aggregates.
+     *
+     * @param songId The ID of the song.
+     */
+    @Transactional
+    public void deleteSong(Long songId) {
+        Song song = songRepository.findById(songId)
+                .orElseThrow(() -> new RuntimeException("Song not found with ID: " + songId));
+        adjustForSong(song.getAlbum(), -1, -song.getDuration());
+        songRepository.delete(song);
+    }
+
+    /**
+     * Gets the data for an artist page from the maintained aggregates.
+     * Costs one query for artists with albums (albums joined with their artist), two for artists without.
+     *
+     * @param artistId The ID of the artist.
+     * @return The artist's discography.
+     */
+    @Transactional(readOnly = true)
+    public Discography getDiscography(Long artistId) {
+        List<Album> albums = albumRepository.findAlbumsWithArtistByArtistId(artistId);
+        Artist artist = albums.isEmpty()
+                ? artistRepository.findById(artistId).orElseThrow(() -> new RuntimeException("Artist not found"))
+                : albums.get(0).getArtist();
+        List<AlbumSummary> summaries = albums.stream().map(CatalogService::summarize).toList();
+        return new Discography(artist.getId(), artist.getName(), artist.getAlbumCount(), artist.getSongCount(),
+                artist.getTotalRuntime(), summaries);
+    }
+
+    /**
+     * Gets the songs of an album. Concurrent calls for the same album share one query.
+     *
+     * @param albumId The ID of the album.
+     * @return The songs of the album, as an unmodifiable list shared with concurrent callers.
+     */
+    public List<SongSummary> getAlbumSongs(Long albumId) {
+        return albumSongs.execute(albumId, () -> List.copyOf(songRepository.findSummariesByAlbumId(albumId)));
+    }
+
+    /**
+     * Gets the albums of an artist by the artist's name. Concurrent calls for the same name share one query.
+     *
+     * @param artistName The name of the artist.
+     * @return The albums of the artist, as an unmodifiable list shared with concurrent callers.
+     */
+    public List<AlbumSummary> getAlbumsByArtistName(String artistName) {
+        return artistAlbums.execute(artistName, () -> List.copyOf(albumRepository.findSummariesByArtistName(artistName)));
+    }
+
+    /**
+     * Gets how many album and artist lookups were collapsed into another caller's query.
+     * @return A map of counter names to values.
+     */
+    public Map<String, Long> getSingleFlightStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("albumSongs.calls", albumSongs.getCalls());
+        stats.put("albumSongs.collapsed", albumSongs.getCollapsed());
+        stats.put("artistAlbums.calls", artistAlbums.getCalls());
+        stats.put("artistAlbums.collapsed", artistAlbums.getCollapsed());
+        return stats;
+    }
+
+    /**
+     * Recomputes the aggregates from the albums and songs and repairs any that drifted.
+     * Albums are checked before artists; artist totals are computed from the songs directly, so the order only matters for logging.
+     *
+     * @return The number of repaired albums and artists.
+     */
+    @Scheduled(cron = "${musicbox.catalog.consistency-cron:0 30 3 * * *}")
+    @Transactional
+    public Map<String, Integer> checkConsistency() {
+        Map<String, Integer> repaired = repairAggregates();
+        if (repaired.get("albums") > 0 || repaired.get("artists") > 0) {
+            log.warn("Repaired catalog aggregates of {} albums and {} artists", repaired.get("albums"), repaired.get("artists"));
+        }
+        return repaired;
+    }
+
+    /**
+     * Computes the aggregates of albums and artists whose stored values do not match their rows, once at startup.
+     * After the aggregate columns are added, every existing album and artist starts at zero; this fills them in
+     * before the first nightly check would.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillAggregates() {
+        Map<String, Integer> repaired = repairAggregates();
+        if (repaired.get("albums") > 0 || repaired.get("artists") > 0) {
+            log.info("Backfilled catalog aggregates of {} albums and {} artists", repaired.get("albums"), repaired.get("artists"));
+        }
+    }
+
+    /**
+     * The drift queries only pick candidates: they run without locks, and a write committing after them would be
+     * overwritten by their values. Each candidate row is locked first and recomputed afterwards, so the values written
+     * include every committed write, and writes still in progress apply their relative adjustments on top.
+     */
+    private Map<String, Integer> repairAggregates() {
+        int albums = 0;
+        for (Object[] drifted : albumRepository.findDriftedAggregates()) {
+            Long albumId = (Long) drifted[0];
+            if (albumRepository.lockById(albumId) != null) {
+                Object[] row = albumRepository.computeAggregates(albumId).get(0);
+                albumRepository.setAggregates(albumId, ((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+                albums++;
+            }
+        }
+        int artists = 0;
+        for (Object[] drifted : artistRepository.findDriftedAggregates()) {
+            Long artistId = (Long) drifted[0];
+            if (artistRepository.lockById(artistId) != null) {
+                Object[] row = artistRepository.computeAggregates(artistId).get(0);
+                artistRepository.setAggregates(artistId, ((Number) row[0]).intValue(),
+                        ((Number) row[1]).intValue(), ((Number) row[2]).longValue());
+                artists++;
+            }
+        }
+        Map<String, Integer> repaired = new LinkedHashMap<>();
+        repaired.put("albums", albums);
+        repaired.put("artists", artists);
+        return repaired;
+    }
+
+    private void adjustForSong(Album album, int songs, long duration) {
+        albumRepository.adjustAggregates(album.getId(), songs, duration);
+        artistRepository.adjustAggregates(album.getArtist().getId(), 0, songs, duration);
+    }
+
+    private static AlbumSummary summarize(Album album) {
+        return new AlbumSummary(album.getId(), album.getTitle(), album.getReleaseYear(), album.getTrackCount(),
+                album.getTotalDuration());
+    }
+
+    private static SongSummary summarize(Song song) {
+        return new SongSummary(song.getId(), song.getTitle(), song.getDuration(), song.getAlbum().getId(),
+                song.getAlbum().getTitle());
+    }
+}
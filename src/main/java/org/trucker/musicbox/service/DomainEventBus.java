@@ -0,0 +1,291 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.trucker.musicbox.model.OutboxEvent;
+import org.trucker.musicbox.repository.OutboxEventRepository;
+import org.trucker.musicbox.util.MpscRingBuffer;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * In-process domain event bus with a transactional outbox.
+ * {@link #publish} inserts the event into the outbox within the caller's transaction and, once that transaction has
+ * committed, offers it to the bounded {@link MpscRingBuffer} of its topic; nothing is dispatched for a rolled-back change.
+ * Each topic has one consumer thread that drains its buffer in batches, hands every batch to the topic's
+ * {@link DomainEventListener}s and marks the batch processed with one update. Writers never wait for consumers: when a
+ * buffer is full, or a consumer fails, the event simply stays pending in the outbox, and a periodic replay (also run at
+ * startup, which covers a crash between commit and dispatch) offers pending events again. Delivery is at least once.
+ */
+@Service
+public class DomainEventBus {
+
+    public static final String SUBSCRIPTION_CREATED = "subscription.created"; // Aggregate: user ID; payload: end date in epoch millis.
+    public static final String USER_SAVED = "user.saved"; // Aggregate: user ID.
+    public static final String AUDIO_UPLOADED = "audio.uploaded"; // Aggregate: audio ID.
+
+    private static final Logger log = LoggerFactory.getLogger(DomainEventBus.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int MAX_ERROR_LENGTH = 255;
+
+    /**
+     * One buffered event; cleared when drained, so the buffer does not keep dispatched events reachable.
+     */
+    private static final class EventSlot {
+        OutboxEvent event;
+    }
+
+    /**
+     * The buffer, consumer thread and listeners of one topic.
+     */
+    private static final class Topic {
+        final String name;
+        final List<DomainEventListener> listeners = new ArrayList<>();
+        final MpscRingBuffer<EventSlot> buffer;
+        final List<OutboxEvent> batch = new ArrayList<>(); // Owned by the consumer thread; reused for every batch.
+        final Consumer<EventSlot> batchSink = slot -> {
+            batch.add(slot.event);
+            slot.event = null;
+        };
+        Thread consumer;
+
+        Topic(String name, int capacity) {
+            this.name = name;
+            this.buffer = new MpscRingBuffer<>(capacity, EventSlot::new);
+        }
+    }
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired(required = false)
+    private List<DomainEventListener> listeners = List.of();
+
+    @Value("${musicbox.events.buffer-capacity:8192}")
+    private int bufferCapacity;
+
+    @Value("${musicbox.events.batch-size:500}")
+    private int batchSize;
+
+    @Value("${musicbox.events.replay-delay-ms:5000}")
+    private long replayDelayMs;
+
+    @Value("${musicbox.events.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${musicbox.events.retention-hours:24}")
+    private long retentionHours;
+
+    private final Map<String, Topic> topics = new HashMap<>(); // Built at startup, read-only afterwards.
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet(); // Events in a buffer or being handled; the replay skips them.
+    private volatile boolean running;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        for (DomainEventListener listener : listeners) {
+            for (String topic : listener.topics()) {
+                topics.computeIfAbsent(topic, name -> new Topic(name, bufferCapacity)).listeners.add(listener);
+            }
+        }
+        running = true;
+        for (Topic topic : topics.values()) {
+            topic.consumer = new Thread(() -> runConsumer(topic), "domain-events-" + topic.name);
+            topic.consumer.setDaemon(true);
+            topic.consumer.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Topic topic : topics.values()) {
+            topic.consumer.join(TimeUnit.SECONDS.toMillis(10)); // Consumers handle what is left in their buffer before exiting.
+        }
+    }
+
+    /**
+     * Publishes an event as part of the current transaction, or of a new one if none is active.
+     * The event is dispatched to the topic's listeners after the commit; if nothing consumes the topic it is stored as processed.
+     *
+     * @param topic The topic of the event.
+     * @param aggregateId The ID of the entity the event is about.
+     * @param payload Topic-specific details, or null.
+     * @return The stored event.
+     */
+    @Transactional
+    public OutboxEvent publish(String topic, long aggregateId, String payload) {
+        OutboxEvent event = new OutboxEvent(topic, aggregateId, payload, LocalDateTime.now());
+        Topic target = topics.get(topic);
+        if (target == null) {
+            event.setProcessedAt(event.getCreatedAt());
+        }
+        OutboxEvent saved = outboxEventRepository.save(event);
+        published.increment();
+        if (target != null) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(target, saved);
+                }
+            });
+        }
+        return saved;
+    }
+
+    /**
+     * Offers pending events again: those whose buffer was full, whose consumer failed, or that were lost in a crash.
+     * Events younger than the replay delay are left to the live dispatch. Events that failed too often are abandoned.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${musicbox.events.replay-delay-ms:5000}", initialDelayString = "${musicbox.events.replay-delay-ms:5000}")
+    public void replay() {
+        LocalDateTime now = LocalDateTime.now();
+        int abandoned = outboxEventRepository.abandonFailed(maxAttempts, now);
+        if (abandoned > 0) {
+            log.warn("Abandoned {} domain events that failed {} times; see outbox_event.last_error", abandoned, maxAttempts);
+        }
+        LocalDateTime before = now.minusNanos(TimeUnit.MILLISECONDS.toNanos(replayDelayMs));
+        long afterId = 0;
+        List<Long> unconsumed = new ArrayList<>();
+        while (true) {
+            List<OutboxEvent> page = outboxEventRepository.findPending(before, afterId, PageRequest.of(0, batchSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            for (OutboxEvent event : page) {
+                afterId = event.getId();
+                Topic topic = topics.get(event.getTopic());
+                if (topic == null) {
+                    unconsumed.add(event.getId()); // Its consumers are gone; there is nobody left to deliver it to.
+                } else if (!inFlight.contains(event.getId())) {
+                    if (!enqueue(topic, event)) {
+                        markProcessed(unconsumed, now);
+                        return; // The buffer is full again; the next replay continues from here.
+                    }
+                    replayed.increment();
+                }
+            }
+        }
+        markProcessed(unconsumed, now);
+    }
+
+    /**
+     * Deletes processed events older than the retention period.
+     */
+    @Scheduled(fixedDelayString = "${musicbox.events.cleanup-interval-ms:3600000}")
+    public void cleanup() {
+        int deleted = outboxEventRepository.deleteProcessedBefore(LocalDateTime.now().minusHours(retentionHours));
+        if (deleted > 0) {
+            log.info("Deleted {} processed domain events", deleted);
+        }
+    }
+
+    /**
+     * Gets the bus counters.
+     * @return A map of counter names to values.
+     */
+    public Map<String, Long> getStats() {
+        long backlog = 0;
+        for (Topic topic : topics.values()) {
+            backlog += topic.buffer.size();
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("published", published.sum());
+        stats.put("dispatched", dispatched.sum());
+        stats.put("failed", failed.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("overflowed", overflowed.sum());
+        stats.put("backlog", backlog);
+        stats.put("inFlight", (long) inFlight.size());
+        return stats;
+    }
+
+    private boolean enqueue(Topic topic, OutboxEvent event) {
+        if (!inFlight.add(event.getId())) {
+            return true; // Already on its way.
+        }
+        long sequence = topic.buffer.claim();
+        if (sequence < 0) {
+            inFlight.remove(event.getId());
+            overflowed.increment(); // Stays pending in the outbox; the replay picks it up.
+            return false;
+        }
+        topic.buffer.slot(sequence).event = event;
+        topic.buffer.publish(sequence);
+        return true;
+    }
+
+    private void runConsumer(Topic topic) {
+        while (running || topic.buffer.size() > 0) {
+            topic.batch.clear();
+            if (topic.buffer.drain(topic.batchSink, batchSize) == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            dispatch(topic, topic.batch);
+        }
+    }
+
+    private void dispatch(Topic topic, List<OutboxEvent> batch) {
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (OutboxEvent event : batch) {
+            ids.add(event.getId());
+        }
+        List<OutboxEvent> events = Collections.unmodifiableList(batch);
+        try {
+            for (DomainEventListener listener : topic.listeners) {
+                listener.onEvents(events);
+            }
+            outboxEventRepository.markProcessed(ids, LocalDateTime.now());
+            dispatched.add(ids.size());
+        } catch (RuntimeException e) {
+            failed.add(ids.size());
+            log.warn("Dispatch of {} {} events failed; they stay pending for replay", ids.size(), topic.name, e);
+            String error = String.valueOf(e.getMessage());
+            try {
+                outboxEventRepository.recordFailure(ids, error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+            } catch (RuntimeException recordError) {
+                log.warn("Could not record the failure of {} events", ids.size(), recordError);
+            }
+        } finally {
+            ids.forEach(inFlight::remove);
+        }
+    }
+
+    private void markProcessed(List<Long> ids, LocalDateTime now) {
+        if (!ids.isEmpty()) {
+            outboxEventRepository.markProcessed(ids, now);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.trucker.musicbox.service;
+
+import org.trucker.musicbox.model.OutboxEvent;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Consumer of domain events published through the {@link DomainEventBus}.
+ * Every Spring bean implementing this interface is called, after the publishing transaction has committed, with batches
+ * of the events of the topics it subscribes to. Each topic has its own consumer thread, so a listener is never called
+ * concurrently for the same topic.
+ * Delivery is unordered: events usually arrive in publication order, but an event that overflowed its buffer or whose
+ * batch failed is replayed after newer ones. Delivery is also at least once: after a failure or a crash a batch may be
+ * delivered again. Handling must therefore be idempotent and must not depend on the order of events.
+ */
+public interface DomainEventListener {
+
+    /**
+     * Gets the topics this listener consumes.
+     * @return The topic names.
+     */
+    Set<String> topics();
+
+    /**
+     * Handles a batch of events. Throwing leaves the whole batch pending; it is retried by the outbox replay.
+     *
+     * @param events The events, all of one topic, in no guaranteed order.
+     */
+    void onEvents(List<OutboxEvent> events);
+}
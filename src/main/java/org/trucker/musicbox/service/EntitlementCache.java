@@ -0,0 +1,158 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.trucker.musicbox.util.LongLongHashMap;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory cache of premium entitlements keyed by user ID.
+ * Each entry is a single primitive long in a striped {@link LongLongHashMap}, encoding both the answer and when it
+ * stops being valid: a positive value means "premium until this epoch millis" (the user's latest subscription end date),
+ * a negative value means "not premium, re-check at minus this epoch millis". An entry past its instant is treated as a miss.
+ * Lookups never touch JPA; each stripe is guarded by its own monitor, so contention is spread across stripes.
+ */
+@Service
+public class EntitlementCache {
+
+    private static final int STRIPES = 64; // Must match the 6 hash bits used by stripeFor.
+    private static final long ABSENT = 0L;
+
+    @Value("${musicbox.entitlements.max-entries:4000000}")
+    private int maxEntries;
+
+    private LongLongHashMap[] stripes;
+    private int maxEntriesPerStripe;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        maxEntriesPerStripe = Math.max(1, maxEntries / STRIPES);
+        stripes = new LongLongHashMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongLongHashMap(Math.min(maxEntriesPerStripe, 16_384));
+        }
+    }
+
+    /**
+     * Looks up the premium status of a user.
+     *
+     * @param userId The ID of the user.
+     * @param now The current epoch millis.
+     * @return {@link Boolean#TRUE} or {@link Boolean#FALSE} on a valid hit, or null on a miss or an expired entry.
+     */
+    public Boolean lookup(long userId, long now) {
+        LongLongHashMap stripe = stripeFor(userId);
+        long value;
+        synchronized (stripe) {
+            value = stripe.get(userId, ABSENT);
+        }
+        if (value > 0 && now < value) {
+            hits.increment();
+            return Boolean.TRUE;
+        }
+        if (value < 0 && now < -value) {
+            hits.increment();
+            return Boolean.FALSE;
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches that a user is premium until the given instant.
+     *
+     * @param userId The ID of the user.
+     * @param premiumUntil The epoch millis at which the entitlement ends.
+     */
+    public void putPremium(long userId, long premiumUntil) {
+        put(userId, premiumUntil);
+    }
+
+    /**
+     * Caches that a user is not premium, to be re-checked at the given instant.
+     * A premium entry still valid at {@code now} is kept: it was written through by a subscription that committed after
+     * the caller read the database, and revocations invalidate the entry before the next load.
+     *
+     * @param userId The ID of the user.
+     * @param now The current epoch millis.
+     * @param recheckAt The epoch millis after which the entry is ignored.
+     */
+    public void putNotPremium(long userId, long now, long recheckAt) {
+        LongLongHashMap stripe = stripeFor(userId);
+        synchronized (stripe) {
+            long current = stripe.get(userId, ABSENT);
+            if (current <= now) {
+                putLocked(stripe, userId, -recheckAt);
+            }
+        }
+    }
+
+    /**
+     * Extends a user's entitlement to the given instant, keeping a later end date if one is already cached.
+     * Used as the write-through path when a subscription is committed.
+     *
+     * @param userId The ID of the user.
+     * @param premiumUntil The end date of the new subscription, in epoch millis.
+     */
+    public void extendPremium(long userId, long premiumUntil) {
+        LongLongHashMap stripe = stripeFor(userId);
+        synchronized (stripe) {
+            long current = stripe.get(userId, ABSENT);
+            if (current <= 0 || current < premiumUntil) {
+                putLocked(stripe, userId, premiumUntil);
+            }
+        }
+    }
+
+    /**
+     * Drops the cached entitlement of a user, forcing the next lookup to reload it.
+     *
+     * @param userId The ID of the user.
+     */
+    public void invalidate(long userId) {
+        LongLongHashMap stripe = stripeFor(userId);
+        synchronized (stripe) {
+            stripe.remove(userId, ABSENT);
+        }
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     * @return The hit count.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to be loaded from the database.
+     * @return The miss count.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private void put(long userId, long value) {
+        LongLongHashMap stripe = stripeFor(userId);
+        synchronized (stripe) {
+            putLocked(stripe, userId, value);
+        }
+    }
+
+    private void putLocked(LongLongHashMap stripe, long userId, long value) {
+        if (stripe.size() >= maxEntriesPerStripe && !stripe.containsKey(userId)) {
+            stripe.clear(); // Crude but bounded: the stripe refills from the database on demand.
+        }
+        stripe.put(userId, value);
+    }
+
+    private LongLongHashMap stripeFor(long userId) {
+        long spread = userId * 0x9E3779B97F4A7C15L; // Sequential IDs land on different stripes.
+        return stripes[(int) (spread >>> 58)]; // Top 6 bits select one of the 64 stripes.
+    }
+}
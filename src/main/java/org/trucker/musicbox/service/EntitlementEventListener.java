@@ -0,0 +1,49 @@
+package org.trucker.musicbox.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.trucker.musicbox.model.OutboxEvent;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the premium read paths in step with committed writes: the {@link EntitlementCache}, the
+ * {@link ActiveSubscriberIndex} and the {@link SubscriptionExpiryService} schedule.
+ * Every update here is idempotent, as redelivered events require.
+ */
+@Component
+public class EntitlementEventListener implements DomainEventListener {
+
+    @Autowired
+    private EntitlementCache entitlementCache;
+
+    @Autowired
+    private SubscriptionExpiryService subscriptionExpiryService;
+
+    @Autowired
+    private ActiveSubscriberIndex activeSubscriberIndex;
+
+    @Override
+    public Set<String> topics() {
+        return Set.of(DomainEventBus.SUBSCRIPTION_CREATED, DomainEventBus.USER_SAVED);
+    }
+
+    @Override
+    public void onEvents(List<OutboxEvent> events) {
+        long now = System.currentTimeMillis();
+        for (OutboxEvent event : events) {
+            long userId = event.getAggregateId();
+            if (DomainEventBus.USER_SAVED.equals(event.getTopic())) {
+                entitlementCache.invalidate(userId); // The premium flag may have changed; the next check reloads it.
+                continue;
+            }
+            long premiumUntil = Long.parseLong(event.getPayload());
+            entitlementCache.extendPremium(userId, premiumUntil);
+            subscriptionExpiryService.schedule(userId, premiumUntil);
+            if (premiumUntil > now) {
+                activeSubscriberIndex.add(userId);
+            }
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.trucker.musicbox.exception.FingerprintUnavailableException;
+import org.trucker.musicbox.model.Audio;
+import org.trucker.musicbox.model.AudioFingerprint;
+import org.trucker.musicbox.model.OutboxEvent;
+import org.trucker.musicbox.repository.AudioFingerprintRepository;
+import org.trucker.musicbox.repository.AudioRepository;
+import org.trucker.musicbox.repository.OutboxEventRepository;
+import org.trucker.musicbox.util.AcousticFingerprinter;
+import org.trucker.musicbox.util.AcousticFingerprinter.Fingerprint;
+import org.trucker.musicbox.util.AudioDecoder;
+import org.trucker.musicbox.util.FingerprintIndex;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Detects re-uploads of the same recording, whatever its encoding, with acoustic fingerprints.
+ * Every committed upload ({@link DomainEventBus#AUDIO_UPLOADED}) is decoded, fingerprinted with the spectra computed on a
+ * dedicated thread pool, checked against the {@link FingerprintIndex} and then added to it; the fingerprint and the most
+ * likely duplicate are stored in {@code audio_fingerprint}, from which the index is rebuilt at startup. A lookup touches
+ * only the posting lists of a few hundred hashes, so it takes milliseconds with millions of tracks indexed; the index
+ * holds about {@code sketch-size} postings of 12 bytes per track. Reads share a read lock; adding a track takes the
+ * write lock.
+ */
+@Service
+public class FingerprintService implements DomainEventListener {
+
+    private static final Logger log = LoggerFactory.getLogger(FingerprintService.class);
+
+    private static final float SAMPLE_RATE = 11025f; // Enough for the bands that survive lossy encoders.
+    private static final String LOAD_SQL = "SELECT audio_id, hashes FROM audio_fingerprint WHERE hash_count > 0";
+
+    /**
+     * A likely duplicate of a track.
+     *
+     * @param audioId The ID of the matching track.
+     * @param matchingHashes The number of fingerprint hashes both tracks share at a consistent time shift.
+     * @param hashes The number of hashes of the queried track.
+     * @param shiftSeconds How much later the queried track starts than the match.
+     */
+    public record Duplicate(long audioId, int matchingHashes, int hashes, double shiftSeconds) {
+    }
+
+    @Autowired
+    private AudioRepository audioRepository;
+
+    @Autowired
+    private AudioFingerprintRepository audioFingerprintRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${musicbox.fingerprint.threads:0}")
+    private int threads; // 0 means one per available processor.
+
+    @Value("${musicbox.fingerprint.sketch-size:256}")
+    private int sketchSize;
+
+    @Value("${musicbox.fingerprint.fan-out:5}")
+    private int fanOut;
+
+    @Value("${musicbox.fingerprint.frames-per-task:256}")
+    private int framesPerTask;
+
+    @Value("${musicbox.fingerprint.max-seconds:300}")
+    private int maxSeconds;
+
+    @Value("${musicbox.fingerprint.min-matches:12}")
+    private int minMatches;
+
+    @Value("${musicbox.fingerprint.max-postings-per-hash:5000}")
+    private int maxPostingsPerHash;
+
+    @Value("${musicbox.fingerprint.expected-tracks:1000}")
+    private int expectedTracks;
+
+    @Value("${musicbox.fingerprint.raw-sample-rate:44100}")
+    private float rawSampleRate;
+
+    @Value("${musicbox.fingerprint.raw-channels:2}")
+    private int rawChannels;
+
+    private AcousticFingerprinter fingerprinter;
+    private ExecutorService executor;
+    private FingerprintIndex index;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final LongAdder fingerprinted = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder undecodable = new LongAdder();
+    private final LongAdder fingerprintNanos = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        fingerprinter = new AcousticFingerprinter(fanOut, sketchSize, framesPerTask);
+        index = new FingerprintIndex((long) expectedTracks * sketchSize);
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), runnable -> {
+            Thread thread = new Thread(runnable, "fingerprint-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Rebuilds the index from the stored fingerprints, streaming them through a cursor.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(10_000);
+        transactionTemplate.executeWithoutResult(status -> streaming.query(LOAD_SQL, (RowCallbackHandler) rs ->
+                addToIndex(rs.getLong(1), Fingerprint.fromBytes(rs.getBytes(2)))));
+        Map<String, Long> stats = getStats();
+        log.info("Loaded {} audio fingerprints ({} bytes)", stats.get("indexedTracks"), stats.get("indexBytes"));
+    }
+
+    @Override
+    public Set<String> topics() {
+        return Set.of(DomainEventBus.AUDIO_UPLOADED);
+    }
+
+    @Override
+    public void onEvents(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            fingerprintAudio(event.getAggregateId());
+        }
+    }
+
+    /**
+     * Fingerprints a track, records its most likely duplicate and adds it to the index.
+     * A track that already has a fingerprint is not analysed again.
+     *
+     * @param audioId The ID of the audio track.
+     * @return The stored fingerprint, or null if the track no longer exists or its format cannot be decoded.
+     * @throws UncheckedIOException If the audio file cannot be read.
+     */
+    public AudioFingerprint fingerprintAudio(long audioId) {
+        AudioFingerprint existing = audioFingerprintRepository.findById(audioId).orElse(null);
+        if (existing != null) {
+            if (existing.getHashCount() > 0) {
+                addToIndex(audioId, Fingerprint.fromBytes(existing.getHashes())); // No-op unless the index was rebuilt meanwhile.
+            }
+            return existing;
+        }
+        Audio audio = audioRepository.findById(audioId).orElse(null);
+        if (audio == null) {
+            return null;
+        }
+        long start = System.nanoTime();
+        Fingerprint fingerprint;
+        try {
+            AudioFormat rawFormat = new AudioFormat(rawSampleRate, 16, rawChannels, true, false);
+            float[] samples = AudioDecoder.decodeMono(Paths.get(audio.getFilePath()), SAMPLE_RATE, maxSeconds, rawFormat);
+            fingerprint = fingerprinter.fingerprint(samples, executor);
+        } catch (UnsupportedAudioFileException e) {
+            undecodable.increment();
+            log.info("Audio {} is not fingerprinted: {}", audioId, e.getMessage());
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fingerprintNanos.add(System.nanoTime() - start);
+
+        AudioFingerprint stored = new AudioFingerprint(audioId, fingerprint.toBytes(), fingerprint.hashes().length,
+                fingerprint.frames(), LocalDateTime.now());
+        List<Duplicate> matches = query(audioId, fingerprint, 1);
+        if (!matches.isEmpty()) {
+            Duplicate best = matches.get(0);
+            stored.setDuplicateOfId(best.audioId());
+            stored.setDuplicateVotes(best.matchingHashes());
+            duplicates.increment();
+            log.info("Audio {} is a likely duplicate of audio {} ({} of {} hashes match)",
+                    audioId, best.audioId(), best.matchingHashes(), best.hashes());
+        }
+        audioFingerprintRepository.save(stored);
+        addToIndex(audioId, fingerprint);
+        fingerprinted.increment();
+        return stored;
+    }
+
+    /**
+     * Finds the likely duplicates of a fingerprinted track among all indexed tracks.
+     *
+     * @param audioId The ID of the audio track.
+     * @param limit The most duplicates to return.
+     * @return The duplicates, best match first.
+     * @throws FingerprintUnavailableException If the track has no fingerprint; pending while its upload event is unhandled.
+     */
+    public List<Duplicate> findDuplicates(long audioId, int limit) {
+        AudioFingerprint stored = audioFingerprintRepository.findById(audioId).orElse(null);
+        if (stored == null) {
+            boolean pending = audioRepository.existsById(audioId) && outboxEventRepository
+                    .existsByTopicAndAggregateIdAndProcessedAtIsNull(DomainEventBus.AUDIO_UPLOADED, audioId);
+            throw new FingerprintUnavailableException(pending ? "Audio ID " + audioId + " is not fingerprinted yet"
+                    : "No fingerprint for audio ID: " + audioId, pending);
+        }
+        return query(audioId, Fingerprint.fromBytes(stored.getHashes()), limit);
+    }
+
+    /**
+     * Gets the fingerprinting counters and the size of the index.
+     * @return A map of counter names to values.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        lock.readLock().lock();
+        try {
+            stats.put("indexedTracks", index.getTrackCount());
+            stats.put("postings", index.getPostingCount());
+            stats.put("distinctHashes", index.getDistinctHashes());
+            stats.put("indexBytes", index.sizeInBytes());
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.put("fingerprinted", fingerprinted.sum());
+        stats.put("duplicates", duplicates.sum());
+        stats.put("undecodable", undecodable.sum());
+        stats.put("fingerprintMillis", TimeUnit.NANOSECONDS.toMillis(fingerprintNanos.sum()));
+        stats.put("queries", queries.sum());
+        stats.put("queryMicros", TimeUnit.NANOSECONDS.toMicros(queryNanos.sum()));
+        return stats;
+    }
+
+    private List<Duplicate> query(long audioId, Fingerprint fingerprint, int limit) {
+        long start = System.nanoTime();
+        List<FingerprintIndex.Match> matches;
+        lock.readLock().lock();
+        try {
+            matches = index.query(fingerprint.hashes(), fingerprint.offsets(), audioId, maxPostingsPerHash, minMatches, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+        queries.increment();
+        queryNanos.add(System.nanoTime() - start);
+        double secondsPerFrame = AcousticFingerprinter.secondsPerFrame(SAMPLE_RATE);
+        List<Duplicate> result = new ArrayList<>(matches.size());
+        for (FingerprintIndex.Match match : matches) {
+            result.add(new Duplicate(match.audioId(), match.votes(), fingerprint.hashes().length, match.shiftFrames() * secondsPerFrame));
+        }
+        return result;
+    }
+
+    private void addToIndex(long audioId, Fingerprint fingerprint) {
+        lock.writeLock().lock();
+        try {
+            index.add(audioId, fingerprint.hashes(), fingerprint.offsets());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.trucker.musicbox.service;
+
+/**
+ * Consumer of the listen event stream.
+ * Every Spring bean implementing this interface is called by the {@link ListenEventService} writer thread for each
+ * drained batch and then for each of its events, just before the batch is written to the database. Implementations run
+ * on that single thread, so they must be fast, must not block per event, and may rely on never being called concurrently.
+ */
+public interface ListenEventListener {
+
+    /**
+     * Called once per drained batch, before {@link #onListen} is called for its events, so that anything needing the
+     * database can be loaded for the whole batch at once, such as the tracks' albums and artists.
+     *
+     * @param audioIds The IDs of the audio that was played; only the first {@code count} entries belong to the batch.
+     * @param count The number of events in the batch.
+     */
+    default void beforeBatch(long[] audioIds, int count) {
+    }
+
+    /**
+     * Called for each play drained from the ingestion buffer.
+     *
+     * @param audioId The ID of the audio that was played.
+     * @param userId The ID of the listener, or 0 for anonymous plays.
+     * @param timestamp The epoch millis of the play.
+     */
+    void onListen(long audioId, long userId, long timestamp);
+}
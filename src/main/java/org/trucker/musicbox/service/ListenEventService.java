@@ -0,0 +1,248 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.trucker.musicbox.util.MpscRingBuffer;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Ingests listen events (plays) into the database without putting the database on the request path.
+ * Events are published into a bounded {@link MpscRingBuffer} of reused slots; a single background writer thread drains
+ * the buffer and inserts the events with JDBC batches. When the buffer is full, the configured overflow policy decides
+ * whether the caller waits briefly for space (BLOCK) or the event is dropped immediately (DROP).
+ * Drained batches are also handed to every {@link ListenEventListener} bean on the writer thread.
+ */
+@Service
+public class ListenEventService {
+
+    /**
+     * What to do with an event when the buffer is full.
+     */
+    public enum OverflowPolicy {
+        DROP, // Reject the event immediately.
+        BLOCK // Wait up to the configured timeout for the writer to free space, then reject.
+    }
+
+    /**
+     * One buffered play. Slots are reused, so publishing an event never allocates.
+     */
+    private static final class ListenSlot {
+        long audioId;
+        long userId; // 0 when the listener is anonymous.
+        long timestamp; // Epoch millis.
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ListenEventService.class);
+
+    private static final String INSERT_SQL = "INSERT INTO listen_event (audio_id, user_id, listened_at) VALUES (?, ?, ?)";
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate; // Used for batched inserts, bypassing the JPA persistence context.
+
+    @Autowired(required = false)
+    private List<ListenEventListener> listeners = List.of(); // Stream consumers such as trending charts.
+
+    @Value("${musicbox.listen.buffer-capacity:65536}")
+    private int bufferCapacity;
+
+    @Value("${musicbox.listen.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${musicbox.listen.overflow-policy:DROP}")
+    private OverflowPolicy overflowPolicy;
+
+    @Value("${musicbox.listen.block-timeout-ms:5}")
+    private long blockTimeoutMs;
+
+    private MpscRingBuffer<ListenSlot> buffer;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    // Staging arrays owned by the writer thread; reused for every batch.
+    private long[] batchAudioIds;
+    private long[] batchUserIds;
+    private long[] batchTimestamps;
+    private int staged;
+    private final Consumer<ListenSlot> stagingSink = this::stage;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @PostConstruct
+    public void start() {
+        buffer = new MpscRingBuffer<>(bufferCapacity, ListenSlot::new);
+        batchAudioIds = new long[batchSize];
+        batchUserIds = new long[batchSize];
+        batchTimestamps = new long[batchSize];
+        running = true;
+        writerThread = new Thread(this::runWriter, "listen-event-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10)); // The writer flushes what is left in the buffer before exiting.
+    }
+
+    /**
+     * Records a play, applying the configured overflow policy when the buffer is full.
+     *
+     * @param audioId The ID of the audio that was played.
+     * @param userId The ID of the listener, or null for anonymous plays.
+     * @return true if the event was accepted, false if it was dropped.
+     */
+    public boolean record(Long audioId, Long userId) {
+        long timestamp = System.currentTimeMillis();
+        long user = userId == null ? 0L : userId;
+        if (offer(audioId, user, timestamp)) {
+            accepted.increment();
+            return true;
+        }
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+            while (System.nanoTime() < deadline) {
+                LockSupport.parkNanos(BLOCK_PARK_NANOS);
+                if (offer(audioId, user, timestamp)) {
+                    accepted.increment();
+                    return true;
+                }
+            }
+        }
+        dropped.increment();
+        return false;
+    }
+
+    /**
+     * Records a play without ever waiting, whatever the overflow policy. Used by the streaming path,
+     * where a full buffer must never add latency to the response.
+     *
+     * @param audioId The ID of the audio that was played.
+     * @param userId The ID of the listener, or null for anonymous plays.
+     * @return true if the event was accepted, false if it was dropped.
+     */
+    public boolean tryRecord(Long audioId, Long userId) {
+        if (offer(audioId, userId == null ? 0L : userId, System.currentTimeMillis())) {
+            accepted.increment();
+            return true;
+        }
+        dropped.increment();
+        return false;
+    }
+
+    /**
+     * Gets the ingestion counters for monitoring.
+     * @return A map of counter names to values.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("accepted", accepted.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("written", written.sum());
+        stats.put("failed", failed.sum());
+        stats.put("batches", batches.sum());
+        stats.put("backlog", (long) buffer.size());
+        stats.put("capacity", (long) buffer.getCapacity());
+        return stats;
+    }
+
+    private boolean offer(long audioId, long userId, long timestamp) {
+        long sequence = buffer.claim();
+        if (sequence < 0) {
+            return false;
+        }
+        ListenSlot slot = buffer.slot(sequence);
+        slot.audioId = audioId;
+        slot.userId = userId;
+        slot.timestamp = timestamp;
+        buffer.publish(sequence);
+        return true;
+    }
+
+    private void runWriter() {
+        while (running || buffer.size() > 0) {
+            staged = 0;
+            int drained = buffer.drain(stagingSink, batchSize);
+            if (drained == 0) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS); // Nothing to write; back off briefly.
+                continue;
+            }
+            notifyListeners(drained);
+            flush(drained);
+        }
+    }
+
+    private void stage(ListenSlot slot) {
+        batchAudioIds[staged] = slot.audioId;
+        batchUserIds[staged] = slot.userId;
+        batchTimestamps[staged] = slot.timestamp;
+        staged++;
+    }
+
+    private void notifyListeners(int count) {
+        for (int i = 0; i < listeners.size(); i++) {
+            ListenEventListener listener = listeners.get(i);
+            try {
+                listener.beforeBatch(batchAudioIds, count);
+                for (int event = 0; event < count; event++) {
+                    listener.onListen(batchAudioIds[event], batchUserIds[event], batchTimestamps[event]);
+                }
+            } catch (RuntimeException ex) {
+                // A misbehaving listener must not stop ingestion; it misses the rest of this batch.
+                log.warn("Listen event listener {} failed", listener.getClass().getSimpleName(), ex);
+            }
+        }
+    }
+
+    private void flush(int count) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    ps.setLong(1, batchAudioIds[i]);
+                    if (batchUserIds[i] == 0L) {
+                        ps.setNull(2, Types.BIGINT);
+                    } else {
+                        ps.setLong(2, batchUserIds[i]);
+                    }
+                    ps.setTimestamp(3, new Timestamp(batchTimestamps[i]));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return count;
+                }
+            });
+            written.add(count);
+            batches.increment();
+        } catch (RuntimeException ex) {
+            // A failed batch must not kill the writer; the events are lost but counted.
+            failed.add(count);
+            log.warn("Failed to write batch of {} listen events", count, ex);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package org.trucker.musicbox.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.trucker.musicbox.model.ListenerSketch;
+import org.trucker.musicbox.model.ListenerSketch.EntityType;
+import org.trucker.musicbox.repository.ListenerSketchRepository;
+import org.trucker.musicbox.util.HyperLogLog;
+
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counts approximate unique listeners per artist and per track and calendar month with HyperLogLog sketches.
+ * Plays from the listen event stream are added to in-memory sketches for the current flush interval; a scheduled
+ * job merges those into the persisted monthly sketches and releases the memory. Queries merge the persisted
+ * months of the requested range with any pending in-memory sketches, which gives the unique listeners of the
+ * whole range without double counting people who listened in several months.
+ * At most {@code musicbox.listeners.max-pending-sketches} sketches are held between flushes; plays that would need
+ * another one are not counted until the next flush frees the memory. A flush that fails puts its sketches back, and
+ * since merging is idempotent the retry cannot count a listener twice, whatever part of the failed flush was written.
+ */
+@Service
+public class ListenerCountService implements ListenEventListener {
+
+    /**
+     * Identifies one sketch: an entity and a month.
+     */
+    private record SketchKey(EntityType entityType, long entityId, YearMonth period) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(ListenerCountService.class);
+
+    @Autowired
+    private ListenerSketchRepository listenerSketchRepository;
+
+    @Autowired
+    private TrackMetadataCache trackMetadataCache;
+
+    @Value("${musicbox.listeners.precision:12}")
+    private int precision;
+
+    @Value("${musicbox.listeners.max-pending-sketches:16384}")
+    private int maxPendingSketches;
+
+    @Value("${musicbox.listeners.max-range-months:120}")
+    private int maxRangeMonths;
+
+    private final ReentrantLock pendingLock = new ReentrantLock(); // Guards swapping the pending map against writer updates.
+    private Map<SketchKey, HyperLogLog> pending = new HashMap<>();
+    private final LongAdder droppedPlays = new LongAdder(); // Plays not counted because the pending map was full.
+
+    @Override
+    public void beforeBatch(long[] audioIds, int count) {
+        trackMetadataCache.resolveAll(audioIds, count);
+    }
+
+    @Override
+    public void onListen(long audioId, long userId, long timestamp) {
+        if (userId == 0L) {
+            return; // Anonymous plays cannot be attributed to a listener.
+        }
+        YearMonth period = YearMonth.from(Instant.ofEpochMilli(timestamp).atOffset(ZoneOffset.UTC));
+        long hash = HyperLogLog.mix64(userId);
+        long artistId = trackMetadataCache.getArtistId(audioId);
+        pendingLock.lock();
+        try {
+            addToPending(new SketchKey(EntityType.TRACK, audioId, period), hash);
+            if (artistId != TrackMetadataCache.NONE) {
+                addToPending(new SketchKey(EntityType.ARTIST, artistId, period), hash);
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    /**
+     * Merges the pending in-memory sketches into the persisted monthly sketches.
+     * Runs on a fixed delay; each run persists one read-merge-write per entity and month touched since the previous run.
+     * If the run fails, its sketches are merged back into the pending map and written by the next run.
+     */
+    @Scheduled(fixedDelayString = "${musicbox.listeners.flush-interval-ms:60000}")
+    @Transactional
+    public void flush() {
+        Map<SketchKey, HyperLogLog> toFlush;
+        pendingLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            toFlush = pending;
+            pending = new HashMap<>();
+        } finally {
+            pendingLock.unlock();
+        }
+        long dropped = droppedPlays.sumThenReset();
+        if (dropped > 0) {
+            log.warn("{} plays were not counted because {} listener sketches were pending", dropped, maxPendingSketches);
+        }
+        try {
+            for (Map.Entry<SketchKey, HyperLogLog> entry : toFlush.entrySet()) {
+                SketchKey key = entry.getKey();
+                String period = key.period().toString();
+                ListenerSketch sketch = listenerSketchRepository
+                        .findByEntityTypeAndEntityIdAndPeriod(key.entityType(), key.entityId(), period)
+                        .orElseGet(() -> new ListenerSketch(key.entityType(), key.entityId(), period, null));
+                HyperLogLog merged = entry.getValue();
+                if (sketch.getRegisters() != null) {
+                    merged.merge(HyperLogLog.fromBytes(sketch.getRegisters()));
+                }
+                sketch.setRegisters(merged.toBytes());
+                listenerSketchRepository.save(sketch);
+            }
+            listenerSketchRepository.flush(); // Surface write failures here rather than at commit, where they cannot be caught.
+        } catch (RuntimeException e) {
+            requeue(toFlush);
+            throw e;
+        }
+    }
+
+    /**
+     * Estimates the unique listeners of an entity over a range of months, both ends inclusive.
+     * The pending sketches are looked up month by month under the lock the listen event writer takes, so the range is
+     * limited to {@code musicbox.listeners.max-range-months}.
+     *
+     * @param entityType The kind of entity.
+     * @param entityId The ID of the artist, or of the audio track.
+     * @param from The first month.
+     * @param to The last month.
+     * @return The estimated number of distinct listeners in the range.
+     */
+    public long countUniqueListeners(EntityType entityType, Long entityId, YearMonth from, YearMonth to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Range start " + from + " is after range end " + to);
+        }
+        if (from.plusMonths(maxRangeMonths).isBefore(to.plusMonths(1))) {
+            throw new IllegalArgumentException("Range " + from + " to " + to + " is longer than " + maxRangeMonths + " months");
+        }
+        HyperLogLog union = new HyperLogLog(precision);
+        List<ListenerSketch> sketches = listenerSketchRepository.findInPeriodRange(entityType, entityId, from.toString(), to.toString());
+        for (ListenerSketch sketch : sketches) {
+            union.merge(HyperLogLog.fromBytes(sketch.getRegisters()));
+        }
+        pendingLock.lock();
+        try {
+            for (YearMonth month = from; !month.isAfter(to); month = month.plusMonths(1)) {
+                HyperLogLog recent = pending.get(new SketchKey(entityType, entityId, month));
+                if (recent != null) {
+                    union.merge(recent);
+                }
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+        return union.estimate();
+    }
+
+    private void addToPending(SketchKey key, long hash) {
+        HyperLogLog sketch = pending.get(key);
+        if (sketch == null) {
+            if (pending.size() >= maxPendingSketches) {
+                droppedPlays.increment();
+                return;
+            }
+            sketch = new HyperLogLog(precision);
+            pending.put(key, sketch);
+        }
+        sketch.addHash(hash);
+    }
+
+    private void requeue(Map<SketchKey, HyperLogLog> unflushed) {
+        pendingLock.lock();
+        try {
+            // Sketches already pending again are merged into; the bound is not applied to the requeued ones.
+            for (Map.Entry<SketchKey, HyperLogLog> entry : unflushed.entrySet()) {
+                pending.merge(entry.getKey(), entry.getValue(), (newer, older) -> {
+                    newer.merge(older);
+                    return newer;
+                });
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    /**
+     * Gets the relative standard error of the configured sketches.
+     * @return The relative standard error, e.g. 0.016 for precision 12.
+     */
+    public double getStandardError() {
+        return HyperLogLog.standardError(precision);
+    }
+}
@@ -0,0 +1,43 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.trucker.musicbox.util.PasswordHashingPool;
+
+/**
+ * Hashes and verifies passwords with bcrypt on the bounded {@link PasswordHashingPool}, configured from the
+ * {@code musicbox.password.*} properties. It is deliberately not a {@code PasswordEncoder} bean: this application
+ * authenticates with Spring Boot's default user, whose generated password only matches while no encoder bean is defined.
+ */
+@Service
+public class PasswordHashingService extends PasswordHashingPool {
+
+    /**
+     * Constructs a new PasswordHashingService, calibrating the cost first if none is configured.
+     *
+     * @param cost The bcrypt cost, or 0 to calibrate at startup.
+     * @param targetMillis The target latency of one hash used for calibration.
+     * @param threads The number of hashing threads, or 0 for one per available processor.
+     * @param queueCapacity The number of operations that may wait for a hashing thread.
+     * @param waitTimeoutMillis How long a request thread waits for its hash.
+     */
+    @Autowired
+    public PasswordHashingService(@Value("${musicbox.password.cost:0}") int cost,
+                                  @Value("${musicbox.password.target-ms:250}") long targetMillis,
+                                  @Value("${musicbox.password.threads:0}") int threads,
+                                  @Value("${musicbox.password.queue-capacity:64}") int queueCapacity,
+                                  @Value("${musicbox.password.wait-timeout-ms:5000}") long waitTimeoutMillis) {
+        super(cost, targetMillis, threads, queueCapacity, waitTimeoutMillis);
+    }
+
+    /**
+     * Stops the hashing threads.
+     */
+    @PreDestroy
+    @Override
+    public void shutdown() {
+        super.shutdown();
+    }
+}
@@ -0,0 +1,199 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.trucker.musicbox.repository.PlaybackPositionRepository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps playback positions so users can resume a track where they left off, on any device.
+ * Clients report their position every few seconds; reports go to an in-memory map with last-write-wins semantics
+ * (by report time), and only the latest position per user and track is marked dirty. Report times come from client
+ * clocks, so times ahead of the server by more than {@code musicbox.playback.max-clock-skew-ms} are clamped, and times
+ * older than the idle eviction window are rejected; otherwise one fast clock would win over every other device. A scheduled job writes the dirty
+ * positions with one JDBC batch upsert, so a listener reporting every 5 seconds with a 30 second flush interval costs
+ * one row write instead of six. Reads are served from memory and only fall back to the database after a restart or eviction.
+ */
+@Service
+public class PlaybackPositionService {
+
+    /**
+     * A playback position and the epoch millis at which the client reported it.
+     */
+    public record Checkpoint(long positionMs, long updatedAt) {
+    }
+
+    private record PositionKey(long userId, long audioId) {
+    }
+
+    private static final Logger log = LoggerFactory.getLogger(PlaybackPositionService.class);
+
+    // PostgreSQL upsert; the WHERE clause keeps last-write-wins even if another node flushed a newer position.
+    private static final String UPSERT_SQL = "INSERT INTO playback_position (user_id, audio_id, position_ms, updated_at) " +
+            "VALUES (?, ?, ?, ?) ON CONFLICT (user_id, audio_id) DO UPDATE " +
+            "SET position_ms = EXCLUDED.position_ms, updated_at = EXCLUDED.updated_at " +
+            "WHERE playback_position.updated_at <= EXCLUDED.updated_at";
+
+    @Autowired
+    private PlaybackPositionRepository playbackPositionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${musicbox.playback.flush-batch-size:1000}")
+    private int flushBatchSize;
+
+    @Value("${musicbox.playback.idle-eviction-ms:3600000}")
+    private long idleEvictionMs;
+
+    @Value("${musicbox.playback.max-clock-skew-ms:5000}")
+    private long maxClockSkewMs;
+
+    private final ConcurrentHashMap<PositionKey, Checkpoint> positions = new ConcurrentHashMap<>(); // Latest known position.
+    private final ConcurrentHashMap<PositionKey, Checkpoint> dirty = new ConcurrentHashMap<>(); // Positions not yet flushed.
+
+    private final LongAdder updates = new LongAdder();
+    private final LongAdder rowsWritten = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    /**
+     * Records a playback position. Older reports than the one already known are ignored. A report time ahead of the
+     * server clock by more than the allowed skew counts as the latest allowed time.
+     *
+     * @param userId The ID of the listener.
+     * @param audioId The ID of the audio track.
+     * @param positionMs The playback position in milliseconds.
+     * @param reportedAt The epoch millis at which the client sampled the position, or null to use the server time.
+     * @return The checkpoint that is current after the update.
+     * @throws IllegalArgumentException If the position is negative or the report time is older than the eviction window.
+     */
+    public Checkpoint updatePosition(Long userId, Long audioId, long positionMs, Long reportedAt) {
+        if (positionMs < 0) {
+            throw new IllegalArgumentException("Position must not be negative");
+        }
+        long now = System.currentTimeMillis();
+        if (reportedAt != null && reportedAt < now - idleEvictionMs) {
+            throw new IllegalArgumentException("Report time " + reportedAt + " is more than " + idleEvictionMs + " ms in the past");
+        }
+        updates.increment();
+        PositionKey key = new PositionKey(userId, audioId);
+        long updatedAt = reportedAt == null ? now : Math.min(reportedAt, now + maxClockSkewMs);
+        Checkpoint incoming = new Checkpoint(positionMs, updatedAt);
+        Checkpoint current = positions.merge(key, incoming, PlaybackPositionService::latest);
+        if (current == incoming) {
+            // Coalesces with any earlier unflushed report; two racing reports cannot leave the older one dirty.
+            dirty.merge(key, incoming, PlaybackPositionService::latest);
+        }
+        return current;
+    }
+
+    /**
+     * Gets the latest playback position, from memory first and from the database otherwise.
+     *
+     * @param userId The ID of the listener.
+     * @param audioId The ID of the audio track.
+     * @return An Optional containing the checkpoint, or empty if the user never played the track.
+     */
+    public Optional<Checkpoint> getPosition(Long userId, Long audioId) {
+        PositionKey key = new PositionKey(userId, audioId);
+        Checkpoint cached = positions.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        return playbackPositionRepository.findByUserIdAndAudioId(userId, audioId)
+                .map(row -> {
+                    Checkpoint loaded = new Checkpoint(row.getPositionMs(), Timestamp.valueOf(row.getUpdatedAt()).getTime());
+                    Checkpoint existing = positions.putIfAbsent(key, loaded);
+                    return existing != null ? existing : loaded;
+                });
+    }
+
+    /**
+     * Writes all dirty positions with batched upserts, then evicts positions that have been idle for a long time.
+     */
+    @Scheduled(fixedDelayString = "${musicbox.playback.flush-interval-ms:30000}")
+    public void flush() {
+        List<Object[]> batch = new ArrayList<>(Math.min(dirty.size(), flushBatchSize));
+        for (Map.Entry<PositionKey, Checkpoint> entry : dirty.entrySet()) {
+            PositionKey key = entry.getKey();
+            Checkpoint checkpoint = entry.getValue();
+            // Only clear the dirty mark if no newer report arrived meanwhile; otherwise it is written next time.
+            if (dirty.remove(key, checkpoint)) {
+                batch.add(new Object[]{key.userId(), key.audioId(), checkpoint.positionMs(), new Timestamp(checkpoint.updatedAt())});
+            }
+            if (batch.size() == flushBatchSize) {
+                writeBatch(batch);
+                batch = new ArrayList<>(flushBatchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+        flushes.increment();
+        evictIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush(); // Do not lose positions reported since the last scheduled flush.
+    }
+
+    /**
+     * Gets the write coalescing counters.
+     * @return A map of counter names to values; {@code writeRatio} is rows written per position update received.
+     */
+    public Map<String, Object> getStats() {
+        long updateCount = updates.sum();
+        long written = rowsWritten.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("updates", updateCount);
+        stats.put("rowsWritten", written);
+        stats.put("writeRatio", updateCount == 0 ? 0.0 : (double) written / updateCount);
+        stats.put("flushes", flushes.sum());
+        stats.put("pending", dirty.size());
+        stats.put("cached", positions.size());
+        return stats;
+    }
+
+    private void writeBatch(List<Object[]> batch) {
+        try {
+            jdbcTemplate.batchUpdate(UPSERT_SQL, batch);
+            rowsWritten.add(batch.size());
+        } catch (RuntimeException ex) {
+            // Put the positions back so the next flush retries them, unless a newer report replaced them meanwhile.
+            for (Object[] row : batch) {
+                PositionKey key = new PositionKey((Long) row[0], (Long) row[1]);
+                dirty.merge(key, new Checkpoint((Long) row[2], ((Timestamp) row[3]).getTime()), PlaybackPositionService::latest);
+            }
+            log.warn("Failed to flush {} playback positions", batch.size(), ex);
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMs;
+        for (Map.Entry<PositionKey, Checkpoint> entry : positions.entrySet()) {
+            if (entry.getValue().updatedAt() < cutoff && !dirty.containsKey(entry.getKey())) {
+                positions.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    // Last write wins by report time; a tie goes to the later call.
+    private static Checkpoint latest(Checkpoint existing, Checkpoint update) {
+        return update.updatedAt() >= existing.updatedAt() ? update : existing;
+    }
+}
@@ -0,0 +1,327 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.trucker.musicbox.dto.AudioSummary;
+import org.trucker.musicbox.util.BroadcastRingBuffer;
+import org.trucker.musicbox.util.BroadcastRingBuffer.LagPolicy;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Broadcast ("radio") channels: a sequence of tracks played in real time to any number of listeners at the same position.
+ * Each channel has one broadcaster thread that reads every track from disk once, paced at the track's own byte rate
+ * (file size over duration), into a {@link BroadcastRingBuffer}. Listeners read the shared chunks through their own
+ * cursor, so a thousand listeners cost one disk read and the ring's memory, not a thousand file streams. A listener that
+ * cannot keep up is skipped ahead or dropped according to {@code musicbox.radio.slow-listener-policy}; it never slows
+ * the broadcaster or the other listeners.
+ */
+@Service
+public class RadioService {
+
+    private static final Logger log = LoggerFactory.getLogger(RadioService.class);
+
+    /**
+     * Snapshot of a channel.
+     *
+     * @param id The ID of the channel.
+     * @param trackIds The audio IDs played, in order.
+     * @param loop Whether the sequence restarts after the last track.
+     * @param currentTrackId The audio ID being broadcast, or null before the first track.
+     * @param listeners The number of connected listeners.
+     * @param chunksPublished The number of chunks read from disk and broadcast.
+     * @param bytesRead The number of bytes read from disk.
+     * @param bytesSent The number of bytes sent to listeners, over all of them.
+     * @param skippedChunks The number of chunks lost by listeners that fell too far behind.
+     * @param droppedListeners The number of listeners disconnected for falling too far behind.
+     */
+    public record ChannelInfo(long id, List<Long> trackIds, boolean loop, Long currentTrackId, int listeners,
+                              long chunksPublished, long bytesRead, long bytesSent, long skippedChunks, long droppedListeners) {
+    }
+
+    /**
+     * A running channel and its counters.
+     */
+    private static final class Channel {
+        final long id;
+        final List<Long> trackIds;
+        final boolean loop;
+        final BroadcastRingBuffer ring;
+        final AtomicInteger listeners = new AtomicInteger();
+        final LongAdder bytesRead = new LongAdder();
+        final LongAdder bytesSent = new LongAdder();
+        volatile Long currentTrackId;
+        volatile boolean running = true;
+        Thread broadcaster;
+
+        Channel(long id, List<Long> trackIds, boolean loop, BroadcastRingBuffer ring) {
+            this.id = id;
+            this.trackIds = trackIds;
+            this.loop = loop;
+            this.ring = ring;
+        }
+    }
+
+    @Autowired
+    private AudioService audioService;
+
+    @Autowired
+    private TieredStorageService tieredStorageService;
+
+    @Value("${musicbox.radio.chunk-bytes:16384}")
+    private int chunkBytes;
+
+    @Value("${musicbox.radio.buffer-chunks:64}")
+    private int bufferChunks;
+
+    @Value("${musicbox.radio.lead-chunks:4}")
+    private int leadChunks;
+
+    @Value("${musicbox.radio.slow-listener-policy:SKIP}")
+    private LagPolicy slowListenerPolicy;
+
+    @Value("${musicbox.radio.max-channels:100}")
+    private int maxChannels;
+
+    @Value("${musicbox.radio.keep-alive-seconds:15}")
+    private long keepAliveSeconds;
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicInteger channelSlots = new AtomicInteger(); // Slots reserved by running channels, at most maxChannels.
+    private final AtomicLong nextChannelId = new AtomicLong();
+
+    // Totals over all channels, including ended ones.
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder skippedChunks = new LongAdder();
+    private final LongAdder droppedListeners = new LongAdder();
+
+    @PreDestroy
+    public void shutdown() {
+        channels.values().forEach(this::stop);
+    }
+
+    /**
+     * Starts a channel broadcasting the given tracks.
+     *
+     * @param trackIds The audio IDs to play, in order.
+     * @param loop Whether to restart from the first track after the last one.
+     * @return The new channel.
+     */
+    public ChannelInfo createChannel(List<Long> trackIds, boolean loop) {
+        if (trackIds.isEmpty()) {
+            throw new IllegalArgumentException("A channel needs at least one track");
+        }
+        List<Long> tracks = List.copyOf(trackIds);
+        BroadcastRingBuffer ring = new BroadcastRingBuffer(bufferChunks, leadChunks, slowListenerPolicy);
+        int reserved;
+        do {
+            reserved = channelSlots.get();
+            if (reserved >= maxChannels) {
+                throw new IllegalArgumentException("At most " + maxChannels + " channels can run at once");
+            }
+        } while (!channelSlots.compareAndSet(reserved, reserved + 1)); // Concurrent creations cannot both take the last slot.
+        long id = nextChannelId.incrementAndGet();
+        Channel channel = new Channel(id, tracks, loop, ring);
+        try {
+            channel.broadcaster = new Thread(() -> broadcast(channel), "radio-channel-" + id);
+            channel.broadcaster.setDaemon(true);
+            channels.put(id, channel);
+            channel.broadcaster.start();
+        } catch (RuntimeException | Error e) {
+            channels.remove(id); // The broadcaster never started, so nothing else releases the slot.
+            channelSlots.decrementAndGet();
+            throw e;
+        }
+        return info(channel);
+    }
+
+    /**
+     * Stops a channel; its listeners receive the chunks already broadcast and are then disconnected.
+     *
+     * @param id The ID of the channel.
+     */
+    public void stopChannel(long id) {
+        stop(getChannel(id));
+    }
+
+    /**
+     * Gets a channel.
+     *
+     * @param id The ID of the channel.
+     * @return The channel.
+     */
+    public ChannelInfo getChannelInfo(long id) {
+        return info(getChannel(id));
+    }
+
+    /**
+     * Gets all running channels.
+     * @return The channels, by ID.
+     */
+    public List<ChannelInfo> getChannels() {
+        List<ChannelInfo> infos = new ArrayList<>();
+        channels.values().forEach(channel -> infos.add(info(channel)));
+        infos.sort((a, b) -> Long.compare(a.id(), b.id()));
+        return infos;
+    }
+
+    /**
+     * Streams a channel to one listener until the channel ends, the listener disconnects or falls too far behind.
+     * Blocks the calling thread for the whole time; the listener joins a few chunks behind the live position.
+     *
+     * @param id The ID of the channel.
+     * @param out The listener's response stream.
+     */
+    public void listen(long id, OutputStream out) {
+        Channel channel = getChannel(id);
+        BroadcastRingBuffer.Cursor cursor = channel.ring.subscribe();
+        channel.listeners.incrementAndGet();
+        try {
+            while (true) {
+                BroadcastRingBuffer.Chunk chunk = channel.ring.poll(cursor, keepAliveSeconds, TimeUnit.SECONDS);
+                if (chunk == null) {
+                    if (channel.ring.isClosed() || cursor.isDropped()) {
+                        return;
+                    }
+                    out.flush(); // Nothing new yet; flushing surfaces a disconnected listener.
+                    continue;
+                }
+                out.write(chunk.data());
+                out.flush();
+                channel.bytesSent.add(chunk.data().length);
+                bytesSent.add(chunk.data().length);
+            }
+        } catch (IOException e) {
+            // The listener went away.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.listeners.decrementAndGet();
+            skippedChunks.add(cursor.getSkipped());
+            if (cursor.isDropped()) {
+                droppedListeners.increment();
+            }
+        }
+    }
+
+    /**
+     * Gets the counters over all channels, ended ones included. The ratio of bytes sent to bytes read is the disk reads saved.
+     * @return A map of counter names to values.
+     */
+    public Map<String, Long> getStats() {
+        long listeners = 0;
+        for (Channel channel : channels.values()) {
+            listeners += channel.listeners.get();
+        }
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("channels", (long) channels.size());
+        stats.put("listeners", listeners);
+        stats.put("bytesRead", bytesRead.sum());
+        stats.put("bytesSent", bytesSent.sum());
+        stats.put("skippedChunks", skippedChunks.sum());
+        stats.put("droppedListeners", droppedListeners.sum());
+        return stats;
+    }
+
+    private Channel getChannel(long id) {
+        Channel channel = channels.get(id);
+        if (channel == null) {
+            throw new RuntimeException("Radio channel not found with ID: " + id);
+        }
+        return channel;
+    }
+
+    private void release(Channel channel) {
+        if (channels.remove(channel.id) != null) {
+            channelSlots.decrementAndGet();
+        }
+    }
+
+    private void stop(Channel channel) {
+        channel.running = false;
+        channel.broadcaster.interrupt();
+    }
+
+    private void broadcast(Channel channel) {
+        try {
+            boolean played;
+            do {
+                played = false;
+                for (Long trackId : channel.trackIds) {
+                    if (!channel.running) {
+                        return;
+                    }
+                    played |= broadcastTrack(channel, trackId);
+                }
+            } while (channel.loop && played && channel.running);
+        } finally {
+            channel.ring.close();
+            release(channel);
+            log.info("Radio channel {} ended", channel.id);
+        }
+    }
+
+    /**
+     * Reads one track into the ring at its playback rate. Returns false if the track could not be played.
+     */
+    private boolean broadcastTrack(Channel channel, Long trackId) {
+        Path path;
+        int duration;
+        try {
+            AudioSummary audio = audioService.getAudio(trackId);
+            tieredStorageService.recordAccess(audio); // A broadcast is a read: it keeps the file hot, or promotes it.
+            path = Paths.get(audio.filePath());
+            duration = Math.max(1, audio.duration());
+        } catch (RuntimeException e) {
+            log.warn("Radio channel {} skips track {}: {}", channel.id, trackId, e.getMessage());
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            double nanosPerByte = TimeUnit.SECONDS.toNanos(duration) / (double) Math.max(1, Files.size(path));
+            channel.currentTrackId = trackId;
+            long trackStart = System.nanoTime();
+            long sent = 0;
+            while (channel.running) {
+                byte[] chunk = in.readNBytes(chunkBytes); // A fresh array per chunk: listeners may still be sending older ones.
+                if (chunk.length == 0) {
+                    break;
+                }
+                channel.ring.publish(chunk);
+                channel.bytesRead.add(chunk.length);
+                bytesRead.add(chunk.length);
+                sent += chunk.length;
+                LockSupport.parkNanos(trackStart + (long) (sent * nanosPerByte) - System.nanoTime());
+            }
+            return true;
+        } catch (IOException e) {
+            log.warn("Radio channel {} skips track {}: {}", channel.id, trackId, e.getMessage());
+            return false;
+        }
+    }
+
+    private static ChannelInfo info(Channel channel) {
+        return new ChannelInfo(channel.id, channel.trackIds, channel.loop, channel.currentTrackId, channel.listeners.get(),
+                channel.ring.getHead() + 1, channel.bytesRead.sum(), channel.bytesSent.sum(),
+                channel.ring.getSkippedChunks(), channel.ring.getDroppedReaders());
+    }
+}
@@ -0,0 +1,172 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.trucker.musicbox.repository.UserRepository;
+import org.trucker.musicbox.util.HierarchicalTimingWheel;
+import org.trucker.musicbox.util.LongList;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revokes premium status when subscriptions end, without polling the subscription table.
+ * Every subscription end date is scheduled on a {@link HierarchicalTimingWheel}: at startup the wheel is loaded from the
+ * subscriptions that have not ended yet, and {@link SubscriptionService#createSubscription} schedules new ones. A tick
+ * job advances the wheel and revokes premium status for the users that fired with bulk UPDATEs in bounded batches.
+ * The UPDATE itself skips users who still have a later subscription, so renewals need no cancellation.
+ */
+@Service
+public class SubscriptionExpiryService {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriptionExpiryService.class);
+
+    private static final String LOAD_SQL = "SELECT user_id, end_date FROM subscription WHERE end_date > ?";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntitlementCache entitlementCache;
+
+    @Autowired
+    private ActiveSubscriberIndex activeSubscriberIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${musicbox.expiry.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${musicbox.expiry.tick-ms:1000}")
+    private long tickMillis;
+
+    private HierarchicalTimingWheel wheel;
+    private final LongList fired = new LongList(1024); // Only used by the tick job.
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder revoked = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        wheel = new HierarchicalTimingWheel(tickMillis, System.currentTimeMillis());
+    }
+
+    /**
+     * Catches up on expirations missed while the application was down, then loads upcoming end dates into the wheel.
+     * The subscriptions are streamed through a cursor inside a transaction (PostgreSQL only honours the fetch
+     * size with auto-commit off), so millions of rows never sit in memory as entities.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadUpcomingExpirations() {
+        LocalDateTime now = LocalDateTime.now();
+        int caughtUp = userRepository.revokeAllExpiredPremium(now);
+        long startCount = scheduled.sum();
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(10_000);
+        transactionTemplate.executeWithoutResult(status -> streaming.query(LOAD_SQL,
+                (RowCallbackHandler) rs -> schedule(rs.getLong(1), rs.getTimestamp(2).getTime()),
+                Timestamp.valueOf(now)));
+        log.info("Revoked premium of {} users with ended subscriptions; scheduled {} upcoming expirations",
+                caughtUp, scheduled.sum() - startCount);
+    }
+
+    /**
+     * Schedules a user's premium status to be re-evaluated when a subscription ends.
+     *
+     * @param userId The ID of the user.
+     * @param endMillis The subscription end date, in epoch millis.
+     */
+    public void schedule(long userId, long endMillis) {
+        wheel.schedule(userId, endMillis);
+        scheduled.increment();
+    }
+
+    /**
+     * Advances the wheel and revokes premium status for the users whose subscription has ended.
+     * The per-tick cost depends only on the number of expirations due, not on the number of scheduled subscriptions.
+     */
+    @Scheduled(fixedRateString = "${musicbox.expiry.tick-ms:1000}")
+    public void tick() {
+        fired.clear();
+        long nowMillis = System.currentTimeMillis();
+        if (wheel.advance(nowMillis, fired) == 0) {
+            return;
+        }
+        expired.add(fired.size());
+
+        // A user with several subscriptions ending at once only needs to be revoked once.
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (int i = 0; i < fired.size(); i++) {
+            userIds.add(fired.get(i));
+        }
+        LocalDateTime now = new Timestamp(nowMillis).toLocalDateTime();
+        List<Long> batch = new ArrayList<>(Math.min(batchSize, userIds.size()));
+        for (Long userId : userIds) {
+            batch.add(userId);
+            if (batch.size() == batchSize) {
+                revoke(batch, now);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            revoke(batch, now);
+        }
+    }
+
+    /**
+     * Gets the expiry engine counters.
+     * @return A map of counter names to values.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("scheduled", scheduled.sum());
+        stats.put("pending", wheel.size());
+        stats.put("expired", expired.sum());
+        stats.put("revoked", revoked.sum());
+        return stats;
+    }
+
+    private void revoke(List<Long> userIds, LocalDateTime now) {
+        try {
+            revoked.add(userRepository.revokeExpiredPremium(userIds, now));
+        } catch (RuntimeException ex) {
+            // Reschedule shortly so a transient database error does not leave users premium forever.
+            long retryAt = System.currentTimeMillis() + 60_000;
+            for (Long userId : userIds) {
+                wheel.schedule(userId, retryAt);
+            }
+            log.warn("Failed to revoke premium status of {} users; retrying in one minute", userIds.size(), ex);
+            return;
+        }
+        for (Long userId : userIds) {
+            entitlementCache.invalidate(userId);
+        }
+        try {
+            activeSubscriberIndex.removeEnded(userIds, now);
+        } catch (RuntimeException ex) {
+            log.warn("Failed to update the active subscriber index for {} users", userIds.size(), ex);
+        }
+    }
+}
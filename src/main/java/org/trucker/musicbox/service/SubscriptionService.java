@@ -1,8 +1,14 @@
 package org.trucker.musicbox.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.trucker.musicbox.exception.UserNotFoundException;
 import org.trucker.musicbox.model.Subscription;
 import org.trucker.musicbox.model.User;
@@ -10,6 +16,8 @@ import org.trucker.musicbox.repository.SubscriptionRepository;
 import org.trucker.musicbox.repository.UserRepository;
 
 import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Provides services related to subscription management within the application.
@@ -25,6 +33,32 @@ public class SubscriptionService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private EntitlementCache entitlementCache;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${musicbox.entitlements.recheck-ms:600000}")
+    private long recheckMs; // How long a "not premium" answer, or a premium flag without subscription, is trusted.
+
+    // Premium checks by where the answer came from and what it was; registered once so counting never allocates.
+    private Counter cachedPremium;
+    private Counter cachedFree;
+    private Counter loadedPremium;
+    private Counter loadedFree;
+
+    @PostConstruct
+    public void init() {
+        cachedPremium = checkCounter("cache", "premium");
+        cachedFree = checkCounter("cache", "free");
+        loadedPremium = checkCounter("database", "premium");
+        loadedFree = checkCounter("database", "free");
+    }
+
     /**
      * Creates a new subscription for a user.
      * This method is transactional, ensuring that operations within it either complete successfully as a whole
@@ -45,21 +79,72 @@ public class SubscriptionService {
         user.setIsPremium(true);
         // Save the updated user and the new subscription in the database.
         userRepository.save(user);
-        return subscriptionRepository.save(subscription);
+        Subscription saved = subscriptionRepository.save(subscription);
+        // Write the entitlement through as soon as the subscription is committed, so the user's next request sees it
+        // and a concurrent miss that read the database earlier cannot cache "not premium" over it; the subscriber
+        // index and expiry schedule follow through the event bus.
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entitlementCache.extendPremium(userId, endDate.getTime());
+            }
+        });
+        domainEventBus.publish(DomainEventBus.SUBSCRIPTION_CREATED, userId, Long.toString(endDate.getTime()));
+        return saved;
     }
 
     /**
      * Checks if a user is a premium user based on their user ID.
-     * This method queries the database for the user and evaluates their premium status.
+     * The answer comes from the {@link EntitlementCache} when possible; a cached premium entitlement stays valid until the
+     * user's latest subscription end date. On a miss, the premium flag and latest end date are loaded with one projection
+     * query and cached.
      *
      * @param userId The ID of the user to check.
      * @return true if the user is premium, false otherwise.
      * @throws UserNotFoundException if no user with the given ID is found, ensuring the method caller is aware of this failure scenario.
      */
     public boolean isPremiumUser(Long userId) {
-        // Fetch the user from the database; throw an exception if not found.
-        User user = userRepository.findById(userId).orElseThrow(() -> new UserNotFoundException("User not found"));
-        // Return the user's premium status.
-        return user.isPremium();
+        long now = System.currentTimeMillis();
+        Boolean cached = entitlementCache.lookup(userId, now);
+        if (cached != null) {
+            (cached ? cachedPremium : cachedFree).increment();
+            return cached;
+        }
+        boolean premium = loadEntitlement(userId, now);
+        (premium ? loadedPremium : loadedFree).increment();
+        return premium;
+    }
+
+    private boolean loadEntitlement(Long userId, long now) {
+        // Fetch the premium flag and latest subscription end date; throw an exception if the user is not found.
+        List<Object[]> rows = userRepository.findEntitlement(userId);
+        if (rows.isEmpty()) {
+            throw new UserNotFoundException("User not found");
+        }
+        boolean premiumFlag = (Boolean) rows.get(0)[0];
+        LocalDateTime latestEndDate = (LocalDateTime) rows.get(0)[1];
+        if (!premiumFlag) {
+            entitlementCache.putNotPremium(userId, now, now + recheckMs);
+            return false;
+        }
+        if (latestEndDate == null) {
+            // Premium granted without a subscription (e.g. by an administrator): trust the flag for a while.
+            entitlementCache.putPremium(userId, now + recheckMs);
+            return true;
+        }
+        long premiumUntil = Timestamp.valueOf(latestEndDate).getTime();
+        if (premiumUntil <= now) {
+            entitlementCache.putNotPremium(userId, now, now + recheckMs); // Latest subscription has already ended.
+            return false;
+        }
+        entitlementCache.putPremium(userId, premiumUntil);
+        return true;
+    }
+
+    private Counter checkCounter(String source, String result) {
+        return Counter.builder("musicbox.subscription.checks")
+                .description("Premium entitlement checks")
+                .tags("source", source, "result", result)
+                .register(meterRegistry);
     }
-}
\ No newline at end of file
+}
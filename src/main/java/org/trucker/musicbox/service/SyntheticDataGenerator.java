@@ -0,0 +1,612 @@
+package org.trucker.musicbox.service;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.trucker.musicbox.util.HyperLogLog;
+import org.trucker.musicbox.util.ZipfDistribution;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fills the schema with a synthetic catalog and user base for scale testing. Enabled with {@code musicbox.datagen.enabled=true};
+ * it runs once at startup, before the {@code ApplicationReadyEvent} listeners build their in-memory indexes, and appends to
+ * whatever the tables already hold.
+ *
+ * <p>Albums per artist and playlists per user are Zipf-distributed, and playlist tracks are drawn from a Zipfian song
+ * popularity, so a few songs are in a large share of playlists and most are in almost none. Album and artist aggregates are
+ * computed while generating and always match the rows written; {@code is_premium} matches the subscriptions.
+ *
+ * <p>The work is split into chunks of artists and of users, loaded in parallel, each chunk on its own connection and in
+ * its own transaction. On PostgreSQL rows are streamed with {@code COPY ... FROM STDIN}; elsewhere they go in as JDBC batches.
+ * Every artist and user draws from its own random stream derived from the seed and its ordinal, so the same settings
+ * produce the same rows whatever the number of threads.
+ */
+@Service
+@ConditionalOnProperty(name = "musicbox.datagen.enabled", havingValue = "true")
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    // Random stream identifiers; planning streams only decide counts, so offsets can be computed before generating.
+    private static final long ARTIST_PLAN = 1;
+    private static final long ALBUM_PLAN = 2;
+    private static final long ARTIST = 3;
+    private static final long USER_PLAN = 4;
+    private static final long USER = 5;
+    private static final long BLOB = 6;
+
+    private static final double LAPSED_SHARE = 0.2; // Share of free users who subscribed in the past.
+    private static final String BLOB_DIR = "uploads/synthetic";
+
+    private static final String[] WORDS = {
+            "Midnight", "Velvet", "Echo", "Harbor", "Neon", "Silver", "River", "Ghost", "Summer", "Paper", "Golden", "Static",
+            "Wild", "Glass", "Northern", "Electric", "Hollow", "Crimson", "Distant", "Quiet", "Broken", "Satellite", "Ocean",
+            "Fire", "Shadow", "Winter", "Morning", "Lights", "Stone", "Heart", "City", "Dream", "Signal", "Garden", "Highway",
+            "Storm", "Moon", "Desert", "Season", "Machine", "Blue", "Parade", "Horizon", "Orchid", "Thunder", "Mirror"};
+
+    /**
+     * A range of artists and the first IDs of the rows they produce.
+     */
+    private record CatalogChunk(long firstOrdinal, int artists, long firstAlbum, long firstSong, long firstAudio) {
+    }
+
+    /**
+     * A range of users and the first IDs of the rows they produce.
+     */
+    private record UserChunk(long firstOrdinal, int users, long firstPlaylist, long firstSubscription) {
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Value("${musicbox.datagen.seed:42}")
+    private long seed;
+
+    @Value("${musicbox.datagen.artists:50000}")
+    private long artists;
+
+    @Value("${musicbox.datagen.max-albums-per-artist:40}")
+    private int maxAlbumsPerArtist;
+
+    @Value("${musicbox.datagen.audio-share:0.1}")
+    private double audioShare;
+
+    @Value("${musicbox.datagen.users:1000000}")
+    private long users;
+
+    @Value("${musicbox.datagen.max-playlists-per-user:20}")
+    private int maxPlaylistsPerUser;
+
+    @Value("${musicbox.datagen.min-playlist-songs:5}")
+    private int minPlaylistSongs;
+
+    @Value("${musicbox.datagen.max-playlist-songs:25}")
+    private int maxPlaylistSongs;
+
+    @Value("${musicbox.datagen.count-exponent:1.0}")
+    private double countExponent;
+
+    @Value("${musicbox.datagen.popularity-exponent:0.9}")
+    private double popularityExponent;
+
+    @Value("${musicbox.datagen.premium-share:0.25}")
+    private double premiumShare;
+
+    @Value("${musicbox.datagen.password:password}")
+    private String password;
+
+    @Value("${musicbox.datagen.blob-count:64}")
+    private int blobCount;
+
+    @Value("${musicbox.datagen.blob-bytes:1048576}")
+    private int blobBytes;
+
+    @Value("${musicbox.datagen.threads:4}")
+    private int threads;
+
+    @Value("${musicbox.datagen.chunk-size:1000}")
+    private int chunkSize;
+
+    private final Map<String, LongAdder> rowCounts = new LinkedHashMap<>();
+
+    private boolean postgres;
+    private LocalDateTime now;
+    private String passwordHash;
+    private ZipfDistribution albumsPerArtist;
+    private ZipfDistribution playlistsPerUser;
+    private ZipfDistribution songPopularity;
+    private long songBase;
+    private long albumTotal;
+    private long songTotal;
+    private long songStride;
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        generate();
+    }
+
+    /**
+     * Generates the configured catalog and users.
+     *
+     * @return The number of rows written per table.
+     * @throws Exception If a chunk fails; chunks committed before the failure are kept.
+     */
+    public Map<String, Long> generate() throws Exception {
+        if (blobCount < 1 || chunkSize < 1 || minPlaylistSongs > maxPlaylistSongs) {
+            throw new IllegalArgumentException("Invalid musicbox.datagen settings");
+        }
+        long started = System.nanoTime();
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS);
+        passwordHash = passwordHashingService.encode(password); // Hashed once; every generated user shares it.
+        albumsPerArtist = new ZipfDistribution(maxAlbumsPerArtist, countExponent);
+        // Shifted down by one after sampling so that some users have no playlist at all.
+        playlistsPerUser = new ZipfDistribution(maxPlaylistsPerUser + 1L, countExponent);
+        for (String table : new String[]{"artist", "album", "song", "audio", "user", "playlist", "playlist_song", "subscription"}) {
+            rowCounts.put(table, new LongAdder());
+        }
+
+        long artistBase, albumBase, songBase, audioBase, userBase, playlistBase, subscriptionBase;
+        try (Connection connection = dataSource.getConnection()) {
+            postgres = "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+            artistBase = maxId(connection, "artist");
+            albumBase = maxId(connection, "album");
+            songBase = maxId(connection, "song");
+            audioBase = maxId(connection, "audio");
+            userBase = maxId(connection, userTable());
+            playlistBase = maxId(connection, "playlist");
+            subscriptionBase = maxId(connection, "subscription");
+        }
+        writeBlobs();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<CatalogChunk> catalogChunks = planCatalog(artistBase, albumBase, songBase, audioBase);
+            log.info("Generating {} artists, {} albums and {} songs in {} chunks", artists, albumTotal, songTotal,
+                    catalogChunks.size());
+            List<Future<?>> futures = new ArrayList<>();
+            for (CatalogChunk chunk : catalogChunks) {
+                futures.add(executor.submit(() -> {
+                    generateCatalog(chunk, artistBase, albumBase, audioBase);
+                    return null;
+                }));
+            }
+            await(futures);
+
+            if (songTotal > 0) {
+                this.songBase = songBase;
+                songPopularity = new ZipfDistribution(songTotal, popularityExponent);
+                songStride = stride(songTotal);
+            }
+            List<UserChunk> userChunks = planUsers(playlistBase, subscriptionBase);
+            log.info("Generating {} users in {} chunks", users, userChunks.size());
+            futures.clear();
+            for (UserChunk chunk : userChunks) {
+                futures.add(executor.submit(() -> {
+                    generateUsers(chunk, userBase);
+                    return null;
+                }));
+            }
+            await(futures);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            for (String table : new String[]{"artist", "album", "song", "audio", userTable(), "playlist", "subscription"}) {
+                resetIdentity(connection, table);
+            }
+            if (postgres) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ANALYZE"); // Fresh planner statistics for tables that just grew by orders of magnitude.
+                }
+            }
+        }
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        rowCounts.forEach((table, count) -> counts.put(table, count.sum()));
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+        long total = counts.values().stream().mapToLong(Long::longValue).sum();
+        log.info("Generated {} rows in {}s ({} rows/s): {}", total, seconds, total / seconds, counts);
+        return counts;
+    }
+
+    /**
+     * Draws the album and track counts of every artist, without generating anything else, to find where each chunk's IDs start.
+     */
+    private List<CatalogChunk> planCatalog(long artistBase, long albumBase, long songBase, long audioBase) {
+        List<CatalogChunk> chunks = new ArrayList<>();
+        long album = albumBase + 1;
+        long song = songBase + 1;
+        long audio = audioBase + 1;
+        for (long ordinal = 0; ordinal < artists; ordinal++) {
+            if (ordinal % chunkSize == 0) {
+                chunks.add(new CatalogChunk(ordinal, (int) Math.min(chunkSize, artists - ordinal), album, song, audio));
+            }
+            int albums = (int) albumsPerArtist.sample(random(ARTIST_PLAN, ordinal));
+            for (int i = 0; i < albums; i++, album++) {
+                SplittableRandom albumPlan = random(ALBUM_PLAN, album - albumBase - 1);
+                int tracks = 8 + albumPlan.nextInt(10);
+                song += tracks;
+                if (albumPlan.nextDouble() < audioShare) {
+                    audio += tracks;
+                }
+            }
+        }
+        albumTotal = album - albumBase - 1;
+        songTotal = song - songBase - 1;
+        return chunks;
+    }
+
+    private void generateCatalog(CatalogChunk chunk, long artistBase, long albumBase, long audioBase) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            TableWriter artistRows = writer(connection, "artist", "id", "name", "album_count", "song_count", "total_runtime");
+            TableWriter albumRows = writer(connection, "album", "id", "title", "release_year", "artist_id", "track_count", "total_duration");
+            TableWriter songRows = writer(connection, "song", "id", "title", "duration", "album_id");
+            TableWriter audioRows = writer(connection, "audio", "id", "title", "artist_id", "album_id", "duration", "file_path");
+            long album = chunk.firstAlbum();
+            long song = chunk.firstSong();
+            long audio = chunk.firstAudio();
+            for (long ordinal = chunk.firstOrdinal(); ordinal < chunk.firstOrdinal() + chunk.artists(); ordinal++) {
+                long artistId = artistBase + ordinal + 1;
+                SplittableRandom content = random(ARTIST, ordinal);
+                int albums = (int) albumsPerArtist.sample(random(ARTIST_PLAN, ordinal));
+                int artistSongs = 0;
+                long artistRuntime = 0;
+                for (int i = 0; i < albums; i++, album++) {
+                    SplittableRandom albumPlan = random(ALBUM_PLAN, album - albumBase - 1);
+                    int tracks = 8 + albumPlan.nextInt(10);
+                    boolean streamable = albumPlan.nextDouble() < audioShare;
+                    long albumDuration = 0;
+                    for (int track = 0; track < tracks; track++, song++) {
+                        String title = title(content, 1 + content.nextInt(3));
+                        int duration = Math.max(30, (int) (210 + content.nextGaussian() * 60));
+                        songRows.row(song, title, duration, album);
+                        if (streamable) {
+                            audioRows.row(audio, title, artistId, album, duration, blobPath(audio - audioBase - 1));
+                            audio++;
+                        }
+                        albumDuration += duration;
+                    }
+                    albumRows.row(album, title(content, 1 + content.nextInt(3)), 1960 + content.nextInt(66), artistId, tracks, albumDuration);
+                    artistSongs += tracks;
+                    artistRuntime += albumDuration;
+                }
+                artistRows.row(artistId, title(content, 2), albums, artistSongs, artistRuntime);
+            }
+            // Parents before children, so the foreign keys hold as each table is loaded.
+            artistRows.finish();
+            albumRows.finish();
+            songRows.finish();
+            audioRows.finish();
+            connection.commit();
+        }
+    }
+
+    /**
+     * Draws the playlist and subscription counts of every user to find where each chunk's IDs start.
+     */
+    private List<UserChunk> planUsers(long playlistBase, long subscriptionBase) {
+        List<UserChunk> chunks = new ArrayList<>();
+        long playlist = playlistBase + 1;
+        long subscription = subscriptionBase + 1;
+        for (long ordinal = 0; ordinal < users; ordinal++) {
+            if (ordinal % chunkSize == 0) {
+                chunks.add(new UserChunk(ordinal, (int) Math.min(chunkSize, users - ordinal), playlist, subscription));
+            }
+            SplittableRandom plan = random(USER_PLAN, ordinal);
+            playlist += playlists(plan);
+            subscription += subscriptions(plan.nextDouble(), plan);
+        }
+        return chunks;
+    }
+
+    private void generateUsers(UserChunk chunk, long userBase) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            TableWriter userRows = writer(connection, userTable(), "id", "username", "password", "email", "status", "is_premium");
+            TableWriter playlistRows = writer(connection, "playlist", "id", "name", "user_id");
+            TableWriter playlistSongRows = writer(connection, "playlist_song", "playlist_id", "song_id");
+            TableWriter subscriptionRows = writer(connection, "subscription", "id", "user_id", "start_date", "end_date");
+            long playlist = chunk.firstPlaylist();
+            long subscription = chunk.firstSubscription();
+            long[] tracks = new long[maxPlaylistSongs];
+            for (long ordinal = chunk.firstOrdinal(); ordinal < chunk.firstOrdinal() + chunk.users(); ordinal++) {
+                long userId = userBase + ordinal + 1;
+                SplittableRandom plan = random(USER_PLAN, ordinal);
+                SplittableRandom content = random(USER, ordinal);
+                int playlists = playlists(plan);
+                double draw = plan.nextDouble();
+                int subscriptions = subscriptions(draw, plan);
+                boolean premium = draw < premiumShare;
+
+                userRows.row(userId, "listener" + userId, passwordHash, "listener" + userId + "@example.com", "ACTIVE", premium);
+                for (int i = 0; i < playlists; i++, playlist++) {
+                    playlistRows.row(playlist, title(content, 1 + content.nextInt(2)), userId);
+                    if (songTotal == 0) {
+                        continue;
+                    }
+                    int size = minPlaylistSongs + content.nextInt(maxPlaylistSongs - minPlaylistSongs + 1);
+                    int count = 0;
+                    // Popular songs collide often; a few redraws keep playlists near their size without looping forever.
+                    for (int attempt = 0; count < size && attempt < size * 4; attempt++) {
+                        long songId = popularSong(content);
+                        if (!contains(tracks, count, songId)) {
+                            tracks[count++] = songId;
+                            playlistSongRows.row(playlist, songId);
+                        }
+                    }
+                }
+                // Back-to-back monthly periods; a premium user's last period is still running.
+                LocalDateTime end = premium ? now.plusDays(1 + content.nextInt(30)) : now.minusDays(1 + content.nextInt(365));
+                for (int i = 0; i < subscriptions; i++, subscription++) {
+                    LocalDateTime start = end.minusDays(30);
+                    subscriptionRows.row(subscription, userId, Timestamp.valueOf(start), Timestamp.valueOf(end));
+                    end = start;
+                }
+            }
+            userRows.finish();
+            playlistRows.finish();
+            playlistSongRows.finish();
+            subscriptionRows.finish();
+            connection.commit();
+        }
+    }
+
+    private int playlists(SplittableRandom plan) {
+        return (int) playlistsPerUser.sample(plan) - 1;
+    }
+
+    // Users drawing below premiumShare are premium; the next band are lapsed subscribers. Both have 1-3 periods.
+    private int subscriptions(double draw, SplittableRandom plan) {
+        return draw < premiumShare + (1 - premiumShare) * LAPSED_SHARE ? 1 + plan.nextInt(3) : 0;
+    }
+
+    /**
+     * Picks a song by popularity rank. Ranks are scattered over the ID range so the hits are not all from the first artists.
+     */
+    private long popularSong(SplittableRandom random) {
+        long rank = songPopularity.sample(random) - 1;
+        return songBase + 1 + Math.floorMod(rank * songStride, songTotal);
+    }
+
+    private static long stride(long n) {
+        long stride = 1_000_003L;
+        while (gcd(stride, n) != 1) {
+            stride += 2;
+        }
+        return stride;
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+
+    private static boolean contains(long[] values, int count, long value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private SplittableRandom random(long stream, long ordinal) {
+        return new SplittableRandom(HyperLogLog.mix64(HyperLogLog.mix64(seed ^ stream) + ordinal));
+    }
+
+    private static String title(SplittableRandom random, int words) {
+        StringBuilder title = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                title.append(' ');
+            }
+            title.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return title.toString();
+    }
+
+    private String blobPath(long audioOrdinal) {
+        return Paths.get(BLOB_DIR, "blob-" + (audioOrdinal % blobCount) + ".bin").toString();
+    }
+
+    /**
+     * Writes the fake audio files the generated tracks point to, skipping files left by an earlier run with the same size.
+     */
+    private void writeBlobs() throws IOException {
+        Path dir = Paths.get(BLOB_DIR);
+        Files.createDirectories(dir);
+        byte[] bytes = new byte[blobBytes];
+        for (int i = 0; i < blobCount; i++) {
+            Path file = dir.resolve("blob-" + i + ".bin");
+            if (Files.exists(file) && Files.size(file) == blobBytes) {
+                continue;
+            }
+            random(BLOB, i).nextBytes(bytes);
+            Files.write(file, bytes);
+        }
+    }
+
+    private String userTable() {
+        return postgres ? "\"user\"" : "user";
+    }
+
+    private static long maxId(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + table)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Moves the ID generator of a table past the explicit IDs just inserted.
+     */
+    private void resetIdentity(Connection connection, String table) throws SQLException {
+        long next = maxId(connection, table) + 1;
+        try (Statement statement = connection.createStatement()) {
+            if (postgres) {
+                statement.execute("SELECT setval(pg_get_serial_sequence('" + table + "', 'id'), " + next + ", false)");
+            } else {
+                statement.execute("ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + next);
+            }
+        }
+    }
+
+    private static void await(List<Future<?>> futures) throws Exception {
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private TableWriter writer(Connection connection, String table, String... columns) throws SQLException {
+        LongAdder count = rowCounts.get(table.replace("\"", ""));
+        String columnList = String.join(", ", columns);
+        if (postgres) {
+            return new CopyWriter(connection.unwrap(PGConnection.class).getCopyAPI(),
+                    "COPY " + table + " (" + columnList + ") FROM STDIN WITH (FORMAT csv)", count);
+        }
+        String placeholders = String.join(", ", Collections.nCopies(columns.length, "?"));
+        return new BatchWriter(connection.prepareStatement("INSERT INTO " + table + " (" + columnList + ") VALUES (" + placeholders + ")"), count);
+    }
+
+    /**
+     * Buffers the rows of one table for one chunk and loads them when the chunk is finished.
+     */
+    private abstract static class TableWriter {
+
+        private final LongAdder count;
+        private long rows;
+
+        TableWriter(LongAdder count) {
+            this.count = count;
+        }
+
+        void row(Object... values) throws SQLException {
+            add(values);
+            rows++;
+        }
+
+        void finish() throws SQLException {
+            load();
+            count.add(rows);
+        }
+
+        abstract void add(Object[] values) throws SQLException;
+
+        abstract void load() throws SQLException;
+    }
+
+    /**
+     * Streams the rows as CSV through PostgreSQL's {@code COPY}, one round trip per table per chunk.
+     */
+    private static class CopyWriter extends TableWriter {
+
+        private final CopyManager copyManager;
+        private final String sql;
+        private final StringBuilder csv = new StringBuilder(1 << 16);
+
+        CopyWriter(CopyManager copyManager, String sql, LongAdder count) {
+            super(count);
+            this.copyManager = copyManager;
+            this.sql = sql;
+        }
+
+        @Override
+        void add(Object[] values) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    csv.append(',');
+                }
+                Object value = values[i];
+                if (value instanceof String text) {
+                    csv.append('"').append(text.replace("\"", "\"\"")).append('"');
+                } else if (value != null) {
+                    csv.append(value);
+                }
+            }
+            csv.append('\n');
+        }
+
+        @Override
+        void load() throws SQLException {
+            try {
+                copyManager.copyIn(sql, new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new SQLException("COPY failed: " + sql, e);
+            }
+            csv.setLength(0);
+        }
+    }
+
+    /**
+     * Inserts the rows as one JDBC batch, for databases without a COPY API.
+     */
+    private static class BatchWriter extends TableWriter {
+
+        private final PreparedStatement statement;
+
+        BatchWriter(PreparedStatement statement, LongAdder count) {
+            super(count);
+            this.statement = statement;
+        }
+
+        @Override
+        void add(Object[] values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.addBatch();
+        }
+
+        @Override
+        void load() throws SQLException {
+            try (statement) {
+                statement.executeBatch();
+            }
+        }
+    }
+}
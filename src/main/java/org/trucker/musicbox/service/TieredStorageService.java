@@ -0,0 +1,348 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.trucker.musicbox.dto.AudioSummary;
+import org.trucker.musicbox.repository.AudioRepository;
+import org.trucker.musicbox.util.IoRateLimiter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps audio files on two storage tiers: a fast hot directory, where uploads land, and a cheaper cold one.
+ * Reads are counted per file in memory and flushed to {@code Audio.lastAccessedAt} about once a minute. A periodic
+ * demotion pass moves files nobody has read for {@code cold-after-days} to the cold tier; a cold file read
+ * {@code promote-after-reads} times within one flush interval is queued to move back. Files are keyed by path, not
+ * track, because several tracks may share one file. Tracks without a last read, stored before tiering or by bulk
+ * loads, get the time the application became ready, and again before each pass, so the idle period counts from then.
+ * A demotion only repoints tracks still not read since the cutoff, so a read that lands while the file is copied wins.
+ * <p>
+ * A move copies the file under a temporary name, renames it into place, then repoints every track stored in it with a
+ * single conditional update, so readers see either the old or the new path. The old file is deleted only after
+ * {@code delete-delay-seconds}, so streams that resolved the old path just before the move still find it; streams
+ * already open keep their file handle regardless. All copies share one {@link IoRateLimiter}, so migrations cannot
+ * starve streaming of disk bandwidth. Old files whose deletion was pending when the process died are not cleaned up.
+ */
+@Service
+public class TieredStorageService {
+
+    public static final String HOT = "hot";
+    public static final String COLD = "cold";
+
+    private static final Logger log = LoggerFactory.getLogger(TieredStorageService.class);
+    private static final int COPY_CHUNK_BYTES = 1 << 20;
+    private static final int FLUSH_BATCH_SIZE = 1000;
+
+    @Autowired
+    private AudioRepository audioRepository;
+
+    @Value("${musicbox.storage.hot-dir:uploads/}")
+    private String hotDir;
+
+    @Value("${musicbox.storage.cold-dir:uploads-cold/}")
+    private String coldDir;
+
+    @Value("${musicbox.storage.cold-after-days:30}")
+    private int coldAfterDays;
+
+    @Value("${musicbox.storage.promote-after-reads:1}")
+    private int promoteAfterReads;
+
+    @Value("${musicbox.storage.migration-bytes-per-second:20971520}")
+    private long migrationBytesPerSecond;
+
+    @Value("${musicbox.storage.demotion-page-size:500}")
+    private int demotionPageSize;
+
+    @Value("${musicbox.storage.delete-delay-seconds:600}")
+    private int deleteDelaySeconds;
+
+    private Path hotRoot;
+    private Path coldRoot;
+    private IoRateLimiter ioRateLimiter;
+    private ExecutorService promotions;
+    private ExecutorService demotions;
+    private ScheduledExecutorService deletions;
+
+    private final Map<String, Integer> reads = new ConcurrentHashMap<>(); // Reads per file since the last flush.
+    private final Set<String> migrating = ConcurrentHashMap.newKeySet(); // Files queued or being moved.
+    private final Set<String> pendingDeletes = ConcurrentHashMap.newKeySet(); // Old copies waiting for their delay.
+    private final AtomicBoolean demotionRunning = new AtomicBoolean();
+
+    private final LongAdder readCount = new LongAdder();
+    private final LongAdder promoted = new LongAdder();
+    private final LongAdder demoted = new LongAdder();
+    private final LongAdder migratedBytes = new LongAdder();
+    private final LongAdder migrationFailures = new LongAdder();
+
+    @PostConstruct
+    public void init() throws IOException {
+        hotRoot = Paths.get(hotDir).normalize();
+        coldRoot = Paths.get(coldDir).normalize();
+        Files.createDirectories(hotRoot);
+        Files.createDirectories(coldRoot);
+        ioRateLimiter = new IoRateLimiter(migrationBytesPerSecond);
+        promotions = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "storage-promotion"));
+        demotions = Executors.newSingleThreadExecutor(runnable -> daemon(runnable, "storage-demotion"));
+        deletions = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "storage-deletion"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        promotions.shutdownNow();
+        demotions.shutdownNow();
+        deletions.shutdownNow();
+        // No stream outlives the process, so the old copies can go now.
+        for (String filePath : pendingDeletes) {
+            deleteIfUnused(filePath);
+        }
+    }
+
+    /**
+     * Gets the directory new uploads are stored in.
+     * @return The hot tier directory.
+     */
+    public Path getHotDirectory() {
+        return hotRoot;
+    }
+
+    /**
+     * Records a read of a track's file, and queues the file for promotion if it is cold and read often enough.
+     *
+     * @param audio The track being read.
+     */
+    public void recordAccess(AudioSummary audio) {
+        String filePath = audio.filePath();
+        int count = reads.merge(filePath, 1, Integer::sum);
+        readCount.increment();
+        if (COLD.equals(audio.storageTier()) && count >= promoteAfterReads && migrating.add(filePath)) {
+            promotions.execute(() -> migrate(filePath, HOT, null));
+        }
+    }
+
+    /**
+     * Writes the files read since the last flush to the database as their last access time.
+     */
+    @Scheduled(fixedDelayString = "${musicbox.storage.access-flush-interval-ms:60000}")
+    public void flushAccesses() {
+        List<String> batch = new ArrayList<>(FLUSH_BATCH_SIZE);
+        LocalDateTime now = LocalDateTime.now();
+        for (String filePath : reads.keySet()) {
+            if (reads.remove(filePath) != null) {
+                batch.add(filePath);
+            }
+            if (batch.size() == FLUSH_BATCH_SIZE) {
+                audioRepository.updateLastAccessed(batch, now);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            audioRepository.updateLastAccessed(batch, now);
+        }
+    }
+
+    /**
+     * Starts the access clock of tracks that have never been read since tiering started, at the current time.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializeAccessTimes() {
+        int initialized = audioRepository.initializeLastAccessed(LocalDateTime.now());
+        if (initialized > 0) {
+            log.info("Started the storage access clock of {} tracks", initialized);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${musicbox.storage.demotion-interval-ms:3600000}",
+            fixedDelayString = "${musicbox.storage.demotion-interval-ms:3600000}")
+    public void demoteColdFiles() {
+        startDemotion();
+    }
+
+    /**
+     * Starts moving, in the background, every hot file that has not been read for the configured time to the cold tier.
+     * @return false if a demotion pass is already running.
+     */
+    public boolean startDemotion() {
+        if (!demotionRunning.compareAndSet(false, true)) {
+            return false;
+        }
+        demotions.execute(this::runDemotion);
+        return true;
+    }
+
+    /**
+     * Gets the tiering counters.
+     * @return A map of counter names to values.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("reads", readCount.sum());
+        stats.put("promoted", promoted.sum());
+        stats.put("demoted", demoted.sum());
+        stats.put("migratedBytes", migratedBytes.sum());
+        stats.put("migrationFailures", migrationFailures.sum());
+        stats.put("migrating", (long) migrating.size());
+        stats.put("pendingDeletes", (long) pendingDeletes.size());
+        stats.put("demotionRunning", demotionRunning.get() ? 1L : 0L);
+        return stats;
+    }
+
+    private void runDemotion() {
+        long before = demoted.sum();
+        try {
+            initializeAccessTimes(); // Tracks added since startup without a last read, e.g. by another node.
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(coldAfterDays);
+            String afterPath = "";
+            while (!Thread.currentThread().isInterrupted()) {
+                List<String> filePaths = audioRepository.findColdFilePaths(HOT, cutoff, afterPath, PageRequest.of(0, demotionPageSize));
+                if (filePaths.isEmpty()) {
+                    break;
+                }
+                for (String filePath : filePaths) {
+                    // Read since the query, or already being promoted: leave it where it is.
+                    if (!reads.containsKey(filePath) && migrating.add(filePath)) {
+                        migrate(filePath, COLD, cutoff);
+                    }
+                }
+                afterPath = filePaths.get(filePaths.size() - 1);
+            }
+            log.info("Storage demotion pass moved {} files to the cold tier", demoted.sum() - before);
+        } catch (RuntimeException e) {
+            log.error("Storage demotion pass stopped", e);
+        } finally {
+            demotionRunning.set(false);
+        }
+    }
+
+    // Called with the file path added to migrating; removes it when done. A demotion passes its cutoff and is dropped
+    // if the file was read meanwhile.
+    private void migrate(String filePath, String tier, LocalDateTime cutoff) {
+        Path source = Paths.get(filePath).normalize();
+        Path fromRoot = HOT.equals(tier) ? coldRoot : hotRoot;
+        Path toRoot = HOT.equals(tier) ? hotRoot : coldRoot;
+        Path target = unusedPath(toRoot.resolve(source.startsWith(fromRoot) ? fromRoot.relativize(source) : source.getFileName()));
+        try {
+            long bytes = copy(source, target);
+            int moved;
+            if (cutoff == null) {
+                moved = audioRepository.moveFile(filePath, target.toString(), tier);
+            } else {
+                // A read not flushed yet keeps the file hot; a flushed one fails the update's condition.
+                moved = reads.containsKey(filePath) ? 0
+                        : audioRepository.moveFileIfNotReadSince(filePath, target.toString(), tier, cutoff);
+            }
+            if (moved == 0) {
+                Files.deleteIfExists(target); // The tracks were read, moved or deleted meanwhile.
+                return;
+            }
+            if (HOT.equals(tier)) {
+                // The reads that triggered the promotion are flushed under the old path, which no track has any more.
+                audioRepository.updateLastAccessed(List.of(target.toString()), LocalDateTime.now());
+                promoted.increment();
+            } else {
+                demoted.increment();
+            }
+            migratedBytes.add(bytes);
+            pendingDeletes.add(filePath);
+            deletions.schedule(() -> deleteIfUnused(filePath), deleteDelaySeconds, TimeUnit.SECONDS);
+        } catch (IOException | RuntimeException e) {
+            migrationFailures.increment();
+            log.warn("Could not move {} to the {} tier: {}", filePath, tier, e.toString());
+            try {
+                Files.deleteIfExists(target);
+            } catch (IOException ignored) {
+                // An orphaned copy; later moves pick another name.
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            migrating.remove(filePath);
+        }
+    }
+
+    // Copies through a temporary file renamed into place, so a partial copy never carries the final name.
+    private long copy(Path source, Path target) throws IOException, InterruptedException {
+        Files.createDirectories(target.getParent());
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        long copied = 0;
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(partial, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(COPY_CHUNK_BYTES);
+            while (in.read(buffer) >= 0 || buffer.position() > 0) {
+                buffer.flip();
+                ioRateLimiter.acquire(buffer.remaining());
+                copied += out.write(buffer);
+                buffer.compact();
+            }
+            out.force(true);
+        } catch (IOException | InterruptedException e) {
+            Files.deleteIfExists(partial);
+            throw e;
+        }
+        Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+        return copied;
+    }
+
+    // The path, or the first free variant of it with a counter before the extension.
+    private static Path unusedPath(Path path) {
+        String name = path.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        Path candidate = path;
+        for (int i = 1; Files.exists(candidate); i++) {
+            candidate = path.resolveSibling(base + "-" + i + extension);
+        }
+        return candidate;
+    }
+
+    // A new upload may have been stored under the old name since the move; its file must stay.
+    private void deleteIfUnused(String filePath) {
+        try {
+            if (!audioRepository.existsByFilePath(filePath)) {
+                Files.deleteIfExists(Paths.get(filePath));
+            }
+            pendingDeletes.remove(filePath);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not delete {} after moving it: {}", filePath, e.toString());
+            if (!deletions.isShutdown()) {
+                deletions.schedule(() -> deleteIfUnused(filePath), deleteDelaySeconds, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+}
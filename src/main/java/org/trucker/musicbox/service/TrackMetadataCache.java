@@ -0,0 +1,175 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.trucker.musicbox.repository.AudioRepository;
+import org.trucker.musicbox.util.LongLongHashMap;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of audio track -> album / artist IDs for the listen event consumers.
+ * Listen events only carry the audio ID; consumers that aggregate per album or artist resolve them here. The tracks
+ * of a whole drained batch are resolved up front with {@link #resolveAll}, so a batch costs at most one IN-query per
+ * {@value #RESOLVE_CHUNK_SIZE} unknown tracks, and the per-event lookups are pure memory reads that never query.
+ * When full, entries are evicted with the CLOCK algorithm: a hand sweeps the slots, sparing entries read since its
+ * last visit, so tracks that keep being played stay cached while one-off plays make room.
+ * The cache is not thread-safe: it must only be used from the listen event writer thread. Only the hit and miss
+ * counters may be read from other threads.
+ */
+@Service
+public class TrackMetadataCache {
+
+    /**
+     * Returned when a track has no album or artist, or is not resolved.
+     */
+    public static final long NONE = 0L;
+
+    private static final Logger log = LoggerFactory.getLogger(TrackMetadataCache.class);
+    private static final int RESOLVE_CHUNK_SIZE = 1000;
+    private static final long ABSENT = -1L;
+
+    @Autowired
+    private AudioRepository audioRepository;
+
+    @Value("${musicbox.listen.track-cache-size:200000}")
+    private int trackCacheSize;
+
+    private LongLongHashMap slotByAudio; // Audio ID -> slot in the arrays below.
+    private long[] audioIds;
+    private long[] albumIds;
+    private long[] artistIds;
+    private BitSet referenced; // Slots read since the clock hand last passed them.
+    private int used;
+    private int hand;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        slotByAudio = new LongLongHashMap(trackCacheSize);
+        audioIds = new long[trackCacheSize];
+        albumIds = new long[trackCacheSize];
+        artistIds = new long[trackCacheSize];
+        referenced = new BitSet(trackCacheSize);
+    }
+
+    /**
+     * Loads the album and artist of every track in a batch that is not cached yet, with batched queries.
+     * If the database cannot be reached, the tracks stay unresolved and are retried with the next batch.
+     *
+     * @param ids The IDs of the audio tracks; only the first {@code count} entries are used.
+     * @param count The number of tracks in the batch.
+     */
+    public void resolveAll(long[] ids, int count) {
+        List<Long> missing = new ArrayList<>();
+        LongLongHashMap seen = new LongLongHashMap(Math.min(count, RESOLVE_CHUNK_SIZE));
+        for (int i = 0; i < count; i++) {
+            long audioId = ids[i];
+            if (slotByAudio.containsKey(audioId)) {
+                hits.increment();
+            } else {
+                misses.increment();
+                if (!seen.containsKey(audioId)) {
+                    seen.put(audioId, 1L);
+                    missing.add(audioId);
+                }
+            }
+        }
+        for (int from = 0; from < missing.size(); from += RESOLVE_CHUNK_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(missing.size(), from + RESOLVE_CHUNK_SIZE));
+            List<Object[]> rows;
+            try {
+                rows = audioRepository.findAlbumAndArtistIdsByIdIn(chunk);
+            } catch (RuntimeException e) {
+                log.warn("Could not resolve the album and artist of {} tracks", chunk.size(), e);
+                return;
+            }
+            for (Object[] row : rows) {
+                long audioId = ((Number) row[0]).longValue();
+                insert(audioId, row[1] == null ? NONE : ((Number) row[1]).longValue(),
+                        row[2] == null ? NONE : ((Number) row[2]).longValue());
+            }
+            for (Long audioId : chunk) {
+                if (!slotByAudio.containsKey(audioId)) {
+                    insert(audioId, NONE, NONE); // Deleted track: remembered so it is not queried again.
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the album of an audio track.
+     *
+     * @param audioId The ID of the audio track.
+     * @return The album ID, or {@link #NONE} if the track has no album, does not exist or was not resolved.
+     */
+    public long getAlbumId(long audioId) {
+        int slot = lookup(audioId);
+        return slot < 0 ? NONE : albumIds[slot];
+    }
+
+    /**
+     * Gets the artist of an audio track.
+     *
+     * @param audioId The ID of the audio track.
+     * @return The artist ID, or {@link #NONE} if the track has no artist, does not exist or was not resolved.
+     */
+    public long getArtistId(long audioId) {
+        int slot = lookup(audioId);
+        return slot < 0 ? NONE : artistIds[slot];
+    }
+
+    /**
+     * Gets the number of batch tracks that were already cached.
+     * @return The hit count.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets the number of batch tracks that had to be loaded from the database.
+     * @return The miss count.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private int lookup(long audioId) {
+        int slot = (int) slotByAudio.get(audioId, ABSENT);
+        if (slot >= 0) {
+            referenced.set(slot);
+        }
+        return slot;
+    }
+
+    private void insert(long audioId, long albumId, long artistId) {
+        int slot;
+        if (used < trackCacheSize) {
+            slot = used++;
+        } else {
+            // Give every recently read slot a second chance; at most one full sweep clears all bits.
+            while (referenced.get(hand)) {
+                referenced.clear(hand);
+                hand = (hand + 1) % trackCacheSize;
+            }
+            slot = hand;
+            hand = (hand + 1) % trackCacheSize;
+            slotByAudio.remove(audioIds[slot], ABSENT);
+        }
+        audioIds[slot] = audioId;
+        albumIds[slot] = albumId;
+        artistIds[slot] = artistId;
+        referenced.clear(slot);
+        slotByAudio.put(audioId, slot);
+    }
+}
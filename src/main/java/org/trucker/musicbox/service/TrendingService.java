@@ -0,0 +1,102 @@
+package org.trucker.musicbox.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.trucker.musicbox.util.SlidingTopK;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maintains "trending now" charts of songs, albums and artists from the live listen event stream.
+ * Each chart is a {@link SlidingTopK} (time-bucketed Space-Saving counters), so charts are answered from memory
+ * without touching the listen_event table, and memory is fixed by configuration rather than by catalog size.
+ * Songs are charted by the ID of the played {@link org.trucker.musicbox.model.Audio} track; album and artist charts
+ * attribute each play to the track's album and artist.
+ */
+@Service
+public class TrendingService implements ListenEventListener {
+
+    /**
+     * The kind of entity a chart ranks.
+     */
+    public enum ChartType {
+        SONGS, ALBUMS, ARTISTS
+    }
+
+    /**
+     * The time span a chart covers, with the bucket layout used to slide it.
+     */
+    public enum ChartWindow {
+        HOUR(12, TimeUnit.MINUTES.toMillis(5)),
+        DAY(24, TimeUnit.HOURS.toMillis(1)),
+        WEEK(28, TimeUnit.HOURS.toMillis(6));
+
+        private final int bucketCount;
+        private final long bucketMillis;
+
+        ChartWindow(int bucketCount, long bucketMillis) {
+            this.bucketCount = bucketCount;
+            this.bucketMillis = bucketMillis;
+        }
+    }
+
+    @Autowired
+    private TrackMetadataCache trackMetadataCache;
+
+    @Value("${musicbox.trending.counters-per-bucket:1000}")
+    private int countersPerBucket;
+
+    private final Map<ChartType, Map<ChartWindow, SlidingTopK>> charts = new EnumMap<>(ChartType.class);
+
+    @PostConstruct
+    public void init() {
+        for (ChartType type : ChartType.values()) {
+            Map<ChartWindow, SlidingTopK> windows = new EnumMap<>(ChartWindow.class);
+            for (ChartWindow window : ChartWindow.values()) {
+                windows.put(window, new SlidingTopK(window.bucketCount, window.bucketMillis, countersPerBucket));
+            }
+            charts.put(type, windows);
+        }
+    }
+
+    @Override
+    public void beforeBatch(long[] audioIds, int count) {
+        trackMetadataCache.resolveAll(audioIds, count);
+    }
+
+    @Override
+    public void onListen(long audioId, long userId, long timestamp) {
+        record(ChartType.SONGS, audioId, timestamp);
+        long albumId = trackMetadataCache.getAlbumId(audioId);
+        if (albumId != TrackMetadataCache.NONE) {
+            record(ChartType.ALBUMS, albumId, timestamp);
+        }
+        long artistId = trackMetadataCache.getArtistId(audioId);
+        if (artistId != TrackMetadataCache.NONE) {
+            record(ChartType.ARTISTS, artistId, timestamp);
+        }
+    }
+
+    /**
+     * Gets the current chart for a type and window.
+     *
+     * @param type The kind of entity to rank.
+     * @param window The time span to rank over.
+     * @param limit The maximum number of entries.
+     * @return The chart entries ordered by descending estimated play count.
+     */
+    public List<SlidingTopK.Entry> getChart(ChartType type, ChartWindow window, int limit) {
+        return charts.get(type).get(window).top(limit, System.currentTimeMillis());
+    }
+
+    private void record(ChartType type, long id, long timestamp) {
+        for (SlidingTopK chart : charts.get(type).values()) {
+            chart.record(id, timestamp);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.trucker.musicbox.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.trucker.musicbox.repository.UserRepository;
+import org.trucker.musicbox.util.BloomFilter;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Answers username and email availability checks, mostly without touching the database.
+ * All usernames and emails are kept in two {@link BloomFilter}s: a value the filter has never seen is definitely
+ * available, and only possible matches fall through to the indexed {@code exists} query. The filters are built at startup,
+ * updated before every user insert on this node, and caught up every few seconds with users whose ID is above the highest
+ * one seen, which covers users inserted by other writers: other nodes, the finalproject application and the synthetic data
+ * generator. IDs are handed out before commit, so a lower ID can commit after a higher one was caught up; each catch-up
+ * therefore reads again from the first ID it found missing, up to {@code musicbox.availability.catch-up-window} IDs below
+ * the highest one. They are also rebuilt periodically to drop deleted users and resize as the user base grows. Until the
+ * first build completes, every check goes to the database. The unique constraints stay the source of truth: a name reported
+ * available can still be rejected on insert, for example if it was inserted elsewhere since the last catch-up.
+ */
+@Service
+public class UserAvailabilityService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAvailabilityService.class);
+
+    /**
+     * Username and email filters, swapped as a unit on rebuild.
+     */
+    private record Filters(BloomFilter usernames, BloomFilter emails) {
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${musicbox.availability.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${musicbox.availability.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${musicbox.availability.catch-up-batch-size:10000}")
+    private int catchUpBatchSize;
+
+    @Value("${musicbox.availability.catch-up-window:10000}")
+    private long catchUpWindow;
+
+    private volatile Filters filters; // Null until the first build.
+    private volatile Filters building; // Non-null while a rebuild is streaming users, so inserts reach both.
+    private volatile long highestUserId; // The highest user ID in the filters; higher ones are caught up.
+    private long rescanAfter; // Users up to this ID are in the filters; above it some may still commit.
+
+    private final LongAdder definiteNegatives = new LongAdder();
+    private final LongAdder databaseChecks = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * Checks whether a username is still available.
+     *
+     * @param username The username to check.
+     * @return true if no user has this username.
+     */
+    public boolean isUsernameAvailable(String username) {
+        Filters current = filters;
+        if (current != null && !current.usernames().mightContain(username)) {
+            definiteNegatives.increment();
+            return true;
+        }
+        return !checkDatabase(userRepository.existsByUsername(username), current != null);
+    }
+
+    /**
+     * Checks whether an email is still available.
+     *
+     * @param email The email to check.
+     * @return true if no user has this email.
+     */
+    public boolean isEmailAvailable(String email) {
+        Filters current = filters;
+        if (current != null && !current.emails().mightContain(email)) {
+            definiteNegatives.increment();
+            return true;
+        }
+        return !checkDatabase(userRepository.existsByEmail(email), current != null);
+    }
+
+    /**
+     * Records a username and email that are about to be inserted. Called before the insert, so a concurrent check
+     * can at worst fall through to the database, never report a committed user's name as available.
+     *
+     * @param username The username of the new user.
+     * @param email The email of the new user.
+     */
+    public void recordUser(String username, String email) {
+        add(filters, username, email);
+        add(building, username, email);
+    }
+
+    /**
+     * Rebuilds the filters from the user table, sized for the larger of the configured and the actual user count.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${musicbox.availability.rebuild-ms:3600000}",
+            initialDelayString = "${musicbox.availability.rebuild-ms:3600000}")
+    public void rebuild() {
+        long size = Math.max(expectedUsers, userRepository.count() * 2);
+        Filters next = new Filters(new BloomFilter(size, falsePositiveRate), new BloomFilter(size, falsePositiveRate));
+        // Taken before streaming: users inserted meanwhile are caught up afterwards rather than missed.
+        Long maxId = userRepository.findMaxId();
+        building = next;
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = userRepository.streamUsernamesAndEmails()) {
+                    rows.forEach(row -> add(next, (String) row[0], (String) row[1]));
+                }
+            });
+            synchronized (this) {
+                filters = next;
+                highestUserId = maxId == null ? 0 : maxId;
+                rescanAfter = Math.max(0, highestUserId - catchUpWindow); // IDs below maxId may not have committed yet.
+            }
+        } finally {
+            building = null;
+        }
+        log.info("Built availability filters for up to {} users ({} bits, {} hashes each)",
+                size, next.usernames().getBitCount(), next.usernames().getHashCount());
+    }
+
+    /**
+     * Adds users inserted since the last build or catch-up, by any writer, to the filters.
+     * Reads from the first ID missing at the previous catch-up, so users that committed out of ID order are added too.
+     * A missing ID that never commits (a rolled-back insert or a deleted user) is read past once it leaves the window.
+     */
+    @Scheduled(fixedDelayString = "${musicbox.availability.catch-up-ms:5000}",
+            initialDelayString = "${musicbox.availability.catch-up-ms:5000}")
+    public synchronized void catchUp() {
+        Filters current = filters;
+        if (current == null) {
+            return;
+        }
+        long after = Math.max(rescanAfter, highestUserId - catchUpWindow);
+        long firstMissing = 0;
+        List<Object[]> rows;
+        do {
+            rows = userRepository.findUsernamesAndEmailsAfter(after, PageRequest.of(0, catchUpBatchSize));
+            for (Object[] row : rows) {
+                long id = ((Number) row[0]).longValue();
+                if (firstMissing == 0 && id != after + 1) {
+                    firstMissing = after + 1;
+                }
+                add(current, (String) row[1], (String) row[2]);
+                after = id;
+            }
+        } while (rows.size() == catchUpBatchSize);
+        highestUserId = Math.max(highestUserId, after);
+        rescanAfter = firstMissing == 0 ? after : firstMissing - 1;
+    }
+
+    /**
+     * Gets the availability check counters.
+     * @return A map of counter names to values.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("definiteNegatives", definiteNegatives.sum());
+        stats.put("databaseChecks", databaseChecks.sum());
+        stats.put("falsePositives", falsePositives.sum());
+        return stats;
+    }
+
+    private boolean checkDatabase(boolean exists, boolean filtered) {
+        databaseChecks.increment();
+        if (filtered && !exists) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    private static void add(Filters target, String username, String email) {
+        if (target == null) {
+            return;
+        }
+        if (username != null) {
+            target.usernames().add(username);
+        }
+        if (email != null) {
+            target.emails().add(email);
+        }
+    }
+}
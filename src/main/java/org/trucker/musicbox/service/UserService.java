@@ -2,10 +2,11 @@ package org.trucker.musicbox.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.trucker.musicbox.exception.UserNotFoundException;
 import org.trucker.musicbox.model.User;
 import org.trucker.musicbox.repository.UserRepository;
-import javax.validation.Valid;
+import jakarta.validation.Valid;
 
 /**
  * UserService class for managing user-related operations within the application.
@@ -19,18 +20,41 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private UserAvailabilityService userAvailabilityService;
+
+    @Autowired
+    private DomainEventBus domainEventBus;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     /**
      * Saves a User entity to the database.
      * This method encapsulates the logic for saving a User entity, including any necessary pre-save business logic.
      * It leverages the UserRepository for the actual database operation. The use of @Valid annotation ensures that
      * the user entity passed to this method meets all validation constraints defined in the User model before proceeding with the save operation.
+     * A plain-text password is hashed on the bounded {@link PasswordHashingService} pool first; a password that already is
+     * a hash is kept as is. The user and its {@code user.saved} event are written in one transaction, which is kept short
+     * by hashing before it starts.
      *
      * @param user The User entity to be saved, validated against model constraints.
      * @return The saved User entity, now including any auto-generated fields like ID.
+     * @throws org.trucker.musicbox.exception.ServiceBusyException if the password hashing pool is saturated.
      */
     public User saveUser(@Valid User user) {
-        // Implement any additional business logic required before saving the user
-        return userRepository.save(user);
+        if (user.getPassword() != null && !passwordHashingService.isHashed(user.getPassword())) {
+            user.setPassword(passwordHashingService.encode(user.getPassword()));
+        }
+        userAvailabilityService.recordUser(user.getUsername(), user.getEmail());
+        return transactionTemplate.execute(status -> {
+            User saved = userRepository.save(user);
+            domainEventBus.publish(DomainEventBus.USER_SAVED, saved.getId(), null);
+            return saved;
+        });
     }
 
     /**
@@ -0,0 +1,233 @@
+package org.trucker.musicbox.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Computes spectral-peak ("constellation") fingerprints that survive re-encoding, gain changes and trimmed silence.
+ * The signal is cut into overlapping Hann-windowed frames whose spectra are computed in parallel; in each frame the
+ * strongest bin of every frequency band is kept if it stands out from the other bands. Each peak is then paired with
+ * the next few peaks up to {@link #MAX_DELTA_FRAMES} frames later, and every pair is hashed from the two frequencies and
+ * their distance in time, so the hash depends on the relative position of the peaks and not on the encoding.
+ *
+ * <p>A track yields tens of thousands of pair hashes. Only the {@code sketchSize} smallest distinct hash values are kept,
+ * each with the frame of its first occurrence: because the selection depends only on the hash values, two encodings of
+ * the same recording keep largely the same hashes, and the index stays at a fixed size per track.
+ */
+public class AcousticFingerprinter {
+
+    /**
+     * Samples per analysis frame.
+     */
+    public static final int WINDOW = 1024;
+
+    /**
+     * Samples between the starts of two frames.
+     */
+    public static final int HOP = 512;
+
+    /**
+     * The largest distance, in frames, between the two peaks of a pair.
+     */
+    public static final int MAX_DELTA_FRAMES = 63;
+
+    // Band edges in FFT bins; bins below the first edge are mostly rumble and hum.
+    private static final int[] BAND_EDGES = {10, 20, 40, 80, 160, 320, WINDOW / 2};
+    private static final int BANDS = BAND_EDGES.length - 1;
+    private static final double MIN_MAGNITUDE = Math.log1p(0.1); // Quieter peaks are treated as silence.
+    private static final double[] HANN = new double[WINDOW];
+    private static final Fft FFT = new Fft(WINDOW);
+
+    static {
+        for (int i = 0; i < WINDOW; i++) {
+            HANN[i] = 0.5 - 0.5 * Math.cos(2 * Math.PI * i / (WINDOW - 1));
+        }
+    }
+
+    /**
+     * The fingerprint of a track.
+     *
+     * @param hashes The selected pair hashes, in ascending unsigned order.
+     * @param offsets The frame at which each hash first occurs.
+     * @param frames The number of frames analysed.
+     */
+    public record Fingerprint(int[] hashes, int[] offsets, int frames) {
+
+        /**
+         * Packs the fingerprint for storage: the frame count, then each hash and its offset.
+         * @return The packed bytes.
+         */
+        public byte[] toBytes() {
+            ByteBuffer buffer = ByteBuffer.allocate(4 + hashes.length * 8);
+            buffer.putInt(frames);
+            for (int i = 0; i < hashes.length; i++) {
+                buffer.putInt(hashes[i]).putInt(offsets[i]);
+            }
+            return buffer.array();
+        }
+
+        /**
+         * Unpacks a fingerprint produced by {@link #toBytes()}.
+         *
+         * @param bytes The packed bytes.
+         * @return The fingerprint.
+         */
+        public static Fingerprint fromBytes(byte[] bytes) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            int frames = buffer.getInt();
+            int[] hashes = new int[buffer.remaining() / 8];
+            int[] offsets = new int[hashes.length];
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = buffer.getInt();
+                offsets[i] = buffer.getInt();
+            }
+            return new Fingerprint(hashes, offsets, frames);
+        }
+    }
+
+    private final int fanOut;
+    private final int sketchSize;
+    private final int framesPerTask;
+
+    /**
+     * Creates a fingerprinter.
+     *
+     * @param fanOut The number of later peaks each peak is paired with.
+     * @param sketchSize The number of hashes kept per track.
+     * @param framesPerTask The number of frames each parallel task transforms.
+     */
+    public AcousticFingerprinter(int fanOut, int sketchSize, int framesPerTask) {
+        if (fanOut < 1 || sketchSize < 1 || framesPerTask < 1) {
+            throw new IllegalArgumentException("fanOut, sketchSize and framesPerTask must be positive");
+        }
+        this.fanOut = fanOut;
+        this.sketchSize = sketchSize;
+        this.framesPerTask = framesPerTask;
+    }
+
+    /**
+     * Fingerprints a signal.
+     *
+     * @param samples The mono samples, between -1 and 1.
+     * @param executor Runs the spectrum tasks; the caller waits for all of them.
+     * @return The fingerprint; empty if the signal is shorter than one frame or silent.
+     */
+    public Fingerprint fingerprint(float[] samples, Executor executor) {
+        int frames = samples.length < WINDOW ? 0 : (samples.length - WINDOW) / HOP + 1;
+        int[] peaks = new int[frames * BANDS]; // Peak bin of each band of each frame, or -1.
+        List<CompletableFuture<Void>> tasks = new ArrayList<>();
+        for (int from = 0; from < frames; from += framesPerTask) {
+            int start = from;
+            int end = Math.min(frames, from + framesPerTask);
+            tasks.add(CompletableFuture.runAsync(() -> findPeaks(samples, start, end, peaks), executor));
+        }
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture[0])).join();
+        return select(pair(peaks, frames), frames);
+    }
+
+    /**
+     * Gets the duration of one frame step.
+     *
+     * @param sampleRate The sample rate of the fingerprinted signal, in Hz.
+     * @return The seconds between two frames.
+     */
+    public static double secondsPerFrame(float sampleRate) {
+        return HOP / (double) sampleRate;
+    }
+
+    private static void findPeaks(float[] samples, int fromFrame, int toFrame, int[] peaks) {
+        double[] re = new double[WINDOW];
+        double[] im = new double[WINDOW];
+        double[] bandMax = new double[BANDS];
+        int[] bandBin = new int[BANDS];
+        for (int frame = fromFrame; frame < toFrame; frame++) {
+            int offset = frame * HOP;
+            for (int i = 0; i < WINDOW; i++) {
+                re[i] = samples[offset + i] * HANN[i];
+            }
+            Arrays.fill(im, 0);
+            FFT.transform(re, im);
+            double mean = 0;
+            for (int band = 0; band < BANDS; band++) {
+                bandMax[band] = -1;
+                for (int bin = BAND_EDGES[band]; bin < BAND_EDGES[band + 1]; bin++) {
+                    double magnitude = Math.log1p(Math.hypot(re[bin], im[bin]));
+                    if (magnitude > bandMax[band]) {
+                        bandMax[band] = magnitude;
+                        bandBin[band] = bin;
+                    }
+                }
+                mean += bandMax[band];
+            }
+            mean /= BANDS;
+            for (int band = 0; band < BANDS; band++) {
+                boolean peak = bandMax[band] >= mean && bandMax[band] >= MIN_MAGNITUDE;
+                peaks[frame * BANDS + band] = peak ? bandBin[band] : -1;
+            }
+        }
+    }
+
+    // Each entry is the mixed hash in the high half and the anchor frame in the low half, so sorting groups equal hashes
+    // and puts their first occurrence first.
+    private long[] pair(int[] peaks, int frames) {
+        long[] pairs = new long[Math.max(16, frames * BANDS * fanOut / 4)];
+        int count = 0;
+        for (int t1 = 0; t1 < frames; t1++) {
+            for (int b1 = 0; b1 < BANDS; b1++) {
+                int f1 = peaks[t1 * BANDS + b1];
+                if (f1 < 0) {
+                    continue;
+                }
+                int paired = 0;
+                for (int t2 = t1 + 1; t2 < frames && t2 - t1 <= MAX_DELTA_FRAMES && paired < fanOut; t2++) {
+                    for (int b2 = 0; b2 < BANDS && paired < fanOut; b2++) {
+                        int f2 = peaks[t2 * BANDS + b2];
+                        if (f2 < 0) {
+                            continue;
+                        }
+                        int hash = mix32(f1 << 15 | f2 << 6 | (t2 - t1));
+                        if (count == pairs.length) {
+                            pairs = Arrays.copyOf(pairs, count * 2);
+                        }
+                        pairs[count++] = Integer.toUnsignedLong(hash) << 32 | t1;
+                        paired++;
+                    }
+                }
+            }
+        }
+        long[] sorted = Arrays.copyOf(pairs, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private Fingerprint select(long[] pairs, int frames) {
+        int[] hashes = new int[Math.min(sketchSize, pairs.length)];
+        int[] offsets = new int[hashes.length];
+        int count = 0;
+        for (int i = 0; i < pairs.length && count < hashes.length; i++) {
+            int hash = (int) (pairs[i] >>> 32);
+            if (count > 0 && hashes[count - 1] == hash) {
+                continue; // A later occurrence of a hash already kept.
+            }
+            hashes[count] = hash;
+            offsets[count] = (int) pairs[i];
+            count++;
+        }
+        return new Fingerprint(Arrays.copyOf(hashes, count), Arrays.copyOf(offsets, count), frames);
+    }
+
+    // Murmur3 finalizer: spreads the structured pair value over all 32 bits, so the smallest hashes are a fair sample.
+    private static int mix32(int value) {
+        int h = value;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,84 @@
+package org.trucker.musicbox.util;
+
+/**
+ * The inner loops of the audio analysis, in a scalar and a SIMD implementation.
+ * {@link #create(boolean)} picks the Java Vector API implementation when asked to and when the
+ * {@code jdk.incubator.vector} module is present ({@code --add-modules jdk.incubator.vector}); otherwise, or if the module
+ * is missing at runtime, it falls back to plain loops. Both implementations compute the same values up to float rounding.
+ */
+public interface AnalysisKernels {
+
+    /**
+     * Gets the number of independent lanes {@link #filterSquares} processes at once.
+     * @return The lane count.
+     */
+    int lanes();
+
+    /**
+     * Runs each lane of a lane-interleaved signal through two biquad sections, starting from silence, and sums the squared
+     * output over consecutive blocks. The first {@code skipFrames} frames only settle the filters and are not summed.
+     *
+     * @param interleaved The input, {@code interleaved[frame * lanes() + lane]}.
+     * @param frames The number of frames per lane; {@code frames - skipFrames} must be a multiple of {@code blockFrames}.
+     * @param coefficients b0, b1, b2, a1 and a2 of the first section, then of the second; a0 is 1.
+     * @param skipFrames The number of leading frames not summed.
+     * @param blockFrames The number of frames per block.
+     * @param blockSums Receives the sums, {@code blockSums[lane * blocks + block]}.
+     */
+    void filterSquares(float[] interleaved, int frames, float[] coefficients, int skipFrames, int blockFrames, double[] blockSums);
+
+    /**
+     * Gets the largest absolute sample value.
+     *
+     * @param samples The samples.
+     * @param from The first index, inclusive.
+     * @param to The last index, exclusive.
+     * @return The peak, or 0 for an empty range.
+     */
+    float maxAbs(float[] samples, int from, int to);
+
+    /**
+     * Sums the squared samples.
+     *
+     * @param samples The samples.
+     * @param from The first index, inclusive.
+     * @param to The last index, exclusive.
+     * @return The energy of the range.
+     */
+    double sumOfSquares(float[] samples, int from, int to);
+
+    /**
+     * Computes the dot product of two ranges of equal length.
+     *
+     * @param a The first array.
+     * @param aFrom The start of the range in the first array.
+     * @param b The second array.
+     * @param bFrom The start of the range in the second array.
+     * @param length The number of elements.
+     * @return The dot product.
+     */
+    double dot(float[] a, int aFrom, float[] b, int bFrom, int length);
+
+    /**
+     * Gets a short name of the implementation, for logs and benchmarks.
+     * @return "scalar" or "vector".
+     */
+    String name();
+
+    /**
+     * Creates the kernels.
+     *
+     * @param simd Whether to use the Vector API if it is available.
+     * @return The vector kernels if requested and available, else the scalar ones.
+     */
+    static AnalysisKernels create(boolean simd) {
+        if (simd) {
+            try {
+                return new VectorAnalysisKernels();
+            } catch (LinkageError e) {
+                // The incubator module was not added to this JVM.
+            }
+        }
+        return new ScalarAnalysisKernels(8);
+    }
+}
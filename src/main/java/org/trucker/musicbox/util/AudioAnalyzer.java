@@ -0,0 +1,102 @@
+package org.trucker.musicbox.util;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Measures the loudness, peak and tempo of a track in one pass over the decoded audio, with a {@link LoudnessMeter}
+ * and a {@link TempoEstimator} sharing the same {@link AnalysisKernels}. Thread-safe: each analysis has its own state.
+ */
+public class AudioAnalyzer {
+
+    /**
+     * The result of an analysis.
+     *
+     * @param loudnessLufs The EBU R128 integrated loudness, or negative infinity for silence.
+     * @param peakDbfs The sample peak, or negative infinity for silence.
+     * @param bpm The tempo, or NaN if it could not be determined.
+     * @param samples The number of samples analysed, over all channels.
+     */
+    public record Analysis(double loudnessLufs, double peakDbfs, double bpm, long samples) {
+    }
+
+    private final AnalysisKernels kernels;
+
+    /**
+     * Creates an analyzer.
+     *
+     * @param kernels The inner loops to use.
+     */
+    public AudioAnalyzer(AnalysisKernels kernels) {
+        this.kernels = kernels;
+    }
+
+    /**
+     * Analyses the beginning of an audio file, streaming it through the decoder.
+     *
+     * @param path The audio file.
+     * @param maxSeconds The most audio to analyse.
+     * @param rawFormat The format of headerless .pcm and .raw files.
+     * @return The analysis.
+     * @throws UnsupportedAudioFileException If the format of the file cannot be decoded, or it holds no audio.
+     * @throws IOException If the file cannot be read.
+     */
+    public Analysis analyze(Path path, int maxSeconds, AudioFormat rawFormat) throws UnsupportedAudioFileException, IOException {
+        Session[] session = new Session[1];
+        AudioDecoder.decode(path, maxSeconds, rawFormat, (channels, frames, sampleRate) -> {
+            if (session[0] == null) {
+                session[0] = new Session(sampleRate, channels.length);
+            }
+            session[0].add(channels, frames);
+            return true;
+        });
+        if (session[0] == null) {
+            throw new UnsupportedAudioFileException("No audio in " + path.getFileName());
+        }
+        return session[0].finish();
+    }
+
+    /**
+     * Analyses decoded audio.
+     *
+     * @param channels The samples of each channel, between -1 and 1, all of the same length.
+     * @param sampleRate The sample rate, in Hz.
+     * @return The analysis.
+     */
+    public Analysis analyze(float[][] channels, float sampleRate) {
+        Session session = new Session(sampleRate, channels.length);
+        session.add(channels, channels[0].length);
+        return session.finish();
+    }
+
+    /**
+     * Gets the name of the kernels in use.
+     * @return "scalar" or "vector".
+     */
+    public String getKernelsName() {
+        return kernels.name();
+    }
+
+    private final class Session {
+        final LoudnessMeter loudness;
+        final TempoEstimator tempo;
+        long samples;
+
+        Session(float sampleRate, int channels) {
+            loudness = new LoudnessMeter(sampleRate, channels, kernels);
+            tempo = new TempoEstimator(sampleRate, kernels);
+        }
+
+        void add(float[][] channels, int frames) {
+            loudness.add(channels, frames);
+            tempo.add(channels, frames);
+            samples += (long) frames * channels.length;
+        }
+
+        Analysis finish() {
+            return new Analysis(loudness.integratedLoudness(), loudness.samplePeakDbfs(), tempo.estimateBpm(), samples);
+        }
+    }
+}
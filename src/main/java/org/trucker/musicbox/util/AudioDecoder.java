@@ -0,0 +1,198 @@
+package org.trucker.musicbox.util;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Decodes audio files into float samples, in pure Java.
+ * WAV, AIFF and AU files are read through {@code javax.sound.sampled}, as is any other format for which a service
+ * provider is on the class path (an MP3 SPI, for example); files ending in {@code .pcm} or {@code .raw} have no header
+ * and are read in the given raw format. {@link #decode} streams the channels block by block at the native rate;
+ * {@link #decodeMono} averages the channels and resamples by averaging the source samples that fall into each output
+ * sample, which doubles as the low-pass filter before decimation.
+ */
+public final class AudioDecoder {
+
+    private static final int BLOCK_FRAMES = 8192;
+
+    /**
+     * Receives decoded audio, one block at a time.
+     */
+    @FunctionalInterface
+    public interface BlockConsumer {
+
+        /**
+         * Handles a block.
+         *
+         * @param channels The samples of each channel, between -1 and 1; only valid during the call.
+         * @param frames The number of samples per channel in the block.
+         * @param sampleRate The sample rate, in Hz.
+         * @return false to stop decoding.
+         */
+        boolean accept(float[][] channels, int frames, float sampleRate);
+    }
+
+    private AudioDecoder() {
+    }
+
+    /**
+     * Decodes the beginning of a file, block by block, at its own sample rate.
+     *
+     * @param path The audio file.
+     * @param maxSeconds The most audio to decode; the rest of the file is not read.
+     * @param rawFormat The format of headerless .pcm and .raw files.
+     * @param consumer Receives the blocks.
+     * @throws UnsupportedAudioFileException If the format of the file cannot be decoded.
+     * @throws IOException If the file cannot be read.
+     */
+    public static void decode(Path path, int maxSeconds, AudioFormat rawFormat, BlockConsumer consumer)
+            throws UnsupportedAudioFileException, IOException {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        AudioInputStream source = name.endsWith(".pcm") || name.endsWith(".raw")
+                ? new AudioInputStream(new BufferedInputStream(Files.newInputStream(path)), rawFormat, AudioSystem.NOT_SPECIFIED)
+                : AudioSystem.getAudioInputStream(path.toFile());
+        try (AudioInputStream pcm = toPcm16(source)) {
+            readBlocks(pcm, (long) maxSeconds * (long) pcm.getFormat().getSampleRate(), consumer);
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * Decodes the beginning of a file to mono.
+     *
+     * @param path The audio file.
+     * @param targetRate The sample rate of the result, in Hz.
+     * @param maxSeconds The most audio to decode; the rest of the file is not read.
+     * @param rawFormat The format of headerless .pcm and .raw files.
+     * @return The mono samples, between -1 and 1.
+     * @throws UnsupportedAudioFileException If the format of the file cannot be decoded.
+     * @throws IOException If the file cannot be read.
+     */
+    public static float[] decodeMono(Path path, float targetRate, int maxSeconds, AudioFormat rawFormat)
+            throws UnsupportedAudioFileException, IOException {
+        MonoResampler resampler = new MonoResampler(targetRate, (int) Math.min(Integer.MAX_VALUE - 8, (long) maxSeconds * (long) targetRate));
+        decode(path, maxSeconds, rawFormat, resampler);
+        return Arrays.copyOf(resampler.out, resampler.count);
+    }
+
+    // Compressed formats are decoded first; the JDK converts between all PCM variants, float included.
+    private static AudioInputStream toPcm16(AudioInputStream source) throws UnsupportedAudioFileException {
+        AudioFormat format = source.getFormat();
+        if (format.getSampleRate() == AudioSystem.NOT_SPECIFIED || format.getChannels() == AudioSystem.NOT_SPECIFIED) {
+            throw new UnsupportedAudioFileException("Unknown sample rate or channel count: " + format);
+        }
+        AudioFormat pcm16 = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, format.getSampleRate(), 16,
+                format.getChannels(), format.getChannels() * 2, format.getSampleRate(), false);
+        AudioInputStream in = source;
+        if (!isPcm(format.getEncoding())) {
+            if (!AudioSystem.isConversionSupported(AudioFormat.Encoding.PCM_SIGNED, format)) {
+                throw new UnsupportedAudioFileException("No decoder for " + format.getEncoding());
+            }
+            in = AudioSystem.getAudioInputStream(AudioFormat.Encoding.PCM_SIGNED, source);
+        }
+        if (in.getFormat().matches(pcm16)) {
+            return in;
+        }
+        if (!AudioSystem.isConversionSupported(pcm16, in.getFormat())) {
+            throw new UnsupportedAudioFileException("Cannot convert " + in.getFormat() + " to 16-bit PCM");
+        }
+        return AudioSystem.getAudioInputStream(pcm16, in);
+    }
+
+    private static boolean isPcm(AudioFormat.Encoding encoding) {
+        return AudioFormat.Encoding.PCM_SIGNED.equals(encoding) || AudioFormat.Encoding.PCM_UNSIGNED.equals(encoding)
+                || AudioFormat.Encoding.PCM_FLOAT.equals(encoding);
+    }
+
+    private static void readBlocks(AudioInputStream pcm, long maxFrames, BlockConsumer consumer) throws IOException {
+        int channels = pcm.getFormat().getChannels();
+        float sampleRate = pcm.getFormat().getSampleRate();
+        int frameBytes = channels * 2;
+        byte[] buffer = new byte[BLOCK_FRAMES * frameBytes];
+        float[][] block = new float[channels][BLOCK_FRAMES];
+        long decoded = 0;
+        int filled = 0;
+        while (decoded < maxFrames) {
+            int read = pcm.read(buffer, filled, buffer.length - filled);
+            if (read < 0) {
+                break;
+            }
+            filled += read;
+            int frames = (int) Math.min(filled / frameBytes, maxFrames - decoded);
+            for (int c = 0; c < channels; c++) {
+                float[] samples = block[c];
+                for (int f = 0, offset = c * 2; f < frames; f++, offset += frameBytes) {
+                    samples[f] = (short) ((buffer[offset] & 0xff) | (buffer[offset + 1] << 8)) / 32768f;
+                }
+            }
+            decoded += frames;
+            if (frames > 0 && !consumer.accept(block, frames, sampleRate)) {
+                return;
+            }
+            int rest = filled - frames * frameBytes; // Keep a partial frame for the next read.
+            System.arraycopy(buffer, frames * frameBytes, buffer, 0, rest);
+            filled = rest;
+        }
+    }
+
+    /**
+     * Averages the channels and resamples to the target rate.
+     */
+    private static final class MonoResampler implements BlockConsumer {
+        final float targetRate;
+        final int maxSamples;
+        float[] out;
+        int count;
+        double sum;
+        int summed;
+        float last;
+        long consumed;
+        double ratio; // Source samples per output sample.
+        double boundary; // Source position at which the current output sample is complete.
+
+        MonoResampler(float targetRate, int maxSamples) {
+            this.targetRate = targetRate;
+            this.maxSamples = maxSamples;
+            this.out = new float[Math.min(maxSamples, 1 << 16)];
+        }
+
+        @Override
+        public boolean accept(float[][] channels, int frames, float sampleRate) {
+            if (ratio == 0) {
+                ratio = sampleRate / targetRate;
+                boundary = ratio;
+            }
+            for (int f = 0; f < frames && count < maxSamples; f++) {
+                double mixed = 0;
+                for (float[] channel : channels) {
+                    mixed += channel[f];
+                }
+                sum += mixed / channels.length;
+                summed++;
+                consumed++;
+                while (consumed >= boundary && count < maxSamples) {
+                    if (summed > 0) {
+                        last = (float) (sum / summed);
+                        sum = 0;
+                        summed = 0;
+                    }
+                    if (count == out.length) {
+                        out = Arrays.copyOf(out, (int) Math.min(maxSamples, out.length * 2L));
+                    }
+                    out[count++] = last; // Upsampling repeats the last value.
+                    boundary += ratio;
+                }
+            }
+            return count < maxSamples;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.trucker.musicbox.util;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single-key lookups into batch lookups.
+ * The first key requested after a quiet period opens a batch window; every key requested by any thread until the window
+ * closes, or until the batch is full, joins the same batch, and the whole batch is then loaded with one call of the
+ * batch function (typically one {@code findAllById} IN-query) on the executor. Each caller gets a future that completes
+ * with its own value, or with null if the key was not found. Keys requested twice in the same window are loaded once.
+ * Nothing is cached: a batch only lives until its results have been handed out.
+ * The pending batch is guarded by a {@link ReentrantLock} rather than a monitor, so request threads running as virtual
+ * threads park instead of pinning their carrier when many of them contend for it.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class BatchLoader<K, V> {
+
+    private final Function<Collection<K>, Map<K, V>> batchFunction;
+    private final ScheduledExecutorService executor;
+    private final long windowNanos;
+    private final int maxBatchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Map<K, CompletableFuture<V>> pending = new HashMap<>(); // Guarded by lock.
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder keysLoaded = new LongAdder();
+
+    /**
+     * Creates a loader.
+     *
+     * @param batchFunction Loads a batch of keys and returns the values found, keyed by key; missing keys are left out.
+     * @param executor Runs the window timers and the batch function.
+     * @param windowMicros How long a batch stays open for more keys after its first key arrives.
+     * @param maxBatchSize The number of distinct keys at which a batch is dispatched without waiting for the window.
+     */
+    public BatchLoader(Function<Collection<K>, Map<K, V>> batchFunction, ScheduledExecutorService executor,
+                       long windowMicros, int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("maxBatchSize must be positive");
+        }
+        this.batchFunction = batchFunction;
+        this.executor = executor;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Requests one key.
+     *
+     * @param key The key to load.
+     * @return A future completing with the value, or with null if the key does not exist.
+     */
+    public CompletableFuture<V> load(K key) {
+        requests.increment();
+        Map<K, CompletableFuture<V>> full = null;
+        CompletableFuture<V> future;
+        lock.lock();
+        try {
+            future = pending.get(key);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                boolean opensWindow = pending.isEmpty();
+                pending.put(key, future);
+                if (pending.size() >= maxBatchSize) {
+                    full = pending;
+                    pending = new HashMap<>();
+                } else if (opensWindow) {
+                    // A timer left over from a batch that filled up early may close this window sooner; that only costs a smaller batch.
+                    executor.schedule(this::dispatchPending, windowNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            Map<K, CompletableFuture<V>> batch = full;
+            executor.execute(() -> dispatch(batch));
+        }
+        return future;
+    }
+
+    /**
+     * Requests several keys at once. They share batches with any concurrent single-key lookups.
+     *
+     * @param keys The keys to load.
+     * @return A future completing with the values found, in the order of the keys; missing keys are left out.
+     */
+    public CompletableFuture<Map<K, V>> loadAll(Collection<K> keys) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        for (K key : keys) {
+            futures.computeIfAbsent(key, this::load);
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+            Map<K, V> values = new LinkedHashMap<>();
+            futures.forEach((key, future) -> {
+                V value = future.join();
+                if (value != null) {
+                    values.put(key, value);
+                }
+            });
+            return values;
+        });
+    }
+
+    /**
+     * Gets the number of keys requested, including duplicates.
+     * @return The request count.
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Gets the number of times the batch function was called; each call is one round trip to the backing store.
+     * @return The batch count.
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Gets the number of distinct keys passed to the batch function.
+     * @return The loaded key count.
+     */
+    public long getKeysLoaded() {
+        return keysLoaded.sum();
+    }
+
+    private void dispatchPending() {
+        Map<K, CompletableFuture<V>> batch;
+        lock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        } finally {
+            lock.unlock();
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(Map<K, CompletableFuture<V>> batch) {
+        batches.increment();
+        keysLoaded.add(batch.size());
+        Map<K, V> values;
+        try {
+            values = batchFunction.apply(batch.keySet());
+        } catch (Throwable e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            return;
+        }
+        batch.forEach((key, future) -> future.complete(values.get(key)));
+    }
+}
@@ -0,0 +1,93 @@
+package org.trucker.musicbox.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over strings, safe for concurrent adds and lookups without locking.
+ * The {@code k} bit positions come from double hashing of two independent 64-bit hashes of the string
+ * (Kirsch and Mitzenmacher), and bits are set with CAS on an {@link AtomicLongArray}, so an add is never lost.
+ * A negative answer is definite; a positive one is wrong with about the configured false-positive probability
+ * as long as no more than the expected number of values has been added. Values cannot be removed.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Creates a filter sized for the given number of values and false-positive probability.
+     *
+     * @param expectedInsertions The number of values the filter is sized for.
+     * @param falsePositiveProbability The target probability that an absent value is reported as present, e.g. 0.01.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveProbability) {
+        long n = Math.max(1, expectedInsertions);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveProbability) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) >>> 6));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value The value to add.
+     */
+    public void add(String value) {
+        long h1 = hash(value, 0x9E3779B97F4A7C15L);
+        long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1; // Odd, so the probe sequence does not collapse.
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    /**
+     * Checks whether a value may have been added.
+     *
+     * @param value The value to look up.
+     * @return false if the value was definitely never added, true if it probably was.
+     */
+    public boolean mightContain(String value) {
+        long h1 = hash(value, 0x9E3779B97F4A7C15L);
+        long h2 = hash(value, 0xC2B2AE3D27D4EB4FL) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the size of the bit array.
+     * @return The number of bits.
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * Gets the number of bits set and checked per value.
+     * @return The number of hash functions.
+     */
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private static long hash(String value, long seed) {
+        long hash = seed;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return HyperLogLog.mix64(hash ^ value.length());
+    }
+}
@@ -0,0 +1,221 @@
+package org.trucker.musicbox.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single-writer, many-reader ring of byte chunks for broadcasting one stream to any number of listeners.
+ * The writer publishes chunks in sequence; each reader holds a {@link Cursor} with the sequence it wants next and reads
+ * the shared chunk arrays directly, so memory is the ring's capacity in chunks whatever the number of readers.
+ * Published chunks are never modified: the writer hands over a fresh array for each one, and a reader still sending an
+ * old chunk keeps it alive after its slot has been reused.
+ *
+ * <p>The writer never waits for readers. A reader that falls a whole ring behind has been lapped: depending on the
+ * {@link LagPolicy} it either skips ahead to just behind the head, losing the chunks in between, or is dropped.
+ */
+public class BroadcastRingBuffer {
+
+    /**
+     * What happens to a reader that has been lapped by the writer.
+     */
+    public enum LagPolicy {
+        SKIP, // Jump forward to the newest chunks, as if the listener had tuned in again.
+        DROP  // Stop the reader; the listener has to reconnect.
+    }
+
+    /**
+     * One published chunk.
+     *
+     * @param sequence The position of the chunk in the stream, starting at 0.
+     * @param data The bytes of the chunk; must not be modified.
+     */
+    public record Chunk(long sequence, byte[] data) {
+    }
+
+    /**
+     * A reader's position in the stream. Owned by one reader thread.
+     */
+    public static final class Cursor {
+        private long next;
+        private long skipped;
+        private boolean dropped;
+
+        private Cursor(long next) {
+            this.next = next;
+        }
+
+        /**
+         * Gets the number of chunks this reader missed because it was lapped.
+         * @return The skipped chunk count.
+         */
+        public long getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Tells whether the reader was dropped for falling behind.
+         * @return true if the reader must stop.
+         */
+        public boolean isDropped() {
+            return dropped;
+        }
+    }
+
+    private final AtomicReferenceArray<Chunk> slots;
+    private final int capacity;
+    private final int lead;
+    private final LagPolicy lagPolicy;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private volatile long head = -1; // Sequence of the newest published chunk.
+    private volatile boolean closed;
+
+    private final LongAdder skippedChunks = new LongAdder();
+    private final LongAdder droppedReaders = new LongAdder();
+
+    /**
+     * Creates a ring.
+     *
+     * @param capacity The number of chunks kept; how far a reader may fall behind before it is lapped.
+     * @param lead The number of already published chunks a new or skipping reader starts with, so its player can buffer;
+     *             at least 1.
+     * @param lagPolicy What happens to lapped readers.
+     */
+    public BroadcastRingBuffer(int capacity, int lead, LagPolicy lagPolicy) {
+        if (capacity < 2 || lead < 1 || lead >= capacity) {
+            throw new IllegalArgumentException("capacity must be at least 2 and lead between 1 and capacity - 1");
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.capacity = capacity;
+        this.lead = lead;
+        this.lagPolicy = lagPolicy;
+    }
+
+    /**
+     * Publishes the next chunk and wakes the waiting readers. Only one thread may publish.
+     *
+     * @param data The chunk; ownership passes to the ring.
+     */
+    public void publish(byte[] data) {
+        long sequence = head + 1;
+        slots.set((int) (sequence % capacity), new Chunk(sequence, data));
+        head = sequence;
+        lock.lock();
+        try {
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the stream; waiting readers return null.
+     */
+    public void close() {
+        closed = true;
+        lock.lock();
+        try {
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Creates a cursor for a new reader, {@code lead} chunks behind the head.
+     * @return The cursor.
+     */
+    public Cursor subscribe() {
+        return new Cursor(startSequence());
+    }
+
+    /**
+     * Gets the next chunk for a reader, waiting for the writer if the reader has caught up.
+     *
+     * @param cursor The reader's cursor, advanced past the returned chunk.
+     * @param timeout How long to wait for a new chunk.
+     * @param unit The unit of the timeout.
+     * @return The chunk, or null if none was published in time, the ring was closed, or the reader was dropped.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public Chunk poll(Cursor cursor, long timeout, TimeUnit unit) throws InterruptedException {
+        if (cursor.dropped) {
+            return null;
+        }
+        if (cursor.next > head && !awaitSequence(cursor.next, unit.toNanos(timeout))) {
+            return null;
+        }
+        while (true) {
+            Chunk chunk = slots.get((int) (cursor.next % capacity));
+            if (chunk != null && chunk.sequence() == cursor.next) {
+                cursor.next++;
+                return chunk;
+            }
+            // The slot already holds a newer chunk: the writer lapped this reader.
+            if (lagPolicy == LagPolicy.DROP) {
+                cursor.dropped = true;
+                droppedReaders.increment();
+                return null;
+            }
+            long resume = startSequence();
+            cursor.skipped += resume - cursor.next;
+            skippedChunks.add(resume - cursor.next);
+            cursor.next = resume;
+        }
+    }
+
+    /**
+     * Gets the sequence of the newest published chunk.
+     * @return The head sequence, or -1 before the first chunk.
+     */
+    public long getHead() {
+        return head;
+    }
+
+    /**
+     * Tells whether the stream has ended.
+     * @return true once {@link #close()} has been called.
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Gets the number of chunks skipped by lapped readers, over all readers.
+     * @return The skipped chunk count.
+     */
+    public long getSkippedChunks() {
+        return skippedChunks.sum();
+    }
+
+    /**
+     * Gets the number of readers dropped for falling behind.
+     * @return The dropped reader count.
+     */
+    public long getDroppedReaders() {
+        return droppedReaders.sum();
+    }
+
+    private long startSequence() {
+        return Math.max(0, head + 1 - lead);
+    }
+
+    private boolean awaitSequence(long sequence, long nanos) throws InterruptedException {
+        lock.lock();
+        try {
+            while (head < sequence) {
+                if (closed || nanos <= 0) {
+                    return false;
+                }
+                nanos = published.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
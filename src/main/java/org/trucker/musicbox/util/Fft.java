@@ -0,0 +1,82 @@
+package org.trucker.musicbox.util;
+
+/**
+ * Iterative radix-2 fast Fourier transform of a fixed power-of-two size.
+ * The twiddle factors and the bit-reversal permutation are computed once, so an instance is immutable and can be shared
+ * by any number of threads; callers own the arrays being transformed.
+ */
+public class Fft {
+
+    private final int size;
+    private final double[] cos;
+    private final double[] sin;
+    private final int[] reversed;
+
+    /**
+     * Creates a transform.
+     *
+     * @param size The number of points; a power of two of at least 2.
+     */
+    public Fft(int size) {
+        if (size < 2 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two of at least 2");
+        }
+        this.size = size;
+        this.cos = new double[size / 2];
+        this.sin = new double[size / 2];
+        for (int i = 0; i < size / 2; i++) {
+            cos[i] = Math.cos(-2 * Math.PI * i / size);
+            sin[i] = Math.sin(-2 * Math.PI * i / size);
+        }
+        this.reversed = new int[size];
+        int bits = Integer.numberOfTrailingZeros(size);
+        for (int i = 0; i < size; i++) {
+            reversed[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+    }
+
+    /**
+     * Transforms in place.
+     *
+     * @param re The real parts, replaced by the real parts of the spectrum.
+     * @param im The imaginary parts, replaced by the imaginary parts of the spectrum.
+     */
+    public void transform(double[] re, double[] im) {
+        for (int i = 0; i < size; i++) {
+            int j = reversed[i];
+            if (j > i) {
+                double t = re[i];
+                re[i] = re[j];
+                re[j] = t;
+                t = im[i];
+                im[i] = im[j];
+                im[j] = t;
+            }
+        }
+        for (int half = 1; half < size; half <<= 1) {
+            int step = size / (half << 1);
+            for (int start = 0; start < size; start += half << 1) {
+                for (int k = 0; k < half; k++) {
+                    double wr = cos[k * step];
+                    double wi = sin[k * step];
+                    int a = start + k;
+                    int b = a + half;
+                    double tr = re[b] * wr - im[b] * wi;
+                    double ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the number of points.
+     * @return The transform size.
+     */
+    public int getSize() {
+        return size;
+    }
+}
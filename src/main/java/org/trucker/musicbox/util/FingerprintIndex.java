@@ -0,0 +1,231 @@
+package org.trucker.musicbox.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inverted index from fingerprint hashes to the tracks containing them, for finding likely duplicate recordings.
+ * Hashes live in an open-addressing table whose slots point at the newest posting of the hash; postings are packed
+ * longs (track ID and frame offset) in one growable arena, chained through a parallel {@code next} array, so a track
+ * costs 12 bytes per hash plus its table share and there is no per-hash object.
+ *
+ * <p>A query votes for each (track, time shift) pair of its matching postings: a real duplicate matches many hashes at
+ * one consistent shift, while chance matches scatter. Hashes with very long posting lists (silence, test tones) carry
+ * little information and are skipped. Not thread-safe; callers guard it with a read-write lock.
+ *
+ * <p>One index holds at most {@link #MAX_HASHES} distinct hashes and {@link #MAX_POSTINGS} postings, the limits of
+ * its int-indexed arrays; a catalog beyond that has to be split over several indexes, for example by audio ID range.
+ * Adding a track that would cross either limit fails before anything is changed.
+ */
+public class FingerprintIndex {
+
+    /**
+     * The most distinct hashes one index holds: half of the largest power-of-two table.
+     */
+    public static final int MAX_HASHES = 1 << 29;
+
+    /**
+     * The most postings one index holds: the largest array the JVM allocates.
+     */
+    public static final int MAX_POSTINGS = Integer.MAX_VALUE - 8;
+
+    private static final int OFFSET_BITS = 20;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    private static final int SHIFT_QUANTUM = 2; // Frames; absorbs the one-frame jitter between two encodings.
+
+    /**
+     * A likely duplicate.
+     *
+     * @param audioId The ID of the matching track.
+     * @param votes The number of hashes matching at the best time shift.
+     * @param shiftFrames The time shift, in frames, of the query relative to the matching track.
+     */
+    public record Match(long audioId, int votes, int shiftFrames) {
+    }
+
+    private int[] keys;
+    private int[] heads; // Index of the newest posting plus one; 0 marks an empty slot.
+    private int[] lengths; // Number of postings of each hash.
+    private int mask;
+    private int distinctHashes;
+
+    private long[] postings = new long[1024];
+    private int[] next = new int[1024]; // Index of the previous posting of the same hash plus one, or 0.
+    private int postingCount;
+
+    private final RoaringBitmap tracks = new RoaringBitmap();
+
+    /**
+     * Creates an empty index.
+     *
+     * @param expectedHashes The number of distinct hashes to size the table for.
+     * @throws IllegalArgumentException If more than {@link #MAX_HASHES} hashes are expected.
+     */
+    public FingerprintIndex(long expectedHashes) {
+        if (expectedHashes > MAX_HASHES) {
+            throw new IllegalArgumentException("An index holds at most " + MAX_HASHES + " distinct hashes, not "
+                    + expectedHashes + "; split the catalog over several indexes");
+        }
+        int capacity = (int) Long.highestOneBit(Math.max(16L, expectedHashes * 2 - 1)) << 1;
+        keys = new int[capacity];
+        heads = new int[capacity];
+        lengths = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Adds the hashes of a track, unless the track is already indexed.
+     *
+     * @param audioId The ID of the track; at most {@link RoaringBitmap#MAX_VALUE}.
+     * @param hashes The hashes of the track.
+     * @param offsets The frame of each hash.
+     * @return true if the track was added.
+     * @throws IllegalStateException If the track's hashes could take the index past {@link #MAX_HASHES} distinct
+     * hashes or {@link #MAX_POSTINGS} postings.
+     */
+    public boolean add(long audioId, int[] hashes, int[] offsets) {
+        if (tracks.contains(audioId)) {
+            return false;
+        }
+        if ((long) postingCount + hashes.length > MAX_POSTINGS || (long) distinctHashes + hashes.length > MAX_HASHES) {
+            throw new IllegalStateException("Fingerprint index is full with " + postingCount + " postings of "
+                    + distinctHashes + " hashes; split the catalog over several indexes");
+        }
+        tracks.add(audioId);
+        for (int i = 0; i < hashes.length; i++) {
+            if (postingCount == postings.length) {
+                int length = (int) Math.min(2L * postings.length, MAX_POSTINGS);
+                postings = Arrays.copyOf(postings, length);
+                next = Arrays.copyOf(next, length);
+            }
+            int slot = slotFor(hashes[i]);
+            boolean newHash = heads[slot] == 0;
+            keys[slot] = hashes[i];
+            postings[postingCount] = audioId << OFFSET_BITS | Math.min(offsets[i], OFFSET_MASK);
+            next[postingCount] = heads[slot];
+            heads[slot] = ++postingCount;
+            lengths[slot]++;
+            if (newHash && ++distinctHashes * 2 > keys.length) {
+                resize();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the tracks that share many hashes with a fingerprint at a consistent time shift.
+     *
+     * @param hashes The hashes of the query.
+     * @param offsets The frame of each hash.
+     * @param excludeAudioId A track to leave out of the result, usually the query itself; -1 for none.
+     * @param maxPostingsPerHash Hashes with more postings than this are ignored as uninformative.
+     * @param minVotes The fewest matching hashes for a track to be returned.
+     * @param limit The most matches to return.
+     * @return The matches, most votes first.
+     */
+    public List<Match> query(int[] hashes, int[] offsets, long excludeAudioId, int maxPostingsPerHash, int minVotes, int limit) {
+        Map<Long, Integer> votes = new HashMap<>();
+        for (int i = 0; i < hashes.length; i++) {
+            int slot = find(hashes[i]);
+            if (slot < 0 || lengths[slot] > maxPostingsPerHash) {
+                continue;
+            }
+            for (int p = heads[slot]; p != 0; p = next[p - 1]) {
+                long posting = postings[p - 1];
+                long audioId = posting >>> OFFSET_BITS;
+                if (audioId == excludeAudioId) {
+                    continue;
+                }
+                int shift = Math.floorDiv(offsets[i] - (int) (posting & OFFSET_MASK), SHIFT_QUANTUM);
+                votes.merge(audioId << 32 | (shift & 0xFFFFFFFFL), 1, Integer::sum);
+            }
+        }
+        Map<Long, Match> best = new HashMap<>();
+        votes.forEach((key, count) -> {
+            if (count >= minVotes) {
+                Match match = new Match(key >>> 32, count, key.intValue() * SHIFT_QUANTUM);
+                best.merge(match.audioId(), match, (a, b) -> a.votes() >= b.votes() ? a : b);
+            }
+        });
+        List<Match> matches = new ArrayList<>(best.values());
+        matches.sort((a, b) -> Integer.compare(b.votes(), a.votes()));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * Tells whether a track is indexed.
+     *
+     * @param audioId The ID of the track.
+     * @return true if its hashes were added.
+     */
+    public boolean contains(long audioId) {
+        return tracks.contains(audioId);
+    }
+
+    /**
+     * Gets the number of indexed tracks.
+     * @return The track count.
+     */
+    public long getTrackCount() {
+        return tracks.cardinality();
+    }
+
+    /**
+     * Gets the number of postings over all hashes.
+     * @return The posting count.
+     */
+    public long getPostingCount() {
+        return postingCount;
+    }
+
+    /**
+     * Gets the number of distinct hashes.
+     * @return The distinct hash count.
+     */
+    public long getDistinctHashes() {
+        return distinctHashes;
+    }
+
+    /**
+     * Gets the approximate memory used by the index.
+     * @return The size in bytes.
+     */
+    public long sizeInBytes() {
+        return 12L * keys.length + 12L * postings.length + tracks.sizeInBytes();
+    }
+
+    private int slotFor(int hash) {
+        int slot = hash & mask; // Hashes are already well mixed.
+        while (heads[slot] != 0 && keys[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int find(int hash) {
+        int slot = slotFor(hash);
+        return heads[slot] == 0 ? -1 : slot;
+    }
+
+    private void resize() {
+        // add() keeps distinctHashes <= MAX_HASHES, so the grown table has at most 2^30 slots.
+        int[] oldKeys = keys;
+        int[] oldHeads = heads;
+        int[] oldLengths = lengths;
+        keys = new int[oldKeys.length * 2];
+        heads = new int[oldKeys.length * 2];
+        lengths = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldHeads[i] != 0) {
+                int slot = slotFor(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+                lengths[slot] = oldLengths[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package org.trucker.musicbox.util;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel for scheduling millions of long IDs (e.g. user IDs) to fire at given deadlines.
+ * Each level has 64 slots; a slot on level {@code L} spans {@code 64^L} ticks, so five levels of one-second ticks cover
+ * about 34 years. An entry is stored on the lowest level whose slot window contains its deadline, and is moved down
+ * one level ("cascaded") when the clock reaches the start of that window. Scheduling is O(1), each tick costs O(1) plus
+ * the entries that cascade or fire, and entries are kept in flat primitive arrays (16 bytes each).
+ * All public methods are synchronized; expired IDs are collected and handed back so callers can act on them outside the lock.
+ */
+public class HierarchicalTimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 5;
+
+    private final long tickMillis;
+    private final Bucket[][] wheels = new Bucket[LEVELS][SLOTS];
+    private final Bucket overdue = new Bucket(); // Entries whose deadline has been reached but not yet collected.
+    private long currentTick;
+    private long size;
+
+    /**
+     * Creates a wheel whose clock starts at the given time.
+     *
+     * @param tickMillis The duration of one tick; deadlines are rounded up to a whole tick.
+     * @param startMillis The epoch millis the wheel starts at.
+     */
+    public HierarchicalTimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = startMillis / tickMillis;
+        for (Bucket[] wheel : wheels) {
+            for (int i = 0; i < SLOTS; i++) {
+                wheel[i] = new Bucket();
+            }
+        }
+    }
+
+    /**
+     * Schedules an ID to fire at the given deadline. Deadlines in the past fire on the next {@link #advance}.
+     *
+     * @param id The ID to fire.
+     * @param deadlineMillis The epoch millis at which the ID fires.
+     */
+    public synchronized void schedule(long id, long deadlineMillis) {
+        long deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis; // Never fire early.
+        place(id, deadlineTick);
+        size++;
+    }
+
+    /**
+     * Advances the clock to the given time and collects every ID whose deadline has been reached.
+     *
+     * @param nowMillis The current epoch millis.
+     * @param expired Receives the IDs that fired, in deadline order per tick.
+     * @return The number of IDs that fired.
+     */
+    public synchronized int advance(long nowMillis, LongList expired) {
+        long targetTick = nowMillis / tickMillis;
+        int fired = drain(overdue, expired);
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Cascade from the highest level whose window starts at this tick down to level 1.
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                long levelMask = (1L << (SLOT_BITS * level)) - 1;
+                if ((currentTick & levelMask) == 0) {
+                    Bucket bucket = wheels[level][(int) ((currentTick >>> (SLOT_BITS * level)) & SLOT_MASK)];
+                    cascade(bucket);
+                }
+            }
+            fired += drain(wheels[0][(int) (currentTick & SLOT_MASK)], expired);
+            fired += drain(overdue, expired);
+        }
+        return fired;
+    }
+
+    /**
+     * Gets the number of scheduled IDs that have not fired yet.
+     * @return The number of pending IDs.
+     */
+    public synchronized long size() {
+        return size;
+    }
+
+    private void place(long id, long deadlineTick) {
+        if (deadlineTick <= currentTick) {
+            overdue.add(id, deadlineTick);
+            return;
+        }
+        for (int level = 0; level < LEVELS; level++) {
+            int shift = SLOT_BITS * level;
+            long distance = (deadlineTick >>> shift) - (currentTick >>> shift);
+            if (distance < SLOTS) {
+                wheels[level][(int) ((deadlineTick >>> shift) & SLOT_MASK)].add(id, deadlineTick);
+                return;
+            }
+        }
+        // Beyond the top level's range: park in the farthest top-level slot; it is re-placed each time it cascades.
+        int shift = SLOT_BITS * (LEVELS - 1);
+        wheels[LEVELS - 1][(int) (((currentTick >>> shift) + SLOT_MASK) & SLOT_MASK)].add(id, deadlineTick);
+    }
+
+    private void cascade(Bucket bucket) {
+        int count = bucket.size;
+        if (count == 0) {
+            return;
+        }
+        // Detach the arrays instead of copying them; entries never cascade back into the slot being emptied.
+        long[] ids = bucket.ids;
+        long[] deadlines = bucket.deadlines;
+        bucket.ids = Bucket.EMPTY;
+        bucket.deadlines = Bucket.EMPTY;
+        bucket.size = 0;
+        for (int i = 0; i < count; i++) {
+            place(ids[i], deadlines[i]);
+        }
+    }
+
+    private int drain(Bucket bucket, LongList expired) {
+        int count = bucket.size;
+        for (int i = 0; i < count; i++) {
+            expired.add(bucket.ids[i]);
+        }
+        bucket.clear();
+        size -= count;
+        return count;
+    }
+
+    /**
+     * Growable pair of primitive arrays holding the entries of one slot.
+     */
+    private static final class Bucket {
+        private static final long[] EMPTY = new long[0];
+
+        long[] ids = EMPTY;
+        long[] deadlines = EMPTY;
+        int size;
+
+        void add(long id, long deadlineTick) {
+            if (size == ids.length) {
+                int capacity = Math.max(8, size * 2);
+                ids = Arrays.copyOf(ids, capacity);
+                deadlines = Arrays.copyOf(deadlines, capacity);
+            }
+            ids[size] = id;
+            deadlines[size] = deadlineTick;
+            size++;
+        }
+
+        void clear() {
+            size = 0;
+            if (ids.length > 1024) {
+                ids = EMPTY; // Release memory held by a slot that was unusually full.
+                deadlines = EMPTY;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.trucker.musicbox.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the combined throughput of background I/O, such as file migrations, in bytes per second.
+ * Callers reserve their bytes before transferring them and sleep until their reservation starts, so several threads
+ * share one budget and each transfer is paced in chunks rather than throttled after the fact. Bandwidth left unused
+ * while idle is not saved up beyond one second, which bounds the burst after a pause.
+ */
+public class IoRateLimiter {
+
+    private static final long MAX_IDLE_CREDIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final double nanosPerByte;
+    private long nextFreeNanos; // When the bytes reserved so far have all had their time slot.
+    private boolean started;
+
+    /**
+     * Creates a limiter.
+     *
+     * @param bytesPerSecond The sustained throughput allowed.
+     */
+    public IoRateLimiter(long bytesPerSecond) {
+        if (bytesPerSecond <= 0) {
+            throw new IllegalArgumentException("bytesPerSecond must be positive");
+        }
+        this.nanosPerByte = 1e9 / bytesPerSecond;
+    }
+
+    /**
+     * Reserves bandwidth for a transfer.
+     *
+     * @param bytes The number of bytes about to be transferred.
+     * @param nowNanos The current {@link System#nanoTime()}.
+     * @return How many nanoseconds to wait before transferring them; 0 to go ahead at once.
+     */
+    public synchronized long reserve(long bytes, long nowNanos) {
+        long start = started ? Math.max(nextFreeNanos, nowNanos - MAX_IDLE_CREDIT_NANOS) : nowNanos - MAX_IDLE_CREDIT_NANOS;
+        started = true;
+        nextFreeNanos = start + (long) (bytes * nanosPerByte);
+        return Math.max(0, start - nowNanos);
+    }
+
+    /**
+     * Reserves bandwidth for a transfer and waits for it.
+     *
+     * @param bytes The number of bytes about to be transferred.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public void acquire(long bytes) throws InterruptedException {
+        long waitNanos = reserve(bytes, System.nanoTime());
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.trucker.musicbox.util;
+
+import java.util.Arrays;
+
+/**
+ * Minimal growable list of primitive longs, used to pass batches of IDs around without boxing.
+ * This class is not thread-safe.
+ */
+public class LongList {
+
+    private long[] values;
+    private int size;
+
+    /**
+     * Creates an empty list.
+     *
+     * @param initialCapacity The number of values the list can hold before growing.
+     */
+    public LongList(int initialCapacity) {
+        this.values = new long[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * Appends a value.
+     *
+     * @param value The value to append.
+     */
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Gets the value at the given index.
+     *
+     * @param index The index, between 0 and {@code size() - 1}.
+     * @return The value.
+     */
+    public long get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return values[index];
+    }
+
+    /**
+     * Gets the number of values.
+     * @return The number of values.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes all values while keeping the allocated capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Copies the values in {@code [from, to)} into a new array.
+     *
+     * @param from The first index, inclusive.
+     * @param to The last index, exclusive.
+     * @return The copied values.
+     */
+    public long[] toArray(int from, int to) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") out of bounds for size " + size);
+        }
+        return Arrays.copyOfRange(values, from, to);
+    }
+}
@@ -0,0 +1,213 @@
+package org.trucker.musicbox.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive long keys to primitive long values.
+ * It stores entries in two flat arrays with linear probing, so lookups and updates never box or allocate,
+ * and memory stays at roughly 16 bytes per slot. Entity IDs are always positive, so the key 0 is reserved
+ * to mark free slots and cannot be stored.
+ * This class is not thread-safe; callers are expected to guard it themselves.
+ */
+public class LongLongHashMap {
+
+    private static final long FREE = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    /**
+     * Creates a map sized for the expected number of entries.
+     *
+     * @param expectedSize The number of entries the map should hold without resizing.
+     */
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Gets the value mapped to the key.
+     *
+     * @param key The key to look up; must not be 0.
+     * @param defaultValue The value returned when the key is absent.
+     * @return The mapped value, or {@code defaultValue} if the key is absent.
+     */
+    public long get(long key, long defaultValue) {
+        int index = indexOf(key);
+        return index < 0 ? defaultValue : values[index];
+    }
+
+    /**
+     * Checks whether the key is present.
+     *
+     * @param key The key to look up; must not be 0.
+     * @return true if the key is present.
+     */
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Maps the key to the value, replacing any previous mapping.
+     *
+     * @param key The key; must not be 0.
+     * @param value The value.
+     */
+    public void put(long key, long value) {
+        checkKey(key);
+        int index = slot(key);
+        while (keys[index] != FREE) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Adds the delta to the value mapped to the key, inserting the delta if the key is absent.
+     *
+     * @param key The key; must not be 0.
+     * @param delta The amount to add.
+     * @return The new value.
+     */
+    public long addTo(long key, long delta) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            return values[index] += delta;
+        }
+        put(key, delta);
+        return delta;
+    }
+
+    /**
+     * Removes the mapping for the key.
+     *
+     * @param key The key; must not be 0.
+     * @param defaultValue The value returned when the key is absent.
+     * @return The removed value, or {@code defaultValue} if the key was absent.
+     */
+    public long remove(long key, long defaultValue) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return defaultValue;
+        }
+        long removed = values[index];
+        shiftBack(index);
+        size--;
+        return removed;
+    }
+
+    /**
+     * Removes all mappings while keeping the allocated capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of mappings.
+     * @return The number of mappings.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every mapping. The map must not be modified while iterating.
+     *
+     * @param consumer The callback receiving each key and value.
+     */
+    public void forEach(LongLongConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != FREE) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    /**
+     * Callback for {@link #forEach(LongLongConsumer)}.
+     */
+    @FunctionalInterface
+    public interface LongLongConsumer {
+        void accept(long key, long value);
+    }
+
+    private int indexOf(long key) {
+        checkKey(key);
+        int index = slot(key);
+        while (keys[index] != FREE) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Backward-shift deletion: moves later entries of the probe chain into the hole so no tombstones are needed.
+     */
+    private void shiftBack(int hole) {
+        int index = hole;
+        while (true) {
+            index = (index + 1) & mask;
+            long key = keys[index];
+            if (key == FREE) {
+                break;
+            }
+            int home = slot(key);
+            // Move the entry only if its home slot is not between the hole and its current position.
+            boolean movable = hole <= index ? (home <= hole || home > index) : (home <= hole && home > index);
+            if (movable) {
+                keys[hole] = key;
+                values[hole] = values[index];
+                hole = index;
+            }
+        }
+        keys[hole] = FREE;
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential IDs across the table.
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(newCapacity);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != FREE) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static void checkKey(long key) {
+        if (key == FREE) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.trucker.musicbox.util;
+
+import java.util.Arrays;
+
+/**
+ * Streaming EBU R128 (ITU-R BS.1770) integrated loudness and sample peak meter.
+ * Every channel is K-weighted (a high shelf for the head's acoustic effect, then a high-pass), its mean square is taken
+ * over 100 ms blocks, and 400 ms gating blocks overlapping by 75% are gated at -70 LUFS and then 10 LU below the
+ * ungated mean. Channels are summed with weight 1, which is exact for mono and stereo.
+ *
+ * <p>The K-weighting filters are recursive, so they are run on {@link AnalysisKernels#lanes()} consecutive segments of
+ * the signal at once, one per lane. Each segment is preceded by the 100 ms before it to bring the filter state in line
+ * with a continuous run; the high-pass has settled to within 1e-7 after that long, far below what the gating can see.
+ */
+public class LoudnessMeter {
+
+    private static final double ABSOLUTE_GATE_LUFS = -70;
+    private static final double RELATIVE_GATE_LU = -10;
+    private static final int SEGMENT_BLOCKS = 10; // 100 ms blocks per lane and chunk: one second of audio per lane.
+
+    private final AnalysisKernels kernels;
+    private final int channels;
+    private final int lanes;
+    private final int blockFrames;
+    private final int segmentFrames;
+    private final int chunkFrames;
+    private final float[] coefficients;
+
+    private final float[][] buffers; // Per channel: the warm-up frames, then the chunk being filled.
+    private int buffered;
+    private final float[] interleaved;
+    private final double[] laneSums;
+
+    private double[] blockPower = new double[256]; // Mean square of each 100 ms block, summed over the channels.
+    private int blocks;
+    private float peak;
+    private boolean finished;
+
+    /**
+     * Creates a meter.
+     *
+     * @param sampleRate The sample rate, in Hz.
+     * @param channels The number of channels.
+     * @param kernels The inner loops to use.
+     */
+    public LoudnessMeter(float sampleRate, int channels, AnalysisKernels kernels) {
+        this.kernels = kernels;
+        this.channels = channels;
+        this.lanes = kernels.lanes();
+        this.blockFrames = Math.max(1, Math.round(sampleRate / 10));
+        this.segmentFrames = SEGMENT_BLOCKS * blockFrames;
+        this.chunkFrames = lanes * segmentFrames;
+        this.coefficients = kWeighting(sampleRate);
+        this.buffers = new float[channels][blockFrames + chunkFrames];
+        this.interleaved = new float[(blockFrames + segmentFrames) * lanes];
+        this.laneSums = new double[lanes * SEGMENT_BLOCKS];
+    }
+
+    /**
+     * Adds a block of audio.
+     *
+     * @param samples The samples of each channel, between -1 and 1.
+     * @param frames The number of samples per channel.
+     */
+    public void add(float[][] samples, int frames) {
+        for (int c = 0; c < channels; c++) {
+            peak = Math.max(peak, kernels.maxAbs(samples[c], 0, frames));
+        }
+        int done = 0;
+        while (done < frames) {
+            int n = Math.min(frames - done, chunkFrames - buffered);
+            for (int c = 0; c < channels; c++) {
+                System.arraycopy(samples[c], done, buffers[c], blockFrames + buffered, n);
+            }
+            buffered += n;
+            done += n;
+            if (buffered == chunkFrames) {
+                processChunk(lanes * SEGMENT_BLOCKS);
+            }
+        }
+    }
+
+    /**
+     * Measures the audio added so far, ignoring a last incomplete 100 ms block. No audio may be added afterwards.
+     * @return The integrated loudness in LUFS, or negative infinity if the audio is too short or silent.
+     */
+    public double integratedLoudness() {
+        if (!finished) {
+            finished = true;
+            int complete = buffered / blockFrames;
+            for (float[] buffer : buffers) {
+                Arrays.fill(buffer, blockFrames + buffered, buffer.length, 0f);
+            }
+            processChunk(complete);
+        }
+        double gatedSum = 0;
+        int gated = 0;
+        for (int j = 0; j + 4 <= blocks; j++) {
+            double power = gatingBlockPower(j);
+            if (loudness(power) > ABSOLUTE_GATE_LUFS) {
+                gatedSum += power;
+                gated++;
+            }
+        }
+        if (gated == 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double threshold = loudness(gatedSum / gated) + RELATIVE_GATE_LU;
+        double sum = 0;
+        int count = 0;
+        for (int j = 0; j + 4 <= blocks; j++) {
+            double power = gatingBlockPower(j);
+            double loudness = loudness(power);
+            if (loudness > ABSOLUTE_GATE_LUFS && loudness > threshold) {
+                sum += power;
+                count++;
+            }
+        }
+        return count == 0 ? Double.NEGATIVE_INFINITY : loudness(sum / count);
+    }
+
+    /**
+     * Gets the largest absolute sample value seen.
+     * @return The sample peak in dBFS; negative infinity for silence.
+     */
+    public double samplePeakDbfs() {
+        return 20 * Math.log10(peak);
+    }
+
+    private void processChunk(int completeBlocks) {
+        if (blocks + completeBlocks > blockPower.length) {
+            blockPower = Arrays.copyOf(blockPower, Math.max(blockPower.length * 2, blocks + completeBlocks));
+        }
+        int laneFrames = blockFrames + segmentFrames;
+        for (float[] buffer : buffers) {
+            for (int lane = 0; lane < lanes; lane++) {
+                int from = lane * segmentFrames; // The segment starts one warm-up block after this.
+                for (int t = 0, i = lane; t < laneFrames; t++, i += lanes) {
+                    interleaved[i] = buffer[from + t];
+                }
+            }
+            kernels.filterSquares(interleaved, laneFrames, coefficients, blockFrames, blockFrames, laneSums);
+            for (int block = 0; block < completeBlocks; block++) {
+                blockPower[blocks + block] += laneSums[block] / blockFrames; // Lane segments are consecutive.
+            }
+            System.arraycopy(buffer, chunkFrames, buffer, 0, blockFrames); // The chunk's last block warms up the next chunk.
+        }
+        blocks += completeBlocks;
+        buffered = 0;
+    }
+
+    private double gatingBlockPower(int first) {
+        return (blockPower[first] + blockPower[first + 1] + blockPower[first + 2] + blockPower[first + 3]) / 4;
+    }
+
+    private static double loudness(double power) {
+        return -0.691 + 10 * Math.log10(power);
+    }
+
+    // The BS.1770 filters, specified at 48 kHz, recomputed for the actual rate through the bilinear transform.
+    private static float[] kWeighting(float sampleRate) {
+        double f0 = 1681.974450955533;
+        double gain = 3.999843853973347;
+        double q = 0.7071752369554196;
+        double k = Math.tan(Math.PI * f0 / sampleRate);
+        double vh = Math.pow(10, gain / 20);
+        double vb = Math.pow(vh, 0.4996667741545416);
+        double a0 = 1 + k / q + k * k;
+        float[] coefficients = new float[10];
+        coefficients[0] = (float) ((vh + vb * k / q + k * k) / a0);
+        coefficients[1] = (float) (2 * (k * k - vh) / a0);
+        coefficients[2] = (float) ((vh - vb * k / q + k * k) / a0);
+        coefficients[3] = (float) (2 * (k * k - 1) / a0);
+        coefficients[4] = (float) ((1 - k / q + k * k) / a0);
+
+        f0 = 38.13547087602444;
+        q = 0.5003270373238773;
+        k = Math.tan(Math.PI * f0 / sampleRate);
+        a0 = 1 + k / q + k * k;
+        coefficients[5] = 1;
+        coefficients[6] = -2;
+        coefficients[7] = 1;
+        coefficients[8] = (float) (2 * (k * k - 1) / a0);
+        coefficients[9] = (float) ((1 - k / q + k * k) / a0);
+        return coefficients;
+    }
+}
@@ -0,0 +1,127 @@
+package org.trucker.musicbox.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Bounded multi-producer / single-consumer ring buffer of preallocated, reusable slots.
+ * A producer claims a sequence with a CAS on the shared producer sequence, writes its data into the slot of that
+ * sequence and publishes it; the single consumer reads published slots in order and then releases them back to the
+ * producers. Slots are created once up front and overwritten in place, so an element type made of primitive fields
+ * publishes without allocating. {@link #claim} never blocks: when the buffer is full the producer decides what to do.
+ *
+ * @param <S> The slot type; its fields are written by one producer, then read by the consumer.
+ */
+public class MpscRingBuffer<S> {
+
+    private final int capacity;
+    private final int mask;
+
+    private final Object[] slots; // Preallocated and reused; only the published sequence decides who may touch one.
+    private final AtomicLongArray published; // Sequence number last published in each slot.
+
+    private final AtomicLong producerSequence = new AtomicLong(); // Next sequence to be claimed by a producer.
+    private volatile long consumerSequence; // Next sequence to be read by the consumer.
+
+    /**
+     * Creates a ring buffer able to hold at least the given number of elements.
+     *
+     * @param requestedCapacity The minimum capacity; rounded up to the next power of two.
+     * @param slotFactory Creates the slots, once each.
+     */
+    public MpscRingBuffer(int requestedCapacity, Supplier<S> slotFactory) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.mask = capacity - 1;
+        this.slots = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = slotFactory.get();
+            published.set(i, -1L);
+        }
+    }
+
+    /**
+     * Claims the next slot without blocking. A claimed sequence must be published, or the consumer stalls on it.
+     *
+     * @return The claimed sequence, or -1 if the buffer is full.
+     */
+    public long claim() {
+        long sequence;
+        do {
+            sequence = producerSequence.get();
+            if (sequence - consumerSequence >= capacity) {
+                return -1; // Buffer full: the consumer has not released this slot yet.
+            }
+        } while (!producerSequence.compareAndSet(sequence, sequence + 1));
+        return sequence;
+    }
+
+    /**
+     * Gets the slot of a claimed sequence, for the claiming producer to write.
+     *
+     * @param sequence The sequence returned by {@link #claim}.
+     * @return The slot.
+     */
+    @SuppressWarnings("unchecked")
+    public S slot(long sequence) {
+        return (S) slots[(int) (sequence & mask)];
+    }
+
+    /**
+     * Hands a written slot to the consumer.
+     *
+     * @param sequence The sequence returned by {@link #claim}.
+     */
+    public void publish(long sequence) {
+        published.set((int) (sequence & mask), sequence); // Volatile write makes the slot's fields visible to the consumer.
+    }
+
+    /**
+     * Drains up to {@code maxElements} published slots into the sink. Must only be called from a single consumer thread.
+     * The sink must copy what it needs: a slot is released to the producers once the drain returns.
+     *
+     * @param sink Receives the slots in publication order.
+     * @param maxElements The largest number of slots to drain.
+     * @return The number of slots drained.
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super S> sink, int maxElements) {
+        long sequence = consumerSequence;
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) (sequence & mask);
+            if (published.get(index) != sequence) {
+                break; // Next slot is claimed but not yet written, or nothing more to read.
+            }
+            sink.accept((S) slots[index]);
+            sequence++;
+            drained++;
+        }
+        if (drained > 0) {
+            consumerSequence = sequence; // Release the drained slots to the producers.
+        }
+        return drained;
+    }
+
+    /**
+     * Gets the approximate number of elements waiting to be drained.
+     * @return The current backlog size.
+     */
+    public int size() {
+        long size = producerSequence.get() - consumerSequence;
+        return (int) Math.max(0, Math.min(size, capacity));
+    }
+
+    /**
+     * Gets the capacity of the buffer.
+     * @return The number of slots, always a power of two.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
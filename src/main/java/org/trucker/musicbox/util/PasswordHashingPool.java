@@ -0,0 +1,224 @@
+package org.trucker.musicbox.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.trucker.musicbox.exception.ServiceBusyException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntToLongFunction;
+import java.util.regex.Pattern;
+
+/**
+ * Hashes and verifies passwords with bcrypt on a dedicated, bounded thread pool.
+ * Request threads hand the work to a fixed number of hashing threads through a bounded queue and wait for the result;
+ * when the queue is full the call is rejected at once with a {@link ServiceBusyException} (503 with Retry-After) instead
+ * of piling up more CPU-bound work, so a registration or login spike degrades into fast rejections rather than starving
+ * other requests. The bcrypt cost is given, or calibrated so that one hash takes about the target latency on this hardware.
+ * Not a Spring bean itself: each application exposes it through its own {@code PasswordHashingService}.
+ */
+public class PasswordHashingPool {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingPool.class);
+
+    private static final Pattern BCRYPT_PATTERN = Pattern.compile("\\A\\$2[aby]?\\$\\d\\d\\$[./0-9A-Za-z]{53}");
+    private static final int MIN_COST = 4;
+    private static final int MAX_COST = 31;
+
+    /**
+     * The bcrypt cost (log2 rounds) in use.
+     */
+    private final int cost;
+
+    /**
+     * How long a request thread waits for its hash before giving up.
+     */
+    private final long waitTimeoutMillis;
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Creates the pool, calibrating the cost first if none is given.
+     *
+     * @param cost The bcrypt cost, or 0 to calibrate now.
+     * @param targetMillis The target latency of one hash used for calibration.
+     * @param threads The number of hashing threads, or 0 for one per available processor.
+     * @param queueCapacity The number of operations that may wait for a hashing thread.
+     * @param waitTimeoutMillis How long a request thread waits for its hash.
+     */
+    public PasswordHashingPool(int cost, long targetMillis, int threads, int queueCapacity, long waitTimeoutMillis) {
+        if (cost <= 0) {
+            cost = calibrate(targetMillis);
+            log.info("Calibrated bcrypt cost {} for a target of {} ms per hash", cost, targetMillis);
+        }
+        this.cost = cost;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.encoder = new BCryptPasswordEncoder(cost);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Stops the hashing threads.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hashes a password on the hashing pool.
+     *
+     * @param rawPassword The password to hash.
+     * @return The bcrypt hash.
+     * @throws ServiceBusyException if the hashing queue is full or the hash did not complete in time.
+     */
+    public String encode(CharSequence rawPassword) {
+        String hash = run(() -> encoder.encode(rawPassword));
+        hashed.increment();
+        return hash;
+    }
+
+    /**
+     * Verifies a password against a stored hash on the hashing pool.
+     *
+     * @param rawPassword The password to check.
+     * @param encodedPassword The stored bcrypt hash.
+     * @return true if the password matches.
+     * @throws ServiceBusyException if the hashing queue is full or the check did not complete in time.
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        boolean matches = run(() -> encoder.matches(rawPassword, encodedPassword));
+        verified.increment();
+        return matches;
+    }
+
+    /**
+     * Tells whether a stored hash was made with a lower cost than the current one and should be re-hashed.
+     *
+     * @param encodedPassword The stored bcrypt hash.
+     * @return true if the hash should be upgraded.
+     */
+    public boolean upgradeEncoding(String encodedPassword) {
+        return encoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Checks whether a value already is a bcrypt hash, so saving an entity twice does not hash its password twice.
+     *
+     * @param password The stored or submitted password.
+     * @return true if the value is a bcrypt hash.
+     */
+    public boolean isHashed(String password) {
+        return password != null && BCRYPT_PATTERN.matcher(password).matches();
+    }
+
+    /**
+     * Gets the hashing pool counters and configuration.
+     *
+     * @return A map of counter names to values.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("cost", (long) cost);
+        stats.put("threads", (long) executor.getMaximumPoolSize());
+        stats.put("queued", (long) executor.getQueue().size());
+        stats.put("hashed", hashed.sum());
+        stats.put("verified", verified.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    /**
+     * Finds the highest bcrypt cost whose hash time stays within the target, timing each cost on the calling thread.
+     * Each step doubles the work, so the result lies between half the target and the target.
+     *
+     * @param targetMillis The target latency of one hash, in milliseconds.
+     * @return The calibrated cost, at least {@code 4}.
+     */
+    public static int calibrate(long targetMillis) {
+        return calibrate(targetMillis, PasswordHashingPool::measureMillis);
+    }
+
+    /**
+     * Finds the highest bcrypt cost whose hash time stays within the target, stopping at the first cost that exceeds it.
+     *
+     * @param targetMillis The target latency of one hash, in milliseconds.
+     * @param hashMillis The hash time in milliseconds for a cost.
+     * @return The calibrated cost, at least {@code 4}.
+     */
+    static int calibrate(long targetMillis, IntToLongFunction hashMillis) {
+        int best = MIN_COST;
+        for (int candidate = MIN_COST; candidate <= MAX_COST; candidate++) {
+            long millis = hashMillis.applyAsLong(candidate);
+            log.debug("bcrypt cost {} takes {} ms", candidate, millis);
+            if (millis > targetMillis) {
+                break;
+            }
+            best = candidate;
+        }
+        return best;
+    }
+
+    /**
+     * Times one hash at the given cost, keeping the fastest of three runs to filter out JIT and scheduling noise.
+     *
+     * @param cost The bcrypt cost.
+     * @return The hash time in milliseconds.
+     */
+    public static long measureMillis(int cost) {
+        BCryptPasswordEncoder candidate = new BCryptPasswordEncoder(cost);
+        long fastest = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            candidate.encode("calibration-password");
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return TimeUnit.NANOSECONDS.toMillis(fastest);
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new ServiceBusyException("Too many password operations in progress");
+        }
+        try {
+            return future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            future.cancel(true);
+            rejected.increment();
+            throw new ServiceBusyException("Password operation timed out");
+        } catch (InterruptedException ex) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for a password operation");
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+        }
+    }
+}
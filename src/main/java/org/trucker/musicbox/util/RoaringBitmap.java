@@ -0,0 +1,376 @@
+package org.trucker.musicbox.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Compressed bitmap of unsigned 32-bit values in the style of Roaring bitmaps (Chambi, Lemire et al.).
+ * Values are split by their high 16 bits into chunks; each chunk is stored in a sorted {@code char[]} while it holds at most
+ * 4096 values (2 bytes per value), and in a fixed 8 KB bitset once it is denser. Dense ranges of user IDs therefore cost
+ * about one bit per ID, and sparse ones two bytes per ID. Membership tests are a binary search over chunk keys plus one
+ * lookup in the chunk; intersections work chunk by chunk and never expand to individual values in the dense case.
+ * This class is not thread-safe.
+ */
+public class RoaringBitmap {
+
+    public static final long MAX_VALUE = 0xFFFF_FFFFL;
+
+    private static final int ARRAY_MAX = 4096; // Above this an array chunk is larger than a bitset chunk.
+
+    private char[] keys = new char[4]; // High 16 bits of each chunk, sorted.
+    private Container[] containers = new Container[4];
+    private int size; // Number of chunks.
+
+    /**
+     * Adds a value.
+     *
+     * @param value A value between 0 and {@link #MAX_VALUE}.
+     * @return true if the value was not present before.
+     */
+    public boolean add(long value) {
+        checkValue(value);
+        char key = (char) (value >>> 16);
+        char low = (char) value;
+        int index = Arrays.binarySearch(keys, 0, size, key);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, key, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        containers[index] = container.add(low);
+        return containers[index].cardinality() > before;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value A value between 0 and {@link #MAX_VALUE}.
+     * @return true if the value was present.
+     */
+    public boolean remove(long value) {
+        checkValue(value);
+        int index = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        int before = container.cardinality();
+        Container updated = container.remove((char) value);
+        if (updated.cardinality() == 0) {
+            removeChunk(index);
+        } else {
+            containers[index] = updated;
+        }
+        return updated.cardinality() < before;
+    }
+
+    /**
+     * Checks whether a value is present. Values outside the supported range are never present.
+     *
+     * @param value The value to look up.
+     * @return true if the value is present.
+     */
+    public boolean contains(long value) {
+        if (value < 0 || value > MAX_VALUE) {
+            return false;
+        }
+        int index = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+
+    /**
+     * Computes the intersection of this bitmap with another one.
+     *
+     * @param other The other bitmap.
+     * @return A new bitmap holding the values present in both.
+     */
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container intersection = containers[i].and(other.containers[j]);
+                if (intersection.cardinality() > 0) {
+                    result.insertChunk(result.size, keys[i], intersection);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of values in the bitmap.
+     * @return The cardinality.
+     */
+    public long cardinality() {
+        long cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * Visits every value in ascending order.
+     *
+     * @param consumer The callback receiving each value.
+     */
+    public void forEach(LongConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach((long) keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * Estimates the memory used by the bitmap's data.
+     * @return The approximate size in bytes.
+     */
+    public long sizeInBytes() {
+        long bytes = (long) keys.length * Character.BYTES + (long) containers.length * 8;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private void insertChunk(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void removeChunk(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        size--;
+        containers[size] = null;
+    }
+
+    private static void checkValue(long value) {
+        if (value < 0 || value > MAX_VALUE) {
+            throw new IllegalArgumentException("Value " + value + " is outside the supported range 0.." + MAX_VALUE);
+        }
+    }
+
+    /**
+     * Storage for the low 16 bits of the values of one chunk. Mutations may return a different container type.
+     */
+    private abstract static class Container {
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        abstract boolean contains(char value);
+
+        abstract int cardinality();
+
+        abstract Container and(Container other);
+
+        abstract void forEach(long high, LongConsumer consumer);
+
+        abstract long sizeInBytes();
+    }
+
+    /**
+     * Sparse chunk: sorted array of the low 16 bits.
+     */
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.min(cardinality, other.cardinality())];
+            int count = 0;
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            }
+            return new ArrayContainer(result, count);
+        }
+
+        @Override
+        void forEach(long high, LongConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16L + (long) values.length * Character.BYTES;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.set(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * Dense chunk: 65536-bit bitset.
+     */
+    private static final class BitmapContainer extends Container {
+        final long[] words = new long[1024];
+        int cardinality;
+
+        void set(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before | (1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality++;
+            }
+        }
+
+        @Override
+        Container add(char value) {
+            set(value);
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long before = words[value >>> 6];
+            words[value >>> 6] = before & ~(1L << value);
+            if (before != words[value >>> 6]) {
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX ? toArray() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            BitmapContainer bitmap = (BitmapContainer) other;
+            BitmapContainer result = new BitmapContainer();
+            for (int i = 0; i < words.length; i++) {
+                result.words[i] = words[i] & bitmap.words[i];
+                result.cardinality += Long.bitCount(result.words[i]);
+            }
+            return result.cardinality <= ARRAY_MAX ? result.toArray() : result;
+        }
+
+        @Override
+        void forEach(long high, LongConsumer consumer) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(high | ((long) i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16L + (long) words.length * Long.BYTES;
+        }
+
+        ArrayContainer toArray() {
+            char[] values = new char[Math.max(4, cardinality)];
+            int count = 0;
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[count++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, count);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.trucker.musicbox.util;
+
+/**
+ * Plain-loop {@link AnalysisKernels}, the fallback when the Vector API is not available and the baseline it is
+ * benchmarked against. Filters in the same float arithmetic as {@link VectorAnalysisKernels}, one lane after the other;
+ * {@link #sumOfSquares} and {@link #dot} run over whole tracks and accumulate in double.
+ */
+public class ScalarAnalysisKernels implements AnalysisKernels {
+
+    private final int lanes;
+
+    /**
+     * Creates the kernels.
+     *
+     * @param lanes The number of lanes of the interleaved signals passed to {@link #filterSquares}.
+     */
+    public ScalarAnalysisKernels(int lanes) {
+        this.lanes = lanes;
+    }
+
+    @Override
+    public int lanes() {
+        return lanes;
+    }
+
+    @Override
+    public void filterSquares(float[] interleaved, int frames, float[] coefficients, int skipFrames, int blockFrames, double[] blockSums) {
+        int blocks = (frames - skipFrames) / blockFrames;
+        for (int lane = 0; lane < lanes; lane++) {
+            float z1 = 0, z2 = 0, w1 = 0, w2 = 0; // Transposed direct form II state of both sections.
+            float sum = 0;
+            int block = 0;
+            int left = blockFrames; // Frames until the current block is complete.
+            for (int frame = 0; frame < frames; frame++) {
+                float x = interleaved[frame * lanes + lane];
+                float y = coefficients[0] * x + z1;
+                z1 = coefficients[1] * x - coefficients[3] * y + z2;
+                z2 = coefficients[2] * x - coefficients[4] * y;
+                float out = coefficients[5] * y + w1;
+                w1 = coefficients[6] * y - coefficients[8] * out + w2;
+                w2 = coefficients[7] * y - coefficients[9] * out;
+                if (frame >= skipFrames) {
+                    sum += out * out;
+                    if (--left == 0) {
+                        blockSums[lane * blocks + block++] = sum;
+                        sum = 0;
+                        left = blockFrames;
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public float maxAbs(float[] samples, int from, int to) {
+        float max = 0;
+        for (int i = from; i < to; i++) {
+            max = Math.max(max, Math.abs(samples[i]));
+        }
+        return max;
+    }
+
+    @Override
+    public double sumOfSquares(float[] samples, int from, int to) {
+        double sum = 0;
+        for (int i = from; i < to; i++) {
+            sum += (double) samples[i] * samples[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double dot(float[] a, int aFrom, float[] b, int bFrom, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += (double) a[aFrom + i] * b[bFrom + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
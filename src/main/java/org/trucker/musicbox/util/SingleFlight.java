@@ -0,0 +1,101 @@
+package org.trucker.musicbox.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical calls into one.
+ * The first caller for a key runs the computation; callers arriving with the same key while it is running wait for it
+ * and get the same result, or the same exception. Once the computation finishes its entry is removed with a conditional
+ * {@code remove(key, future)}, so a slow leader can never remove a newer flight started for the same key, and the next
+ * call after that runs the computation again: nothing is cached beyond the lifetime of one flight.
+ * Followers receive the very object the leader computed, on their own threads, so results must be immutable: records
+ * or unmodifiable lists of them, never JPA entities, which belong to the persistence context that loaded them.
+ *
+ * @param <K> The key type.
+ * @param <V> The result type.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+
+    /**
+     * Runs a computation, or joins the one already running for the same key.
+     *
+     * @param key The key identifying identical calls.
+     * @param computation The computation to run if no call with this key is in flight.
+     * @return The result of the computation.
+     */
+    public V execute(K key, Supplier<V> computation) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            calls.increment(); // Counted once the flight is joined, so a counted call always gets its result.
+            return join(existing);
+        }
+        executions.increment();
+        calls.increment();
+        try {
+            V value = computation.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Gets the number of calls made.
+     * @return The call count.
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * Gets the number of calls that ran the computation themselves.
+     * @return The execution count.
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * Gets the number of calls that shared another call's computation instead of running their own.
+     * @return The collapsed call count.
+     */
+    public long getCollapsed() {
+        return Math.max(0, calls.sum() - executions.sum());
+    }
+
+    /**
+     * Gets the number of computations currently running.
+     * @return The in-flight count.
+     */
+    public int getInFlight() {
+        return inFlight.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package org.trucker.musicbox.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Approximate top-K over a sliding time window.
+ * The window is split into a fixed ring of time buckets, each holding its own {@link SpaceSavingCounter}.
+ * A bucket is recycled as soon as the clock moves past it, so old plays fall out of the window without any scan,
+ * and memory is bounded by {@code bucketCount * countersPerBucket} regardless of how many distinct keys are seen.
+ * Queries merge the live buckets and return the heaviest keys.
+ * All methods are synchronized; updates come from a single ingestion thread, so contention is limited to queries.
+ */
+public class SlidingTopK {
+
+    /**
+     * A key with its estimated count over the window and the maximum overestimation of that count.
+     */
+    public record Entry(long id, long count, long error) {
+    }
+
+    private final long bucketMillis;
+    private final SpaceSavingCounter[] buckets;
+    private final long[] bucketEpochs; // Which time bucket (timestamp / bucketMillis) each ring slot currently holds.
+
+    /**
+     * Creates a sliding top-K covering {@code bucketCount * bucketMillis} milliseconds.
+     *
+     * @param bucketCount The number of buckets in the window.
+     * @param bucketMillis The duration of one bucket.
+     * @param countersPerBucket The number of Space-Saving counters per bucket.
+     */
+    public SlidingTopK(int bucketCount, long bucketMillis, int countersPerBucket) {
+        this.bucketMillis = bucketMillis;
+        this.buckets = new SpaceSavingCounter[bucketCount];
+        this.bucketEpochs = new long[bucketCount];
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new SpaceSavingCounter(countersPerBucket);
+            bucketEpochs[i] = -1L;
+        }
+    }
+
+    /**
+     * Counts one occurrence of the key at the given time. Occurrences older than the window are ignored.
+     *
+     * @param key The key; must not be 0.
+     * @param timestamp The epoch millis of the occurrence.
+     */
+    public synchronized void record(long key, long timestamp) {
+        long epoch = timestamp / bucketMillis;
+        int index = (int) (epoch % buckets.length);
+        if (bucketEpochs[index] != epoch) {
+            if (bucketEpochs[index] > epoch) {
+                return; // Late event for a bucket that has already been recycled.
+            }
+            buckets[index].clear();
+            bucketEpochs[index] = epoch;
+        }
+        buckets[index].offer(key, 1);
+    }
+
+    /**
+     * Returns the heaviest keys over the window ending at {@code now}.
+     *
+     * @param limit The maximum number of entries to return.
+     * @param now The epoch millis marking the end of the window.
+     * @return The entries ordered by descending count.
+     */
+    public synchronized List<Entry> top(int limit, long now) {
+        long currentEpoch = now / bucketMillis;
+        long oldestEpoch = currentEpoch - buckets.length + 1;
+        LongLongHashMap counts = new LongLongHashMap(buckets[0].size() * 2);
+        LongLongHashMap errors = new LongLongHashMap(buckets[0].size() * 2);
+        for (int i = 0; i < buckets.length; i++) {
+            if (bucketEpochs[i] < oldestEpoch || bucketEpochs[i] > currentEpoch) {
+                continue; // Stale bucket that has not been recycled yet.
+            }
+            buckets[i].forEach((key, count, error) -> {
+                counts.addTo(key, count);
+                errors.addTo(key, error);
+            });
+        }
+
+        // Keep the best `limit` entries in a min-heap, then emit them in descending order.
+        PriorityQueue<Entry> best = new PriorityQueue<>(Comparator.comparingLong(Entry::count));
+        counts.forEach((key, count) -> {
+            if (best.size() < limit) {
+                best.add(new Entry(key, count, errors.get(key, 0L)));
+            } else if (limit > 0 && count > best.peek().count()) {
+                best.poll();
+                best.add(new Entry(key, count, errors.get(key, 0L)));
+            }
+        });
+        List<Entry> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingLong(Entry::count).reversed());
+        return result;
+    }
+}
@@ -0,0 +1,143 @@
+package org.trucker.musicbox.util;
+
+/**
+ * Space-Saving heavy-hitter counter over long keys (Metwally et al.).
+ * It monitors at most {@code capacity} keys. When a new key arrives and all counters are taken, the key with the
+ * smallest count is evicted and the newcomer inherits that count as its overestimation error. Any key whose true
+ * frequency exceeds {@code total / capacity} is guaranteed to be monitored, and each reported count overestimates
+ * the true count by at most its error.
+ * Counters are kept in an indexed binary min-heap so updates cost O(log capacity) and never allocate.
+ * This class is not thread-safe.
+ */
+public class SpaceSavingCounter {
+
+    /**
+     * Callback receiving each monitored key with its estimated count and error.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long count, long error);
+    }
+
+    private final int capacity;
+    private final long[] keys; // Key per counter slot.
+    private final long[] counts; // Estimated count per counter slot.
+    private final long[] errors; // Maximum overestimation per counter slot.
+    private final int[] heap; // Heap position -> counter slot, ordered by count.
+    private final int[] positions; // Counter slot -> heap position.
+    private final LongLongHashMap slotsByKey; // Key -> counter slot.
+    private int size;
+
+    /**
+     * Creates a counter monitoring at most {@code capacity} keys.
+     *
+     * @param capacity The number of counters; memory use is fixed by this value.
+     */
+    public SpaceSavingCounter(int capacity) {
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.slotsByKey = new LongLongHashMap(capacity);
+    }
+
+    /**
+     * Counts {@code increment} occurrences of the key.
+     *
+     * @param key The key; must not be 0.
+     * @param increment The number of occurrences.
+     */
+    public void offer(long key, long increment) {
+        int slot = (int) slotsByKey.get(key, -1L);
+        if (slot >= 0) {
+            counts[slot] += increment;
+            siftDown(positions[slot]);
+            return;
+        }
+        if (size < capacity) {
+            slot = size;
+            keys[slot] = key;
+            counts[slot] = increment;
+            errors[slot] = 0;
+            heap[size] = slot;
+            positions[slot] = size;
+            size++;
+            siftUp(size - 1);
+        } else {
+            // Evict the minimum counter and hand its count to the newcomer as error.
+            slot = heap[0];
+            long min = counts[slot];
+            slotsByKey.remove(keys[slot], -1L);
+            keys[slot] = key;
+            counts[slot] = min + increment;
+            errors[slot] = min;
+            siftDown(0);
+        }
+        slotsByKey.put(key, slot);
+    }
+
+    /**
+     * Visits every monitored key in no particular order.
+     *
+     * @param consumer The callback receiving each key, count and error.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < size; slot++) {
+            consumer.accept(keys[slot], counts[slot], errors[slot]);
+        }
+    }
+
+    /**
+     * Resets all counters while keeping the allocated memory.
+     */
+    public void clear() {
+        size = 0;
+        slotsByKey.clear();
+    }
+
+    /**
+     * Gets the number of monitored keys.
+     * @return The number of monitored keys.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int position) {
+        int slot = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (counts[heap[parent]] <= counts[slot]) {
+                break;
+            }
+            move(heap[parent], position);
+            position = parent;
+        }
+        move(slot, position);
+    }
+
+    private void siftDown(int position) {
+        int slot = heap[position];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            int right = child + 1;
+            if (right < size && counts[heap[right]] < counts[heap[child]]) {
+                child = right;
+            }
+            if (counts[slot] <= counts[heap[child]]) {
+                break;
+            }
+            move(heap[child], position);
+            position = child;
+        }
+        move(slot, position);
+    }
+
+    private void move(int slot, int position) {
+        heap[position] = slot;
+        positions[slot] = position;
+    }
+}
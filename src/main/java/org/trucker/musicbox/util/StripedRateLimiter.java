@@ -0,0 +1,109 @@
+package org.trucker.musicbox.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free token-bucket rate limiter for millions of keys in a fixed amount of memory.
+ * Each bucket is a single long, its "theoretical arrival time" (the GCRA formulation of a token bucket): a request
+ * is allowed if the bucket's time is at most {@code burst - 1} intervals ahead of now, and then moves it one interval on.
+ * Refill is therefore implicit in the passage of time, and an update is a single CAS.
+ * Buckets live in 64 open-addressing stripes of {@link AtomicLongArray}s holding (key, time) pairs side by side.
+ * A bucket whose time has fallen behind the clock is full, which is exactly what a new bucket looks like, so its slot
+ * can be taken over by another key without changing anyone's limits: idle keys are evicted for free.
+ * If all probed slots are held by active keys the request is let through and counted as an overflow.
+ * Keys are 64-bit hashes; 0 is reserved for empty slots.
+ */
+public class StripedRateLimiter {
+
+    private static final int STRIPES = 64; // Must match the 6 hash bits used to pick a stripe.
+    private static final int MAX_PROBES = 8;
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+    private final int slotMask;
+
+    private final LongAdder overflows = new LongAdder();
+
+    /**
+     * Creates a limiter.
+     *
+     * @param capacity The number of buckets; rounded up to a power of two with at least 16 per stripe. Each costs 16 bytes.
+     */
+    public StripedRateLimiter(int capacity) {
+        int perStripe = Math.max(16, Integer.highestOneBit(Math.max(1, capacity / STRIPES - 1)) << 1);
+        slotMask = perStripe - 1;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(perStripe * 2);
+        }
+    }
+
+    /**
+     * Takes one token from a key's bucket.
+     *
+     * @param key The bucket key, a well-mixed 64-bit hash of the client and route; 0 is remapped.
+     * @param intervalNanos The time it takes to refill one token, i.e. one over the sustained rate.
+     * @param burst The bucket size: how many requests may be made at once by a client that has been idle.
+     * @param nowNanos The current {@link System#nanoTime()}.
+     * @return 0 if the request is allowed, otherwise how many nanoseconds until a token is available.
+     */
+    public long tryAcquire(long key, long intervalNanos, int burst, long nowNanos) {
+        if (key == 0) {
+            key = 1;
+        }
+        long tolerance = (burst - 1) * intervalNanos;
+        AtomicLongArray stripe = stripes[(int) (key >>> 58)];
+        int home = (int) key & slotMask;
+
+        // First look for the key's own bucket, remembering the first slot that could be taken over.
+        int free = -1;
+        for (int probe = 0; probe < MAX_PROBES; probe++) {
+            int index = ((home + probe) & slotMask) << 1;
+            long slotKey = stripe.get(index);
+            if (slotKey == key) {
+                return acquire(stripe, index + 1, intervalNanos, tolerance, nowNanos);
+            }
+            if (free < 0 && (slotKey == 0 || stripe.get(index + 1) - nowNanos <= 0)) {
+                free = index;
+            }
+        }
+        if (free < 0) {
+            overflows.increment();
+            return 0;
+        }
+
+        // Take over an empty or idle slot. A key racing for the same slot loses the CAS and retries normally.
+        long slotKey = stripe.get(free);
+        long time = stripe.get(free + 1);
+        if ((slotKey == 0 || time - nowNanos <= 0) && stripe.compareAndSet(free, slotKey, key)) {
+            if (stripe.compareAndSet(free + 1, time, nowNanos + intervalNanos)) {
+                return 0;
+            }
+            return acquire(stripe, free + 1, intervalNanos, tolerance, nowNanos);
+        }
+        return tryAcquire(key, intervalNanos, burst, nowNanos);
+    }
+
+    /**
+     * Gets the number of requests let through because no slot was available for their key.
+     * A steadily growing count means the capacity is too small for the number of active clients.
+     *
+     * @return The overflow count.
+     */
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
+    private static long acquire(AtomicLongArray stripe, int index, long intervalNanos, long tolerance, long nowNanos) {
+        while (true) {
+            long time = stripe.get(index);
+            long start = time - nowNanos > 0 ? time : nowNanos; // A bucket behind the clock is full.
+            long ahead = start - nowNanos;
+            if (ahead > tolerance) {
+                return ahead - tolerance;
+            }
+            if (stripe.compareAndSet(index, time, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.trucker.musicbox.util;
+
+import java.util.Arrays;
+
+/**
+ * Streaming tempo estimator.
+ * The signal energy is measured every 10 ms; rises in log energy form an onset envelope, whose autocorrelation peaks at
+ * the beat period. Candidate periods between {@link #MIN_BPM} and {@link #MAX_BPM} are weighted by a log-normal prior
+ * centred on 120 BPM, an octave wide, which settles the usual half- and double-tempo ambiguity the way listeners do.
+ */
+public class TempoEstimator {
+
+    /**
+     * The slowest tempo reported.
+     */
+    public static final double MIN_BPM = 60;
+
+    /**
+     * The fastest tempo reported.
+     */
+    public static final double MAX_BPM = 200;
+
+    private static final double PRIOR_BPM = 120;
+    private static final double PRIOR_OCTAVES = 1.0;
+    private static final int MIN_BEATS = 8; // Shorter excerpts do not have a meaningful tempo.
+
+    private final AnalysisKernels kernels;
+    private final int hopFrames;
+    private final double envelopeRate;
+
+    private float[] onsets = new float[4096];
+    private int count;
+    private double energy;
+    private int inHop;
+    private double previousLevel = Double.NaN;
+
+    /**
+     * Creates an estimator.
+     *
+     * @param sampleRate The sample rate, in Hz.
+     * @param kernels The inner loops to use.
+     */
+    public TempoEstimator(float sampleRate, AnalysisKernels kernels) {
+        this.kernels = kernels;
+        this.hopFrames = Math.max(1, Math.round(sampleRate / 100));
+        this.envelopeRate = sampleRate / hopFrames;
+    }
+
+    /**
+     * Adds a block of audio.
+     *
+     * @param samples The samples of each channel, between -1 and 1.
+     * @param frames The number of samples per channel.
+     */
+    public void add(float[][] samples, int frames) {
+        int position = 0;
+        while (position < frames) {
+            int n = Math.min(frames - position, hopFrames - inHop);
+            for (float[] channel : samples) {
+                energy += kernels.sumOfSquares(channel, position, position + n);
+            }
+            inHop += n;
+            position += n;
+            if (inHop == hopFrames) {
+                double level = Math.log(1e-9 + energy / hopFrames);
+                if (!Double.isNaN(previousLevel)) {
+                    if (count == onsets.length) {
+                        onsets = Arrays.copyOf(onsets, count * 2);
+                    }
+                    onsets[count++] = (float) Math.max(0, level - previousLevel);
+                }
+                previousLevel = level;
+                energy = 0;
+                inHop = 0;
+            }
+        }
+    }
+
+    /**
+     * Estimates the tempo of the audio added so far.
+     * @return The tempo in beats per minute, or NaN if the audio is too short or has no regular beat.
+     */
+    public double estimateBpm() {
+        int minLag = (int) Math.floor(60 * envelopeRate / MAX_BPM);
+        int maxLag = (int) Math.ceil(60 * envelopeRate / MIN_BPM);
+        if (count < maxLag * MIN_BEATS) {
+            return Double.NaN;
+        }
+        float[] centered = Arrays.copyOf(onsets, count);
+        double mean = 0;
+        for (int i = 0; i < count; i++) {
+            mean += centered[i];
+        }
+        mean /= count;
+        for (int i = 0; i < count; i++) {
+            centered[i] -= (float) mean;
+        }
+        double[] scores = new double[maxLag + 2];
+        int bestLag = -1;
+        for (int lag = minLag - 1; lag <= maxLag + 1; lag++) {
+            double correlation = kernels.dot(centered, 0, centered, lag, count - lag) / (count - lag);
+            scores[lag] = correlation * prior(60 * envelopeRate / lag);
+            if (lag >= minLag && lag <= maxLag && (bestLag < 0 || scores[lag] > scores[bestLag])) {
+                bestLag = lag;
+            }
+        }
+        if (scores[bestLag] <= 0) {
+            return Double.NaN;
+        }
+        // Parabolic interpolation between the neighbouring lags refines the period below one envelope step.
+        double left = scores[bestLag - 1];
+        double right = scores[bestLag + 1];
+        double curvature = left - 2 * scores[bestLag] + right;
+        double offset = curvature < 0 ? Math.max(-0.5, Math.min(0.5, 0.5 * (left - right) / curvature)) : 0;
+        return 60 * envelopeRate / (bestLag + offset);
+    }
+
+    private static double prior(double bpm) {
+        double octaves = Math.log(bpm / PRIOR_BPM) / Math.log(2) / PRIOR_OCTAVES;
+        return Math.exp(-0.5 * octaves * octaves);
+    }
+}
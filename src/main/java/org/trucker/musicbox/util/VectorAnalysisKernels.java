@@ -0,0 +1,114 @@
+package org.trucker.musicbox.util;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link AnalysisKernels} on the Java Vector API, using the widest float vectors of the CPU (8 lanes with AVX2, 16 with
+ * AVX-512). Reductions keep one float partial sum per lane and add them to a double total every {@code CHUNK} elements,
+ * so long ranges do not lose precision the plain loops would keep. The recursive biquad filters
+ * cannot be vectorized along time, so {@link #filterSquares} runs one independent signal segment per lane instead.
+ * Needs {@code --add-modules jdk.incubator.vector} at compile time and at runtime.
+ */
+public class VectorAnalysisKernels implements AnalysisKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    private static final int CHUNK = 256 * SPECIES.length(); // Elements summed in float lanes before the double total.
+
+    @Override
+    public int lanes() {
+        return SPECIES.length();
+    }
+
+    @Override
+    public void filterSquares(float[] interleaved, int frames, float[] coefficients, int skipFrames, int blockFrames, double[] blockSums) {
+        int lanes = SPECIES.length();
+        int blocks = (frames - skipFrames) / blockFrames;
+        FloatVector zero = FloatVector.zero(SPECIES);
+        FloatVector z1 = zero, z2 = zero, w1 = zero, w2 = zero;
+        FloatVector sum = zero;
+        float[] sums = new float[lanes];
+        int block = 0;
+        int left = blockFrames; // Frames until the current block is complete.
+        float b0 = coefficients[0], b1 = coefficients[1], b2 = coefficients[2], a1 = coefficients[3], a2 = coefficients[4];
+        float c0 = coefficients[5], c1 = coefficients[6], c2 = coefficients[7], d1 = coefficients[8], d2 = coefficients[9];
+        for (int frame = 0; frame < frames; frame++) {
+            FloatVector x = FloatVector.fromArray(SPECIES, interleaved, frame * lanes);
+            FloatVector y = x.mul(b0).add(z1);
+            z1 = x.mul(b1).sub(y.mul(a1)).add(z2);
+            z2 = x.mul(b2).sub(y.mul(a2));
+            FloatVector out = y.mul(c0).add(w1);
+            w1 = y.mul(c1).sub(out.mul(d1)).add(w2);
+            w2 = y.mul(c2).sub(out.mul(d2));
+            if (frame >= skipFrames) {
+                sum = out.fma(out, sum);
+                if (--left == 0) {
+                    sum.intoArray(sums, 0);
+                    for (int lane = 0; lane < lanes; lane++) {
+                        blockSums[lane * blocks + block] = sums[lane];
+                    }
+                    block++;
+                    sum = zero;
+                    left = blockFrames;
+                }
+            }
+        }
+    }
+
+    @Override
+    public float maxAbs(float[] samples, int from, int to) {
+        FloatVector max = FloatVector.zero(SPECIES);
+        int i = from;
+        for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+            max = max.max(FloatVector.fromArray(SPECIES, samples, i).abs());
+        }
+        float result = max.reduceLanes(VectorOperators.MAX);
+        for (; i < to; i++) {
+            result = Math.max(result, Math.abs(samples[i]));
+        }
+        return result;
+    }
+
+    @Override
+    public double sumOfSquares(float[] samples, int from, int to) {
+        double result = 0;
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        while (i < bound) {
+            FloatVector sum = FloatVector.zero(SPECIES);
+            for (int end = Math.min(bound, i + CHUNK); i < end; i += SPECIES.length()) {
+                FloatVector v = FloatVector.fromArray(SPECIES, samples, i);
+                sum = v.fma(v, sum);
+            }
+            result += sum.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < to; i++) {
+            result += (double) samples[i] * samples[i];
+        }
+        return result;
+    }
+
+    @Override
+    public double dot(float[] a, int aFrom, float[] b, int bFrom, int length) {
+        double result = 0;
+        int i = 0;
+        int bound = SPECIES.loopBound(length);
+        while (i < bound) {
+            FloatVector sum = FloatVector.zero(SPECIES);
+            for (int end = Math.min(bound, i + CHUNK); i < end; i += SPECIES.length()) {
+                sum = FloatVector.fromArray(SPECIES, a, aFrom + i).fma(FloatVector.fromArray(SPECIES, b, bFrom + i), sum);
+            }
+            result += sum.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < length; i++) {
+            result += (double) a[aFrom + i] * b[bFrom + i];
+        }
+        return result;
+    }
+
+    @Override
+    public String name() {
+        return "vector";
+    }
+}
@@ -0,0 +1,88 @@
+package org.trucker.musicbox.util;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zipf distribution over the ranks {@code 1..n}: rank {@code k} is drawn with probability proportional to {@code 1 / k^s}.
+ * Sampling uses rejection-inversion (Hormann and Derflinger), which takes constant time and memory however large
+ * {@code n} is, so it can pick among tens of millions of songs without a cumulative table.
+ * Instances are immutable and can be shared between threads; the random source is supplied per call.
+ */
+public class ZipfDistribution {
+
+    private final long n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    /**
+     * Creates a distribution.
+     *
+     * @param n The number of ranks.
+     * @param exponent The skew; 0 is uniform, around 1 is typical of popularity, larger values concentrate on the top ranks.
+     */
+    public ZipfDistribution(long n, double exponent) {
+        if (n < 1 || exponent < 0) {
+            throw new IllegalArgumentException("Zipf distribution needs n >= 1 and exponent >= 0");
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * Draws a rank.
+     *
+     * @param random The random source.
+     * @return A rank between 1 and n; 1 is the most likely.
+     */
+    public long sample(SplittableRandom random) {
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            long k = (long) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > n) {
+                k = n;
+            }
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) {
+            t = -1; // Guards against rounding errors pushing the argument of log1p out of range.
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    /**
+     * {@code log1p(x) / x}, stable near 0.
+     */
+    private static double helper1(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    /**
+     * {@code expm1(x) / x}, stable near 0.
+     */
+    private static double helper2(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+    }
+}
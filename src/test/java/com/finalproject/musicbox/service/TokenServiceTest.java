@@ -0,0 +1,82 @@
+package com.finalproject.musicbox.service;
+
+import com.finalproject.musicbox.model.Role;
+import com.finalproject.musicbox.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Correctness checks for {@link TokenService}. Verification speed, compared with an in-memory session lookup, is
+ * measured by {@code TokenVerificationBenchmark} in the benchmarks project.
+ */
+class TokenServiceTest {
+
+    private static final String KEY_0 = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String KEY_1 = Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+    @Test
+    void verifiesIssuedTokens() {
+        TokenService tokenService = new TokenService("0:" + KEY_0, 0, 900, 3600);
+        TokenService.TokenPair tokens = tokenService.issueTokens(user(42L, 1L, 3L), true);
+        long now = System.currentTimeMillis() / 1000;
+
+        TokenService.TokenClaims claims = tokenService.verify(tokens.accessToken(), TokenService.TokenType.ACCESS, now);
+        assertNotNull(claims);
+        assertEquals(42L, claims.userId());
+        assertEquals(0b101L, claims.roleMask());
+        assertTrue(claims.premium());
+        assertNotNull(tokenService.verify(tokens.refreshToken(), TokenService.TokenType.REFRESH, now));
+    }
+
+    @Test
+    void rejectsWrongTypeExpiryAndTampering() {
+        TokenService tokenService = new TokenService("0:" + KEY_0, 0, 900, 3600);
+        TokenService.TokenPair tokens = tokenService.issueTokens(user(42L), false);
+        long now = System.currentTimeMillis() / 1000;
+
+        assertNull(tokenService.verify(tokens.accessToken(), TokenService.TokenType.REFRESH, now));
+        assertNull(tokenService.verify(tokens.refreshToken(), TokenService.TokenType.ACCESS, now));
+        assertNull(tokenService.verify(tokens.accessToken(), TokenService.TokenType.ACCESS, now + 901));
+
+        char[] tampered = tokens.accessToken().toCharArray();
+        tampered[10] = tampered[10] == 'A' ? 'B' : 'A'; // Inside the user ID.
+        assertNull(tokenService.verify(new String(tampered), TokenService.TokenType.ACCESS, now));
+        assertNull(tokenService.verify("not a token", TokenService.TokenType.ACCESS, now));
+    }
+
+    @Test
+    void acceptsTokensSignedWithRotatedKeys() {
+        TokenService before = new TokenService("0:" + KEY_0, 0, 900, 3600);
+        TokenService after = new TokenService("0:" + KEY_0 + ",1:" + KEY_1, 1, 900, 3600);
+        TokenService retired = new TokenService("1:" + KEY_1, 1, 900, 3600);
+        long now = System.currentTimeMillis() / 1000;
+
+        String oldToken = before.issueTokens(user(7L), false).accessToken();
+        String newToken = after.issueTokens(user(7L), false).accessToken();
+        assertNotNull(after.verify(oldToken, TokenService.TokenType.ACCESS, now));
+        assertNotNull(after.verify(newToken, TokenService.TokenType.ACCESS, now));
+        assertNull(before.verify(newToken, TokenService.TokenType.ACCESS, now));
+        assertNull(retired.verify(oldToken, TokenService.TokenType.ACCESS, now));
+    }
+
+    private static User user(long id, Long... roleIds) {
+        User user = new User();
+        user.setId(id);
+        Set<Role> roles = new HashSet<>();
+        for (Long roleId : roleIds) {
+            Role role = new Role("ROLE_" + roleId);
+            role.setId(roleId);
+            roles.add(role);
+        }
+        user.setRoles(roles);
+        return user;
+    }
+}
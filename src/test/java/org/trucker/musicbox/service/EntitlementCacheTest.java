@@ -0,0 +1,95 @@
+package org.trucker.musicbox.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour checks for {@link EntitlementCache}: the sign of an entry decides between "premium until" and "not premium,
+ * re-check at", entries past their instant are misses, a loaded "not premium" answer never replaces a premium entry
+ * written through meanwhile, and full stripes are cleared instead of growing.
+ */
+class EntitlementCacheTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+    private static final long DAY = 86_400_000L;
+
+    private EntitlementCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new EntitlementCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 64 * 16);
+        cache.init();
+    }
+
+    @Test
+    void premiumEntryHoldsUntilItsEndDate() {
+        cache.putPremium(1, NOW + DAY);
+        assertEquals(Boolean.TRUE, cache.lookup(1, NOW));
+        assertEquals(Boolean.TRUE, cache.lookup(1, NOW + DAY - 1));
+        assertNull(cache.lookup(1, NOW + DAY));
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void notPremiumEntryHoldsUntilItsRecheckTime() {
+        cache.putNotPremium(2, NOW, NOW + 1000);
+        assertEquals(Boolean.FALSE, cache.lookup(2, NOW));
+        assertEquals(Boolean.FALSE, cache.lookup(2, NOW + 999));
+        assertNull(cache.lookup(2, NOW + 1000));
+        assertNull(cache.lookup(3, NOW));
+    }
+
+    @Test
+    void extendPremiumKeepsTheLaterEndDate() {
+        cache.putNotPremium(4, NOW, NOW + 1000);
+        cache.extendPremium(4, NOW + DAY);
+        assertEquals(Boolean.TRUE, cache.lookup(4, NOW));
+        cache.extendPremium(4, NOW + 10);
+        assertEquals(Boolean.TRUE, cache.lookup(4, NOW + DAY - 1));
+        cache.extendPremium(4, NOW + 2 * DAY);
+        assertEquals(Boolean.TRUE, cache.lookup(4, NOW + 2 * DAY - 1));
+    }
+
+    @Test
+    void staleNotPremiumLoadDoesNotReplaceWrittenThroughPremium() {
+        // A miss read the database before the subscription committed, and stores its answer after the write-through.
+        cache.extendPremium(5, NOW + DAY);
+        cache.putNotPremium(5, NOW, NOW + 1000);
+        assertEquals(Boolean.TRUE, cache.lookup(5, NOW));
+
+        // Once the premium entry has ended, a "not premium" answer replaces it.
+        cache.putNotPremium(5, NOW + DAY, NOW + DAY + 1000);
+        assertEquals(Boolean.FALSE, cache.lookup(5, NOW + DAY));
+    }
+
+    @Test
+    void invalidateForcesAMiss() {
+        cache.putPremium(6, NOW + DAY);
+        cache.invalidate(6);
+        assertNull(cache.lookup(6, NOW));
+        cache.invalidate(7); // Absent users are ignored.
+        assertNull(cache.lookup(7, NOW));
+    }
+
+    @Test
+    void fullStripesAreClearedInsteadOfGrowing() {
+        for (long userId = 1; userId <= 100_000; userId++) {
+            cache.putPremium(userId, NOW + DAY);
+        }
+        int cached = 0;
+        for (long userId = 1; userId <= 100_000; userId++) {
+            if (cache.lookup(userId, NOW) != null) {
+                cached++;
+            }
+        }
+        assertTrue(cached > 0 && cached <= 64 * 16, "cached " + cached);
+        assertEquals(Boolean.TRUE, cache.lookup(100_000, NOW)); // The latest entry of its stripe survives.
+    }
+}
@@ -0,0 +1,80 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+import org.trucker.musicbox.util.AcousticFingerprinter.Fingerprint;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link AcousticFingerprinter} and {@link FingerprintIndex} find a quieter, noisier and trimmed copy of a
+ * signal, and do not confuse it with an unrelated one.
+ */
+class AcousticFingerprinterTest {
+
+    private static final int RATE = 11025;
+
+    private final AcousticFingerprinter fingerprinter = new AcousticFingerprinter(5, 256, 64);
+
+    @Test
+    void findsAlteredCopyAndIgnoresOtherSignals() {
+        float[] original = melody(1, 60);
+        float[] other = melody(2, 60);
+        int trimmed = 3000; // Not a multiple of the hop, so the copy's frames fall between the original's.
+        float[] copy = Arrays.copyOfRange(original, trimmed, original.length);
+        SplittableRandom noise = new SplittableRandom(3);
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = copy[i] * 0.4f + (float) ((noise.nextDouble() - 0.5) * 0.01);
+        }
+
+        FingerprintIndex index = new FingerprintIndex(16);
+        Fingerprint originalPrint = fingerprinter.fingerprint(original, Runnable::run);
+        Fingerprint otherPrint = fingerprinter.fingerprint(other, Runnable::run);
+        assertEquals(256, originalPrint.hashes().length);
+        assertTrue(index.add(1, originalPrint.hashes(), originalPrint.offsets()));
+        assertTrue(index.add(2, otherPrint.hashes(), otherPrint.offsets()));
+
+        Fingerprint copyPrint = fingerprinter.fingerprint(copy, Runnable::run);
+        List<FingerprintIndex.Match> matches = index.query(copyPrint.hashes(), copyPrint.offsets(), -1, 1000, 12, 10);
+        assertEquals(1, matches.size());
+        assertEquals(1, matches.get(0).audioId());
+        int expectedShift = -trimmed / AcousticFingerprinter.HOP;
+        assertTrue(Math.abs(matches.get(0).shiftFrames() - expectedShift) <= 2);
+    }
+
+    @Test
+    void indexRejectsSizesBeyondItsArrays() {
+        assertThrows(IllegalArgumentException.class, () -> new FingerprintIndex(FingerprintIndex.MAX_HASHES + 1L));
+        assertThrows(IllegalArgumentException.class, () -> new FingerprintIndex(100_000L * 256 * 100));
+    }
+
+    @Test
+    void packedFingerprintRoundTrips() {
+        Fingerprint fingerprint = fingerprinter.fingerprint(melody(4, 10), Runnable::run);
+        Fingerprint unpacked = Fingerprint.fromBytes(fingerprint.toBytes());
+        assertArrayEquals(fingerprint.hashes(), unpacked.hashes());
+        assertArrayEquals(fingerprint.offsets(), unpacked.offsets());
+        assertEquals(fingerprint.frames(), unpacked.frames());
+    }
+
+    // A random sequence of two-tone notes, a quarter of a second each.
+    private static float[] melody(long seed, int seconds) {
+        SplittableRandom random = new SplittableRandom(seed);
+        float[] samples = new float[seconds * RATE];
+        int noteLength = RATE / 4;
+        for (int start = 0; start < samples.length; start += noteLength) {
+            double low = 200 + random.nextDouble() * 800;
+            double high = 1200 + random.nextDouble() * 3000;
+            for (int i = start; i < Math.min(samples.length, start + noteLength); i++) {
+                samples[i] = (float) (0.5 * Math.sin(2 * Math.PI * low * i / RATE) + 0.3 * Math.sin(2 * Math.PI * high * i / RATE));
+            }
+        }
+        return samples;
+    }
+}
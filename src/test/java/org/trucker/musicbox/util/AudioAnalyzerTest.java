@@ -0,0 +1,56 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+import org.trucker.musicbox.util.AudioAnalyzer.Analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks {@link AudioAnalyzer} against signals with a known loudness and tempo, and that the kernels picked at runtime
+ * (the Vector API ones when the module is present) agree with the plain loops.
+ */
+class AudioAnalyzerTest {
+
+    private static final int RATE = 44100;
+
+    @Test
+    void measuresReferenceToneAtItsLevel() {
+        // EBU Tech 3341: a stereo 1 kHz sine at -23 dBFS reads -23 LUFS.
+        float amplitude = (float) Math.pow(10, -23 / 20.0);
+        float[] tone = new float[RATE * 20];
+        for (int i = 0; i < tone.length; i++) {
+            tone[i] = amplitude * (float) Math.sin(2 * Math.PI * 1000 * i / RATE);
+        }
+        Analysis analysis = new AudioAnalyzer(new ScalarAnalysisKernels(8)).analyze(new float[][]{tone, tone}, RATE);
+        assertEquals(-23, analysis.loudnessLufs(), 0.1);
+        assertEquals(-23, analysis.peakDbfs(), 0.1);
+        assertEquals(2L * tone.length, analysis.samples());
+    }
+
+    @Test
+    void findsTempoOfClickTrack() {
+        Analysis analysis = new AudioAnalyzer(new ScalarAnalysisKernels(8)).analyze(new float[][]{clicks(128, 30)}, RATE);
+        assertEquals(128, analysis.bpm(), 1);
+    }
+
+    @Test
+    void runtimeKernelsAgreeWithPlainLoops() {
+        float[][] channels = {clicks(100, 20), clicks(150, 20)};
+        Analysis scalar = new AudioAnalyzer(new ScalarAnalysisKernels(8)).analyze(channels, RATE);
+        Analysis runtime = new AudioAnalyzer(AnalysisKernels.create(true)).analyze(channels, RATE);
+        assertEquals(scalar.loudnessLufs(), runtime.loudnessLufs(), 0.01);
+        assertEquals(scalar.peakDbfs(), runtime.peakDbfs(), 1e-6);
+        assertEquals(scalar.bpm(), runtime.bpm(), 0.5);
+    }
+
+    // Decaying 2 kHz bursts on every beat.
+    private static float[] clicks(double bpm, int seconds) {
+        float[] samples = new float[RATE * seconds];
+        int beat = (int) Math.round(RATE * 60 / bpm);
+        for (int i = 0; i < samples.length; i++) {
+            int sinceBeat = i % beat;
+            samples[i] = 0.5f * (float) (Math.exp(-sinceBeat / (0.01 * RATE)) * Math.sin(2 * Math.PI * 2000 * sinceBeat / RATE));
+        }
+        return samples;
+    }
+}
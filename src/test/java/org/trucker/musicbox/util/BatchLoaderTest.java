@@ -0,0 +1,132 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour checks for {@link BatchLoader}, including the round-trip reduction under a realistic fan-out:
+ * many request threads each resolving the tracks of a playlist one ID at a time. The latency and throughput effect of
+ * batching is measured by {@code BatchLoaderBenchmark} in the benchmarks project.
+ */
+class BatchLoaderTest {
+
+    private final ScheduledExecutorService executor = Executors.newScheduledThreadPool(4);
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static Map<Long, String> lookup(Collection<Long> ids) {
+        Map<Long, String> values = new HashMap<>();
+        for (Long id : ids) {
+            if (id >= 0) { // Negative IDs do not exist.
+                values.put(id, "value-" + id);
+            }
+        }
+        return values;
+    }
+
+    @Test
+    void fansResultsBackOutAndReportsMissingKeysAsNull() throws Exception {
+        BatchLoader<Long, String> loader = new BatchLoader<>(BatchLoaderTest::lookup, executor, 2_000, 100);
+        CompletableFuture<String> first = loader.load(1L);
+        CompletableFuture<String> second = loader.load(2L);
+        CompletableFuture<String> duplicate = loader.load(1L);
+        CompletableFuture<String> missing = loader.load(-1L);
+        assertEquals("value-1", first.get());
+        assertEquals("value-2", second.get());
+        assertEquals("value-1", duplicate.get());
+        assertNull(missing.get());
+        assertEquals(1, loader.getBatches());
+        assertEquals(3, loader.getKeysLoaded());
+        assertEquals(4, loader.getRequests());
+    }
+
+    @Test
+    void loadAllKeepsKeyOrderAndSkipsMissingKeys() throws Exception {
+        BatchLoader<Long, String> loader = new BatchLoader<>(BatchLoaderTest::lookup, executor, 1_000, 100);
+        Map<Long, String> values = loader.loadAll(List.of(5L, -3L, 2L, 5L)).get();
+        assertEquals(List.of(5L, 2L), List.copyOf(values.keySet()));
+    }
+
+    @Test
+    void fullBatchIsDispatchedWithoutWaitingForTheWindow() throws Exception {
+        BatchLoader<Long, String> loader = new BatchLoader<>(BatchLoaderTest::lookup, executor, 60_000_000, 3);
+        CompletableFuture<String> last = null;
+        for (long id = 0; id < 3; id++) {
+            last = loader.load(id);
+        }
+        assertEquals("value-2", last.get());
+        assertEquals(1, loader.getBatches());
+    }
+
+    @Test
+    void batchFailureFailsEveryCaller() {
+        BatchLoader<Long, String> loader = new BatchLoader<>(ids -> {
+            throw new IllegalStateException("database down");
+        }, executor, 1_000, 100);
+        CompletableFuture<String> first = loader.load(1L);
+        CompletableFuture<String> second = loader.load(2L);
+        assertThrows(ExecutionException.class, first::get);
+        assertThrows(ExecutionException.class, second::get);
+    }
+
+    @Test
+    void concurrentSingleLookupsNeedFarFewerRoundTrips() throws InterruptedException {
+        AtomicInteger roundTrips = new AtomicInteger();
+        BatchLoader<Long, String> loader = new BatchLoader<>(ids -> {
+            roundTrips.incrementAndGet();
+            return lookup(ids);
+        }, executor, 2_000, 500);
+        int clients = 64;
+        int tracksPerPlaylist = 50;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger resolved = new AtomicInteger();
+        Thread[] threads = new Thread[clients];
+        for (int c = 0; c < clients; c++) {
+            long playlist = c;
+            threads[c] = new Thread(() -> {
+                try {
+                    start.await();
+                    // The client fires its per-track requests without waiting for each answer, like a page rendering a list.
+                    CompletableFuture<?>[] tracks = new CompletableFuture<?>[tracksPerPlaylist];
+                    for (int t = 0; t < tracksPerPlaylist; t++) {
+                        tracks[t] = loader.load(playlist * 1_000 + t);
+                    }
+                    for (CompletableFuture<?> track : tracks) {
+                        if (track.join() != null) {
+                            resolved.incrementAndGet();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads[c].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        int lookups = clients * tracksPerPlaylist;
+        assertEquals(lookups, resolved.get());
+        assertTrue(roundTrips.get() * 10 < lookups, "round trips " + roundTrips.get());
+    }
+}
@@ -0,0 +1,40 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * False-negative and false-positive checks for {@link BloomFilter}.
+ */
+class BloomFilterTest {
+
+    private static final int USERS = 200_000;
+
+    @Test
+    void neverForgetsAnAddedValue() {
+        BloomFilter filter = new BloomFilter(USERS, 0.01);
+        for (int i = 0; i < USERS; i++) {
+            filter.add("user" + i);
+        }
+        for (int i = 0; i < USERS; i++) {
+            assertTrue(filter.mightContain("user" + i), "user" + i);
+        }
+    }
+
+    @Test
+    void falsePositiveRateMatchesTheTarget() {
+        BloomFilter filter = new BloomFilter(USERS, 0.01);
+        for (int i = 0; i < USERS; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < USERS; i++) {
+            if (filter.mightContain("other" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        double rate = falsePositives / (double) USERS;
+        assertTrue(rate < 0.015, "false-positive rate " + rate);
+    }
+}
@@ -0,0 +1,92 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+import org.trucker.musicbox.util.BroadcastRingBuffer.Chunk;
+import org.trucker.musicbox.util.BroadcastRingBuffer.Cursor;
+import org.trucker.musicbox.util.BroadcastRingBuffer.LagPolicy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour checks for {@link BroadcastRingBuffer}: every reader sees the same chunk instances in order, and lapped
+ * readers are skipped or dropped without the writer ever waiting for them.
+ */
+class BroadcastRingBufferTest {
+
+    @Test
+    void readersShareTheSameChunksInOrder() throws Exception {
+        int readers = 50;
+        int chunks = 200;
+        // The ring holds every chunk, so no reader can be lapped however the threads are scheduled.
+        BroadcastRingBuffer ring = new BroadcastRingBuffer(chunks + 1, 1, LagPolicy.SKIP);
+        AtomicInteger inOrder = new AtomicInteger();
+        CountDownLatch subscribed = new CountDownLatch(readers);
+        Thread[] threads = new Thread[readers];
+        for (int r = 0; r < readers; r++) {
+            threads[r] = new Thread(() -> {
+                Cursor cursor = ring.subscribe();
+                subscribed.countDown();
+                long expected = 0;
+                try {
+                    for (Chunk chunk; (chunk = ring.poll(cursor, 5, TimeUnit.SECONDS)) != null; expected++) {
+                        if (chunk.sequence() != expected || chunk.data()[0] != (byte) expected) {
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (expected == chunks) {
+                    inOrder.incrementAndGet();
+                }
+            });
+            threads[r].start();
+        }
+        subscribed.await();
+        for (int i = 0; i < chunks; i++) {
+            ring.publish(new byte[]{(byte) i});
+        }
+        ring.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(readers, inOrder.get());
+    }
+
+    @Test
+    void lappedReaderSkipsToJustBehindTheHead() throws Exception {
+        BroadcastRingBuffer ring = new BroadcastRingBuffer(4, 2, LagPolicy.SKIP);
+        Cursor slow = ring.subscribe();
+        byte[] last = null;
+        for (int i = 0; i < 10; i++) {
+            last = new byte[]{(byte) i};
+            ring.publish(last);
+        }
+        Chunk chunk = ring.poll(slow, 0, TimeUnit.MILLISECONDS);
+        assertEquals(8, chunk.sequence()); // The writer never waited; the reader resumes 2 chunks behind the head.
+        assertEquals(8, slow.getSkipped());
+        assertSame(last, ring.poll(slow, 0, TimeUnit.MILLISECONDS).data());
+        assertNull(ring.poll(slow, 10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void lappedReaderIsDroppedUnderDropPolicy() throws Exception {
+        BroadcastRingBuffer ring = new BroadcastRingBuffer(4, 1, LagPolicy.DROP);
+        Cursor slow = ring.subscribe();
+        for (int i = 0; i < 5; i++) {
+            ring.publish(new byte[]{(byte) i});
+        }
+        assertNull(ring.poll(slow, 0, TimeUnit.MILLISECONDS));
+        assertTrue(slow.isDropped());
+        assertEquals(1, ring.getDroppedReaders());
+        Cursor fresh = ring.subscribe();
+        assertEquals(4, ring.poll(fresh, 0, TimeUnit.MILLISECONDS).sequence());
+    }
+}
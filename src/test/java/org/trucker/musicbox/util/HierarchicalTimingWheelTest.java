@@ -0,0 +1,99 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour checks for {@link HierarchicalTimingWheel}: entries on every level cascade down and fire exactly at their
+ * tick, never early, and entries beyond the top level's range stay parked until they are due.
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    @Test
+    void firesEachDeadlineAtItsTickAcrossLevels() {
+        long startTick = 12_345; // Not aligned to any level's window.
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, startTick * TICK + 500);
+        long[] offsets = {1, 2, 63, 64, 65, 100, 4095, 4096, 4097, 5000, 262_143, 262_144, 262_145, 300_000};
+        for (int i = 0; i < offsets.length; i++) {
+            wheel.schedule(i, (startTick + offsets[i]) * TICK);
+        }
+        long[] firedAt = new long[offsets.length];
+        LongList expired = new LongList(4);
+        for (long tick = startTick + 1; tick <= startTick + offsets[offsets.length - 1]; tick++) {
+            expired.clear();
+            wheel.advance(tick * TICK, expired);
+            for (int i = 0; i < expired.size(); i++) {
+                firedAt[(int) expired.get(i)] = tick;
+            }
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            assertEquals(startTick + offsets[i], firedAt[i], "offset " + offsets[i]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void roundsUpDeadlinesAndFiresPastOnesOnTheNextAdvance() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, 10 * TICK);
+        LongList expired = new LongList(4);
+        wheel.schedule(1, 12 * TICK + 1); // Rounds up to tick 13.
+        wheel.schedule(2, 3 * TICK); // Already past.
+        assertEquals(1, wheel.advance(10 * TICK, expired));
+        assertEquals(2, expired.get(0));
+        assertEquals(0, wheel.advance(12 * TICK + 999, expired));
+        assertEquals(1, wheel.advance(13 * TICK, expired));
+        assertEquals(1, expired.get(1));
+    }
+
+    @Test
+    void randomDeadlinesFireOnceAtTheFirstAdvanceReachingThem() {
+        SplittableRandom random = new SplittableRandom(5);
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, 0);
+        int count = 20_000;
+        long[] deadlines = new long[count];
+        for (int i = 0; i < count; i++) {
+            // Mostly within a few hours, some up to a year out, so every level below the top is used.
+            long range = random.nextInt(10) == 0 ? 365L * 86_400 * TICK : 4 * 3600 * TICK;
+            deadlines[i] = 1 + random.nextLong(range);
+            wheel.schedule(i, deadlines[i]);
+        }
+        boolean[] fired = new boolean[count];
+        LongList expired = new LongList(1024);
+        long previous = 0;
+        long now = 0;
+        while (wheel.size() > 0) {
+            previous = now;
+            now += random.nextLong(1, 7_200) * TICK; // Irregular jumps, as after a slow scheduler run.
+            expired.clear();
+            wheel.advance(now, expired);
+            for (int i = 0; i < expired.size(); i++) {
+                int id = (int) expired.get(i);
+                assertFalse(fired[id], "fired twice: " + id);
+                fired[id] = true;
+                long due = (deadlines[id] + TICK - 1) / TICK * TICK;
+                assertTrue(due > previous && due <= now, "id " + id + " due " + due + " fired at " + now);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            assertTrue(fired[i], "never fired: " + i);
+        }
+    }
+
+    @Test
+    void parksDeadlinesBeyondTheTopLevel() {
+        HierarchicalTimingWheel wheel = new HierarchicalTimingWheel(TICK, 0);
+        long topLevelRange = 1L << 30; // 64^5 ticks.
+        wheel.schedule(1, (topLevelRange + 5) * TICK);
+        LongList expired = new LongList(4);
+        // Two top-level slot windows: the parked entry cascades and is re-placed without firing.
+        assertEquals(0, wheel.advance(2 * (1L << 24) * TICK, expired));
+        assertEquals(1, wheel.size());
+    }
+}
@@ -0,0 +1,69 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Accuracy checks for {@link HyperLogLog}.
+ * For each precision it estimates several cardinalities over independent trials and fails if the observed error
+ * drifts beyond what the theory allows. Speed is measured by {@code HyperLogLogBenchmark} in the benchmarks project.
+ */
+class HyperLogLogTest {
+
+    private static final int[] PRECISIONS = {10, 11, 12, 14};
+    private static final int[] CARDINALITIES = {100, 10_000, 1_000_000};
+    private static final int TRIALS = 20;
+
+    @Test
+    void errorStaysWithinTheoreticalBounds() {
+        for (int precision : PRECISIONS) {
+            double standardError = HyperLogLog.standardError(precision);
+            for (int cardinality : CARDINALITIES) {
+                double squaredErrorSum = 0;
+                for (int trial = 0; trial < TRIALS; trial++) {
+                    HyperLogLog sketch = new HyperLogLog(precision);
+                    long offset = (long) trial * 10_000_000L;
+                    for (long userId = 1; userId <= cardinality; userId++) {
+                        sketch.add(offset + userId);
+                    }
+                    double relativeError = (sketch.estimate() - cardinality) / (double) cardinality;
+                    squaredErrorSum += relativeError * relativeError;
+                }
+                double observed = Math.sqrt(squaredErrorSum / TRIALS); // Root-mean-square relative error.
+                assertTrue(observed <= 2 * standardError,
+                        "p=" + precision + " n=" + cardinality + " observed error " + observed);
+            }
+        }
+    }
+
+    @Test
+    void mergeEstimatesTheUnion() {
+        HyperLogLog january = new HyperLogLog(12);
+        HyperLogLog february = new HyperLogLog(12);
+        for (long userId = 1; userId <= 60_000; userId++) {
+            january.add(userId);
+        }
+        for (long userId = 40_001; userId <= 100_000; userId++) {
+            february.add(userId);
+        }
+        january.merge(february);
+        double relativeError = Math.abs(january.estimate() - 100_000) / 100_000.0;
+        assertTrue(relativeError <= 3 * HyperLogLog.standardError(12), "union error " + relativeError);
+    }
+
+    @Test
+    void serializationRoundTrips() {
+        HyperLogLog sketch = new HyperLogLog(11);
+        for (long userId = 1; userId <= 50_000; userId++) {
+            sketch.add(userId);
+        }
+        byte[] bytes = sketch.toBytes();
+        assertEquals(HyperLogLog.serializedSize(11), bytes.length);
+        HyperLogLog restored = HyperLogLog.fromBytes(bytes);
+        assertEquals(sketch.estimate(), restored.estimate());
+        assertArrayEquals(bytes, restored.toBytes());
+    }
+}
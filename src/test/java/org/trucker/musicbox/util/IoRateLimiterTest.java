@@ -0,0 +1,33 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that {@link IoRateLimiter} paces reservations at its rate, lets one second of traffic through at once, and
+ * does not save up more than that while idle.
+ */
+class IoRateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void pacesReservationsAfterOneSecondBurst() {
+        IoRateLimiter limiter = new IoRateLimiter(1000);
+        assertEquals(0, limiter.reserve(1000, 0));
+        assertEquals(0, limiter.reserve(1000, 0));
+        assertEquals(SECOND, limiter.reserve(1000, 0));
+        assertEquals(2 * SECOND, limiter.reserve(1000, 0));
+        assertEquals(SECOND, limiter.reserve(1000, 2 * SECOND));
+    }
+
+    @Test
+    void idleTimeEarnsAtMostOneSecond() {
+        IoRateLimiter limiter = new IoRateLimiter(1000);
+        limiter.reserve(1000, 0);
+        assertEquals(0, limiter.reserve(1000, 60 * SECOND));
+        assertEquals(0, limiter.reserve(1000, 60 * SECOND));
+        assertEquals(SECOND, limiter.reserve(1000, 60 * SECOND));
+    }
+}
@@ -0,0 +1,68 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Behaviour checks for {@link LongLongHashMap} against a {@link HashMap}: entries survive resizing, and backward-shift
+ * deletion keeps every probe chain reachable, also where chains wrap around the end of the table.
+ */
+class LongLongHashMapTest {
+
+    @Test
+    void keepsEveryEntryWhileGrowingFarPastTheExpectedSize() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        for (long key = 1; key <= 100_000; key++) {
+            map.put(key * 7919, -key);
+        }
+        assertEquals(100_000, map.size());
+        for (long key = 1; key <= 100_000; key++) {
+            assertEquals(-key, map.get(key * 7919, 0));
+        }
+        assertEquals(0, map.get(3, 0));
+    }
+
+    @Test
+    void deletesWithoutBreakingProbeChains() {
+        // 128 slots kept between a third and half full by keys from a small range: long chains, many wraparounds.
+        LongLongHashMap map = new LongLongHashMap(64);
+        Map<Long, Long> expected = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(3);
+        for (int op = 0; op < 200_000; op++) {
+            long key = 1 + random.nextInt(1000);
+            if (expected.size() < 40 || (expected.size() < 64 && random.nextBoolean())) {
+                map.put(key, op);
+                expected.put(key, (long) op);
+            } else {
+                Long removed = expected.remove(key);
+                assertEquals(removed == null ? -1 : removed, map.remove(key, -1));
+            }
+            if (op % 1000 == 0) {
+                for (long probe = 1; probe <= 1000; probe++) {
+                    assertEquals(expected.getOrDefault(probe, -1L).longValue(), map.get(probe, -1));
+                }
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        Map<Long, Long> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void addToInsertsAndAccumulates() {
+        LongLongHashMap map = new LongLongHashMap(4);
+        assertEquals(5, map.addTo(42, 5));
+        assertEquals(2, map.addTo(42, -3));
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(42, -1));
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, 1));
+    }
+}
@@ -0,0 +1,124 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour checks for {@link MpscRingBuffer}: a full buffer rejects claims, slots are reused correctly as the sequence
+ * wraps around the array many times, and concurrent producers lose no element.
+ */
+class MpscRingBufferTest {
+
+    private static final class Slot {
+        long key;
+        long value;
+    }
+
+    private static boolean offer(MpscRingBuffer<Slot> buffer, long key, long value) {
+        long sequence = buffer.claim();
+        if (sequence < 0) {
+            return false;
+        }
+        Slot slot = buffer.slot(sequence);
+        slot.key = key;
+        slot.value = value;
+        buffer.publish(sequence);
+        return true;
+    }
+
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertEquals(2, new MpscRingBuffer<>(2, Slot::new).getCapacity());
+        assertEquals(8, new MpscRingBuffer<>(5, Slot::new).getCapacity());
+        assertEquals(8, new MpscRingBuffer<>(8, Slot::new).getCapacity());
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(1, Slot::new));
+    }
+
+    @Test
+    void fullBufferRejectsUntilDrained() {
+        MpscRingBuffer<Slot> buffer = new MpscRingBuffer<>(4, Slot::new);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(offer(buffer, i, 100 + i));
+        }
+        assertFalse(offer(buffer, 4, 104));
+        assertEquals(4, buffer.size());
+
+        List<long[]> drained = new ArrayList<>();
+        assertEquals(1, buffer.drain(slot -> drained.add(new long[]{slot.key, slot.value}), 1));
+        assertArrayEquals(new long[]{0, 100}, drained.get(0));
+        assertTrue(offer(buffer, 4, 104)); // The released slot is free again.
+        assertFalse(offer(buffer, 5, 105));
+        assertEquals(4, buffer.drain(slot -> drained.add(new long[]{slot.key, slot.value}), 10));
+        for (int i = 0; i < 5; i++) {
+            assertArrayEquals(new long[]{i, 100 + i}, drained.get(i));
+        }
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.drain(slot -> drained.add(null), 10));
+    }
+
+    @Test
+    void wrapsAroundWithoutMixingUpSlots() {
+        MpscRingBuffer<Slot> buffer = new MpscRingBuffer<>(8, Slot::new);
+        // Batch sizes of 1 to 7 make successive wraps start on different slots.
+        for (int round = 0; round < 1000; round++) {
+            int batch = 1 + round % 7;
+            long first = round * 10L;
+            for (int i = 0; i < batch; i++) {
+                assertTrue(offer(buffer, first + i, (first + i) * 2));
+            }
+            long[] next = {first};
+            assertEquals(batch, buffer.drain(slot -> {
+                assertEquals(next[0]++, slot.key);
+                assertEquals(slot.key * 2, slot.value);
+            }, batch));
+        }
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    void concurrentProducersLoseNothing() throws Exception {
+        MpscRingBuffer<Slot> buffer = new MpscRingBuffer<>(64, Slot::new);
+        int producers = 4;
+        int perProducer = 20_000;
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            threads[p] = new Thread(() -> {
+                for (long i = 0; i < perProducer; i++) {
+                    while (!offer(buffer, producer, i)) {
+                        LockSupport.parkNanos(1_000); // Parking rather than spinning lets the consumer run on one CPU.
+                    }
+                }
+            });
+            threads[p].start();
+        }
+
+        long[] next = new long[producers];
+        int received = 0;
+        while (received < producers * perProducer) {
+            int drained = buffer.drain(slot -> {
+                assertEquals(next[(int) slot.key], slot.value);
+                next[(int) slot.key]++;
+            }, 100);
+            if (drained == 0) {
+                LockSupport.parkNanos(1_000);
+            }
+            received += drained;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (long count : next) {
+            assertEquals(perProducer, count);
+        }
+    }
+}
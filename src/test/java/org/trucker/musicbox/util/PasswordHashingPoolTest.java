@@ -0,0 +1,103 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.trucker.musicbox.exception.ServiceBusyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Calibration and backpressure checks for {@link PasswordHashingPool}. Calibration is checked against given hash times;
+ * the real hash time per cost on the current machine is measured by {@code PasswordHashingBenchmark} in the benchmarks module.
+ */
+class PasswordHashingPoolTest {
+
+    private static final long TARGET_MILLIS = 250;
+
+    private PasswordHashingPool hashing;
+
+    @AfterEach
+    void tearDown() {
+        if (hashing != null) {
+            hashing.shutdown();
+        }
+    }
+
+    @Test
+    void calibratesToTheHighestCostWithinTarget() {
+        // Cost 4 takes 1 ms and every step doubles it: cost 11 takes 128 ms, cost 12 takes 256 ms.
+        assertEquals(11, PasswordHashingPool.calibrate(TARGET_MILLIS, cost -> 1L << (cost - 4)));
+        assertEquals(12, PasswordHashingPool.calibrate(256, cost -> 1L << (cost - 4)));
+    }
+
+    @Test
+    void calibrationStopsAtTheFirstCostOverTarget() {
+        List<Integer> timed = new ArrayList<>();
+        int calibrated = PasswordHashingPool.calibrate(TARGET_MILLIS, cost -> {
+            timed.add(cost);
+            return cost == 6 ? 1_000 : 1; // A spike at cost 6; higher costs must not be tried.
+        });
+        assertEquals(5, calibrated);
+        assertEquals(List.of(4, 5, 6), timed);
+    }
+
+    @Test
+    void calibrationNeverGoesBelowTheMinimumCost() {
+        assertEquals(4, PasswordHashingPool.calibrate(TARGET_MILLIS, cost -> 10_000));
+    }
+
+    @Test
+    void hashesAndVerifies() {
+        hashing = newPool(4, 2, 8);
+        String hash = hashing.encode("secret");
+        assertTrue(hashing.isHashed(hash));
+        assertFalse(hashing.isHashed("secret"));
+        assertTrue(hashing.matches("secret", hash));
+        assertFalse(hashing.matches("other", hash));
+        assertEquals(1L, hashing.getStats().get("hashed"));
+    }
+
+    @Test
+    void rejectsQuicklyWhenTheQueueIsFull() throws Exception {
+        hashing = newPool(12, 1, 1); // One thread and one queue slot: at most two operations in flight.
+        int callers = 16;
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    hashing.encode("secret");
+                    return true;
+                } catch (ServiceBusyException ex) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get(30, TimeUnit.SECONDS)) {
+                accepted++;
+            }
+        }
+        pool.shutdown();
+        assertTrue(accepted >= 1 && accepted < callers, "accepted " + accepted);
+        assertEquals(callers - accepted, hashing.getStats().get("rejected"));
+    }
+
+    private static PasswordHashingPool newPool(int cost, int threads, int queueCapacity) {
+        return new PasswordHashingPool(cost, TARGET_MILLIS, threads, queueCapacity, 30_000L);
+    }
+}
@@ -0,0 +1,109 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour checks for {@link RoaringBitmap} against a {@link TreeSet}: chunks switch between the array and bitset
+ * forms at 4096 values in both directions without losing or inventing values, and intersections give the same result
+ * whatever forms their inputs have.
+ */
+class RoaringBitmapTest {
+
+    private static final long CHUNK = 1L << 16;
+
+    @Test
+    void switchesContainersBackAndForthAroundTheThreshold() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        TreeSet<Long> expected = new TreeSet<>();
+        SplittableRandom random = new SplittableRandom(1);
+        long base = 3 * CHUNK;
+        // Grow past the threshold, shrink below it, and cross it again, checking after every phase.
+        for (int target : new int[]{5000, 3000, 4500, 4096, 4097, 100, 6000, 0}) {
+            while (expected.size() != target) {
+                long value = base + random.nextInt(1 << 16);
+                if (expected.size() < target) {
+                    assertEquals(expected.add(value), bitmap.add(value));
+                } else {
+                    assertEquals(expected.remove(value), bitmap.remove(value));
+                }
+            }
+            assertSameValues(expected, bitmap);
+        }
+        assertEquals(bitmap.sizeInBytes(), new RoaringBitmap().sizeInBytes()); // Empty chunks are dropped.
+    }
+
+    @Test
+    void denseChunksUseABitset() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (long value = 0; value < CHUNK; value++) {
+            bitmap.add(value);
+        }
+        assertEquals(CHUNK, bitmap.cardinality());
+        // 65,536 values as two-byte entries would take 128 KB; the bitset takes 8 KB.
+        assertTrue(bitmap.sizeInBytes() < 9 * 1024, "size " + bitmap.sizeInBytes());
+    }
+
+    @Test
+    void intersectsEveryCombinationOfContainers() {
+        SplittableRandom random = new SplittableRandom(2);
+        RoaringBitmap left = new RoaringBitmap();
+        RoaringBitmap right = new RoaringBitmap();
+        TreeSet<Long> leftValues = new TreeSet<>();
+        TreeSet<Long> rightValues = new TreeSet<>();
+        // Per chunk: sparse/sparse, sparse/dense, dense/sparse, dense/dense, and dense halves that do not overlap.
+        int[][] densities = {{1000, 2000}, {1000, 30_000}, {30_000, 1000}, {30_000, 20_000}, {8000, 8000}};
+        for (int chunk = 0; chunk < densities.length; chunk++) {
+            fill(left, leftValues, chunk * CHUNK, densities[chunk][0], random);
+            fill(right, rightValues, chunk * CHUNK + (chunk == 4 ? CHUNK / 2 : 0), densities[chunk][1], random);
+        }
+        fill(left, leftValues, 9 * CHUNK, 500, random); // A chunk only on one side.
+
+        TreeSet<Long> expected = new TreeSet<>(leftValues);
+        expected.retainAll(rightValues);
+        assertSameValues(expected, left.and(right));
+        assertSameValues(expected, right.and(left));
+    }
+
+    @Test
+    void rejectsValuesOutsideTheRange() {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        assertTrue(bitmap.add(RoaringBitmap.MAX_VALUE));
+        assertTrue(bitmap.contains(RoaringBitmap.MAX_VALUE));
+        assertFalse(bitmap.contains(RoaringBitmap.MAX_VALUE + 1));
+        assertFalse(bitmap.contains(-1));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(RoaringBitmap.MAX_VALUE + 1));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.remove(-1));
+    }
+
+    private static void fill(RoaringBitmap bitmap, TreeSet<Long> values, long base, int count, SplittableRandom random) {
+        // Values spread over half a chunk, so two halves placed apart do not overlap at all.
+        int added = 0;
+        while (added < count) {
+            long value = base + random.nextInt((int) (CHUNK / 2));
+            if (values.add(value)) {
+                bitmap.add(value);
+                added++;
+            }
+        }
+    }
+
+    private static void assertSameValues(TreeSet<Long> expected, RoaringBitmap bitmap) {
+        assertEquals(expected.size(), bitmap.cardinality());
+        List<Long> actual = new ArrayList<>();
+        bitmap.forEach(actual::add);
+        assertEquals(new ArrayList<>(expected), actual);
+        for (long value : expected) {
+            assertTrue(bitmap.contains(value));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour checks for {@link SingleFlight}: concurrent identical calls share one computation,
+ * failures reach every waiting caller, and finished flights are cleaned up.
+ */
+class SingleFlightTest {
+
+    @Test
+    void concurrentCallsWithTheSameKeyShareOneComputation() throws InterruptedException {
+        SingleFlight<Long, List<String>> flight = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int callers = 32;
+        CountDownLatch done = new CountDownLatch(callers);
+        AtomicReference<List<String>> first = new AtomicReference<>();
+        AtomicInteger sameResult = new AtomicInteger();
+        for (int i = 0; i < callers; i++) {
+            new Thread(() -> {
+                List<String> result = flight.execute(7L, () -> {
+                    computations.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return List.of("song");
+                });
+                first.compareAndSet(null, result);
+                if (first.get() == result) {
+                    sameResult.incrementAndGet();
+                }
+                done.countDown();
+            }).start();
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        // Calls are counted once they hold the flight, so when all are counted none can start a second computation.
+        while (flight.getCalls() < callers) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, computations.get());
+        assertEquals(callers, sameResult.get());
+        assertEquals(callers - 1, flight.getCollapsed());
+        assertEquals(0, flight.getInFlight());
+    }
+
+    @Test
+    void differentKeysDoNotWaitForEachOther() {
+        SingleFlight<String, String> flight = new SingleFlight<>();
+        String outer = flight.execute("a", () -> flight.execute("b", () -> "b") + "a");
+        assertEquals("ba", outer);
+        assertEquals(0, flight.getCollapsed());
+    }
+
+    @Test
+    void failureIsSharedAndTheNextCallRunsAgain() throws InterruptedException {
+        SingleFlight<Long, String> flight = new SingleFlight<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("database down");
+        AtomicReference<Throwable> followerError = new AtomicReference<>();
+        Thread leader = new Thread(() -> {
+            try {
+                flight.execute(1L, () -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw failure;
+                });
+            } catch (IllegalStateException expected) {
+                // The leader sees its own exception.
+            }
+        });
+        leader.start();
+        started.await();
+        Thread follower = new Thread(() -> {
+            try {
+                flight.execute(1L, () -> "not run");
+            } catch (Throwable e) {
+                followerError.set(e);
+            }
+        });
+        follower.start();
+        while (flight.getCalls() < 2) {
+            Thread.onSpinWait(); // The follower holds the leader's flight once it is counted.
+        }
+        release.countDown();
+        leader.join();
+        follower.join();
+        assertSame(failure, followerError.get());
+        assertEquals("again", flight.execute(1L, () -> "again"));
+        assertEquals(2, flight.getExecutions());
+        assertThrows(IllegalArgumentException.class, () -> flight.execute(2L, () -> {
+            throw new IllegalArgumentException();
+        }));
+        assertEquals(0, flight.getInFlight());
+    }
+}
@@ -0,0 +1,74 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link SlidingTopK} ranks the heaviest keys of a skewed stream correctly, merges counts across
+ * buckets, and drops plays once they leave the window.
+ */
+class SlidingTopKTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void ranksHeavyHittersAboveTheLongTail() {
+        SlidingTopK topK = new SlidingTopK(6, 10 * MINUTE, 200);
+        SplittableRandom random = new SplittableRandom(11);
+        long start = 1_000 * MINUTE;
+        // Keys 1-5 get 5000, 4000, ... 1000 plays; 100k plays are spread over 20k tail keys.
+        for (int key = 1; key <= 5; key++) {
+            for (int i = 0; i < (6 - key) * 1000; i++) {
+                topK.record(key, start + random.nextLong(60 * MINUTE));
+            }
+        }
+        for (int i = 0; i < 100_000; i++) {
+            topK.record(100 + random.nextInt(20_000), start + random.nextLong(60 * MINUTE));
+        }
+        List<SlidingTopK.Entry> top = topK.top(5, start + 60 * MINUTE - 1);
+        assertEquals(5, top.size());
+        for (int rank = 0; rank < 5; rank++) {
+            SlidingTopK.Entry entry = top.get(rank);
+            long actual = (5 - rank) * 1000L;
+            assertEquals(rank + 1L, entry.id(), "rank " + rank);
+            assertTrue(entry.count() >= actual && entry.count() - entry.error() <= actual, "count of " + entry.id());
+        }
+    }
+
+    @Test
+    void mergesCountsAcrossBuckets() {
+        SlidingTopK topK = new SlidingTopK(3, MINUTE, 10);
+        long start = 100 * MINUTE;
+        topK.record(7, start);
+        topK.record(7, start + MINUTE);
+        topK.record(8, start + MINUTE);
+        topK.record(7, start + 2 * MINUTE);
+        List<SlidingTopK.Entry> top = topK.top(10, start + 2 * MINUTE);
+        assertEquals(new SlidingTopK.Entry(7, 3, 0), top.get(0));
+        assertEquals(new SlidingTopK.Entry(8, 1, 0), top.get(1));
+    }
+
+    @Test
+    void playsLeaveTheWindowAsItSlides() {
+        SlidingTopK topK = new SlidingTopK(3, MINUTE, 10);
+        long start = 100 * MINUTE;
+        topK.record(1, start);
+        topK.record(1, start);
+        topK.record(2, start + 2 * MINUTE);
+        assertEquals(1L, topK.top(1, start + 2 * MINUTE).get(0).id());
+        // One bucket later the first plays are outside the window, even though their bucket was not recycled yet.
+        List<SlidingTopK.Entry> top = topK.top(10, start + 3 * MINUTE);
+        assertEquals(List.of(new SlidingTopK.Entry(2, 1, 0)), top);
+        // A play in a recycled bucket's slot replaces it; a late play for the old bucket is ignored.
+        topK.record(3, start + 3 * MINUTE);
+        topK.record(3, start + 3 * MINUTE);
+        topK.record(1, start);
+        assertEquals(List.of(new SlidingTopK.Entry(3, 2, 0), new SlidingTopK.Entry(2, 1, 0)),
+                topK.top(10, start + 3 * MINUTE));
+    }
+}
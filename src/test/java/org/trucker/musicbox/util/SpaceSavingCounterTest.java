@@ -0,0 +1,78 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the Space-Saving guarantees of {@link SpaceSavingCounter} on a skewed stream with a known answer:
+ * every heavy hitter is monitored, and each count overestimates the true count by at most its error.
+ */
+class SpaceSavingCounterTest {
+
+    @Test
+    void countsExactlyWhileCountersAreFree() {
+        SpaceSavingCounter counter = new SpaceSavingCounter(4);
+        counter.offer(1, 3);
+        counter.offer(2, 1);
+        counter.offer(1, 2);
+        Map<Long, long[]> entries = entries(counter);
+        assertEquals(2, counter.size());
+        assertEquals(5L, entries.get(1L)[0]);
+        assertEquals(0L, entries.get(1L)[1]);
+        assertEquals(1L, entries.get(2L)[0]);
+    }
+
+    @Test
+    void evictsTheMinimumAndChargesItAsError() {
+        SpaceSavingCounter counter = new SpaceSavingCounter(2);
+        counter.offer(1, 5);
+        counter.offer(2, 2);
+        counter.offer(3, 1); // Evicts key 2, the minimum.
+        Map<Long, long[]> entries = entries(counter);
+        assertEquals(2, counter.size());
+        assertTrue(!entries.containsKey(2L));
+        assertEquals(3L, entries.get(3L)[0]);
+        assertEquals(2L, entries.get(3L)[1]);
+        assertEquals(5L, entries.get(1L)[0]);
+    }
+
+    @Test
+    void monitorsEveryHeavyHitterWithBoundedError() {
+        int capacity = 100;
+        SpaceSavingCounter counter = new SpaceSavingCounter(capacity);
+        Map<Long, Long> truth = new HashMap<>();
+        SplittableRandom random = new SplittableRandom(7);
+        long total = 200_000;
+        for (long i = 0; i < total; i++) {
+            // A quarter of the stream goes to ten hot keys, the rest to 50k keys played a few times each.
+            long key = random.nextInt(4) == 0 ? 1 + random.nextInt(10) : 1_000 + random.nextInt(50_000);
+            counter.offer(key, 1);
+            truth.merge(key, 1L, Long::sum);
+        }
+        Map<Long, long[]> entries = entries(counter);
+        for (Map.Entry<Long, Long> key : truth.entrySet()) {
+            if (key.getValue() > total / capacity) {
+                assertTrue(entries.containsKey(key.getKey()), "heavy hitter " + key.getKey() + " not monitored");
+            }
+        }
+        for (Map.Entry<Long, long[]> entry : entries.entrySet()) {
+            long actual = truth.get(entry.getKey());
+            long estimate = entry.getValue()[0];
+            long error = entry.getValue()[1];
+            assertTrue(estimate >= actual && estimate - error <= actual, "key " + entry.getKey());
+            assertTrue(error <= total / capacity, "error " + error);
+        }
+    }
+
+    private static Map<Long, long[]> entries(SpaceSavingCounter counter) {
+        Map<Long, long[]> entries = new HashMap<>();
+        counter.forEach((key, count, error) -> entries.put(key, new long[]{count, error}));
+        return entries;
+    }
+}
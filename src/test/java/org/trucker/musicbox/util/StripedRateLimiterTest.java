@@ -0,0 +1,59 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour checks for {@link StripedRateLimiter}.
+ * The cost under contention is measured by {@code StripedRateLimiterBenchmark} in the benchmarks module.
+ */
+class StripedRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsBurstThenRefillsLazily() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1024);
+        long key = HyperLogLog.mix64(42);
+        long interval = SECOND / 10; // 10 requests per second.
+        long now = 1_000_000_000L;
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire(key, interval, 5, now), "request " + i);
+        }
+        long wait = limiter.tryAcquire(key, interval, 5, now);
+        assertEquals(interval, wait);
+        assertEquals(0, limiter.tryAcquire(key, interval, 5, now + interval));
+        assertTrue(limiter.tryAcquire(key, interval, 5, now + interval) > 0);
+        // After being idle for a full bucket's worth of time the whole burst is available again.
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire(key, interval, 5, now + 10 * SECOND));
+        }
+    }
+
+    @Test
+    void keysDoNotShareBuckets() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1024);
+        long now = 1_000_000_000L;
+        assertEquals(0, limiter.tryAcquire(HyperLogLog.mix64(1), SECOND, 1, now));
+        assertTrue(limiter.tryAcquire(HyperLogLog.mix64(1), SECOND, 1, now) > 0);
+        assertEquals(0, limiter.tryAcquire(HyperLogLog.mix64(2), SECOND, 1, now));
+    }
+
+    @Test
+    void idleBucketsAreReusedSoMemoryStaysBounded() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1024);
+        long now = 1_000_000_000L;
+        // Ten waves of 512 new clients, each wave arriving once the previous one has gone idle: 5x more clients than buckets.
+        for (int round = 0; round < 10; round++) {
+            long roundStart = now + round * 2 * SECOND;
+            for (long client = 0; client < 512; client++) {
+                limiter.tryAcquire(HyperLogLog.mix64(round * 1024L + client), SECOND, 1, roundStart);
+            }
+        }
+        assertTrue(limiter.getOverflows() < 256, "overflows " + limiter.getOverflows());
+    }
+}
@@ -0,0 +1,48 @@
+package org.trucker.musicbox.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks {@link ZipfDistribution} against the exact probabilities of a small distribution, and its range on a large one.
+ */
+class ZipfDistributionTest {
+
+    @Test
+    void frequenciesMatchTheProbabilities() {
+        int n = 10;
+        int samples = 1_000_000;
+        for (double exponent : new double[]{0, 0.8, 1.0, 1.5}) {
+            ZipfDistribution zipf = new ZipfDistribution(n, exponent);
+            SplittableRandom random = new SplittableRandom(42);
+            long[] counts = new long[n + 1];
+            for (int i = 0; i < samples; i++) {
+                counts[(int) zipf.sample(random)]++;
+            }
+            double normalization = 0;
+            for (int k = 1; k <= n; k++) {
+                normalization += Math.pow(k, -exponent);
+            }
+            for (int k = 1; k <= n; k++) {
+                double expected = Math.pow(k, -exponent) / normalization;
+                assertEquals(expected, counts[k] / (double) samples, 0.005, "exponent " + exponent + ", rank " + k);
+            }
+        }
+    }
+
+    @Test
+    void largeDistributionsStayInRangeAndAreReproducible() {
+        ZipfDistribution zipf = new ZipfDistribution(50_000_000L, 1.0);
+        SplittableRandom first = new SplittableRandom(7);
+        SplittableRandom second = new SplittableRandom(7);
+        for (int i = 0; i < 100_000; i++) {
+            long rank = zipf.sample(first);
+            assertTrue(rank >= 1 && rank <= 50_000_000L, "rank " + rank);
+            assertEquals(rank, zipf.sample(second));
+        }
+    }
+}